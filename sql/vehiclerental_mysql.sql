@@ -41,6 +41,9 @@ CREATE TABLE IF NOT EXISTS rentals (
 );
 
 
+-- Indexes and later schema changes are applied by the application at startup
+-- (src/main/resources/db/migration, see MigrationRunner).
+
 INSERT INTO users (username, password, role, name, phone, email, address) VALUES
 ('admin1', 'adminpass', 'ADMIN', 'Alice Admin', '111-222-3333', 'admin1@example.com', 'Admin St'),
 ('user1', 'userpass', 'CUSTOMER', 'Bob User', '444-555-6666', 'user1@example.com', 'User Rd');
@@ -1,9 +1,32 @@
 package com.vehiclerental;
 
+import com.vehiclerental.dao.QueryPlanCheck;
+import com.vehiclerental.dao.Storage;
 import com.vehiclerental.services.MainMenu;
+import com.vehiclerental.utils.MigrationRunner;
+import com.vehiclerental.utils.StartupReport;
+import java.sql.SQLException;
 
 public class Main {
     public static void main(String[] args) {
+        StartupReport report = StartupReport.boot();
+        // the in-memory and embedded storage backends have no schema to migrate
+        if (Storage.configuredKind() == Storage.Kind.JDBC) {
+            migrate(report);
+        }
         MainMenu.start();
+        MainMenu.shutdown();
+    }
+
+    private static void migrate(StartupReport report) {
+        try {
+            report.run("migrations", () -> new MigrationRunner().migrate());
+            if (!Boolean.getBoolean("vehiclerental.skipPlanCheck")) {
+                report.time("plan.check", () -> new QueryPlanCheck().run())
+                        .forEach(w -> System.out.println("Query plan warning: " + w));
+            }
+        } catch (SQLException e) {
+            System.out.println("Failed to migrate database schema: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,17 @@
+package com.vehiclerental.dao;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk DAO write. Rows not listed in {@link #failures()} were committed.
+ * Each failure carries the row's position in the submitted collection, its key and the database message.
+ */
+public record BatchResult(int attempted, int succeeded, List<RowFailure> failures) {
+
+    public record RowFailure(int index, String key, String message) { }
+
+    //True when every submitted row was written.
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+}
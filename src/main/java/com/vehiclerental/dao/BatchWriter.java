@@ -0,0 +1,89 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.utils.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * Shared chunked JDBC batch runner used by the bulk DAO methods.
+ * Each chunk of batchSize rows is sent as one JDBC batch (rewritten into multi-row statements by the
+ * driver, see rewriteBatchedStatements in DatabaseConnection) and committed as one transaction.
+ * If a chunk fails it is rolled back and replayed row by row so that the good rows are still written
+ * and every bad row is reported individually.
+ */
+final class BatchWriter {
+
+    static final int DEFAULT_BATCH_SIZE = Integer.getInteger("vehiclerental.batchSize", 500);
+
+    //Binds one row's values onto the statement.
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement stmt, T row) throws SQLException;
+    }
+
+    static <T> BatchResult write(List<T> rows, int batchSize, String sql,
+                                 Binder<T> binder, Function<T, String> keyOf) throws SQLException {
+        List<BatchResult.RowFailure> failures = new ArrayList<>();
+        int succeeded = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    int to = Math.min(from + batchSize, rows.size());
+                    try {
+                        for (int i = from; i < to; i++) {
+                            binder.bind(stmt, rows.get(i));
+                            stmt.addBatch();
+                        }
+                        int[] counts = stmt.executeBatch();
+                        conn.commit();
+                        for (int i = 0; i < counts.length; i++) {
+                            if (counts[i] == 0) {
+                                T row = rows.get(from + i);
+                                failures.add(new BatchResult.RowFailure(from + i, keyOf.apply(row), "No matching row"));
+                            } else {
+                                succeeded++;
+                            }
+                        }
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        stmt.clearBatch();
+                        succeeded += replayRowByRow(conn, stmt, rows, from, to, binder, keyOf, failures);
+                    }
+                }
+            }
+        }
+        return new BatchResult(rows.size(), succeeded, failures);
+    }
+
+    //Writes a failed chunk one row per transaction, collecting the rows that still fail.
+    private static <T> int replayRowByRow(Connection conn, PreparedStatement stmt, List<T> rows, int from, int to,
+                                          Binder<T> binder, Function<T, String> keyOf,
+                                          List<BatchResult.RowFailure> failures) throws SQLException {
+        int succeeded = 0;
+        for (int i = from; i < to; i++) {
+            T row = rows.get(i);
+            try {
+                binder.bind(stmt, row);
+                int count = stmt.executeUpdate();
+                conn.commit();
+                if (count == 0) {
+                    failures.add(new BatchResult.RowFailure(i, keyOf.apply(row), "No matching row"));
+                } else {
+                    succeeded++;
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                failures.add(new BatchResult.RowFailure(i, keyOf.apply(row), e.getMessage()));
+            }
+        }
+        return succeeded;
+    }
+
+    private BatchWriter() { }
+}
@@ -0,0 +1,41 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.utils.UnitOfWork;
+import java.sql.SQLException;
+
+/**
+ * Writes a new booking as a single transaction: the versioned vehicle row update and the rentals insert
+ * commit together on one connection, so a failure between them can no longer leave a rented vehicle
+ * without its rental row (and a booking costs one commit instead of two).
+ * The in-memory and embedded repositories join the same unit through UnitOfWork.onRollback.
+ */
+public class BookingDAO {
+
+    private final VehicleRepository vehicleDAO;
+    private final RentalRepository rentalDAO;
+
+    public BookingDAO() {
+        this(new VehicleDAO(), new RentalDAO());
+    }
+
+    public BookingDAO(VehicleRepository vehicleDAO, RentalRepository rentalDAO) {
+        this.vehicleDAO = vehicleDAO;
+        this.rentalDAO = rentalDAO;
+    }
+
+    /*Saves the vehicle's new rental state and logs the booking's rental row in one transaction and returns the
+    generated rental id. Throws StaleVehicleException (nothing written) if another instance changed the vehicle.*/
+    public long commitBooking(Vehicle vehicle, Vehicle rental) throws SQLException {
+        long version = vehicle.getVersion();
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            vehicleDAO.updateVehicle(vehicle);
+            long rentalId = rentalDAO.insertRental(rental);
+            unit.commit();
+            return rentalId;
+        } catch (SQLException | RuntimeException e) {
+            vehicle.setVersion(version); // rolled back, so the row kept its old version
+            throw e;
+        }
+    }
+}
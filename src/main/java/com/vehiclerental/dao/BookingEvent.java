@@ -0,0 +1,28 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Booking;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * One booking state change as recorded in the BookingJournal. sequence numbers are assigned by the journal and
+ * increase by one per event; at is the local time the change was made. The booking is the state after the change
+ * (for PAID, the paid copy).
+ */
+public record BookingEvent(long sequence, Type type, LocalDateTime at, Booking booking) {
+
+    // stored by ordinal in the journal: only ever add new types at the end
+    public enum Type {
+        RENTED, RETURNED, CANCELLED, PAID;
+
+        //True for the events that end a booking.
+        public boolean ends() {
+            return this == RETURNED || this == CANCELLED;
+        }
+    }
+
+    //Identifies the booking the event belongs to: a vehicle never has two bookings starting at the same time.
+    public String bookingKey() {
+        return booking.vehicleId().toUpperCase(Locale.ROOT) + '@' + booking.start();
+    }
+}
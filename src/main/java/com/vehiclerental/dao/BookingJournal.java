@@ -0,0 +1,374 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Booking;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+ * Local append-only journal of booking events (rented, returned, cancelled, paid).
+ * Events are appended to the active segment file (journal-<first sequence>.log) with plain sequential writes.
+ * append() returns once the event is on disk, but appenders share fsyncs: whoever syncs first forces every
+ * event written so far, so a burst of concurrent bookings costs one fsync rather than one each.
+ * Record layout (big-endian): body length, CRC32 of the body, then sequence, type, time and the booking.
+ * A segment is sealed once it reaches segmentBytes. When compactAfterSegments sealed segments have piled up
+ * they are rewritten on a background thread into one, dropping bookings that ended at or before the watermark
+ * (the sequence up to which the database is known to hold every change); every other event is kept as written.
+ * On open, a torn record left at the end of the active segment by a crash is cut off.
+ */
+public final class BookingJournal implements AutoCloseable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    private final JournalConfig config;
+    // guards appends, rolls and the segment list
+    private final Object writeLock = new Object();
+    // one fsync at a time; appenders queue here and usually find their event already synced
+    private final Object syncLock = new Object();
+    private final Object compactLock = new Object();
+    private final List<Path> sealed = new ArrayList<>();
+    private final AtomicLong synced = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final ExecutorService compactor;
+    private volatile LongSupplier watermark = synced::get;
+    private volatile Runnable beforeSync = () -> { };
+    private List<BookingEvent> recovered;
+    private Path activePath;
+    private FileChannel active;
+    private long activeSize;
+    private long lastSequence;
+    private boolean closed;
+
+    //Opens (or creates) the journal in the configured directory and reads back the events it holds.
+    public BookingJournal(JournalConfig config) throws IOException {
+        this.config = config;
+        Files.createDirectories(config.dir());
+        List<Path> segments = segmentFiles();
+        if (segments.isEmpty()) {
+            activePath = segmentPath(1);
+        } else {
+            activePath = segments.get(segments.size() - 1);
+            sealed.addAll(segments.subList(0, segments.size() - 1));
+            Segment tail = readSegment(activePath);
+            if (tail.validBytes() < tail.size()) {
+                System.out.println("Booking journal: dropping " + (tail.size() - tail.validBytes())
+                        + " bytes of an incomplete record at the end of " + activePath.getFileName());
+                try (FileChannel channel = FileChannel.open(activePath, StandardOpenOption.WRITE)) {
+                    channel.truncate(tail.validBytes());
+                    channel.force(true);
+                }
+            }
+        }
+        this.recovered = read(segments);
+        this.lastSequence = recovered.isEmpty() ? 0 : recovered.get(recovered.size() - 1).sequence();
+        this.synced.set(lastSequence);
+        this.active = openSegment(activePath);
+        this.activeSize = active.size();
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "journal-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    //Returns the events found when the journal was opened, oldest first, and lets go of them.
+    public synchronized List<BookingEvent> recovered() {
+        List<BookingEvent> events = recovered == null ? List.of() : recovered;
+        recovered = null;
+        return events;
+    }
+
+    //Sets the sequence up to which ended bookings may be dropped by compaction (defaults to everything synced).
+    public void setWatermark(LongSupplier watermark) {
+        this.watermark = watermark;
+    }
+
+    //Appends an event and returns its sequence number once it is on disk.
+    public long append(BookingEvent.Type type, Booking booking) throws IOException {
+        long sequence;
+        synchronized (writeLock) {
+            if (closed) throw new IOException("Booking journal is closed");
+            sequence = lastSequence + 1;
+            ByteBuffer record = encode(new BookingEvent(sequence, type, LocalDateTime.now(), booking));
+            if (activeSize > 0 && activeSize + record.remaining() > config.segmentBytes()) roll(sequence);
+            long before = activeSize;
+            try {
+                while (record.hasRemaining()) active.write(record);
+            } catch (IOException e) {
+                active.truncate(before); // never leave a partial record in front of the next one
+                throw e;
+            }
+            activeSize = before + record.limit();
+            lastSequence = sequence;
+        }
+        sync(sequence);
+        return sequence;
+    }
+
+    //Returns the sequence number of the last appended event.
+    public long lastSequence() {
+        synchronized (writeLock) {
+            return lastSequence;
+        }
+    }
+
+    //Returns how many fsyncs appends have needed so far (fewer than appends when they were grouped).
+    public long syncCount() {
+        return syncs.get();
+    }
+
+    //Runs the given action whenever an fsync is about to start; tests use it to hold one back while others queue.
+    public void beforeSync(Runnable action) {
+        this.beforeSync = action;
+    }
+
+    //Forces every event written so far unless another appender's fsync already covered the given sequence.
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (synced.get() >= sequence) return;
+            beforeSync.run();
+            FileChannel channel;
+            long upTo;
+            synchronized (writeLock) {
+                channel = active;
+                upTo = lastSequence;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // the segment was sealed meanwhile, which forces it first
+                if (synced.get() >= sequence) return;
+                throw e;
+            }
+            synced.accumulateAndGet(upTo, Math::max);
+            syncs.incrementAndGet();
+        }
+    }
+
+    //Seals the active segment and starts a new one whose first event is the given sequence. The caller holds writeLock.
+    private void roll(long nextSequence) throws IOException {
+        Path next = segmentPath(nextSequence);
+        active.force(false);
+        synced.accumulateAndGet(lastSequence, Math::max);
+        active.close();
+        sealed.add(activePath);
+        activePath = next;
+        active = openSegment(next);
+        activeSize = 0;
+        if (config.compactAfterSegments() > 0 && sealed.size() >= config.compactAfterSegments()) {
+            compactor.execute(() -> {
+                try {
+                    compact(watermark.getAsLong());
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Failed to compact booking journal: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /*Rewrites the sealed segments into one, leaving out every booking whose last event in them ends it at or
+    before upToSequence. The result replaces the oldest sealed segment; the others are then deleted. A crash in
+    between leaves events in two files, which read() skips by sequence number.*/
+    public void compact(long upToSequence) throws IOException {
+        synchronized (compactLock) {
+            List<Path> inputs;
+            synchronized (writeLock) {
+                inputs = new ArrayList<>(sealed);
+            }
+            if (inputs.isEmpty()) return;
+            List<BookingEvent> events = read(inputs);
+            Map<String, BookingEvent> latest = new HashMap<>();
+            for (BookingEvent event : events) latest.put(event.bookingKey(), event);
+
+            Path target = inputs.get(0);
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (BookingEvent event : events) {
+                    BookingEvent last = latest.get(event.bookingKey());
+                    if (last.type().ends() && last.sequence() <= upToSequence) continue;
+                    ByteBuffer record = encode(event);
+                    while (record.hasRemaining()) out.write(record);
+                }
+                out.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            for (Path merged : inputs.subList(1, inputs.size())) {
+                Files.deleteIfExists(merged);
+            }
+            synchronized (writeLock) {
+                sealed.removeAll(inputs.subList(1, inputs.size()));
+            }
+        }
+    }
+
+    //Syncs and closes the active segment and stops the compactor. Later appends fail.
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            if (closed) return;
+            closed = true;
+            try {
+                active.force(false);
+                active.close();
+            } catch (IOException e) {
+                System.out.println("Failed to close booking journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(config.dir())) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return config.dir().resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+    }
+
+    private static FileChannel openSegment(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    //Reads the events of the given segments in sequence order, skipping any sequence already read.
+    private static List<BookingEvent> read(List<Path> segments) throws IOException {
+        List<BookingEvent> events = new ArrayList<>();
+        long last = 0;
+        for (Path segment : segments) {
+            for (BookingEvent event : readSegment(segment).events()) {
+                if (event.sequence() > last) {
+                    events.add(event);
+                    last = event.sequence();
+                }
+            }
+        }
+        return events;
+    }
+
+    private record Segment(List<BookingEvent> events, long validBytes, long size) { }
+
+    //Reads a segment through a memory-mapped buffer, stopping at the first incomplete or corrupt record.
+    private static Segment readSegment(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            List<BookingEvent> events = new ArrayList<>();
+            while (in.remaining() >= HEADER_BYTES) {
+                int start = in.position();
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) {
+                    in.position(start);
+                    break;
+                }
+                ByteBuffer body = in.slice(in.position(), length);
+                CRC32 crc = new CRC32();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    in.position(start);
+                    break;
+                }
+                events.add(decode(body));
+                in.position(in.position() + length);
+            }
+            return new Segment(events, in.position(), size);
+        }
+    }
+
+    private static ByteBuffer encode(BookingEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0); // header, filled in below
+        out.writeLong(event.sequence());
+        out.writeByte(event.type().ordinal());
+        writeTime(out, event.at());
+        Booking booking = event.booking();
+        writeString(out, booking.vehicleId());
+        writeString(out, booking.rentedBy());
+        writeTime(out, booking.start());
+        writeTime(out, booking.end());
+        out.writeBoolean(booking.paid());
+        out.flush();
+
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, record.limit() - HEADER_BYTES);
+        record.putInt(0, record.limit() - HEADER_BYTES);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private static BookingEvent decode(ByteBuffer in) {
+        long sequence = in.getLong();
+        BookingEvent.Type type = BookingEvent.Type.values()[in.get()];
+        LocalDateTime at = readTime(in);
+        Booking booking = new Booking(readString(in), readString(in), readTime(in), readTime(in), in.get() != 0);
+        return new BookingEvent(sequence, type, at, booking);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer in) {
+        return LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+    }
+}
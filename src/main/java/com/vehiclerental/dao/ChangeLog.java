@@ -0,0 +1,35 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.User;
+import com.vehiclerental.models.Vehicle;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/*
+ * Receives every change the in-memory repositories make, before it is applied, so the embedded store can write
+ * it to its log (see EmbeddedLog). A failed write fails the change. The plain in-memory store logs nothing.
+ */
+interface ChangeLog {
+
+    ChangeLog NONE = new ChangeLog() { };
+
+    default void vehicleSaved(Vehicle row, LocalDateTime at) throws IOException { }
+
+    default void vehicleDeleted(String id, LocalDateTime at) throws IOException { }
+
+    //A rolled-back change: the vehicle's row and tombstone are set back as given, a null row or time meaning none.
+    default void vehicleRestored(String id, Vehicle row, LocalDateTime updatedAt, String deletedId,
+                                 LocalDateTime deletedAt) throws IOException { }
+
+    default void rentalSaved(InMemoryRentalRepository.Row row) throws IOException { }
+
+    default void rentalRemoved(long id) throws IOException { }
+
+    default void userSaved(User user, LocalDateTime at) throws IOException { }
+
+    default void userDeleted(String username, LocalDateTime at) throws IOException { }
+
+    //A rolled-back change: the user's row and tombstone are set back as given, a null row or time meaning none.
+    default void userRestored(String username, User row, LocalDateTime updatedAt, String deletedUsername,
+                              LocalDateTime deletedAt) throws IOException { }
+}
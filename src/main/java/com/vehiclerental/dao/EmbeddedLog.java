@@ -0,0 +1,338 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.User;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.models.VehicleType;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/*
+ * The file behind the embedded storage backend: an append-only log (storage.log) of every row the in-memory
+ * repositories write or delete. Opening it replays the log into the repositories, then rewrites it holding only
+ * their current rows and tombstones, so the file stays proportional to the data rather than to its history.
+ * Record layout (big-endian): body length, CRC32 of the body, then a kind byte and the row. A rolled-back change
+ * is logged as a restore record holding the row and tombstone from before it, so replay neither keeps the change
+ * nor invents a deletion. A torn record at the end, left by a crash, is dropped on open.
+ * Appends are plain writes, visible to the next open even if the process dies; the file is only forced to disk on
+ * close, so a power failure can lose the latest changes. That is enough for offline load tests, benchmarks and CI.
+ */
+final class EmbeddedLog implements ChangeLog, AutoCloseable {
+
+    static final String FILE_NAME = "storage.log";
+
+    private static final byte VEHICLE = 1;
+    private static final byte VEHICLE_DELETED = 2;
+    private static final byte RENTAL = 3;
+    private static final byte RENTAL_REMOVED = 4;
+    private static final byte USER = 5;
+    private static final byte USER_DELETED = 6;
+    private static final byte VEHICLE_RESTORED = 7;
+    private static final byte USER_RESTORED = 8;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path dir;
+    private final Path file;
+    private FileChannel channel;
+
+    EmbeddedLog(Path dir) {
+        this.dir = dir;
+        this.file = dir.resolve(FILE_NAME);
+    }
+
+    //Replays the log into the repositories, compacts it and opens it for appending.
+    synchronized void open(InMemoryVehicleRepository vehicles, InMemoryRentalRepository rentals,
+                           InMemoryUserRepository users) throws IOException {
+        Files.createDirectories(dir);
+        if (Files.exists(file)) replay(vehicles, rentals, users);
+
+        Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+        channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            vehicles.writeTo(this);
+            rentals.writeTo(this);
+            users.writeTo(this);
+            channel.force(true);
+        } finally {
+            channel.close();
+            channel = null;
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void replay(InMemoryVehicleRepository vehicles, InMemoryRentalRepository rentals,
+                        InMemoryUserRepository users) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    buffer.position(start);
+                    break;
+                }
+                ByteBuffer body = buffer.slice(buffer.position(), length);
+                CRC32 crc = new CRC32();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    buffer.position(start);
+                    break;
+                }
+                apply(body, vehicles, rentals, users);
+                buffer.position(buffer.position() + length);
+            }
+            if (buffer.hasRemaining()) {
+                System.out.println("Embedded storage: dropping " + buffer.remaining()
+                        + " bytes of an incomplete record at the end of " + file.getFileName());
+            }
+        }
+    }
+
+    private static void apply(ByteBuffer in, InMemoryVehicleRepository vehicles, InMemoryRentalRepository rentals,
+                              InMemoryUserRepository users) throws IOException {
+        byte kind = in.get();
+        switch (kind) {
+            case VEHICLE -> {
+                LocalDateTime at = readTime(in);
+                vehicles.restore(readVehicle(in), at);
+            }
+            case VEHICLE_DELETED -> vehicles.restoreDeletion(readString(in), readTime(in));
+            case VEHICLE_RESTORED -> {
+                String id = readString(in);
+                LocalDateTime updatedAt = readTime(in);
+                Vehicle row = updatedAt == null ? null : readVehicle(in);
+                vehicles.restoreState(id, row, updatedAt, readString(in), readTime(in));
+            }
+            case RENTAL -> rentals.restore(new InMemoryRentalRepository.Row(in.getLong(), readString(in),
+                    readString(in), readTime(in), readTime(in), in.getDouble(), in.get() != 0, readString(in),
+                    readString(in), readTime(in)));
+            case RENTAL_REMOVED -> rentals.restoreRemoval(in.getLong());
+            case USER -> {
+                LocalDateTime at = readTime(in);
+                users.restore(readUser(in), at);
+            }
+            case USER_DELETED -> users.restoreDeletion(readString(in), readTime(in));
+            case USER_RESTORED -> {
+                String username = readString(in);
+                LocalDateTime updatedAt = readTime(in);
+                User row = updatedAt == null ? null : readUser(in);
+                users.restoreState(username, row, updatedAt, readString(in), readTime(in));
+            }
+            default -> throw new IOException("Unknown record kind in storage log: " + kind);
+        }
+    }
+
+    @Override
+    public void vehicleSaved(Vehicle row, LocalDateTime at) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VEHICLE);
+        writeTime(out, at);
+        writeVehicle(out, row);
+        append(bytes);
+    }
+
+    @Override
+    public void vehicleDeleted(String id, LocalDateTime at) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VEHICLE_DELETED);
+        writeString(out, id);
+        writeTime(out, at);
+        append(bytes);
+    }
+
+    //The row's update time doubles as its presence flag: a null time is followed by no row.
+    @Override
+    public void vehicleRestored(String id, Vehicle row, LocalDateTime updatedAt, String deletedId,
+                                LocalDateTime deletedAt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VEHICLE_RESTORED);
+        writeString(out, id);
+        writeTime(out, row == null ? null : updatedAt);
+        if (row != null) writeVehicle(out, row);
+        writeString(out, deletedId);
+        writeTime(out, deletedAt);
+        append(bytes);
+    }
+
+    @Override
+    public void rentalSaved(InMemoryRentalRepository.Row row) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RENTAL);
+        out.writeLong(row.id());
+        writeString(out, row.vehicleId());
+        writeString(out, row.rentedBy());
+        writeTime(out, row.start());
+        writeTime(out, row.end());
+        out.writeDouble(row.totalPrice());
+        out.writeBoolean(row.paid());
+        writeString(out, row.vehicleType());
+        writeString(out, row.status());
+        writeTime(out, row.updatedAt());
+        append(bytes);
+    }
+
+    @Override
+    public void rentalRemoved(long id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RENTAL_REMOVED);
+        out.writeLong(id);
+        append(bytes);
+    }
+
+    @Override
+    public void userSaved(User user, LocalDateTime at) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(USER);
+        writeTime(out, at);
+        writeUser(out, user);
+        append(bytes);
+    }
+
+    @Override
+    public void userDeleted(String username, LocalDateTime at) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(USER_DELETED);
+        writeString(out, username);
+        writeTime(out, at);
+        append(bytes);
+    }
+
+    //Laid out like vehicleRestored.
+    @Override
+    public void userRestored(String username, User row, LocalDateTime updatedAt, String deletedUsername,
+                             LocalDateTime deletedAt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(USER_RESTORED);
+        writeString(out, username);
+        writeTime(out, row == null ? null : updatedAt);
+        if (row != null) writeUser(out, row);
+        writeString(out, deletedUsername);
+        writeTime(out, deletedAt);
+        append(bytes);
+    }
+
+    //Frames one record body and writes it at the end of the file.
+    private synchronized void append(ByteArrayOutputStream body) throws IOException {
+        if (channel == null) throw new IOException("Embedded storage is closed");
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + bytes.length);
+        record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+        while (record.hasRemaining()) channel.write(record);
+    }
+
+    //Forces the log to disk and closes it. Later writes fail.
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) return;
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static void writeVehicle(DataOutputStream out, Vehicle row) throws IOException {
+        writeString(out, row.getVehicleType());
+        writeString(out, row.getId());
+        writeString(out, row.getBrand());
+        writeString(out, row.getModel());
+        out.writeDouble(row.getPricePerDay());
+        out.writeBoolean(row.isAvailable());
+        out.writeBoolean(row.isRented());
+        writeTime(out, row.getRentStartDateTime());
+        writeTime(out, row.getRentEndDateTime());
+        out.writeBoolean(row.isPaid());
+        writeString(out, row.getRentedBy());
+        out.writeLong(row.getVersion());
+    }
+
+    private static Vehicle readVehicle(ByteBuffer in) throws IOException {
+        String label = readString(in);
+        VehicleType type = VehicleType.of(label);
+        if (type == null) throw new IOException("Unknown vehicle type in storage log: " + label);
+        Vehicle vehicle = type.newVehicle(readString(in), readString(in), readString(in), in.getDouble());
+        vehicle.setAvailable(in.get() != 0);
+        vehicle.setRented(in.get() != 0);
+        vehicle.setRentStartDateTime(readTime(in));
+        vehicle.setRentEndDateTime(readTime(in));
+        vehicle.setPaid(in.get() != 0);
+        vehicle.setRentedBy(readString(in));
+        vehicle.setVersion(in.getLong());
+        return vehicle;
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        writeString(out, user.getUsername());
+        writeString(out, user.getPassword());
+        writeString(out, user.getRole());
+        writeString(out, user.getName());
+        writeString(out, user.getEmail());
+        writeString(out, user.getPhone());
+        writeString(out, user.getAddress());
+    }
+
+    private static User readUser(ByteBuffer in) {
+        return new User(readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in), readString(in));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time == null) return;
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer in) {
+        if (in.get() == 0) return null;
+        return LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,14 @@
+package com.vehiclerental.dao;
+
+/**
+ * Thrown by {@link OffHeapFleetStore} when a write does not fit its fixed capacities (vehicle records, booking
+ * records, string dictionary, or the width of the inline renter name). The store stays usable for what it holds.
+ */
+public class FleetStoreFullException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FleetStoreFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,359 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.RentalRecord;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.models.VehicleType;
+import com.vehiclerental.utils.UnitOfWork;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rental storage held in memory, with the same semantics as the rentals table: generated ids, the booking
+ * status lifecycle (see RentalDAO) and change times for snapshot reconciliation.
+ * Live bookings are also indexed by vehicle, so the booking lookups VehicleManager makes per change do not scan
+ * the whole history. Vehicle IDs and usernames are matched ignoring case, like MySQL's default collation.
+ * Writes made inside a UnitOfWork are undone if the unit rolls back.
+ */
+public class InMemoryRentalRepository implements RentalRepository {
+
+    //One rentals row. Rows are immutable: a change stores a new row under the same id.
+    record Row(long id, String vehicleId, String rentedBy, LocalDateTime start, LocalDateTime end,
+               double totalPrice, boolean paid, String vehicleType, String status, LocalDateTime updatedAt) {
+
+        boolean isBooked() {
+            return RentalDAO.STATUS_BOOKED.equals(status);
+        }
+
+        boolean matches(Booking booking) {
+            return vehicleId.equalsIgnoreCase(booking.vehicleId()) && start.equals(booking.start())
+                    && rentedBy.equalsIgnoreCase(booking.rentedBy());
+        }
+
+        Row withStatus(String newStatus, LocalDateTime at) {
+            return new Row(id, vehicleId, rentedBy, start, end, totalPrice, paid, vehicleType, newStatus, at);
+        }
+
+        Row withPaid(LocalDateTime at) {
+            return new Row(id, vehicleId, rentedBy, start, end, totalPrice, true, vehicleType, status, at);
+        }
+
+        RentalRecord toRecord() {
+            return new RentalRecord(id, vehicleId, rentedBy, start, end, totalPrice, paid, vehicleType);
+        }
+
+        Booking toBooking() {
+            return new Booking(vehicleId, rentedBy, start, end, paid);
+        }
+
+        //Builds the Vehicle the history screens show, with the same fallback values as RentalDAO.
+        Vehicle toVehicle() {
+            VehicleType type = VehicleType.of(vehicleType);
+            if (type == null) return null;
+            Vehicle vehicle = type.newVehicle(vehicleId, "Unknown", "Unknown", totalPrice);
+            vehicle.setRentedBy(rentedBy);
+            vehicle.setRentStartDateTime(start);
+            vehicle.setRentEndDateTime(end);
+            vehicle.setPaid(paid);
+            return vehicle;
+        }
+    }
+
+    private static final Comparator<Row> NEWEST_FIRST =
+            Comparator.comparing(Row::start).thenComparingLong(Row::id).reversed();
+
+    private final TreeMap<Long, Row> rows = new TreeMap<>();
+    // ids of the BOOKED rows of each vehicle, by upper-cased vehicle ID
+    private final Map<String, Set<Long>> booked = new HashMap<>();
+    private final ChangeLog log;
+    private long nextId = 1;
+
+    public InMemoryRentalRepository() {
+        this(ChangeLog.NONE);
+    }
+
+    InMemoryRentalRepository(ChangeLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public void logRental(Vehicle vehicle) {
+        try {
+            insertRental(vehicle);
+        } catch (SQLException e) {
+            System.out.println("Failed to log rental: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized long insertRental(Vehicle vehicle) throws SQLException {
+        if (vehicle.getRentStartDateTime() == null || vehicle.getRentEndDateTime() == null) {
+            throw new SQLException("Rental of vehicle " + vehicle.getId() + " has no rental period");
+        }
+        long id = nextId;
+        write(new Row(id, vehicle.getId(), vehicle.getRentedBy(), vehicle.getRentStartDateTime(),
+                vehicle.getRentEndDateTime(), vehicle.calculateRentalPrice(), vehicle.isPaid(), vehicle.getVehicleType(),
+                vehicle.isRented() ? RentalDAO.STATUS_BOOKED : RentalDAO.STATUS_RETURNED, LocalDateTime.now()));
+        return id;
+    }
+
+    //Logs many rentals one by one. Failed rows are reported, not thrown.
+    @Override
+    public BatchResult logRentals(Collection<? extends Vehicle> rentals) {
+        List<BatchResult.RowFailure> failures = new ArrayList<>();
+        int index = 0;
+        for (Vehicle rental : rentals) {
+            try {
+                insertRental(rental);
+            } catch (SQLException e) {
+                failures.add(new BatchResult.RowFailure(index, rental.getId(), e.getMessage()));
+            }
+            index++;
+        }
+        return new BatchResult(rentals.size(), rentals.size() - failures.size(), failures);
+    }
+
+    @Override
+    public synchronized List<Booking> getActiveBookings() {
+        List<Booking> bookings = new ArrayList<>();
+        for (Row row : rows.values()) {
+            if (row.isBooked()) bookings.add(row.toBooking());
+        }
+        return bookings;
+    }
+
+    @Override
+    public synchronized List<Booking> getActiveBookings(String vehicleId) {
+        List<Booking> bookings = new ArrayList<>();
+        for (long id : booked.getOrDefault(key(vehicleId), Set.of())) {
+            bookings.add(rows.get(id).toBooking());
+        }
+        return bookings;
+    }
+
+    @Override
+    public synchronized Set<String> getVehicleIdsWithBookingChangesSince(LocalDateTime since) {
+        Set<String> vehicleIds = new HashSet<>();
+        for (Row row : rows.values()) {
+            if (!row.updatedAt().isBefore(since)) vehicleIds.add(row.vehicleId());
+        }
+        return vehicleIds;
+    }
+
+    @Override
+    public boolean markRentalReturned(Booking booking) {
+        return closeBooking(booking, RentalDAO.STATUS_RETURNED);
+    }
+
+    @Override
+    public boolean markRentalCancelled(Booking booking) {
+        return closeBooking(booking, RentalDAO.STATUS_CANCELLED);
+    }
+
+    @Override
+    public void returnRental(Booking booking) throws SQLException {
+        updateStatus(booking, RentalDAO.STATUS_RETURNED);
+    }
+
+    @Override
+    public void cancelRental(Booking booking) throws SQLException {
+        updateStatus(booking, RentalDAO.STATUS_CANCELLED);
+    }
+
+    private boolean closeBooking(Booking booking, String status) {
+        try {
+            return updateStatus(booking, status) > 0;
+        } catch (SQLException e) {
+            System.out.println("Failed to update booking status: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized int updateStatus(Booking booking, String status) throws SQLException {
+        int changed = 0;
+        for (Row row : bookedRowsOf(booking)) {
+            write(row.withStatus(status, LocalDateTime.now()));
+            changed++;
+        }
+        return changed;
+    }
+
+    @Override
+    public synchronized List<Vehicle> getRentalHistoryByUser(String username) {
+        List<Vehicle> rentals = new ArrayList<>();
+        for (Row row : rows.values()) {
+            if (row.rentedBy().equalsIgnoreCase(username)) rentals.add(row.toVehicle());
+        }
+        return rentals;
+    }
+
+    @Override
+    public synchronized List<Vehicle> getAllRentalHistory() {
+        List<Vehicle> rentals = new ArrayList<>(rows.size());
+        for (Row row : rows.values()) rentals.add(row.toVehicle());
+        return rentals;
+    }
+
+    //Reads one page of rental history, newest first, keyed on (start time, id) like RentalDAO.
+    @Override
+    public synchronized RentalPage getRentalHistoryPage(RentalHistoryQuery query, String pageToken) {
+        RentalPage.Key after = pageToken == null ? null : RentalPage.Key.parse(pageToken);
+        ArrayList<RentalRecord> page = rows.values().stream()
+                .filter(row -> query.rentedBy() == null || row.rentedBy().equalsIgnoreCase(query.rentedBy()))
+                .filter(row -> query.vehicleId() == null || row.vehicleId().equalsIgnoreCase(query.vehicleId()))
+                .filter(row -> query.paid() == null || row.paid() == query.paid())
+                .filter(row -> query.from() == null || !row.start().isBefore(query.from()))
+                .filter(row -> query.to() == null || row.start().isBefore(query.to()))
+                .filter(row -> after == null || row.start().isBefore(after.startTime())
+                        || (row.start().equals(after.startTime()) && row.id() < after.id()))
+                .sorted(NEWEST_FIRST)
+                .limit(query.pageSize() + 1L)
+                .map(Row::toRecord)
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        if (page.size() <= query.pageSize()) {
+            return new RentalPage(page, null);
+        }
+        page.remove(page.size() - 1);
+        return new RentalPage(page, RentalPage.tokenAfter(page.get(page.size() - 1)));
+    }
+
+    //Streams a copy of every rental taken when the call is made, in id order.
+    @Override
+    public synchronized Stream<RentalRecord> streamAllRentalHistory() {
+        return new ArrayList<>(rows.values()).stream().map(Row::toRecord);
+    }
+
+    @Override
+    public synchronized boolean markRentalAsPaid(String vehicleId, String username) {
+        try {
+            boolean changed = false;
+            for (Row row : new ArrayList<>(rows.values())) {
+                if (!row.paid() && row.vehicleId().equalsIgnoreCase(vehicleId) && row.rentedBy().equalsIgnoreCase(username)) {
+                    write(row.withPaid(LocalDateTime.now()));
+                    changed = true;
+                }
+            }
+            return changed;
+        } catch (SQLException e) {
+            System.out.println("Failed to mark rental as paid: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean markRentalAsPaid(Booking booking) {
+        try {
+            return updatePaid(booking) > 0;
+        } catch (SQLException e) {
+            System.out.println("Failed to mark rental as paid: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void payRental(Booking booking) throws SQLException {
+        if (updatePaid(booking) == 0) {
+            throw new SQLException("No live rental of vehicle " + booking.vehicleId() + " starting " + booking.start()
+                    + " for " + booking.rentedBy());
+        }
+    }
+
+    private synchronized int updatePaid(Booking booking) throws SQLException {
+        int changed = 0;
+        for (Row row : bookedRowsOf(booking)) {
+            write(row.withPaid(LocalDateTime.now()));
+            changed++;
+        }
+        return changed;
+    }
+
+    //The BOOKED rows of the booking's vehicle with its start time and renter. The caller holds the lock.
+    private List<Row> bookedRowsOf(Booking booking) {
+        List<Row> matching = new ArrayList<>(1);
+        for (long id : booked.getOrDefault(key(booking.vehicleId()), Set.of())) {
+            Row row = rows.get(id);
+            if (row.matches(booking)) matching.add(row);
+        }
+        return matching;
+    }
+
+    //Logs and stores a row, registering its undo with the current unit of work. The caller holds the lock.
+    private void write(Row row) throws SQLException {
+        try {
+            log.rentalSaved(row);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write storage log: " + e.getMessage(), e);
+        }
+        Row previous = put(row);
+        UnitOfWork.onRollback(() -> undo(row.id(), previous));
+    }
+
+    //Puts back the row a rolled-back write replaced (or removes the row it added).
+    private synchronized void undo(long id, Row previous) {
+        try {
+            if (previous == null) {
+                log.rentalRemoved(id);
+                remove(id);
+            } else {
+                log.rentalSaved(previous);
+                put(previous);
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to roll back rental " + id + ": " + e.getMessage());
+        }
+    }
+
+    //Stores a row and keeps the booked index in step. The caller holds the lock.
+    private Row put(Row row) {
+        Row previous = rows.put(row.id(), row);
+        if (previous != null && previous.isBooked()) unindex(previous);
+        if (row.isBooked()) booked.computeIfAbsent(key(row.vehicleId()), v -> new HashSet<>()).add(row.id());
+        nextId = Math.max(nextId, row.id() + 1);
+        return previous;
+    }
+
+    private void remove(long id) {
+        Row removed = rows.remove(id);
+        if (removed != null && removed.isBooked()) unindex(removed);
+    }
+
+    private void unindex(Row row) {
+        Set<Long> ids = booked.get(key(row.vehicleId()));
+        if (ids == null) return;
+        ids.remove(row.id());
+        if (ids.isEmpty()) booked.remove(key(row.vehicleId()));
+    }
+
+    //Stores a row read back from the embedded store's log.
+    synchronized void restore(Row row) {
+        put(row);
+    }
+
+    //Applies a removal read back from the embedded store's log.
+    synchronized void restoreRemoval(long id) {
+        remove(id);
+    }
+
+    //Writes every row to the log, e.g. when the embedded store compacts its file.
+    synchronized void writeTo(ChangeLog target) throws IOException {
+        for (Row row : rows.values()) target.rentalSaved(row);
+    }
+
+    private static String key(String vehicleId) {
+        return vehicleId.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,189 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.User;
+import com.vehiclerental.utils.UnitOfWork;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * User storage held in memory, with the same semantics as the users table: duplicate usernames are rejected,
+ * updates change the contact details (or, through updatePassword, the password hash) only, and change times and deletions are kept for snapshot reconciliation.
+ * Usernames are matched ignoring case, like MySQL's default collation.
+ * Writes made inside a UnitOfWork are undone if the unit rolls back, row and tombstone alike.
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private record Row(User user, LocalDateTime updatedAt) { }
+
+    private record Deletion(String username, LocalDateTime at) { }
+
+    // keyed by lower-cased username
+    private final Map<String, Row> rows = new LinkedHashMap<>();
+    private final Map<String, Deletion> deleted = new LinkedHashMap<>();
+    private final ChangeLog log;
+
+    public InMemoryUserRepository() {
+        this(ChangeLog.NONE);
+    }
+
+    InMemoryUserRepository(ChangeLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public synchronized boolean saveUser(User user) throws SQLException {
+        if (rows.containsKey(key(user.getUsername()))) {
+            throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + user.getUsername() + "' for user");
+        }
+        write(copy(user));
+        return true;
+    }
+
+    @Override
+    public synchronized User getUser(String username) {
+        Row row = rows.get(key(username));
+        return row == null ? null : copy(row.user());
+    }
+
+    @Override
+    public synchronized List<User> getAllUsers() {
+        List<User> users = new ArrayList<>(rows.size());
+        for (Row row : rows.values()) users.add(copy(row.user()));
+        return users;
+    }
+
+    @Override
+    public synchronized List<User> getUsersChangedSince(LocalDateTime since) {
+        List<User> users = new ArrayList<>();
+        for (Row row : rows.values()) {
+            if (!row.updatedAt().isBefore(since)) users.add(copy(row.user()));
+        }
+        return users;
+    }
+
+    @Override
+    public synchronized List<String> getDeletedUsernamesSince(LocalDateTime since) {
+        List<String> usernames = new ArrayList<>();
+        for (Deletion deletion : deleted.values()) {
+            if (!deletion.at().isBefore(since)) usernames.add(deletion.username());
+        }
+        return usernames;
+    }
+
+    @Override
+    public synchronized boolean deleteUser(String username) throws SQLException {
+        String key = key(username);
+        Row stored = rows.get(key);
+        if (stored == null) return false;
+        String storedUsername = stored.user().getUsername();
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            log.userDeleted(storedUsername, now);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write storage log: " + e.getMessage(), e);
+        }
+        Deletion previous = deleted.get(key);
+        rows.remove(key);
+        deleted.put(key, new Deletion(storedUsername, now));
+        UnitOfWork.onRollback(() -> undo(key, stored, previous));
+        return true;
+    }
+
+    //Updates the stored user's name, phone, email and address, like UserDAO; credentials and role are kept.
+    @Override
+    public synchronized boolean updateUser(User user) throws SQLException {
+        Row stored = rows.get(key(user.getUsername()));
+        if (stored == null) return false;
+        User row = copy(stored.user());
+        row.setName(user.getName());
+        row.setPhone(user.getPhone());
+        row.setEmail(user.getEmail());
+        row.setAddress(user.getAddress());
+        write(row);
+        return true;
+    }
+
+    //Replaces the stored password hash, leaving the other fields as they are.
+    @Override
+    public synchronized boolean updatePassword(String username, String passwordHash) throws SQLException {
+        Row stored = rows.get(key(username));
+        if (stored == null) return false;
+        User row = copy(stored.user());
+        row.setPassword(passwordHash);
+        write(row);
+        return true;
+    }
+
+    //Logs and stores a row, registering its undo with the current unit of work. The caller holds the lock.
+    private void write(User row) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            log.userSaved(row, now);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write storage log: " + e.getMessage(), e);
+        }
+        String key = key(row.getUsername());
+        Row previous = rows.put(key, new Row(row, now));
+        Deletion deletion = deleted.get(key);
+        UnitOfWork.onRollback(() -> undo(key, previous, deletion));
+    }
+
+    /*Puts back the row and tombstone a rolled-back change replaced, as they were: a rolled-back insert leaves no
+    row and no tombstone, a rolled-back delete brings the row back and drops the tombstone it wrote.*/
+    private synchronized void undo(String key, Row row, Deletion deletion) {
+        User user = row == null ? null : row.user();
+        LocalDateTime updatedAt = row == null ? null : row.updatedAt();
+        String deletedUsername = deletion == null ? null : deletion.username();
+        LocalDateTime deletedAt = deletion == null ? null : deletion.at();
+        try {
+            log.userRestored(key, user, updatedAt, deletedUsername, deletedAt);
+            restoreState(key, user, updatedAt, deletedUsername, deletedAt);
+        } catch (IOException e) {
+            System.out.println("Failed to roll back user " + key + ": " + e.getMessage());
+        }
+    }
+
+    //Stores a row read back from the embedded store's log.
+    synchronized void restore(User row, LocalDateTime updatedAt) {
+        rows.put(key(row.getUsername()), new Row(row, updatedAt));
+    }
+
+    //Applies a deletion read back from the embedded store's log.
+    synchronized void restoreDeletion(String username, LocalDateTime at) {
+        rows.remove(key(username));
+        deleted.put(key(username), new Deletion(username, at));
+    }
+
+    //Sets a user's row and tombstone to the given ones, or removes them where null, e.g. on rollback.
+    synchronized void restoreState(String username, User row, LocalDateTime updatedAt, String deletedUsername,
+                                   LocalDateTime deletedAt) {
+        String key = key(username);
+        if (row == null) rows.remove(key);
+        else rows.put(key, new Row(row, updatedAt));
+        if (deletedAt == null) deleted.remove(key);
+        else deleted.put(key, new Deletion(deletedUsername, deletedAt));
+    }
+
+    //Writes every row and deletion to the log, e.g. when the embedded store compacts its file.
+    synchronized void writeTo(ChangeLog target) throws IOException {
+        for (Row row : rows.values()) target.userSaved(row.user(), row.updatedAt());
+        for (Deletion deletion : deleted.values()) target.userDeleted(deletion.username(), deletion.at());
+    }
+
+    //The key rows and tombstones are held under: the username in lower case.
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    static User copy(User user) {
+        return new User(user.getUsername(), user.getPassword(), user.getRole(), user.getName(),
+                user.getEmail(), user.getPhone(), user.getAddress());
+    }
+}
@@ -0,0 +1,228 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.utils.UnitOfWork;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Vehicle storage held in memory, with the same semantics as the vehicles table: duplicate IDs are rejected,
+ * updates are version-checked, and change times and deletions are kept for snapshot reconciliation.
+ * Rows are copied in and out, so callers can never change a stored row by mutating their Vehicle.
+ * IDs are matched ignoring case, like MySQL's default collation.
+ * Writes made inside a UnitOfWork are undone if the unit rolls back, row and tombstone alike.
+ */
+public class InMemoryVehicleRepository implements VehicleRepository {
+
+    private record Row(Vehicle vehicle, LocalDateTime updatedAt) { }
+
+    private record Deletion(String id, LocalDateTime at) { }
+
+    // keyed by upper-cased ID, in insertion order, like a table scan of a freshly loaded table
+    private final Map<String, Row> rows = new LinkedHashMap<>();
+    private final Map<String, Deletion> deleted = new LinkedHashMap<>();
+    private final ChangeLog log;
+
+    public InMemoryVehicleRepository() {
+        this(ChangeLog.NONE);
+    }
+
+    InMemoryVehicleRepository(ChangeLog log) {
+        this.log = log;
+    }
+
+    //Saves a new vehicle with version 0, failing if the ID is taken.
+    @Override
+    public synchronized void saveVehicle(Vehicle vehicle) throws SQLException {
+        if (rows.containsKey(key(vehicle.getId()))) {
+            throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + vehicle.getId() + "' for vehicle");
+        }
+        Vehicle row = copy(vehicle);
+        row.setVersion(0);
+        write(row);
+    }
+
+    //Saves many new vehicles one by one. Failed rows are reported, not thrown.
+    @Override
+    public BatchResult saveVehicles(Collection<? extends Vehicle> vehicles) throws SQLException {
+        List<BatchResult.RowFailure> failures = new ArrayList<>();
+        int index = 0;
+        for (Vehicle vehicle : vehicles) {
+            try {
+                saveVehicle(vehicle);
+            } catch (SQLException e) {
+                failures.add(new BatchResult.RowFailure(index, vehicle.getId(), e.getMessage()));
+            }
+            index++;
+        }
+        return new BatchResult(vehicles.size(), vehicles.size() - failures.size(), failures);
+    }
+
+    @Override
+    public synchronized Vehicle getVehicleById(String id) {
+        Row row = rows.get(key(id));
+        return row == null ? null : copy(row.vehicle());
+    }
+
+    @Override
+    public synchronized List<Vehicle> getAllVehicles() {
+        List<Vehicle> vehicles = new ArrayList<>(rows.size());
+        for (Row row : rows.values()) vehicles.add(copy(row.vehicle()));
+        return vehicles;
+    }
+
+    //Updates the vehicle if the stored row still has its version; the vehicle then takes the new version.
+    @Override
+    public synchronized boolean updateVehicle(Vehicle vehicle) throws SQLException {
+        Row stored = rows.get(key(vehicle.getId()));
+        if (stored == null || stored.vehicle().getVersion() != vehicle.getVersion()) {
+            throw new StaleVehicleException(vehicle.getId(), vehicle.getVersion());
+        }
+        Vehicle row = copy(vehicle, stored.vehicle().getId()); // the key keeps its stored case, like an UPDATE
+        row.setVersion(vehicle.getVersion() + 1);
+        write(row);
+        vehicle.setVersion(row.getVersion());
+        return true;
+    }
+
+    //Updates many vehicles one by one. Missing, stale or failed rows are reported.
+    @Override
+    public BatchResult updateVehicles(Collection<? extends Vehicle> vehicles) throws SQLException {
+        List<BatchResult.RowFailure> failures = new ArrayList<>();
+        int index = 0;
+        for (Vehicle vehicle : vehicles) {
+            try {
+                updateVehicle(vehicle);
+            } catch (StaleVehicleException e) {
+                failures.add(new BatchResult.RowFailure(index, vehicle.getId(), "No matching row"));
+            } catch (SQLException e) {
+                failures.add(new BatchResult.RowFailure(index, vehicle.getId(), e.getMessage()));
+            }
+            index++;
+        }
+        return new BatchResult(vehicles.size(), vehicles.size() - failures.size(), failures);
+    }
+
+    @Override
+    public synchronized List<Vehicle> getVehiclesChangedSince(LocalDateTime since) {
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (Row row : rows.values()) {
+            if (!row.updatedAt().isBefore(since)) vehicles.add(copy(row.vehicle()));
+        }
+        return vehicles;
+    }
+
+    @Override
+    public synchronized List<String> getDeletedVehicleIdsSince(LocalDateTime since) {
+        List<String> ids = new ArrayList<>();
+        for (Deletion deletion : deleted.values()) {
+            if (!deletion.at().isBefore(since)) ids.add(deletion.id());
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized boolean deleteVehicle(String id) throws SQLException {
+        String key = key(id);
+        Row stored = rows.get(key);
+        if (stored == null) return false;
+        String storedId = stored.vehicle().getId();
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            log.vehicleDeleted(storedId, now);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write storage log: " + e.getMessage(), e);
+        }
+        Deletion previous = deleted.get(key);
+        rows.remove(key);
+        deleted.put(key, new Deletion(storedId, now));
+        UnitOfWork.onRollback(() -> undo(key, stored, previous));
+        return true;
+    }
+
+    //Logs and stores a row, registering its undo with the current unit of work. The caller holds the lock.
+    private void write(Vehicle row) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            log.vehicleSaved(row, now);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write storage log: " + e.getMessage(), e);
+        }
+        String key = key(row.getId());
+        Row previous = rows.put(key, new Row(row, now));
+        Deletion deletion = deleted.get(key);
+        UnitOfWork.onRollback(() -> undo(key, previous, deletion));
+    }
+
+    /*Puts back the row and tombstone a rolled-back change replaced, as they were: a rolled-back insert leaves no
+    row and no tombstone, a rolled-back delete brings the row back and drops the tombstone it wrote.*/
+    private synchronized void undo(String key, Row row, Deletion deletion) {
+        Vehicle vehicle = row == null ? null : row.vehicle();
+        LocalDateTime updatedAt = row == null ? null : row.updatedAt();
+        String deletedId = deletion == null ? null : deletion.id();
+        LocalDateTime deletedAt = deletion == null ? null : deletion.at();
+        try {
+            log.vehicleRestored(key, vehicle, updatedAt, deletedId, deletedAt);
+            restoreState(key, vehicle, updatedAt, deletedId, deletedAt);
+        } catch (IOException e) {
+            System.out.println("Failed to roll back vehicle " + key + ": " + e.getMessage());
+        }
+    }
+
+    //Stores a row read back from the embedded store's log.
+    synchronized void restore(Vehicle row, LocalDateTime updatedAt) {
+        rows.put(key(row.getId()), new Row(row, updatedAt));
+    }
+
+    //Applies a deletion read back from the embedded store's log.
+    synchronized void restoreDeletion(String id, LocalDateTime at) {
+        rows.remove(key(id));
+        deleted.put(key(id), new Deletion(id, at));
+    }
+
+    //Sets a vehicle's row and tombstone to the given ones, or removes them where null, e.g. on rollback.
+    synchronized void restoreState(String id, Vehicle row, LocalDateTime updatedAt, String deletedId, LocalDateTime deletedAt) {
+        String key = key(id);
+        if (row == null) rows.remove(key);
+        else rows.put(key, new Row(row, updatedAt));
+        if (deletedAt == null) deleted.remove(key);
+        else deleted.put(key, new Deletion(deletedId, deletedAt));
+    }
+
+    //Writes every row and deletion to the log, e.g. when the embedded store compacts its file.
+    synchronized void writeTo(ChangeLog target) throws IOException {
+        for (Row row : rows.values()) target.vehicleSaved(row.vehicle(), row.updatedAt());
+        for (Deletion deletion : deleted.values()) target.vehicleDeleted(deletion.id(), deletion.at());
+    }
+
+    //The key rows and tombstones are held under: the ID in upper case, as VehicleManager keys its registry.
+    private static String key(String id) {
+        return id.toUpperCase(Locale.ROOT);
+    }
+
+    //Copies every column of a vehicle row, including status flags and version.
+    static Vehicle copy(Vehicle vehicle) {
+        return copy(vehicle, vehicle.getId());
+    }
+
+    //Copies every column of a vehicle row under the given ID.
+    private static Vehicle copy(Vehicle vehicle, String id) {
+        Vehicle row = vehicle.getType().newVehicle(id, vehicle.getBrand(), vehicle.getModel(), vehicle.getPricePerDay());
+        row.setAvailable(vehicle.isAvailable());
+        row.setRented(vehicle.isRented());
+        row.setRentStartDateTime(vehicle.getRentStartDateTime());
+        row.setRentEndDateTime(vehicle.getRentEndDateTime());
+        row.setPaid(vehicle.isPaid());
+        row.setRentedBy(vehicle.getRentedBy());
+        row.setVersion(vehicle.getVersion());
+        return row;
+    }
+}
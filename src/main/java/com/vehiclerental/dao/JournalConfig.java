@@ -0,0 +1,30 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.utils.Settings;
+import java.nio.file.Path;
+
+/* Settings for the BookingJournal.
+   dir holds the segment files, segmentBytes is the size at which the active segment is sealed and a new one
+   started, and compactAfterSegments is how many sealed segments may pile up before they are compacted
+   (0, the default, never compacts and keeps every event as an audit trail; compaction is opt-in).
+   Settings group "journal" (see Settings); an empty dir disables the journal.
+ */
+public record JournalConfig(Path dir, long segmentBytes, int compactAfterSegments) {
+
+    public JournalConfig {
+        if (dir == null || segmentBytes < 1024 || compactAfterSegments < 0) {
+            throw new IllegalArgumentException("Invalid journal settings: dir=" + dir
+                    + ", segmentBytes=" + segmentBytes + ", compactAfterSegments=" + compactAfterSegments);
+        }
+    }
+
+    //Returns the configured settings, or null when the journal is disabled (the default).
+    public static JournalConfig configured() {
+        Settings settings = Settings.of("journal");
+        String dir = settings.getString("dir", "");
+        if (dir.isBlank()) return null;
+        return new JournalConfig(Path.of(dir),
+                settings.getLong("segmentBytes", 16L * 1024 * 1024),
+                settings.getInt("compactAfterSegments", 0));
+    }
+}
@@ -0,0 +1,650 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.models.VehicleType;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/*
+ * Fleet and booking state in fixed-width records outside the Java heap (Foreign Function & Memory API), either in
+ * plain off-heap memory or in a memory-mapped file that is reopened as it is on the next start.
+ * Layout of the one segment: a 64-byte header, an open-addressing table from vehicle ID to record, the vehicle
+ * records (48 bytes), the booking records (128 bytes, one sorted linked list per vehicle, freed records are reused),
+ * and a string dictionary (hash table plus UTF-16 entries) holding IDs, brands and models once each.
+ * Dictionary entries are never freed, so it only holds strings bounded by the fleet. Renter names, which grow with
+ * the user base, are kept inline in their booking record (UTF-16, up to 50 chars like users.username) and go
+ * when the booking does.
+ * Times are local date-times as epoch seconds, like Vehicle, so every LocalDateTime fits; a fraction of a second is
+ * dropped, which can only make a check report a clash within the same second, never miss one. Values use the platform's byte order.
+ * Lookups, availability checks and scans read the segment directly and allocate nothing per record; strings and
+ * objects are only built when a caller asks for one (idOf, toVehicle, bookings). As nothing here is a Java object,
+ * the store adds nothing to GC work however large the fleet is.
+ * Capacities are fixed when the store is created. Reads run in parallel, writes are serialised; a single booking
+ * can be added, changed or removed (putBooking, removeBooking) without rewriting the vehicle's other bookings.
+ * A mapped file that was not closed cleanly may hold half-written records and is emptied when it is reopened.
+ */
+public final class OffHeapFleetStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x56524653; // "VRFS"
+    // 2: times in epoch seconds (format 1 held epoch nanoseconds); 3: renter names inline in the booking record
+    private static final int FORMAT = 3;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NONE = -1;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG;
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT;
+    private static final ValueLayout.OfChar CHAR = ValueLayout.JAVA_CHAR;
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    // header
+    private static final long H_MAGIC = 0, H_FORMAT = 4, H_VEHICLE_CAPACITY = 8, H_BOOKING_CAPACITY = 12,
+            H_VEHICLES_USED = 16, H_BOOKINGS_USED = 20, H_FREE_BOOKING = 24, H_NAMES = 28, H_NAME_BYTES_USED = 32,
+            H_NAME_BYTES = 40, H_CLEAN = 48, H_ID_SLOTS = 52, H_NAME_SLOTS = 56, H_LIVE = 60;
+    private static final long HEADER_BYTES = 64;
+
+    // vehicle record
+    private static final long V_ID = 0, V_BRAND = 4, V_MODEL = 8, V_TYPE = 12, V_FLAGS = 13, V_PRICE = 16,
+            V_VERSION = 24, V_FIRST_BOOKING = 32, V_BOOKINGS = 36;
+    private static final long VEHICLE_BYTES = 48;
+    private static final byte AVAILABLE = 1, RENTED = 2, PAID = 4, REMOVED = 8;
+
+    // booking record
+    private static final long B_START = 0, B_END = 8, B_NEXT = 16, B_PAID = 20, B_RENTER_LENGTH = 22, B_RENTER = 24;
+    private static final int RENTER_CHARS = 50;
+    private static final long BOOKING_BYTES = 128;
+
+    private final Arena arena;
+    private final MemorySegment memory;
+    private final boolean clean;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final int vehicleCapacity;
+    private final int bookingCapacity;
+    private final int idSlots;
+    private final int nameSlots;
+    private final long nameBytes;
+    private final long idTable;
+    private final long vehicles;
+    private final long bookings;
+    private final long nameTable;
+    private final long names;
+
+    private OffHeapFleetStore(Arena arena, MemorySegment memory, int vehicleCapacity, int bookingCapacity, boolean clean) {
+        this.arena = arena;
+        this.memory = memory;
+        this.clean = clean;
+        this.vehicleCapacity = vehicleCapacity;
+        this.bookingCapacity = bookingCapacity;
+        this.idSlots = slotsFor(vehicleCapacity);
+        this.nameSlots = slotsFor(vehicleCapacity * 2 + 1024);
+        this.nameBytes = nameBytesFor(vehicleCapacity);
+        this.idTable = HEADER_BYTES;
+        this.vehicles = idTable + idSlots * 4L;
+        this.bookings = vehicles + vehicleCapacity * VEHICLE_BYTES;
+        this.nameTable = bookings + bookingCapacity * BOOKING_BYTES;
+        this.names = nameTable + nameSlots * 4L;
+    }
+
+    //Creates an empty store in off-heap memory, released on close().
+    public static OffHeapFleetStore allocate(int vehicleCapacity, int bookingCapacity) {
+        checkCapacities(vehicleCapacity, bookingCapacity);
+        Arena arena = Arena.ofShared();
+        MemorySegment memory = arena.allocate(totalBytes(vehicleCapacity, bookingCapacity), 8);
+        OffHeapFleetStore store = new OffHeapFleetStore(arena, memory, vehicleCapacity, bookingCapacity, true);
+        store.format();
+        return store;
+    }
+
+    /*Maps the store file, creating it with the given capacities if it does not exist yet. An existing file keeps the
+    capacities it was created with and its contents, unless it was not closed cleanly, in which case it is emptied.*/
+    public static OffHeapFleetStore open(Path file, int vehicleCapacity, int bookingCapacity) throws IOException {
+        checkCapacities(vehicleCapacity, bookingCapacity);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            boolean existing = channel.size() > 0;
+            if (existing) {
+                Arena probe = Arena.ofConfined();
+                try (probe) {
+                    if (channel.size() < HEADER_BYTES) throw new IOException("Not a fleet store: " + file);
+                    MemorySegment header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES, probe);
+                    if (header.get(INT, H_MAGIC) != MAGIC || header.get(INT, H_FORMAT) != FORMAT) {
+                        throw new IOException("Not a fleet store: " + file);
+                    }
+                    vehicleCapacity = header.get(INT, H_VEHICLE_CAPACITY);
+                    bookingCapacity = header.get(INT, H_BOOKING_CAPACITY);
+                }
+                if (channel.size() != totalBytes(vehicleCapacity, bookingCapacity)) {
+                    throw new IOException("Fleet store " + file + " is truncated");
+                }
+            }
+            Arena arena = Arena.ofShared();
+            MemorySegment memory = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    totalBytes(vehicleCapacity, bookingCapacity), arena);
+            boolean clean = !existing || memory.get(INT, H_CLEAN) == 1;
+            OffHeapFleetStore store = new OffHeapFleetStore(arena, memory, vehicleCapacity, bookingCapacity, clean);
+            if (!clean) System.out.println("Fleet store " + file + " was not closed cleanly; starting it empty.");
+            if (!existing || !clean) store.format();
+            memory.set(INT, H_CLEAN, 0);
+            memory.force();
+            return store;
+        }
+    }
+
+    //True unless the store was reopened from a file that had not been closed cleanly (and was therefore emptied).
+    public boolean wasCleanlyClosed() {
+        return clean;
+    }
+
+    //Returns the number of vehicles in the store.
+    public int size() {
+        return memory.get(INT, H_LIVE);
+    }
+
+    /*Stores a vehicle's details and status and replaces its bookings with the given ones (any order), updating the
+    vehicle's record in place if it is already stored. Returns the vehicle's record index.*/
+    public int put(Vehicle vehicle, Collection<Booking> vehicleBookings) {
+        lock.writeLock().lock();
+        try {
+            int index = writeDetails(vehicle);
+            freeBookings(index);
+            for (Booking booking : vehicleBookings) insertBooking(index, booking);
+            return index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Stores a vehicle's details, status and version, keeping the bookings it has. Returns its record index.
+    public int putDetails(Vehicle vehicle) {
+        lock.writeLock().lock();
+        try {
+            return writeDetails(vehicle);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*Adds a booking to its stored vehicle, or updates the vehicle's booking with the same start in place (so a
+    reader never sees it missing). Returns false if the vehicle is not stored.*/
+    public boolean putBooking(Booking booking) {
+        lock.writeLock().lock();
+        try {
+            int index = find(booking.vehicleId());
+            if (index == NONE || isRemoved(index)) return false;
+            int at = bookingAt(index, toSeconds(booking.start()));
+            if (at == NONE) {
+                insertBooking(index, booking);
+            } else {
+                checkRenter(booking.rentedBy());
+                writeBooking(booking(at), booking);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Removes the stored vehicle's booking that starts at the given time. Returns false if there is none.
+    public boolean removeBooking(CharSequence vehicleId, LocalDateTime start) {
+        lock.writeLock().lock();
+        try {
+            int index = find(vehicleId);
+            if (index == NONE || isRemoved(index)) return false;
+            long from = toSeconds(start);
+            long v = vehicle(index);
+            long link = v + V_FIRST_BOOKING;
+            for (int at = memory.get(INT, link); at != NONE; at = memory.get(INT, link)) {
+                long b = booking(at);
+                if (memory.get(LONG, b + B_START) == from) {
+                    memory.set(INT, link, memory.get(INT, b + B_NEXT));
+                    memory.set(INT, b + B_NEXT, memory.get(INT, H_FREE_BOOKING));
+                    memory.set(INT, H_FREE_BOOKING, at);
+                    memory.set(INT, v + V_BOOKINGS, memory.get(INT, v + V_BOOKINGS) - 1);
+                    return true;
+                }
+                link = b + B_NEXT;
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Writes a vehicle's details into its record, adding the record if it is new. The caller holds the write lock.
+    private int writeDetails(Vehicle vehicle) {
+        int index = find(vehicle.getId());
+        if (index == NONE) {
+            index = memory.get(INT, H_VEHICLES_USED);
+            if (index == vehicleCapacity) throw new FleetStoreFullException("Fleet store is full (" + vehicleCapacity + " vehicles)");
+            memory.set(INT, H_VEHICLES_USED, index + 1);
+            long v = vehicle(index);
+            memory.set(INT, v + V_ID, intern(vehicle.getId()));
+            memory.set(BYTE, v + V_FLAGS, REMOVED);
+            memory.set(INT, v + V_FIRST_BOOKING, NONE);
+            memory.set(INT, v + V_BOOKINGS, 0);
+            indexId(index);
+        }
+        long v = vehicle(index);
+        if ((memory.get(BYTE, v + V_FLAGS) & REMOVED) != 0) memory.set(INT, H_LIVE, size() + 1);
+        memory.set(INT, v + V_BRAND, intern(vehicle.getBrand()));
+        memory.set(INT, v + V_MODEL, intern(vehicle.getModel()));
+        memory.set(BYTE, v + V_TYPE, (byte) vehicle.getType().ordinal());
+        memory.set(BYTE, v + V_FLAGS, (byte) ((vehicle.isAvailable() ? AVAILABLE : 0)
+                | (vehicle.isRented() ? RENTED : 0) | (vehicle.isPaid() ? PAID : 0)));
+        memory.set(DOUBLE, v + V_PRICE, vehicle.getPricePerDay());
+        memory.set(LONG, v + V_VERSION, vehicle.getVersion());
+        return index;
+    }
+
+    //Removes a vehicle and its bookings. Returns false if it was not stored.
+    public boolean remove(CharSequence id) {
+        lock.writeLock().lock();
+        try {
+            int index = find(id);
+            if (index == NONE || isRemoved(index)) return false;
+            freeBookings(index);
+            memory.set(BYTE, vehicle(index) + V_FLAGS, REMOVED);
+            memory.set(INT, H_LIVE, size() - 1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Finds a vehicle's record index by ID (case-insensitive), or -1 when it is not stored.
+    public int indexOf(CharSequence id) {
+        lock.readLock().lock();
+        try {
+            int index = find(id);
+            return index == NONE || isRemoved(index) ? NONE : index;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*Checks whether the vehicle can take a booking for the period, like VehicleManager: it must not be out of
+    service and no booking may overlap the period (touching ends count as a clash).*/
+    public boolean isAvailable(int index, LocalDateTime start, LocalDateTime end) {
+        long from = toSeconds(start);
+        long to = toSeconds(end);
+        lock.readLock().lock();
+        try {
+            return isFree(index, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*Finds vehicles free for the whole period, cheapest first (ties in storage order), optionally of one type and up
+    to a price. Fills found with record indexes and returns how many; at most found.length are returned.*/
+    public int searchAvailable(LocalDateTime start, LocalDateTime end, VehicleType type, double maxPricePerDay, int[] found) {
+        long from = toSeconds(start);
+        long to = toSeconds(end);
+        int count = 0;
+        int limit = found.length;
+        if (limit == 0) return 0;
+        lock.readLock().lock();
+        try {
+            int used = memory.get(INT, H_VEHICLES_USED);
+            for (int index = 0; index < used; index++) {
+                long v = vehicle(index);
+                if (isRemoved(index)) continue;
+                if (type != null && memory.get(BYTE, v + V_TYPE) != type.ordinal()) continue;
+                double price = memory.get(DOUBLE, v + V_PRICE);
+                if (price > maxPricePerDay) continue;
+                if (count == limit && price >= priceAt(found[limit - 1])) continue;
+                if (!isFree(index, from, to)) continue;
+                // insertion into the short sorted result, dropping the dearest once it is full
+                int at = count == limit ? limit - 1 : count++;
+                while (at > 0 && priceAt(found[at - 1]) > price) {
+                    found[at] = found[at - 1];
+                    at--;
+                }
+                found[at] = index;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Calls the visitor with the record index of every stored vehicle, in storage order.
+    public void scan(IntConsumer visitor) {
+        lock.readLock().lock();
+        try {
+            int used = memory.get(INT, H_VEHICLES_USED);
+            for (int index = 0; index < used; index++) {
+                if (!isRemoved(index)) visitor.accept(index);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Gets the daily price of the vehicle at the record index.
+    public double priceOf(int index) {
+        return priceAt(index);
+    }
+
+    //Gets the type of the vehicle at the record index.
+    public VehicleType typeOf(int index) {
+        return VehicleType.values()[memory.get(BYTE, vehicle(index) + V_TYPE)];
+    }
+
+    //Checks whether the vehicle at the record index is rented.
+    public boolean isRented(int index) {
+        return (memory.get(BYTE, vehicle(index) + V_FLAGS) & RENTED) != 0;
+    }
+
+    //Gets the row version the vehicle at the record index was stored with.
+    public long versionOf(int index) {
+        return memory.get(LONG, vehicle(index) + V_VERSION);
+    }
+
+    //Gets the number of bookings the vehicle at the record index holds.
+    public int bookingCount(int index) {
+        return memory.get(INT, vehicle(index) + V_BOOKINGS);
+    }
+
+    //Gets the ID of the vehicle at the record index (builds a String).
+    public String idOf(int index) {
+        return name(memory.get(INT, vehicle(index) + V_ID));
+    }
+
+    //Builds a Vehicle from the record, with its status, version and earliest booking as stored.
+    public Vehicle toVehicle(int index) {
+        lock.readLock().lock();
+        try {
+            long v = vehicle(index);
+            Vehicle vehicle = typeOf(index).newVehicle(name(memory.get(INT, v + V_ID)), name(memory.get(INT, v + V_BRAND)),
+                    name(memory.get(INT, v + V_MODEL)), memory.get(DOUBLE, v + V_PRICE));
+            byte flags = memory.get(BYTE, v + V_FLAGS);
+            vehicle.setAvailable((flags & AVAILABLE) != 0);
+            vehicle.setRented((flags & RENTED) != 0);
+            vehicle.setPaid((flags & PAID) != 0);
+            vehicle.setVersion(memory.get(LONG, v + V_VERSION));
+            int first = memory.get(INT, v + V_FIRST_BOOKING);
+            if (first != NONE) {
+                long b = booking(first);
+                vehicle.setRentStartDateTime(toDateTime(memory.get(LONG, b + B_START)));
+                vehicle.setRentEndDateTime(toDateTime(memory.get(LONG, b + B_END)));
+                vehicle.setRentedBy(renter(b));
+            }
+            return vehicle;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Builds the bookings of the vehicle at the record index, earliest first.
+    public List<Booking> bookings(int index) {
+        lock.readLock().lock();
+        try {
+            String id = idOf(index);
+            List<Booking> result = new ArrayList<>(bookingCount(index));
+            for (int at = memory.get(INT, vehicle(index) + V_FIRST_BOOKING); at != NONE; at = memory.get(INT, booking(at) + B_NEXT)) {
+                long b = booking(at);
+                result.add(new Booking(id, renter(b), toDateTime(memory.get(LONG, b + B_START)),
+                        toDateTime(memory.get(LONG, b + B_END)), memory.get(BYTE, b + B_PAID) != 0));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Writes a mapped store's changes to its file (no-op for plain off-heap memory).
+    public void force() {
+        if (memory.isMapped()) memory.force();
+    }
+
+    //Flushes a mapped store, marks it cleanly closed and releases the memory. The store cannot be used afterwards.
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!arena.scope().isAlive()) return;
+            if (memory.isMapped()) {
+                memory.force();
+                memory.set(INT, H_CLEAN, 1);
+                memory.force();
+            }
+            arena.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void format() {
+        memory.fill((byte) 0);
+        memory.set(INT, H_MAGIC, MAGIC);
+        memory.set(INT, H_FORMAT, FORMAT);
+        memory.set(INT, H_VEHICLE_CAPACITY, vehicleCapacity);
+        memory.set(INT, H_BOOKING_CAPACITY, bookingCapacity);
+        memory.set(INT, H_FREE_BOOKING, NONE);
+        memory.set(LONG, H_NAME_BYTES, nameBytes);
+        memory.set(INT, H_ID_SLOTS, idSlots);
+        memory.set(INT, H_NAME_SLOTS, nameSlots);
+    }
+
+    private long vehicle(int index) {
+        return vehicles + index * VEHICLE_BYTES;
+    }
+
+    private long booking(int index) {
+        return bookings + index * BOOKING_BYTES;
+    }
+
+    private boolean isRemoved(int index) {
+        return (memory.get(BYTE, vehicle(index) + V_FLAGS) & REMOVED) != 0;
+    }
+
+    private double priceAt(int index) {
+        return memory.get(DOUBLE, vehicle(index) + V_PRICE);
+    }
+
+    //Checks a period against the vehicle's bookings. The caller holds a lock.
+    private boolean isFree(int index, long from, long to) {
+        long v = vehicle(index);
+        byte flags = memory.get(BYTE, v + V_FLAGS);
+        if ((flags & REMOVED) != 0 || (flags & (AVAILABLE | RENTED)) == 0) return false;
+        // bookings are sorted by start: stop at the first one starting after the period
+        for (int at = memory.get(INT, v + V_FIRST_BOOKING); at != NONE; at = memory.get(INT, booking(at) + B_NEXT)) {
+            long b = booking(at);
+            if (memory.get(LONG, b + B_START) > to) return true;
+            if (memory.get(LONG, b + B_END) >= from) return false;
+        }
+        return true;
+    }
+
+    //Links a booking into the vehicle's list in start order. The caller holds the write lock.
+    private void insertBooking(int index, Booking booking) {
+        checkRenter(booking.rentedBy());
+        int record = memory.get(INT, H_FREE_BOOKING);
+        if (record != NONE) {
+            memory.set(INT, H_FREE_BOOKING, memory.get(INT, booking(record) + B_NEXT));
+        } else {
+            record = memory.get(INT, H_BOOKINGS_USED);
+            if (record == bookingCapacity) throw new FleetStoreFullException("Fleet store is full (" + bookingCapacity + " bookings)");
+            memory.set(INT, H_BOOKINGS_USED, record + 1);
+        }
+        long b = booking(record);
+        long start = toSeconds(booking.start());
+        writeBooking(b, booking);
+
+        long v = vehicle(index);
+        long link = v + V_FIRST_BOOKING;
+        for (int at = memory.get(INT, link); at != NONE && memory.get(LONG, booking(at) + B_START) < start; at = memory.get(INT, link)) {
+            link = booking(at) + B_NEXT;
+        }
+        memory.set(INT, b + B_NEXT, memory.get(INT, link));
+        memory.set(INT, link, record);
+        memory.set(INT, v + V_BOOKINGS, memory.get(INT, v + V_BOOKINGS) + 1);
+    }
+
+    //Writes a booking's fields into its record. The caller holds the write lock and has checked the renter's length.
+    private void writeBooking(long b, Booking booking) {
+        String renter = booking.rentedBy();
+        memory.set(LONG, b + B_START, toSeconds(booking.start()));
+        memory.set(LONG, b + B_END, toSeconds(booking.end()));
+        memory.set(BYTE, b + B_PAID, (byte) (booking.paid() ? 1 : 0));
+        memory.set(SHORT, b + B_RENTER_LENGTH, (short) (renter == null ? NONE : renter.length()));
+        if (renter == null) return;
+        for (int i = 0; i < renter.length(); i++) memory.set(CHAR, b + B_RENTER + i * 2L, renter.charAt(i));
+    }
+
+    private static void checkRenter(String renter) {
+        if (renter != null && renter.length() > RENTER_CHARS) {
+            throw new FleetStoreFullException("Renter name longer than " + RENTER_CHARS + " chars does not fit the fleet store");
+        }
+    }
+
+    //Builds the renter name stored inline in a booking record.
+    private String renter(long b) {
+        short length = memory.get(SHORT, b + B_RENTER_LENGTH);
+        if (length == NONE) return null;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = memory.get(CHAR, b + B_RENTER + i * 2L);
+        return new String(chars);
+    }
+
+    //Finds the vehicle's booking record starting at the given time, or -1. The caller holds a lock.
+    private int bookingAt(int index, long start) {
+        for (int at = memory.get(INT, vehicle(index) + V_FIRST_BOOKING); at != NONE; at = memory.get(INT, booking(at) + B_NEXT)) {
+            long bookingStart = memory.get(LONG, booking(at) + B_START);
+            if (bookingStart == start) return at;
+            if (bookingStart > start) break;
+        }
+        return NONE;
+    }
+
+    //Moves every booking of the vehicle onto the free list. The caller holds the write lock.
+    private void freeBookings(int index) {
+        long v = vehicle(index);
+        int at = memory.get(INT, v + V_FIRST_BOOKING);
+        while (at != NONE) {
+            int next = memory.get(INT, booking(at) + B_NEXT);
+            memory.set(INT, booking(at) + B_NEXT, memory.get(INT, H_FREE_BOOKING));
+            memory.set(INT, H_FREE_BOOKING, at);
+            at = next;
+        }
+        memory.set(INT, v + V_FIRST_BOOKING, NONE);
+        memory.set(INT, v + V_BOOKINGS, 0);
+    }
+
+    //Looks a vehicle ID up in the ID table (removed vehicles included). The caller holds a lock.
+    private int find(CharSequence id) {
+        int mask = idSlots - 1;
+        for (int slot = hashIgnoreCase(id) & mask; ; slot = (slot + 1) & mask) {
+            int entry = memory.get(INT, idTable + slot * 4L);
+            if (entry == 0) return NONE;
+            int index = entry - 1;
+            if (equalsIgnoreCase(memory.get(INT, vehicle(index) + V_ID), id)) return index;
+        }
+    }
+
+    private void indexId(int index) {
+        int mask = idSlots - 1;
+        int slot = hashIgnoreCase(name(memory.get(INT, vehicle(index) + V_ID))) & mask;
+        while (memory.get(INT, idTable + slot * 4L) != 0) slot = (slot + 1) & mask;
+        memory.set(INT, idTable + slot * 4L, index + 1);
+    }
+
+    //Returns the dictionary code (entry offset) of a string, adding it if it is new. -1 stands for null.
+    private int intern(String value) {
+        if (value == null) return NONE;
+        int mask = nameSlots - 1;
+        int slot = value.hashCode() & mask;
+        for (int entry; (entry = memory.get(INT, nameTable + slot * 4L)) != 0; slot = (slot + 1) & mask) {
+            if (equals(entry - 1, value)) return entry - 1;
+        }
+        long used = memory.get(LONG, H_NAME_BYTES_USED);
+        long size = 2L + value.length() * 2L;
+        if (used + size > nameBytes || memory.get(INT, H_NAMES) + 1 > nameSlots / 2) {
+            throw new FleetStoreFullException("Fleet store dictionary is full");
+        }
+        long at = names + used;
+        memory.set(SHORT, at, (short) value.length());
+        for (int i = 0; i < value.length(); i++) memory.set(CHAR, at + 2 + i * 2L, value.charAt(i));
+        memory.set(LONG, H_NAME_BYTES_USED, used + size);
+        memory.set(INT, H_NAMES, memory.get(INT, H_NAMES) + 1);
+        memory.set(INT, nameTable + slot * 4L, (int) used + 1);
+        return (int) used;
+    }
+
+    private String name(int code) {
+        if (code == NONE) return null;
+        long at = names + code;
+        char[] chars = new char[memory.get(SHORT, at)];
+        for (int i = 0; i < chars.length; i++) chars[i] = memory.get(CHAR, at + 2 + i * 2L);
+        return new String(chars);
+    }
+
+    private boolean equals(int code, CharSequence value) {
+        long at = names + code;
+        if (memory.get(SHORT, at) != value.length()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (memory.get(CHAR, at + 2 + i * 2L) != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean equalsIgnoreCase(int code, CharSequence value) {
+        long at = names + code;
+        if (memory.get(SHORT, at) != value.length()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.toUpperCase(memory.get(CHAR, at + 2 + i * 2L)) != Character.toUpperCase(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static int hashIgnoreCase(CharSequence value) {
+        int hash = 0;
+        for (int i = 0; i < value.length(); i++) hash = 31 * hash + Character.toUpperCase(value.charAt(i));
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long seconds) {
+        if (seconds == NO_TIME) return null;
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private static int slotsFor(int entries) {
+        return Integer.highestOneBit(Math.max(entries, 8) * 2 - 1) << 1;
+    }
+
+    private static long nameBytesFor(int vehicleCapacity) {
+        return vehicleCapacity * 64L + (1 << 20);
+    }
+
+    private static long totalBytes(int vehicleCapacity, int bookingCapacity) {
+        return HEADER_BYTES + slotsFor(vehicleCapacity) * 4L + vehicleCapacity * VEHICLE_BYTES
+                + bookingCapacity * BOOKING_BYTES + slotsFor(vehicleCapacity * 2 + 1024) * 4L + nameBytesFor(vehicleCapacity);
+    }
+
+    private static void checkCapacities(int vehicleCapacity, int bookingCapacity) {
+        if (vehicleCapacity < 1 || bookingCapacity < 0 || vehicleCapacity > (1 << 24)) {
+            throw new IllegalArgumentException("Invalid fleet store capacities: vehicles=" + vehicleCapacity
+                    + ", bookings=" + bookingCapacity);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.RentalRecord;
+import com.vehiclerental.utils.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Start-up self-check that runs EXPLAIN on the selective DAO queries and flags any that would scan a
+ * whole table (access type ALL). The full-table loads done at start-up (getAllVehicles, getAllUsers)
+ * are deliberate and are not checked.
+ */
+public class QueryPlanCheck {
+
+    //Returns one warning per query whose plan contains a full table scan.
+    public List<String> run() throws SQLException {
+        List<String> warnings = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (Map.Entry<String, Query> entry : queries().entrySet()) {
+                Query query = entry.getValue();
+                try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + query.sql())) {
+                    for (int i = 0; i < query.params().size(); i++) {
+                        stmt.setObject(i + 1, query.params().get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (!"ALL".equalsIgnoreCase(rs.getString("type"))) continue;
+                            String warning = entry.getKey() + ": full scan of " + rs.getString("table")
+                                    + " (~" + rs.getLong("rows") + " rows)";
+                            // with a usable index the optimiser only prefers a scan on tiny tables
+                            warnings.add(rs.getString("possible_keys") == null
+                                    ? warning + ", no usable index"
+                                    : warning + ", index " + rs.getString("possible_keys") + " not chosen");
+                        }
+                    }
+                }
+            }
+        }
+        return warnings;
+    }
+
+    private record Query(String sql, List<Object> params) { }
+
+    //Representative forms of every indexed DAO query, with sample parameter values.
+    private static Map<String, Query> queries() {
+        Map<String, Query> queries = new LinkedHashMap<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        queries.put("VehicleDAO.getVehicleById", new Query(VehicleDAO.SELECT_BY_ID_SQL, List.of("X")));
+        queries.put("VehicleDAO.updateVehicle", new Query(VehicleDAO.UPDATE_SQL,
+                List.of("b", "m", 1.0, true, false, now, now, false, "u", "Car", "X", 0L)));
+        queries.put("UserDAO.getUser", new Query(UserDAO.SELECT_BY_USERNAME_SQL, List.of("u")));
+        queries.put("RentalDAO.getRentalHistoryByUser", new Query(RentalDAO.HISTORY_BY_USER_SQL, List.of("u")));
+        queries.put("RentalDAO.markRentalAsPaid", new Query(RentalDAO.MARK_PAID_SQL, List.of("X", "u")));
+        queries.put("RentalDAO.getActiveBookings", new Query(RentalDAO.ACTIVE_BOOKINGS_SQL, List.of()));
+        queries.put("RentalDAO.getActiveBookings(vehicle)", new Query(RentalDAO.ACTIVE_BOOKINGS_FOR_VEHICLE_SQL, List.of("X")));
+        queries.put("RentalDAO.markRentalAsPaid(booking)", new Query(RentalDAO.MARK_BOOKING_PAID_SQL, List.of("X", now, "u")));
+        queries.put("RentalDAO.markRentalReturned", new Query(RentalDAO.CLOSE_BOOKING_SQL,
+                List.of(RentalDAO.STATUS_RETURNED, "X", now, "u")));
+
+        queries.put("VehicleDAO.getVehiclesChangedSince", new Query(VehicleDAO.CHANGED_SINCE_SQL, List.of(now)));
+        queries.put("RentalDAO.getVehicleIdsWithBookingChangesSince", new Query(RentalDAO.BOOKING_CHANGES_SINCE_SQL, List.of(now)));
+        queries.put("UserDAO.getUsersChangedSince", new Query(UserDAO.CHANGED_SINCE_SQL, List.of(now)));
+        queries.put("Tombstones.since", new Query(Tombstones.SINCE_SQL, List.of("vehicles", now)));
+
+        String token = RentalPage.tokenAfter(new RentalRecord(
+                1, "X", "u", LocalDateTime.now(), LocalDateTime.now(), 0, false, "Car"));
+        addPage(queries, "RentalDAO.getRentalHistoryPage(user)", RentalHistoryQuery.forUser("u", 20), token);
+        addPage(queries, "RentalDAO.getRentalHistoryPage(all)", RentalHistoryQuery.all(20), token);
+        addPage(queries, "RentalDAO.getRentalHistoryPage(vehicle)", RentalHistoryQuery.all(20).withVehicle("X"), token);
+        return queries;
+    }
+
+    private static void addPage(Map<String, Query> queries, String name, RentalHistoryQuery query, String token) {
+        List<Object> params = new ArrayList<>();
+        String sql = RentalDAO.buildPageSql(query, token, params);
+        queries.put(name, new Query(sql, params));
+    }
+}
@@ -4,7 +4,16 @@ import com.vehiclerental.models.*;
 import com.vehiclerental.utils.DatabaseConnection;
 import java.sql.*;
 import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -12,23 +21,44 @@ import java.util.List;
  * Logs new rentals and retrieves rental history from the database.
  */
 
-public class RentalDAO {
+public class RentalDAO implements RentalRepository {
+
+    // booking lifecycle stored in rentals.status (see V3__rental_status.sql)
+    static final String STATUS_BOOKED = "BOOKED";
+    static final String STATUS_RETURNED = "RETURNED";
+    static final String STATUS_CANCELLED = "CANCELLED";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO rentals (vehicle_id, rented_by, start_time, end_time, total_price, paid, vehicle_type, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String HISTORY_BY_USER_SQL = "SELECT * FROM rentals WHERE rented_by = ?";
+    static final String MARK_PAID_SQL =
+            "UPDATE rentals SET paid = TRUE WHERE vehicle_id = ? AND rented_by = ? AND paid = FALSE";
+    static final String ACTIVE_BOOKINGS_SQL =
+            "SELECT vehicle_id, rented_by, start_time, end_time, paid FROM rentals WHERE status = 'BOOKED'";
+    static final String ACTIVE_BOOKINGS_FOR_VEHICLE_SQL = ACTIVE_BOOKINGS_SQL + " AND vehicle_id = ?";
+    static final String BOOKING_CHANGES_SINCE_SQL = "SELECT DISTINCT vehicle_id FROM rentals WHERE updated_at >= ?";
+    static final String MARK_BOOKING_PAID_SQL =
+            "UPDATE rentals SET paid = TRUE WHERE status = 'BOOKED' AND vehicle_id = ? AND start_time = ? AND rented_by = ?";
+    static final String CLOSE_BOOKING_SQL =
+            "UPDATE rentals SET status = ? WHERE status = 'BOOKED' AND vehicle_id = ? AND start_time = ? AND rented_by = ?";
+
+    // rows per round trip for cursor reads (server-side cursor, see useCursorFetch in DatabaseConnection)
+    private static final int STREAM_FETCH_SIZE = Integer.getInteger("vehiclerental.streamFetchSize", 1000);
+
+    private int batchSize = BatchWriter.DEFAULT_BATCH_SIZE;
+
+    //Sets how many rows logRentals sends per JDBC batch (and commits per transaction).
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
 
     //Logs a new rental into the database.
     public void logRental(Vehicle vehicle) {
-        String sql = "INSERT INTO rentals (vehicle_id, rented_by, start_time, end_time, total_price, paid, vehicle_type) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, vehicle.getId());
-            stmt.setString(2, vehicle.getRentedBy());
-            stmt.setTimestamp(3, Timestamp.valueOf(vehicle.getRentStartDateTime()));
-            stmt.setTimestamp(4, Timestamp.valueOf(vehicle.getRentEndDateTime()));
-            stmt.setDouble(5, vehicle.calculateRentalPrice());
-            stmt.setBoolean(6, vehicle.isPaid());
-            stmt.setString(7, vehicle.getVehicleType());
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
+            bindInsert(stmt, vehicle);
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -36,13 +66,127 @@ public class RentalDAO {
         }
     }
 
+    //Inserts a rental row and returns its generated id. Unlike logRental failures are thrown, so a UnitOfWork can roll back.
+    public long insertRental(Vehicle vehicle) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            bindInsert(stmt, vehicle);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No id generated for rental of vehicle " + vehicle.getId());
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    //Logs many rentals (e.g. a backfill from another system) using batched inserts, one transaction per chunk.
+    public BatchResult logRentals(Collection<? extends Vehicle> rentals) throws SQLException {
+        return BatchWriter.write(new ArrayList<>(rentals), batchSize, INSERT_SQL, RentalDAO::bindInsert, Vehicle::getId);
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Vehicle vehicle) throws SQLException {
+        stmt.setString(1, vehicle.getId());
+        stmt.setString(2, vehicle.getRentedBy());
+        stmt.setTimestamp(3, Timestamp.valueOf(vehicle.getRentStartDateTime()));
+        stmt.setTimestamp(4, Timestamp.valueOf(vehicle.getRentEndDateTime()));
+        stmt.setDouble(5, vehicle.calculateRentalPrice());
+        stmt.setBoolean(6, vehicle.isPaid());
+        stmt.setString(7, vehicle.getVehicleType());
+        // a rented vehicle is a live booking; anything else (e.g. a history backfill) is already over
+        stmt.setString(8, vehicle.isRented() ? STATUS_BOOKED : STATUS_RETURNED);
+    }
+
+    //Loads every booking that has not been returned or cancelled yet, so reservation calendars survive a restart.
+    public List<Booking> getActiveBookings() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(ACTIVE_BOOKINGS_SQL)) {
+            return readBookings(stmt);
+        }
+    }
+
+    //Loads one vehicle's live bookings, e.g. to catch up with bookings another application instance made.
+    public List<Booking> getActiveBookings(String vehicleId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(ACTIVE_BOOKINGS_FOR_VEHICLE_SQL)) {
+            stmt.setString(1, vehicleId);
+            return readBookings(stmt);
+        }
+    }
+
+    //Returns the IDs of vehicles with a rental row written or changed at or after the given database time.
+    public Set<String> getVehicleIdsWithBookingChangesSince(LocalDateTime since) throws SQLException {
+        Set<String> vehicleIds = new HashSet<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(BOOKING_CHANGES_SINCE_SQL)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) vehicleIds.add(rs.getString(1));
+            }
+        }
+        return vehicleIds;
+    }
+
+    private static List<Booking> readBookings(PreparedStatement stmt) throws SQLException {
+        List<Booking> bookings = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                bookings.add(new Booking(
+                        rs.getString("vehicle_id"),
+                        rs.getString("rented_by"),
+                        rs.getTimestamp("start_time").toLocalDateTime(),
+                        rs.getTimestamp("end_time").toLocalDateTime(),
+                        rs.getBoolean("paid")));
+            }
+        }
+        return bookings;
+    }
+
+    //Marks one booking as returned (the rental row was written when it was booked).
+    public boolean markRentalReturned(Booking booking) {
+        return closeBooking(booking, STATUS_RETURNED);
+    }
+
+    //Marks one booking as cancelled.
+    public boolean markRentalCancelled(Booking booking) {
+        return closeBooking(booking, STATUS_CANCELLED);
+    }
+
+    //Marks one booking as returned, throwing failures so a UnitOfWork can roll back. A booking without a row is left as is.
+    public void returnRental(Booking booking) throws SQLException {
+        updateStatus(booking, STATUS_RETURNED);
+    }
+
+    //Marks one booking as cancelled, throwing failures.
+    public void cancelRental(Booking booking) throws SQLException {
+        updateStatus(booking, STATUS_CANCELLED);
+    }
+
+    private boolean closeBooking(Booking booking, String status) {
+        try {
+            return updateStatus(booking, status) > 0;
+        } catch (SQLException e) {
+            System.out.println("Failed to update booking status: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private int updateStatus(Booking booking, String status) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CLOSE_BOOKING_SQL)) {
+            stmt.setString(1, status);
+            stmt.setString(2, booking.vehicleId());
+            stmt.setTimestamp(3, Timestamp.valueOf(booking.start()));
+            stmt.setString(4, booking.rentedBy());
+            return stmt.executeUpdate();
+        }
+    }
+
     //Retrieves rental history for a specific user.
     public List<Vehicle> getRentalHistoryByUser(String username) {
         List<Vehicle> rentals = new ArrayList<>();
-        String sql = "SELECT * FROM rentals WHERE rented_by = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(HISTORY_BY_USER_SQL)) {
 
             stmt.setString(1, username);
             ResultSet rs = stmt.executeQuery();
@@ -81,15 +225,124 @@ public class RentalDAO {
         return rentals;
     }
 
+    /*Reads one page of rental history, newest first, keyed on (start_time, id). Pass the previous page's token
+    (or null for the first page). The key condition lets MySQL range-scan the start_time indexes, so a deep page
+    costs the same as the first one; no OFFSET is used.*/
+    public RentalPage getRentalHistoryPage(RentalHistoryQuery query, String pageToken) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = buildPageSql(query, pageToken, params);
+
+        List<RentalRecord> rows = new ArrayList<>(query.pageSize() + 1);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapResultToRecord(rs));
+                }
+            }
+        }
+
+        if (rows.size() <= query.pageSize()) {
+            return new RentalPage(rows, null);
+        }
+        rows.remove(rows.size() - 1);
+        return new RentalPage(rows, RentalPage.tokenAfter(rows.get(rows.size() - 1)));
+    }
+
+    //Builds the keyset page SQL for a query, collecting its parameters. Also used by QueryPlanCheck.
+    static String buildPageSql(RentalHistoryQuery query, String pageToken, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM rentals WHERE 1=1");
+        if (query.rentedBy() != null) {
+            sql.append(" AND rented_by = ?");
+            params.add(query.rentedBy());
+        }
+        if (query.vehicleId() != null) {
+            sql.append(" AND vehicle_id = ?");
+            params.add(query.vehicleId());
+        }
+        if (query.paid() != null) {
+            sql.append(" AND paid = ?");
+            params.add(query.paid());
+        }
+        if (query.from() != null) {
+            sql.append(" AND start_time >= ?");
+            params.add(Timestamp.valueOf(query.from()));
+        }
+        if (query.to() != null) {
+            sql.append(" AND start_time < ?");
+            params.add(Timestamp.valueOf(query.to()));
+        }
+        if (pageToken != null) {
+            RentalPage.Key after = RentalPage.Key.parse(pageToken);
+            Timestamp start = Timestamp.valueOf(after.startTime());
+            sql.append(" AND (start_time < ? OR (start_time = ? AND id < ?))");
+            params.add(start);
+            params.add(start);
+            params.add(after.id());
+        }
+        // one extra row tells us whether another page exists
+        sql.append(" ORDER BY start_time DESC, id DESC LIMIT ?");
+        params.add(query.pageSize() + 1);
+        return sql.toString();
+    }
+
+    /*Streams every rental row through a forward-only, read-only cursor so callers can process the whole history
+    in constant memory. The stream holds a pooled connection until it is closed, so always use try-with-resources.*/
+    public Stream<RentalRecord> streamAllRentalHistory() throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        try {
+            PreparedStatement stmt = conn.prepareStatement("SELECT * FROM rentals",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+            Spliterator<RentalRecord> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super RentalRecord> action) {
+                    try {
+                        if (!rs.next()) return false;
+                        action.accept(mapResultToRecord(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Failed to read rental history: " + e.getMessage(), e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try (conn; stmt; rs) {
+                    // closing in reverse order releases the cursor and hands the connection back to the pool
+                } catch (SQLException e) {
+                    System.out.println("Failed to close rental history cursor: " + e.getMessage());
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    private RentalRecord mapResultToRecord(ResultSet rs) throws SQLException {
+        Timestamp start = rs.getTimestamp("start_time");
+        Timestamp end = rs.getTimestamp("end_time");
+        return new RentalRecord(
+                rs.getLong("id"),
+                rs.getString("vehicle_id"),
+                rs.getString("rented_by"),
+                start != null ? start.toLocalDateTime() : null,
+                end != null ? end.toLocalDateTime() : null,
+                rs.getDouble("total_price"),
+                rs.getBoolean("paid"),
+                rs.getString("vehicle_type"));
+    }
+
     //Maps a result set row to a corresponding Vehicle object. Constructs appropriate subclass (Car, Van, Motorcycle) based on vehicle type.
     private Vehicle mapResultToVehicle(ResultSet rs) throws SQLException {
-        String type = rs.getString("vehicle_type");
-        Vehicle vehicle = switch (type) {
-            case "Car" -> new Car(rs.getString("vehicle_id"), "Unknown", "Unknown", rs.getDouble("total_price")); // Fallback values
-            case "Van" -> new Van(rs.getString("vehicle_id"), "Unknown", "Unknown", rs.getDouble("total_price"));
-            case "Motorcycle" -> new Motorcycle(rs.getString("vehicle_id"), "Unknown", "Unknown", rs.getDouble("total_price"));
-            default -> null;
-        };
+        VehicleType type = VehicleType.of(rs.getString("vehicle_type"));
+        Vehicle vehicle = type == null ? null
+                : type.newVehicle(rs.getString("vehicle_id"), "Unknown", "Unknown", rs.getDouble("total_price")); // Fallback values
 
         if (vehicle != null) {
             vehicle.setRentedBy(rs.getString("rented_by"));
@@ -103,9 +356,8 @@ public class RentalDAO {
 
     //Marks a specific rental as paid based on vehicle ID and user.
     public boolean markRentalAsPaid(String vehicleId, String username) {
-        String sql = "UPDATE rentals SET paid = TRUE WHERE vehicle_id = ? AND rented_by = ? AND paid = FALSE";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(MARK_PAID_SQL)) {
             stmt.setString(1, vehicleId);
             stmt.setString(2, username);
             return stmt.executeUpdate() > 0;
@@ -114,5 +366,33 @@ public class RentalDAO {
             return false;
         }
     }
+
+    //Marks one specific booking as paid, leaving the user's other bookings of the same vehicle untouched.
+    public boolean markRentalAsPaid(Booking booking) {
+        try {
+            return updatePaid(booking) > 0;
+        } catch (SQLException e) {
+            System.out.println("Failed to mark rental as paid: " + e.getMessage());
+            return false;
+        }
+    }
+
+    //Marks one booking as paid, throwing failures so a UnitOfWork can roll back. A booking without a live row is a failure too.
+    public void payRental(Booking booking) throws SQLException {
+        if (updatePaid(booking) == 0) {
+            throw new SQLException("No live rental of vehicle " + booking.vehicleId() + " starting " + booking.start()
+                    + " for " + booking.rentedBy());
+        }
+    }
+
+    private int updatePaid(Booking booking) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(MARK_BOOKING_PAID_SQL)) {
+            stmt.setString(1, booking.vehicleId());
+            stmt.setTimestamp(2, Timestamp.valueOf(booking.start()));
+            stmt.setString(3, booking.rentedBy());
+            return stmt.executeUpdate();
+        }
+    }
     
 }
@@ -0,0 +1,45 @@
+package com.vehiclerental.dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters and page size for a keyset-paginated rental history read (see {@link RentalDAO#getRentalHistoryPage}).
+ * Null filters are ignored. The date range applies to the rental start time, from inclusive and to exclusive.
+ */
+public record RentalHistoryQuery(String rentedBy,
+                                 String vehicleId,
+                                 Boolean paid,
+                                 LocalDateTime from,
+                                 LocalDateTime to,
+                                 int pageSize) {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public RentalHistoryQuery {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    //History of every user, newest first.
+    public static RentalHistoryQuery all(int pageSize) {
+        return new RentalHistoryQuery(null, null, null, null, null, pageSize);
+    }
+
+    //History of one user, newest first.
+    public static RentalHistoryQuery forUser(String username, int pageSize) {
+        return new RentalHistoryQuery(username, null, null, null, null, pageSize);
+    }
+
+    public RentalHistoryQuery withVehicle(String vehicleId) {
+        return new RentalHistoryQuery(rentedBy, vehicleId, paid, from, to, pageSize);
+    }
+
+    public RentalHistoryQuery withPaid(Boolean paid) {
+        return new RentalHistoryQuery(rentedBy, vehicleId, paid, from, to, pageSize);
+    }
+
+    public RentalHistoryQuery between(LocalDateTime from, LocalDateTime to) {
+        return new RentalHistoryQuery(rentedBy, vehicleId, paid, from, to, pageSize);
+    }
+}
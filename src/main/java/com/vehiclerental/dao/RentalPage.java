@@ -0,0 +1,39 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.RentalRecord;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of rental history, newest first.
+ * {@link #nextToken()} is an opaque continuation token holding the (start_time, id) key of the last row;
+ * pass it back to fetch the following page, or treat null as "no more rows".
+ */
+public record RentalPage(List<RentalRecord> rows, String nextToken) {
+
+    public boolean hasMore() {
+        return nextToken != null;
+    }
+
+    //Builds the token that continues after the given row.
+    static String tokenAfter(RentalRecord last) {
+        String key = last.startTime() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Decoded form of a continuation token.
+    record Key(LocalDateTime startTime, long id) {
+
+        static Key parse(String token) {
+            try {
+                String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = key.lastIndexOf('|');
+                return new Key(LocalDateTime.parse(key.substring(0, sep)), Long.parseLong(key.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid page token", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.RentalRecord;
+import com.vehiclerental.models.Vehicle;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Storage of rental records and their booking lifecycle (booked, returned, cancelled), implemented by the MySQL
+ * {@link RentalDAO}, {@link InMemoryRentalRepository} and the embedded file-backed store (see {@link Storage}).
+ * A rental is logged from a Vehicle showing the booking: a rented vehicle is a live booking, anything else is
+ * already over.
+ */
+public interface RentalRepository {
+
+    //Logs a new rental, reporting (not throwing) failures.
+    void logRental(Vehicle vehicle);
+
+    //Logs a new rental and returns its generated id. Failures are thrown, so a UnitOfWork can roll back.
+    long insertRental(Vehicle vehicle) throws SQLException;
+
+    //Logs many rentals (e.g. a backfill from another system). Failed rows are reported, not thrown.
+    BatchResult logRentals(Collection<? extends Vehicle> rentals) throws SQLException;
+
+    //Loads every booking that has not been returned or cancelled yet.
+    List<Booking> getActiveBookings() throws SQLException;
+
+    //Loads one vehicle's live bookings.
+    List<Booking> getActiveBookings(String vehicleId) throws SQLException;
+
+    //Returns the IDs of vehicles with a rental written or changed at or after the given storage time.
+    Set<String> getVehicleIdsWithBookingChangesSince(LocalDateTime since) throws SQLException;
+
+    //Marks one booking as returned.
+    boolean markRentalReturned(Booking booking);
+
+    //Marks one booking as cancelled.
+    boolean markRentalCancelled(Booking booking);
+
+    //Marks one booking as returned. Unlike markRentalReturned failures are thrown, so a UnitOfWork or queued write fails.
+    void returnRental(Booking booking) throws SQLException;
+
+    //Marks one booking as cancelled. Unlike markRentalCancelled failures are thrown.
+    void cancelRental(Booking booking) throws SQLException;
+
+    //Retrieves rental history for a specific user.
+    List<Vehicle> getRentalHistoryByUser(String username);
+
+    //Retrieves all rental history records.
+    List<Vehicle> getAllRentalHistory();
+
+    //Reads one page of rental history, newest first. Pass the previous page's token (or null for the first page).
+    RentalPage getRentalHistoryPage(RentalHistoryQuery query, String pageToken) throws SQLException;
+
+    //Streams every rental in id order. The stream may hold resources until closed, so use try-with-resources.
+    Stream<RentalRecord> streamAllRentalHistory() throws SQLException;
+
+    //Visits every rental in constant memory and returns how many rentals were visited.
+    default long forEachRental(Consumer<RentalRecord> visitor) throws SQLException {
+        try (Stream<RentalRecord> rows = streamAllRentalHistory()) {
+            long[] count = {0};
+            rows.forEach(row -> {
+                visitor.accept(row);
+                count[0]++;
+            });
+            return count[0];
+        }
+    }
+
+    //Marks the user's unpaid rentals of a vehicle as paid.
+    boolean markRentalAsPaid(String vehicleId, String username);
+
+    //Marks one specific booking as paid, leaving the user's other bookings of the same vehicle untouched.
+    boolean markRentalAsPaid(Booking booking);
+
+    //Marks one booking as paid like markRentalAsPaid(Booking), but throws failures, a booking without a live rental row included.
+    void payRental(Booking booking) throws SQLException;
+}
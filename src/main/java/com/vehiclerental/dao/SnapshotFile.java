@@ -0,0 +1,204 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.*;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/*
+ * Compact binary file holding a StateSnapshot, for warm restarts.
+ * Layout (big-endian): MAGIC, FORMAT, then the payload (asOf, vehicles, bookings, users, each list prefixed by
+ * its count), then a CRC32 of the payload. Strings are a length (-1 for null) followed by UTF-8 bytes; times
+ * are a presence byte, epoch seconds (UTC) and nanos.
+ * The file is written to a temporary sibling, forced to disk and moved into place, so a crash mid-write leaves
+ * the previous snapshot intact. It is read through a memory-mapped buffer; a missing, truncated, corrupt or
+ * older-format file reads as null and the caller falls back to a full load.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x56525331; // "VRS1"
+    private static final int FORMAT = 1;
+
+    //Writes the snapshot atomically, replacing any previous one.
+    public static void write(Path file, StateSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        writeTime(out, snapshot.asOf());
+        out.writeInt(snapshot.vehicles().size());
+        for (Vehicle v : snapshot.vehicles()) {
+            writeString(out, v.getVehicleType());
+            writeString(out, v.getId());
+            writeString(out, v.getBrand());
+            writeString(out, v.getModel());
+            out.writeDouble(v.getPricePerDay());
+            out.writeBoolean(v.isAvailable());
+            out.writeBoolean(v.isRented());
+            writeTime(out, v.getRentStartDateTime());
+            writeTime(out, v.getRentEndDateTime());
+            out.writeBoolean(v.isPaid());
+            writeString(out, v.getRentedBy());
+            out.writeLong(v.getVersion());
+        }
+        out.writeInt(snapshot.bookings().size());
+        for (Booking b : snapshot.bookings()) {
+            writeString(out, b.vehicleId());
+            writeString(out, b.rentedBy());
+            writeTime(out, b.start());
+            writeTime(out, b.end());
+            out.writeBoolean(b.paid());
+        }
+        out.writeInt(snapshot.users().size());
+        for (User u : snapshot.users()) {
+            writeString(out, u.getUsername());
+            writeString(out, u.getPassword());
+            writeString(out, u.getRole());
+            writeString(out, u.getName());
+            writeString(out, u.getEmail());
+            writeString(out, u.getPhone());
+            writeString(out, u.getAddress());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 8, bytes.size() - 8);
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        // a leftover from an interrupted write may have other permissions; the new file is created private
+        Files.deleteIfExists(tmp);
+        try (FileChannel channel = createPrivate(tmp)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*Creates a file readable and writable by the account running the application only, from the moment it exists:
+    it holds user credentials. File systems without POSIX permissions create it as usual.*/
+    private static FileChannel createPrivate(Path path) throws IOException {
+        try {
+            return FileChannel.open(path, Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            return FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+
+    //Reads a snapshot through a memory-mapped buffer. Returns null if there is no usable snapshot.
+    public static StateSnapshot read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                System.out.println("Ignoring snapshot " + file + ": unknown format");
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(8, buffer.limit() - 16));
+            if (crc.getValue() != buffer.getLong(buffer.limit() - 8)) {
+                System.out.println("Ignoring snapshot " + file + ": checksum mismatch");
+                return null;
+            }
+            return parse(buffer);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static StateSnapshot parse(ByteBuffer in) {
+        LocalDateTime asOf = readTime(in);
+        int vehicleCount = in.getInt();
+        List<Vehicle> vehicles = new ArrayList<>(vehicleCount);
+        for (int i = 0; i < vehicleCount; i++) {
+            String type = readString(in);
+            String id = readString(in);
+            String brand = readString(in);
+            String model = readString(in);
+            double price = in.getDouble();
+            VehicleType vehicleType = VehicleType.of(type);
+            if (vehicleType == null) throw new IllegalStateException("Unknown vehicle type: " + type);
+            Vehicle v = vehicleType.newVehicle(id, brand, model, price);
+            v.setAvailable(in.get() != 0);
+            v.setRented(in.get() != 0);
+            v.setRentStartDateTime(readTime(in));
+            v.setRentEndDateTime(readTime(in));
+            v.setPaid(in.get() != 0);
+            v.setRentedBy(readString(in));
+            v.setVersion(in.getLong());
+            vehicles.add(v);
+        }
+        int bookingCount = in.getInt();
+        List<Booking> bookings = new ArrayList<>(bookingCount);
+        for (int i = 0; i < bookingCount; i++) {
+            bookings.add(new Booking(readString(in), readString(in), readTime(in), readTime(in), in.get() != 0));
+        }
+        int userCount = in.getInt();
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User(readString(in), readString(in), readString(in), readString(in),
+                    readString(in), readString(in), readString(in)));
+        }
+        if (in.remaining() != 8) throw new BufferUnderflowException();
+        return new StateSnapshot(asOf, vehicles, bookings, users);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time == null) return;
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer in) {
+        if (in.get() == 0) return null;
+        return LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+    }
+
+    private SnapshotFile() { }
+}
@@ -0,0 +1,24 @@
+package com.vehiclerental.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown by {@link VehicleDAO#updateVehicle} when the vehicle row no longer has the version the caller read,
+ * i.e. another application instance changed or deleted it first. Nothing was written; reload and retry.
+ */
+public class StaleVehicleException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String vehicleId;
+
+    public StaleVehicleException(String vehicleId, long expectedVersion) {
+        super("Vehicle " + vehicleId + " was changed by another user (expected version " + expectedVersion + ")");
+        this.vehicleId = vehicleId;
+    }
+
+    //Gets the ID of the vehicle whose update was rejected.
+    public String getVehicleId() {
+        return vehicleId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.User;
+import com.vehiclerental.models.Vehicle;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The in-memory state of one application instance at a point in time: the fleet (vehicles with their current
+ * booking and row version), every live booking, and the users. asOf is the database time taken just before
+ * the state was copied, so everything the database changed from asOf on can be re-read on restore.
+ */
+public record StateSnapshot(LocalDateTime asOf, List<Vehicle> vehicles, List<Booking> bookings, List<User> users) {
+
+    // changes are re-read from a little before asOf, to cover transactions still open when the snapshot was taken
+    private static final Duration RECONCILE_OVERLAP = Duration.ofMinutes(1);
+
+    //The database time from which changes must be re-read when restoring this snapshot.
+    public LocalDateTime changesSince() {
+        return asOf.minus(RECONCILE_OVERLAP);
+    }
+}
@@ -0,0 +1,112 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.utils.DatabaseConnection;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * The storage backend the services run on: one vehicle, rental and user repository plus the clock their change
+ * times are stamped with.
+ * <ul>
+ *   <li>{@link #jdbc()}: the MySQL DAOs (the default).</li>
+ *   <li>{@link #inMemory()}: plain in-memory repositories, lost on exit. No database is needed, so tests,
+ *       load tests and benchmarks run offline, and timing an operation on it measures its business logic alone.</li>
+ *   <li>{@link #embedded(Path)}: the in-memory repositories backed by a log file in the given directory (see
+ *       EmbeddedLog), so data survives restarts without a database server.</li>
+ * </ul>
+ * Chosen with -Dvehiclerental.storage: "jdbc" (default), "memory", or the directory of an embedded store.
+ */
+public final class Storage implements AutoCloseable {
+
+    public enum Kind { JDBC, MEMORY, EMBEDDED }
+
+    private final Kind kind;
+    private final VehicleRepository vehicles;
+    private final RentalRepository rentals;
+    private final UserRepository users;
+    private final EmbeddedLog log;
+
+    private Storage(Kind kind, VehicleRepository vehicles, RentalRepository rentals, UserRepository users,
+                    EmbeddedLog log) {
+        this.kind = kind;
+        this.vehicles = vehicles;
+        this.rentals = rentals;
+        this.users = users;
+        this.log = log;
+    }
+
+    public static Storage jdbc() {
+        return new Storage(Kind.JDBC, new VehicleDAO(), new RentalDAO(), new UserDAO(), null);
+    }
+
+    public static Storage inMemory() {
+        return new Storage(Kind.MEMORY, new InMemoryVehicleRepository(), new InMemoryRentalRepository(),
+                new InMemoryUserRepository(), null);
+    }
+
+    //Opens (or creates) an embedded store in the directory, reading back everything it holds.
+    public static Storage embedded(Path dir) throws IOException {
+        EmbeddedLog log = new EmbeddedLog(dir);
+        InMemoryVehicleRepository vehicles = new InMemoryVehicleRepository(log);
+        InMemoryRentalRepository rentals = new InMemoryRentalRepository(log);
+        InMemoryUserRepository users = new InMemoryUserRepository(log);
+        log.open(vehicles, rentals, users);
+        return new Storage(Kind.EMBEDDED, vehicles, rentals, users, log);
+    }
+
+    //Returns the backend selected by -Dvehiclerental.storage.
+    public static Kind configuredKind() {
+        String setting = System.getProperty("vehiclerental.storage", "jdbc");
+        return switch (setting) {
+            case "jdbc", "" -> Kind.JDBC;
+            case "memory" -> Kind.MEMORY;
+            default -> Kind.EMBEDDED;
+        };
+    }
+
+    //Opens the backend selected by -Dvehiclerental.storage.
+    public static Storage configured() throws IOException {
+        return switch (configuredKind()) {
+            case JDBC -> jdbc();
+            case MEMORY -> inMemory();
+            case EMBEDDED -> embedded(Path.of(System.getProperty("vehiclerental.storage")));
+        };
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public VehicleRepository vehicles() {
+        return vehicles;
+    }
+
+    public RentalRepository rentals() {
+        return rentals;
+    }
+
+    public UserRepository users() {
+        return users;
+    }
+
+    //Reads the clock change times and tombstones are stamped with: the database server's, or this machine's.
+    public LocalDateTime currentTime() throws SQLException {
+        return kind == Kind.JDBC ? DatabaseConnection.currentDatabaseTime() : LocalDateTime.now();
+    }
+
+    //Closes the connection pool or the embedded store's file. Call on application exit.
+    @Override
+    public void close() {
+        if (kind == Kind.JDBC) {
+            DatabaseConnection.shutdown();
+        } else if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.out.println("Failed to close embedded storage: " + e.getMessage());
+            }
+        }
+    }
+}
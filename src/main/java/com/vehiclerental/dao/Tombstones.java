@@ -0,0 +1,47 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.utils.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Records of deleted rows (the deletions table, see V5__change_tracking.sql).
+ * Deleted rows cannot show up in an updated_at query, so the DAOs write a tombstone in the same transaction
+ * as the DELETE and a snapshot restore reads the tombstones written since the snapshot.
+ */
+final class Tombstones {
+
+    static final String INSERT_SQL = "INSERT INTO deletions (table_name, row_key) VALUES (?, ?)";
+    static final String SINCE_SQL = "SELECT row_key FROM deletions WHERE table_name = ? AND deleted_at >= ?";
+
+    //Records a deleted row. Call it on the connection (and transaction) that ran the DELETE.
+    static void record(Connection conn, String table, String key) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            stmt.setString(1, table);
+            stmt.setString(2, key);
+            stmt.executeUpdate();
+        }
+    }
+
+    //Returns the keys of the table's rows deleted at or after the given database time.
+    static List<String> since(String table, LocalDateTime since) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SINCE_SQL)) {
+            stmt.setString(1, table);
+            stmt.setTimestamp(2, Timestamp.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) keys.add(rs.getString(1));
+            }
+        }
+        return keys;
+    }
+
+    private Tombstones() { }
+}
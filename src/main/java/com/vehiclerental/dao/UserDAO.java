@@ -1,7 +1,10 @@
 package com.vehiclerental.dao;
 
 import com.vehiclerental.models.User;
+import com.vehiclerental.utils.DatabaseConnection;
+import com.vehiclerental.utils.UnitOfWork;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,15 +12,15 @@ import java.util.List;
  * Data Access Object (DAO) for managing user records in the MySQL database.
  * Supports operations for saving, retrieving, updating, and deleting users.
  */
-public class UserDAO {
-    private static final String URL = "jdbc:mysql://localhost:3306/vehiclerental";
-    private static final String USER = "root";
-    private static final String PASSWORD = "root";
+public class UserDAO implements UserRepository {
+
+    static final String SELECT_BY_USERNAME_SQL = "SELECT * FROM users WHERE username = ?";
+    static final String CHANGED_SINCE_SQL = "SELECT * FROM users WHERE updated_at >= ?";
 
     //Saves a new user record to the database.
     public boolean saveUser(User user) throws SQLException {
         String sql = "INSERT INTO users (username, password, role, name, phone, email, address) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
@@ -33,21 +36,12 @@ public class UserDAO {
 
     //Retrieves a user from the database by username.
     public User getUser(String username) throws SQLException {
-        String sql = "SELECT * FROM users WHERE username = ?";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_USERNAME_SQL)) {
             stmt.setString(1, username);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return new User(
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("role"),
-                    rs.getString("name"),
-                    rs.getString("phone"),
-                    rs.getString("email"),
-                    rs.getString("address")
-                );
+                return buildUser(rs);
             }
         }
         return null;
@@ -57,39 +51,69 @@ public class UserDAO {
     public List<User> getAllUsers() throws SQLException {
         String sql = "SELECT * FROM users";
         List<User> users = new ArrayList<>();
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                users.add(new User(
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("role"),
-                    rs.getString("name"),
-                    rs.getString("phone"),
-                    rs.getString("email"),
-                    rs.getString("address")
-                ));
+                users.add(buildUser(rs));
             }
         }
         return users;
     }
 
+    //Retrieves the users added or changed at or after the given database time (snapshot reconciliation).
+    public List<User> getUsersChangedSince(LocalDateTime since) throws SQLException {
+        List<User> users = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CHANGED_SINCE_SQL)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(buildUser(rs));
+                }
+            }
+        }
+        return users;
+    }
+
+    //Retrieves the usernames of users deleted at or after the given database time.
+    public List<String> getDeletedUsernamesSince(LocalDateTime since) throws SQLException {
+        return Tombstones.since("users", since);
+    }
 
-    //Deletes a user from the database based on username.
+
+    //Deletes a user from the database based on username, leaving a tombstone in the same transaction.
     public boolean deleteUser(String username) throws SQLException {
         String sql = "DELETE FROM users WHERE username = ?";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, username);
-            return stmt.executeUpdate() > 0;
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            boolean deleted;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, username);
+                deleted = stmt.executeUpdate() > 0;
+                if (deleted) Tombstones.record(conn, "users", username);
+            }
+            unit.commit();
+            return deleted;
         }
     }
 
+    private static User buildUser(ResultSet rs) throws SQLException {
+        return new User(
+            rs.getString("username"),
+            rs.getString("password"),
+            rs.getString("role"),
+            rs.getString("name"),
+            rs.getString("phone"),
+            rs.getString("email"),
+            rs.getString("address")
+        );
+    }
+
     //Updates user details in the database.
     public boolean updateUser(User user) throws SQLException {
         String sql = "UPDATE users SET name=?, phone=?, email=?, address=? WHERE username=?";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, user.getName());
             stmt.setString(2, user.getPhone());
@@ -99,4 +123,15 @@ public class UserDAO {
             return stmt.executeUpdate() > 0;
         }
     }
+
+    //Replaces the user's stored password hash.
+    public boolean updatePassword(String username, String passwordHash) throws SQLException {
+        String sql = "UPDATE users SET password=? WHERE username=?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, passwordHash);
+            stmt.setString(2, username);
+            return stmt.executeUpdate() > 0;
+        }
+    }
 }
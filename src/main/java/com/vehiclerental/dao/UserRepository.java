@@ -0,0 +1,37 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.User;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Storage of user records, implemented by the MySQL {@link UserDAO}, {@link InMemoryUserRepository}
+ * and the embedded file-backed store (see {@link Storage}).
+ */
+public interface UserRepository {
+
+    //Saves a new user. Fails if the username is taken.
+    boolean saveUser(User user) throws SQLException;
+
+    //Retrieves a user by username, or null if there is none.
+    User getUser(String username) throws SQLException;
+
+    //Retrieves all users.
+    List<User> getAllUsers() throws SQLException;
+
+    //Retrieves the users added or changed at or after the given storage time (snapshot reconciliation).
+    List<User> getUsersChangedSince(LocalDateTime since) throws SQLException;
+
+    //Retrieves the usernames of users deleted at or after the given storage time.
+    List<String> getDeletedUsernamesSince(LocalDateTime since) throws SQLException;
+
+    //Deletes a user by username, remembering the deletion for getDeletedUsernamesSince.
+    boolean deleteUser(String username) throws SQLException;
+
+    //Updates the user's contact details (name, phone, email and address).
+    boolean updateUser(User user) throws SQLException;
+
+    //Replaces the user's stored password hash, e.g. when it is rehashed at a new cost on login.
+    boolean updatePassword(String username, String passwordHash) throws SQLException;
+}
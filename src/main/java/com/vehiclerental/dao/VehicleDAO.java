@@ -1,9 +1,15 @@
 package com.vehiclerental.dao;
 
 import com.vehiclerental.models.*;
+import com.vehiclerental.utils.DatabaseConnection;
+import com.vehiclerental.utils.UnitOfWork;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Data Access Object (DAO) for managing vehicle records in the MySQL database.
@@ -11,39 +17,45 @@ import java.util.List;
  * Uses JDBC for database operations.
  */
 
-public class VehicleDAO {
-    private static final String URL = "jdbc:mysql://localhost:3306/vehiclerental";
-    private static final String USER = "root";
-    private static final String PASSWORD = "root";
+public class VehicleDAO implements VehicleRepository {
 
 
+    private static final String INSERT_SQL =
+            "INSERT INTO vehicles (id, brand, model, price_per_day, available, rented, rent_start, rent_end, paid, rented_by, type) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String SELECT_BY_ID_SQL = "SELECT * FROM vehicles WHERE id = ?";
+    static final String UPDATE_SQL =
+            "UPDATE vehicles SET brand=?, model=?, price_per_day=?, available=?, rented=?, rent_start=?, rent_end=?, paid=?, rented_by=?, type=?, version=version+1 " +
+            "WHERE id=? AND version=?";
+    static final String CHANGED_SINCE_SQL = "SELECT * FROM vehicles WHERE updated_at >= ?";
+
+    private int batchSize = BatchWriter.DEFAULT_BATCH_SIZE;
+
+    //Sets how many rows the bulk methods send per JDBC batch (and commit per transaction).
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
     //Saves a new vehicle to the database.
      public void saveVehicle(Vehicle vehicle) throws SQLException {
-        String sql = "INSERT INTO vehicles (id, brand, model, price_per_day, available, rented, rent_start, rent_end, paid, rented_by, type) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, vehicle.getId());
-            stmt.setString(2, vehicle.getBrand());
-            stmt.setString(3, vehicle.getModel());
-            stmt.setDouble(4, vehicle.getPricePerDay());
-            stmt.setBoolean(5, vehicle.isAvailable());
-            stmt.setBoolean(6, vehicle.isRented());
-            stmt.setObject(7, vehicle.getRentStartDateTime());
-            stmt.setObject(8, vehicle.getRentEndDateTime());
-            stmt.setBoolean(9, vehicle.isPaid());
-            stmt.setString(10, vehicle.getRentedBy());
-            stmt.setString(11, vehicle.getVehicleType());
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+
+            bindInsert(stmt, vehicle);
             stmt.executeUpdate();
         }
     }
 
+    //Saves many new vehicles using batched inserts, one transaction per chunk. Failed rows are reported, not thrown.
+    public BatchResult saveVehicles(Collection<? extends Vehicle> vehicles) throws SQLException {
+        return BatchWriter.write(new ArrayList<>(vehicles), batchSize, INSERT_SQL, VehicleDAO::bindInsert, Vehicle::getId);
+    }
+
     //Retrieves vehicles from the database by ID.
     public Vehicle getVehicleById(String id) throws SQLException {
-        String sql = "SELECT * FROM vehicles WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setString(1, id);
             ResultSet rs = stmt.executeQuery();
@@ -59,7 +71,7 @@ public class VehicleDAO {
     public List<Vehicle> getAllVehicles() throws SQLException {
         String sql = "SELECT * FROM vehicles";
         List<Vehicle> vehicles = new ArrayList<>();
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -71,36 +83,68 @@ public class VehicleDAO {
     }
 
 
-    //Updates vehicle details in the database.
+    /*Updates vehicle details in the database, provided the row still has the version the vehicle was read at.
+    On success the vehicle takes the row's new version; if another application instance changed (or deleted) the
+    row in the meantime nothing is written and StaleVehicleException is thrown.*/
     public boolean updateVehicle(Vehicle vehicle) throws SQLException {
-        String sql = "UPDATE vehicles SET brand=?, model=?, price_per_day=?, available=?, rented=?, rent_start=?, rent_end=?, paid=?, rented_by=?, type=? WHERE id=?";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, vehicle.getBrand());
-            stmt.setString(2, vehicle.getModel());
-            stmt.setDouble(3, vehicle.getPricePerDay());
-            stmt.setBoolean(4, vehicle.isAvailable());
-            stmt.setBoolean(5, vehicle.isRented());
-            stmt.setObject(6, vehicle.getRentStartDateTime());
-            stmt.setObject(7, vehicle.getRentEndDateTime());
-            stmt.setBoolean(8, vehicle.isPaid());
-            stmt.setString(9, vehicle.getRentedBy());
-            stmt.setString(10, vehicle.getVehicleType());
-            stmt.setString(11, vehicle.getId());
-
-            return stmt.executeUpdate() > 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+            bindUpdate(stmt, vehicle);
+            if (stmt.executeUpdate() == 0) {
+                throw new StaleVehicleException(vehicle.getId(), vehicle.getVersion());
+            }
+            vehicle.setVersion(vehicle.getVersion() + 1);
+            return true;
         }
     }
 
+    //Updates many vehicles using batched updates, one transaction per chunk. Missing, stale or failed rows are reported.
+    public BatchResult updateVehicles(Collection<? extends Vehicle> vehicles) throws SQLException {
+        List<Vehicle> rows = new ArrayList<>(vehicles);
+        BatchResult result = BatchWriter.write(rows, batchSize, UPDATE_SQL, VehicleDAO::bindUpdate, Vehicle::getId);
+        Set<Integer> failed = new HashSet<>();
+        for (BatchResult.RowFailure failure : result.failures()) failed.add(failure.index());
+        for (int i = 0; i < rows.size(); i++) {
+            if (!failed.contains(i)) rows.get(i).setVersion(rows.get(i).getVersion() + 1);
+        }
+        return result;
+    }
 
-    //Deletes a vehicle from the database using its ID.
+
+    //Retrieves the vehicles added or changed at or after the given database time (snapshot reconciliation).
+    public List<Vehicle> getVehiclesChangedSince(LocalDateTime since) throws SQLException {
+        List<Vehicle> vehicles = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CHANGED_SINCE_SQL)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    vehicles.add(buildVehicleFromResultSet(rs));
+                }
+            }
+        }
+        return vehicles;
+    }
+
+    //Retrieves the IDs of vehicles deleted at or after the given database time.
+    public List<String> getDeletedVehicleIdsSince(LocalDateTime since) throws SQLException {
+        return Tombstones.since("vehicles", since);
+    }
+
+    //Deletes a vehicle from the database using its ID, leaving a tombstone in the same transaction.
     public boolean deleteVehicle(String id) throws SQLException {
         String sql = "DELETE FROM vehicles WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, id);
-            return stmt.executeUpdate() > 0;
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            boolean deleted;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, id);
+                deleted = stmt.executeUpdate() > 0;
+                if (deleted) Tombstones.record(conn, "vehicles", id);
+            }
+            unit.commit();
+            return deleted;
         }
     }
 
@@ -111,13 +155,9 @@ public class VehicleDAO {
         String model = rs.getString("model");
         double price = rs.getDouble("price_per_day");
 
-        Vehicle vehicle;
-        switch (type) {
-            case "Car" -> vehicle = new Car(id, brand, model, price);
-            case "Van" -> vehicle = new Van(id, brand, model, price);
-            case "Motorcycle" -> vehicle = new Motorcycle(id, brand, model, price);
-            default -> throw new SQLException("Unknown vehicle type: " + type);
-        }
+        VehicleType vehicleType = VehicleType.of(type);
+        if (vehicleType == null) throw new SQLException("Unknown vehicle type: " + type);
+        Vehicle vehicle = vehicleType.newVehicle(id, brand, model, price);
 
         vehicle.setAvailable(rs.getBoolean("available"));
         vehicle.setRented(rs.getBoolean("rented"));
@@ -125,7 +165,37 @@ public class VehicleDAO {
         vehicle.setRentEndDateTime(rs.getTimestamp("rent_end") != null ? rs.getTimestamp("rent_end").toLocalDateTime() : null);
         vehicle.setPaid(rs.getBoolean("paid"));
         vehicle.setRentedBy(rs.getString("rented_by"));
+        vehicle.setVersion(rs.getLong("version"));
 
         return vehicle;
     }
+
+    private static void bindInsert(PreparedStatement stmt, Vehicle vehicle) throws SQLException {
+        stmt.setString(1, vehicle.getId());
+        stmt.setString(2, vehicle.getBrand());
+        stmt.setString(3, vehicle.getModel());
+        stmt.setDouble(4, vehicle.getPricePerDay());
+        stmt.setBoolean(5, vehicle.isAvailable());
+        stmt.setBoolean(6, vehicle.isRented());
+        stmt.setObject(7, vehicle.getRentStartDateTime());
+        stmt.setObject(8, vehicle.getRentEndDateTime());
+        stmt.setBoolean(9, vehicle.isPaid());
+        stmt.setString(10, vehicle.getRentedBy());
+        stmt.setString(11, vehicle.getVehicleType());
+    }
+
+    private static void bindUpdate(PreparedStatement stmt, Vehicle vehicle) throws SQLException {
+        stmt.setString(1, vehicle.getBrand());
+        stmt.setString(2, vehicle.getModel());
+        stmt.setDouble(3, vehicle.getPricePerDay());
+        stmt.setBoolean(4, vehicle.isAvailable());
+        stmt.setBoolean(5, vehicle.isRented());
+        stmt.setObject(6, vehicle.getRentStartDateTime());
+        stmt.setObject(7, vehicle.getRentEndDateTime());
+        stmt.setBoolean(8, vehicle.isPaid());
+        stmt.setString(9, vehicle.getRentedBy());
+        stmt.setString(10, vehicle.getVehicleType());
+        stmt.setString(11, vehicle.getId());
+        stmt.setLong(12, vehicle.getVersion());
+    }
 }
@@ -0,0 +1,43 @@
+package com.vehiclerental.dao;
+
+import com.vehiclerental.models.Vehicle;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage of vehicle records, implemented by the MySQL {@link VehicleDAO}, {@link InMemoryVehicleRepository}
+ * and the embedded file-backed store (see {@link Storage}).
+ * Every implementation returns fresh Vehicle objects and copies the ones it is given, as a database would.
+ */
+public interface VehicleRepository {
+
+    //Saves a new vehicle.
+    void saveVehicle(Vehicle vehicle) throws SQLException;
+
+    //Saves many new vehicles. Failed rows are reported, not thrown.
+    BatchResult saveVehicles(Collection<? extends Vehicle> vehicles) throws SQLException;
+
+    //Retrieves a vehicle by ID, or null if there is none.
+    Vehicle getVehicleById(String id) throws SQLException;
+
+    //Gets all vehicles.
+    List<Vehicle> getAllVehicles() throws SQLException;
+
+    /*Updates the vehicle provided its stored row still has the version the vehicle was read at. On success the
+    vehicle takes the new version; otherwise nothing is written and StaleVehicleException is thrown.*/
+    boolean updateVehicle(Vehicle vehicle) throws SQLException;
+
+    //Updates many vehicles. Missing, stale or failed rows are reported; the others take their new version.
+    BatchResult updateVehicles(Collection<? extends Vehicle> vehicles) throws SQLException;
+
+    //Retrieves the vehicles added or changed at or after the given storage time (snapshot reconciliation).
+    List<Vehicle> getVehiclesChangedSince(LocalDateTime since) throws SQLException;
+
+    //Retrieves the IDs of vehicles deleted at or after the given storage time.
+    List<String> getDeletedVehicleIdsSince(LocalDateTime since) throws SQLException;
+
+    //Deletes a vehicle by ID, remembering the deletion for getDeletedVehicleIdsSince.
+    boolean deleteVehicle(String id) throws SQLException;
+}
@@ -0,0 +1,20 @@
+package com.vehiclerental.models;
+
+import java.time.LocalDateTime;
+
+/*
+ * One reservation of a vehicle by a user for the period [start, end].
+ * A vehicle can hold many non-overlapping bookings; its own rental fields mirror the earliest one.
+ */
+public record Booking(String vehicleId, String rentedBy, LocalDateTime start, LocalDateTime end, boolean paid) {
+
+    //Checks whether this booking shares any moment with the given period (touching ends count as a clash).
+    public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return !otherEnd.isBefore(start) && !otherStart.isAfter(end);
+    }
+
+    //Returns a copy of this booking with the payment confirmed.
+    public Booking asPaid() {
+        return new Booking(vehicleId, rentedBy, start, end, true);
+    }
+}
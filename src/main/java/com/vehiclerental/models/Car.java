@@ -9,7 +9,7 @@ public class Car extends Vehicle {
     }
 
     @Override
-    public String getVehicleType() {
-        return "Car";
+    public VehicleType getType() {
+        return VehicleType.CAR;
     }
 }
@@ -8,7 +8,7 @@ public class Motorcycle extends Vehicle {
     }
 
     @Override
-    public String getVehicleType() {
-        return "Motorcycle";
+    public VehicleType getType() {
+        return VehicleType.MOTORCYCLE;
     }
 }
@@ -0,0 +1,29 @@
+package com.vehiclerental.models;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Dictionary of the brand and model names held by vehicles.
+ * Every row read from the database brings its own copies of these strings, although a large fleet only has a few
+ * hundred distinct brands and models. Vehicles keep the dictionary's copy instead, so each distinct name is stored
+ * once. Names are never removed, which is why renter names, one per user, are kept out: the dictionary is bounded
+ * by the catalogue of brands and models, not by the fleet or the user base.
+ */
+public final class Names {
+
+    private static final ConcurrentHashMap<String, String> DICTIONARY = new ConcurrentHashMap<>();
+
+    //Returns the shared instance of the name (null stays null).
+    public static String canonical(String name) {
+        if (name == null) return null;
+        String shared = DICTIONARY.putIfAbsent(name, name);
+        return shared == null ? name : shared;
+    }
+
+    //Returns how many distinct names are stored.
+    public static int size() {
+        return DICTIONARY.size();
+    }
+
+    private Names() { }
+}
@@ -0,0 +1,15 @@
+//This record represents one row of the rentals table as read by history screens, exports and reports.
+package com.vehiclerental.models;
+
+import java.time.LocalDateTime;
+
+//It holds the rental log values without building a full Vehicle object for every historical row.
+public record RentalRecord(long id,
+                           String vehicleId,
+                           String rentedBy,
+                           LocalDateTime startTime,
+                           LocalDateTime endTime,
+                           double totalPrice,
+                           boolean paid,
+                           String vehicleType) {
+}
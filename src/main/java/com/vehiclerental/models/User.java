@@ -51,6 +51,10 @@ public class User {
     }
 
     // Setters methods for details.
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
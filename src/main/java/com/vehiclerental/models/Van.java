@@ -8,7 +8,7 @@ public class Van extends Vehicle {
     }
 
     @Override
-    public String getVehicleType() {
-        return "Van";
+    public VehicleType getType() {
+        return VehicleType.VAN;
     }
 }
@@ -1,31 +1,44 @@
 package com.vehiclerental.models;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 
 /*
  * The Vehicle class represents a general vehicle entity.
  * It serves as a superclass for specific vehicle types like Car, Van, and Motorcycle.
  * Includes details such as ID, brand, model, daily rental price, availability,
  * rental status, assigned user, rental period, payment status, and total rental cost.
+ * The state is stored compactly, as fleets run to millions of vehicles plus their copies: brand and model share
+ * one instance per distinct name (see Names), the renter is the booking's own string, the rental period is two epoch-second longs instead of
+ * LocalDateTime objects, and the status flags are bits of one byte. The type comes from the class (getType()).
+ * Every field but the ID is volatile: VehicleManager changes them under the vehicle's lock but listings and
+ * searches read them without it, so each read sees the latest write (fields read one after another may still span two changes).
  */
 
 
 public abstract class Vehicle {
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final byte AVAILABLE = 1;
+    private static final byte RENTED = 2;
+    private static final byte PAID = 4;
+
     private String id;
-    private String brand;
-    private String model;
-    private double pricePerDay;
-    private boolean available = true;
-    private boolean rented = false;
-    private LocalDateTime rentStartDateTime;
-    private LocalDateTime rentEndDateTime;
-    private boolean paid = false;
-    private String rentedBy;
+    private volatile String brand;
+    private volatile String model;
+    private volatile double pricePerDay;
+    private volatile byte flags = AVAILABLE;
+    // local date-times as seconds since 1970-01-01T00:00 (every LocalDateTime fits), NO_TIME when not set
+    private volatile long rentStart = NO_TIME;
+    private volatile long rentEnd = NO_TIME;
+    private volatile String rentedBy;
+    private volatile long version;
 
     public Vehicle(String id, String brand, String model, double pricePerDay) {
         this.id = id;
-        this.brand = brand;
-        this.model = model;
+        this.brand = Names.canonical(brand);
+        this.model = Names.canonical(model);
         this.pricePerDay = pricePerDay;
     }
 
@@ -51,22 +64,22 @@ public abstract class Vehicle {
 
     //Checks if the vehicle is currently available.
     public boolean isAvailable() {
-        return available;
+        return (flags & AVAILABLE) != 0;
     }
 
     //Sets the availability status of the vehicle.
     public void setAvailable(boolean available) {
-        this.available = available;
+        setFlag(AVAILABLE, available);
     }
 
     //Checks if the vehicle is currently rented.
     public boolean isRented() {
-        return rented;
+        return (flags & RENTED) != 0;
     }
 
     //Sets the rental status of the vehicle.
     public void setRented(boolean rented) {
-        this.rented = rented;
+        setFlag(RENTED, rented);
     }
 
     //Gets the username of the person who rented the vehicle.
@@ -81,38 +94,40 @@ public abstract class Vehicle {
 
     //Gets the rental start time.
     public LocalDateTime getRentStartDateTime() {
-        return rentStartDateTime;
+        return toDateTime(rentStart);
     }
 
-    //Sets the rental start time.
+    //Sets the rental start time, to the second: the database keeps no fractions either.
     public void setRentStartDateTime(LocalDateTime rentStartDateTime) {
-        this.rentStartDateTime = rentStartDateTime;
+        this.rentStart = toSeconds(rentStartDateTime);
     }
 
     //Gets the rental end time.
     public LocalDateTime getRentEndDateTime() {
-        return rentEndDateTime;
+        return toDateTime(rentEnd);
     }
 
-    //Sets the rental end time..
+    //Sets the rental end time, to the second.
     public void setRentEndDateTime(LocalDateTime rentEndDateTime) {
-        this.rentEndDateTime = rentEndDateTime;
+        this.rentEnd = toSeconds(rentEndDateTime);
     }
 
     //Checks if the rental has been paid.
     public boolean isPaid() {
-        return paid;
+        return (flags & PAID) != 0;
     }
 
     //Sets the payment status of the rental.
     public void setPaid(boolean paid) {
-        this.paid = paid;
+        setFlag(PAID, paid);
     }
 
     //Gets the duration of the rent in days
     public long getRentalDurationDays() {
-        if (rentStartDateTime != null && rentEndDateTime != null) {
-            return java.time.Duration.between(rentStartDateTime, rentEndDateTime).toDays();
+        long start = rentStart;
+        long end = rentEnd;
+        if (start != NO_TIME && end != NO_TIME) {
+            return (end - start) / SECONDS_PER_DAY;
         }
         return 0;
     }
@@ -123,7 +138,13 @@ public abstract class Vehicle {
         return getRentalDurationDays() * pricePerDay;
     }
 
-    public abstract String getVehicleType();
+    //Gets the kind of vehicle.
+    public abstract VehicleType getType();
+
+    //Gets the type label stored in the database (e.g. "Car").
+    public String getVehicleType() {
+        return getType().label();
+    }
 
     @Override
     public String toString() {
@@ -132,15 +153,43 @@ public abstract class Vehicle {
 
 
     public void setBrand(String brand) {
-        this.brand = brand;
+        this.brand = Names.canonical(brand);
     }
     
     public void setModel(String model) {
-        this.model = model;
+        this.model = Names.canonical(model);
     }
     
     public void setPricePerDay(double pricePerDay) {
         this.pricePerDay = pricePerDay;
     }
+
+    //Gets the version of the database row this vehicle was last read from or written to.
+    public long getVersion() {
+        return version;
+    }
+
+    //Sets the row version (kept in step by VehicleDAO).
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    private void setFlag(byte flag, boolean on) {
+        flags = (byte) (on ? flags | flag : flags & ~flag);
+    }
+
+    //Drops the fraction of a second a rental time cannot hold, so bookings and vehicles agree on their times.
+    public static LocalDateTime toStoredPrecision(LocalDateTime time) {
+        return time == null ? null : time.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long seconds) {
+        if (seconds == NO_TIME) return null;
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
     
 }
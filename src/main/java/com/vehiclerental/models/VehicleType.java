@@ -0,0 +1,39 @@
+package com.vehiclerental.models;
+
+/*
+ * The kinds of vehicle the system rents out, with the label stored in the type columns of the vehicles and
+ * rentals tables. A vehicle's type comes from its class, so it costs no memory per vehicle.
+ */
+public enum VehicleType {
+    CAR("Car"),
+    VAN("Van"),
+    MOTORCYCLE("Motorcycle");
+
+    private final String label;
+
+    VehicleType(String label) {
+        this.label = label;
+    }
+
+    //Gets the label used in the database and on screen (e.g. "Car").
+    public String label() {
+        return label;
+    }
+
+    //Finds the type with the given label, or null when there is none.
+    public static VehicleType of(String label) {
+        for (VehicleType type : values()) {
+            if (type.label.equals(label)) return type;
+        }
+        return null;
+    }
+
+    //Creates a vehicle of this type.
+    public Vehicle newVehicle(String id, String brand, String model, double pricePerDay) {
+        return switch (this) {
+            case CAR -> new Car(id, brand, model, pricePerDay);
+            case VAN -> new Van(id, brand, model, pricePerDay);
+            case MOTORCYCLE -> new Motorcycle(id, brand, model, pricePerDay);
+        };
+    }
+}
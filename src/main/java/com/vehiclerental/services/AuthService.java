@@ -1,23 +1,102 @@
 package com.vehiclerental.services;
 
 import com.vehiclerental.models.User;
+import com.vehiclerental.dao.StateSnapshot;
 import com.vehiclerental.dao.UserDAO;
+import com.vehiclerental.dao.UserRepository;
+import com.vehiclerental.utils.StartupReport;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * Handles user authentication and management for the Vehicle Rental System.
  * Supports login, registration, user lookup, and user updates.
  * Maintains an in-memory map of users synced with the database.
+ * Passwords are stored as salted PBKDF2 hashes (see PasswordHasher). A login that finds a plaintext row, or a hash
+ * made at another cost, stores a fresh hash. Because checking a password is deliberately slow, startSession
+ * returns a token that authenticate checks with one lookup (see SessionStore).
+ * With a UserCache (-Dvehiclerental.users.cacheSize) no users are loaded at startup: lookups read through the
+ * bounded cache and load misses from storage one user at a time, and every change invalidates the user's entry.
  */
 public class AuthService {
-    private Map<String, User> users = new HashMap<>();
-    private UserDAO userDAO;
+    // concurrent so the snapshot writer can copy it while the menu thread registers and updates users
+    private Map<String, User> users = new ConcurrentHashMap<>();
+    private final UserRepository userDAO;
+    private final PasswordHasher hasher;
+    private final SessionStore sessions;
+    // null when every user is held in `users`
+    private final UserCache cache;
+    // checked against when the username is unknown, so a failed login takes as long either way; made up front,
+    // so the first unknown username does not pay for a second hash
+    private final String absentUserHash;
 
     //Initialises the AuthService by loading user data from the database into an in-memory map for quick access.
     public AuthService() {
-        userDAO = new UserDAO();
-        loadUsersFromDatabase();
+        this(StartupReport.boot());
+    }
+
+    //Initialises the AuthService from the MySQL database, recording the user load as a startup phase.
+    public AuthService(StartupReport report) {
+        this(new UserDAO(), report);
+    }
+
+    //Initialises the AuthService from the given user storage, recording the user load as a startup phase.
+    public AuthService(UserRepository userDAO, StartupReport report) {
+        this(userDAO, PasswordHasher.configured(), SessionStore.configured(), report);
+    }
+
+    //Initialises the AuthService from the given user storage with the given password hashing and session settings.
+    public AuthService(UserRepository userDAO, PasswordHasher hasher, SessionStore sessions, StartupReport report) {
+        this(userDAO, hasher, sessions, UserCache.configured(), report);
+    }
+
+    //Initialises the AuthService reading users through the given cache, or loading them all when it is null.
+    public AuthService(UserRepository userDAO, PasswordHasher hasher, SessionStore sessions, UserCache cache, StartupReport report) {
+        this.userDAO = userDAO;
+        this.hasher = hasher;
+        this.sessions = sessions;
+        this.cache = cache;
+        this.absentUserHash = hasher.hash(UUID.randomUUID().toString());
+        if (cache == null) report.run("users.load", this::loadUsersFromDatabase);
+    }
+
+    //Restores users from a snapshot, then applies the users added, changed or deleted in the MySQL database since.
+    public AuthService(StateSnapshot snapshot, StartupReport report) {
+        this(snapshot, new UserDAO(), report);
+    }
+
+    /*Restores users from a snapshot, then applies the users added, changed or deleted in the given storage since.
+    A snapshot without users (written while the cache was on) is ignored and every user is loaded instead.*/
+    public AuthService(StateSnapshot snapshot, UserRepository userDAO, StartupReport report) {
+        this.userDAO = userDAO;
+        this.hasher = PasswordHasher.configured();
+        this.sessions = SessionStore.configured();
+        this.cache = null;
+        this.absentUserHash = hasher.hash(UUID.randomUUID().toString());
+        if (snapshot.users().isEmpty()) {
+            report.run("users.load", this::loadUsersFromDatabase);
+            return;
+        }
+        report.run("users.restore", () -> {
+            for (User user : snapshot.users()) {
+                users.put(user.getUsername(), user);
+            }
+        });
+        report.run("users.reconcile", () -> {
+            LocalDateTime since = snapshot.changesSince();
+            try {
+                for (String username : userDAO.getDeletedUsernamesSince(since)) {
+                    users.remove(username);
+                }
+                for (User user : userDAO.getUsersChangedSince(since)) {
+                    users.put(user.getUsername(), user);
+                }
+            } catch (SQLException e) {
+                System.out.println("Error reconciling users with DB: " + e.getMessage());
+            }
+        });
     }
 
     //Loads all users from the database into the internal user map. Used during initialisation to populate in-memory user records
@@ -32,14 +111,15 @@ public class AuthService {
         }
     }
 
-    //Registers a new user with full contact details. Saves the user to the database and adds them to the internal map.
+    //Registers a new user with full contact details. Saves the user (with the password hashed) to the database and adds them to the internal map.
     public boolean register(String username, String password, String role, String name, String phone, String email, String address) {
-        if (users.containsKey(username)) return false;
-        User user = new User(username, password, role, name, phone, email, address);
+        if (find(username) != null) return false;
+        User user = new User(username, hasher.hash(password), role, name, phone, email, address);
         try {
             boolean success = userDAO.saveUser(user);
             if (success) {
-                users.put(username, user);
+                if (cache == null) users.put(username, user);
+                else cache.invalidate(username);
             }
             return success;
         } catch (SQLException e) {
@@ -53,25 +133,93 @@ public class AuthService {
         return register(username, password, role, "Unknown", "N/A", "N/A", "N/A");
     }
 
-    //Authenticates a user based on username and password.
+    //Authenticates a user based on username and password, upgrading a plaintext or outdated stored hash on success.
     public User login(String username, String password) {
-        User user = users.get(username);
-        return (user != null && user.getPassword().equals(password)) ? user : null;
+        User user = find(username);
+        if (user == null) {
+            hasher.verify(password, absentUserHash);
+            return null;
+        }
+        String stored = user.getPassword();
+        if (!hasher.verify(password, stored)) return null;
+        if (hasher.needsRehash(stored)) rehash(user, password);
+        return user;
+    }
+
+    //Checks the password and starts a session. Returns the session token, or null if the credentials are wrong.
+    public String startSession(String username, String password) {
+        User user = login(username, password);
+        return user == null ? null : sessions.open(user.getUsername());
     }
 
-    //Retrieves a user by username from the internal map.
+    //Returns the user a session token belongs to, renewing the session, or null if it has expired or was ended.
+    public User authenticate(String token) {
+        String username = sessions.validate(token);
+        return username == null ? null : find(username);
+    }
+
+    //Ends a session.
+    public void logout(String token) {
+        sessions.close(token);
+    }
+
+    //Stores the password hashed at the current cost. The login stands even if the new hash cannot be saved.
+    private void rehash(User user, String password) {
+        String hash = hasher.hash(password);
+        try {
+            if (userDAO.updatePassword(user.getUsername(), hash)) user.setPassword(hash);
+        } catch (SQLException e) {
+            System.out.println("Error upgrading password hash: " + e.getMessage());
+        }
+    }
+
+    //Retrieves a user by username from the internal map (or the cache).
     public User getUser(String username) {
-        return users.get(username);
+        return find(username);
     }
 
-    //Retrieves all users currently loaded in memory.
+    //Retrieves all users currently loaded in memory. With the cache they are read from storage instead.
     public List<User> getAllUsers() {
-        return new ArrayList<>(users.values());
+        if (cache == null) return new ArrayList<>(users.values());
+        try {
+            return userDAO.getAllUsers();
+        } catch (SQLException e) {
+            System.out.println("Error loading users from DB: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    //True when users are read through the cache rather than all held in memory.
+    public boolean isCaching() {
+        return cache != null;
+    }
+
+    //Returns the cache's hit rate and counters, or null when every user is held in memory.
+    public UserCacheStats getCacheStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    //Looks a user up in the map or, in cached mode, in the cache, loading a miss from storage.
+    private User find(String username) {
+        if (cache == null) return users.get(username);
+        User user = cache.get(username);
+        if (user != null) return user;
+        long version = cache.version();
+        try {
+            user = userDAO.getUser(username);
+        } catch (SQLException e) {
+            System.out.println("Error loading user: " + e.getMessage());
+            return null;
+        }
+        if (user != null) cache.put(user, version);
+        return user;
     }
 
     //Updates the contact details of an existing user. Applies changes to both the in-memory user map and the database.
     public boolean updateUser(String username, String newName, String newPhone, String newEmail, String newAddress) {
-        User user = users.get(username);
+        User user = find(username);
+        // the user object may be a cached entry, which must not outlive the change (or a failed one)
+        if (cache != null) cache.invalidate(username);
         if (user != null) {
             user.setName(newName);
             user.setPhone(newPhone);
@@ -79,7 +227,7 @@ public class AuthService {
             user.setAddress(newAddress);
             try {
                 boolean updated = userDAO.updateUser(user);
-                if (updated) {
+                if (updated && cache == null) {
                     users.put(username, user);
                 }
                 return updated;
@@ -91,13 +239,15 @@ public class AuthService {
         return false;
     }
 
-    //Deletes a user from the system by username. 
+    //Deletes a user from the system by username, ending their sessions.
     public boolean deleteUser(String username) {
-        if (users.containsKey(username)) {
+        if (find(username) != null) {
             try {
                 boolean deleted = userDAO.deleteUser(username);
                 if (deleted) {
-                    users.remove(username);
+                    if (cache == null) users.remove(username);
+                    else cache.invalidate(username);
+                    sessions.closeAll(username);
                 }
                 return deleted;
             } catch (SQLException e) {
@@ -0,0 +1,109 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.Booking;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Free-capacity index for availability search: which vehicles are booked on which calendar day.
+ * Vehicles are bits, numbered by their registration sequence (see VehicleIndexes). Each day with bookings has a
+ * bitset of the vehicles holding a booking that touches that day, and each type has a bitset of its vehicles.
+ * A vehicle booked on a day that a searched period fully covers cannot be free for it, so the vehicles that may be
+ * free are the type's bitset minus the bitsets of those days, computed 64 vehicles per word without visiting any
+ * vehicle. Days the period covers only in part prove nothing; the calendar check decides those vehicles.
+ * Changes come from VehicleManager under the vehicle's lock and take the write lock only to flip bits; searches
+ * take the read lock while they combine bitsets. Days left without bookings are dropped.
+ */
+final class BookedDays {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, BitSet> byDay = new TreeMap<>();
+    private final Map<String, BitSet> byType = new HashMap<>();
+    private final BitSet all = new BitSet();
+
+    //Files a newly registered vehicle under its type.
+    void add(int vehicle, String type) {
+        lock.writeLock().lock();
+        try {
+            byType.computeIfAbsent(type, t -> new BitSet()).set(vehicle);
+            all.set(vehicle);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Drops a vehicle that was removed from the registry (its calendar is already empty).
+    void remove(int vehicle, String type) {
+        lock.writeLock().lock();
+        try {
+            BitSet ofType = byType.get(type);
+            if (ofType != null) ofType.clear(vehicle);
+            all.clear(vehicle);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Marks the vehicle as booked on every day the booking touches.
+    void booked(int vehicle, Booking booking) {
+        long last = day(booking.end());
+        lock.writeLock().lock();
+        try {
+            for (long day = day(booking.start()); day <= last; day++) {
+                byDay.computeIfAbsent(day, d -> new BitSet()).set(vehicle);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Unmarks the days of a booking that left the calendar, except days another of the vehicle's bookings still touches.
+    void unbooked(int vehicle, Booking booking, ReservationCalendar calendar) {
+        long last = day(booking.end());
+        lock.writeLock().lock();
+        try {
+            for (long day = day(booking.start()); day <= last; day++) {
+                BitSet booked = byDay.get(day);
+                if (booked == null) continue;
+                LocalDateTime dayStart = LocalDate.ofEpochDay(day).atStartOfDay();
+                if (calendar.overlaps(dayStart, dayStart.plusDays(1).minusNanos(1))) continue;
+                booked.clear(vehicle);
+                if (booked.isEmpty()) byDay.remove(day);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Returns the vehicles of the type (any type when null) not ruled out for the period by a booked day inside it.
+    BitSet mayBeFree(String type, LocalDateTime start, LocalDateTime end) {
+        // the first and last day the period covers from midnight to midnight
+        long first = start.toLocalTime().equals(LocalTime.MIDNIGHT) ? day(start) : day(start) + 1;
+        long last = day(end) - 1;
+        lock.readLock().lock();
+        try {
+            BitSet vehicles = type == null ? all : byType.get(type);
+            if (vehicles == null) return new BitSet();
+            BitSet free = (BitSet) vehicles.clone();
+            if (first > last) return free;
+            for (BitSet booked : byDay.subMap(first, true, last, true).values()) {
+                free.andNot(booked);
+                if (free.isEmpty()) break;
+            }
+            return free;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long day(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay();
+    }
+}
@@ -0,0 +1,22 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.dao.BookingEvent;
+import com.vehiclerental.models.Booking;
+
+/*
+ * Told about bookings in VehicleManager, in two ways; implement either or both.
+ * bookingAdded and bookingRemoved report every booking that enters or leaves a vehicle's calendar, whatever the
+ * cause (booked, returned, cancelled, reloaded or replayed). A payment shows up as the unpaid booking leaving and the
+ * paid one entering. bookingChanged reports what a customer or admin did (rented, returned, cancelled, paid), once
+ * the change has been written.
+ * Calls are made while the vehicle's lock is held, so they must be quick and must not change bookings; lock-free
+ * reads such as findVehicleById are fine.
+ */
+public interface BookingListener {
+
+    default void bookingAdded(Booking booking) { }
+
+    default void bookingRemoved(Booking booking) { }
+
+    default void bookingChanged(BookingEvent.Type type, Booking booking) { }
+}
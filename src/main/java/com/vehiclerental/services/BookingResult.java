@@ -0,0 +1,22 @@
+package com.vehiclerental.services;
+
+/**
+ * Outcome of a booking operation on {@link VehicleManager} (rent, return, cancel, payment).
+ */
+public enum BookingResult {
+    //The change was made and saved.
+    SUCCESS,
+    //The vehicle does not exist (or was deleted by another application instance).
+    NOT_FOUND,
+    //The vehicle is not in a state that allows the change, e.g. the period is taken or nothing is rented.
+    UNAVAILABLE,
+    //Another application instance kept changing the vehicle and the retries ran out.
+    CONFLICT,
+    //The database rejected the change.
+    FAILED;
+
+    //True for SUCCESS.
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
@@ -0,0 +1,101 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.dao.BookingJournal;
+import com.vehiclerental.dao.JournalConfig;
+import com.vehiclerental.dao.OffHeapFleetStore;
+import com.vehiclerental.dao.StateSnapshot;
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.utils.StartupReport;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Builds the long-lived services at startup, on the storage backend chosen with -Dvehiclerental.storage (see Storage).
+ * VehicleManager (fleet and active bookings) and AuthService (users) are constructed concurrently on virtual
+ * threads, so startup takes as long as the slowest load rather than the sum of them. Rental history is not
+ * loaded here; VehicleManager reads it on first use.
+ * When a recent snapshot file exists (see SnapshotService) both are restored from it and only the rows changed
+ * since it was taken are read from the database.
+ * When -Dvehiclerental.journal.dir is set, the booking journal is opened and replayed on top of that state before
+ * anything else can change it.
+ * -Dvehiclerental.fleetStore keeps an off-heap copy of the fleet (see VehicleManager.enableFleetStore): "memory" for
+ * plain off-heap memory, otherwise the path of a file to map; .vehicles and .bookings set the capacities of a new store.
+ */
+public final class Bootstrap {
+
+    public record Services(VehicleManager vehicleManager, AuthService authService, SnapshotService snapshots,
+                           Storage storage) {
+
+        //Flushes queued writes and closes the journal, writes the final snapshot, then closes the storage. Call on application exit.
+        public void close() {
+            vehicleManager.shutdown();
+            if (snapshots != null) snapshots.close();
+            storage.close();
+        }
+    }
+
+    //Loads every service, recording the phases in the report, and prints the report if -Dvehiclerental.startupReport=true.
+    public static Services start(StartupReport report) {
+        Storage storage;
+        try {
+            storage = report.time("storage.open", Storage::configured);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open storage: " + e.getMessage(), e);
+        }
+        // nothing survives a restart of in-memory storage, so a snapshot of it would restore rows it no longer holds
+        Path file = storage.kind() == Storage.Kind.MEMORY ? null : SnapshotService.configuredFile();
+        StateSnapshot snapshot = file == null ? null : report.time("snapshot.read", () -> SnapshotService.readIfFresh(file));
+        Services services;
+        try (ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<VehicleManager> vehicleManager = loaders.submit(() ->
+                    snapshot == null ? new VehicleManager(storage, report) : new VehicleManager(snapshot, storage, report));
+            Future<AuthService> authService = loaders.submit(() ->
+                    snapshot == null || UserCache.enabled() ? new AuthService(storage.users(), report)
+                            : new AuthService(snapshot, storage.users(), report));
+            VehicleManager manager = vehicleManager.get();
+            JournalConfig journalConfig = JournalConfig.configured();
+            if (journalConfig != null) {
+                try {
+                    BookingJournal journal = report.time("journal.open", () -> new BookingJournal(journalConfig));
+                    report.run("journal.replay", () -> manager.enableJournal(journal));
+                } catch (IOException e) {
+                    System.out.println("Booking journal disabled: " + e.getMessage());
+                }
+            }
+            String fleetStore = System.getProperty("vehiclerental.fleetStore", "");
+            if (!fleetStore.isBlank()) {
+                try {
+                    OffHeapFleetStore store = report.time("fleetStore.open", () -> openFleetStore(fleetStore));
+                    report.run("fleetStore.sync", () -> manager.enableFleetStore(store));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.out.println("Off-heap fleet store disabled: " + e.getMessage());
+                }
+            }
+            SnapshotService snapshots = file == null ? null
+                    : new SnapshotService(file, vehicleManager.get(), authService.get(), storage, SnapshotService.configuredInterval());
+            services = new Services(vehicleManager.get(), authService.get(), snapshots, storage);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during startup", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Startup failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        if (Boolean.getBoolean("vehiclerental.startupReport")) {
+            System.out.println(report);
+        }
+        return services;
+    }
+
+    private static OffHeapFleetStore openFleetStore(String setting) throws IOException {
+        int vehicles = Integer.getInteger("vehiclerental.fleetStore.vehicles", 100_000);
+        int bookings = Integer.getInteger("vehiclerental.fleetStore.bookings", 1_000_000);
+        return setting.equals("memory") ? OffHeapFleetStore.allocate(vehicles, bookings)
+                : OffHeapFleetStore.open(Path.of(setting), vehicles, bookings);
+    }
+
+    private Bootstrap() { }
+}
@@ -0,0 +1,288 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.Booking;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/*
+ * Deadline priority queue behind the booking notifications.
+ * Each booking registers four deadlines: 24h before its start, its start, 24h before its end and its end. As they
+ * pass, the booking moves into and out of the starting-soon, due-soon and overdue sets that NotificationService
+ * lists, and an Event goes to every listener. Work is done per deadline that passes, so polling the lists costs
+ * the size of the answer rather than a scan of the whole fleet.
+ * Changing or removing a booking leaves its old deadlines in the queue; they carry a generation and are skipped when
+ * they come up. Deadlines that have already passed when a booking is registered (a booking made inside its own
+ * warning window, a reload, a payment) are applied without an event; standing() and standingFor() list the alerts
+ * that stand, for subscribers that must not miss them.
+ * VehicleManager reports booking changes while it holds a vehicle's lock, so they never take the scheduler's lock:
+ * they go onto a lock-free queue that the scheduler drains before it fires deadlines or answers a list, and the
+ * ticker is only woken if the new booking's first deadline comes before the one it sleeps until.
+ * Deadlines fire when a list is read (advance) and, once start() is called, on a daemon thread that sleeps until the
+ * next deadline is due.
+ */
+public final class DeadlineScheduler implements BookingListener, AutoCloseable {
+
+    public enum Kind { STARTS_SOON, STARTED, DUE_SOON, OVERDUE }
+
+    //A deadline that passed: the booking as it was then and the time the deadline was due.
+    public record Event(Kind kind, Booking booking, LocalDateTime at) { }
+
+    // how far ahead reminders and return warnings go out
+    private static final Duration WARNING = Duration.ofHours(24);
+    // the ticker wakes at least this often, so a wall-clock change cannot leave it asleep past a deadline
+    private static final long MAX_SLEEP_MILLIS = 60_000;
+
+    private record Deadline(LocalDateTime at, Kind kind, String key, long generation) { }
+
+    private record Entry(Booking booking, long generation) { }
+
+    //A booking change reported by VehicleManager and not yet drained, with the time it was reported.
+    private record Change(Booking booking, boolean added, LocalDateTime at) { }
+
+    private final Clock clock;
+    private final PriorityQueue<Deadline> queue = new PriorityQueue<>(Comparator.comparing(Deadline::at));
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    // insertion order is the order the deadlines passed in
+    private final Map<String, Booking> startingSoon = new LinkedHashMap<>();
+    private final Map<String, Booking> dueSoon = new LinkedHashMap<>();
+    private final Map<String, Booking> overdue = new LinkedHashMap<>();
+    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+    // held while events are collected and delivered, so listeners see them in deadline order
+    private final Object deliveryLock = new Object();
+    private long generations;
+    private long fired;
+    private volatile Thread ticker;
+    private volatile boolean closed;
+    // when the parked ticker wakes up next, or null while it is not parked
+    private volatile LocalDateTime tickerWakesAt;
+
+    public DeadlineScheduler() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public DeadlineScheduler(Clock clock) {
+        this.clock = clock;
+    }
+
+    //Registers (or re-registers) a booking's deadlines, once the change is drained.
+    @Override
+    public void bookingAdded(Booking booking) {
+        changes.add(new Change(booking, true, LocalDateTime.now(clock)));
+        // the queue is written before the wake-up time is read, and the ticker does the reverse, so one sees the other
+        LocalDateTime wakesAt = tickerWakesAt;
+        if (wakesAt != null && booking.start().minus(WARNING).isBefore(wakesAt)) LockSupport.unpark(ticker);
+    }
+
+    //Drops a booking that was returned, cancelled or replaced; its queued deadlines are skipped when they come up.
+    @Override
+    public void bookingRemoved(Booking booking) {
+        changes.add(new Change(booking, false, null));
+    }
+
+    //Adds a listener for deadlines as they pass. Listeners run on the ticker thread or on a thread reading a list.
+    public void addListener(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+
+    //Fires every deadline due by now, in time order, and returns how many fired.
+    public int advance() {
+        synchronized (deliveryLock) {
+            List<Event> events = new ArrayList<>();
+            synchronized (this) {
+                drain();
+                LocalDateTime now = LocalDateTime.now(clock);
+                while (!queue.isEmpty() && !queue.peek().at().isAfter(now)) {
+                    Deadline deadline = queue.poll();
+                    Entry entry = entries.get(deadline.key());
+                    if (entry == null || entry.generation() != deadline.generation()) continue; // changed or gone
+                    apply(deadline.kind(), deadline.key(), entry.booking());
+                    events.add(new Event(deadline.kind(), entry.booking(), deadline.at()));
+                }
+                fired += events.size();
+            }
+            for (Event event : events) {
+                for (Consumer<Event> listener : listeners) listener.accept(event);
+            }
+            return events.size();
+        }
+    }
+
+    //Bookings starting within the next 24 hours, in the order their reminders came due.
+    public List<Booking> startingSoon() {
+        advance();
+        synchronized (this) {
+            return new ArrayList<>(startingSoon.values());
+        }
+    }
+
+    //Bookings ending within the next 24 hours, in the order their warnings came due.
+    public List<Booking> dueSoon() {
+        advance();
+        synchronized (this) {
+            return new ArrayList<>(dueSoon.values());
+        }
+    }
+
+    //Bookings past their end that have not been returned, longest overdue first.
+    public List<Booking> overdue() {
+        advance();
+        synchronized (this) {
+            return new ArrayList<>(overdue.values());
+        }
+    }
+
+    //The alerts that stand now, one event per booking in the starting-soon, due-soon and overdue sets.
+    public List<Event> standing() {
+        List<Event> events = new ArrayList<>();
+        for (Booking booking : startingSoon()) events.add(new Event(Kind.STARTS_SOON, booking, booking.start().minus(WARNING)));
+        for (Booking booking : dueSoon()) events.add(new Event(Kind.DUE_SOON, booking, booking.end().minus(WARNING)));
+        for (Booking booking : overdue()) events.add(new Event(Kind.OVERDUE, booking, booking.end()));
+        return events;
+    }
+
+    //The alerts that stand now for one booking, e.g. one just made inside its own warning window.
+    public List<Event> standingFor(Booking booking) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<Event> events = new ArrayList<>(1);
+        LocalDateTime startsSoon = booking.start().minus(WARNING);
+        LocalDateTime dueSoon = booking.end().minus(WARNING);
+        if (!now.isBefore(startsSoon) && now.isBefore(booking.start())) events.add(new Event(Kind.STARTS_SOON, booking, startsSoon));
+        if (!now.isBefore(booking.end())) events.add(new Event(Kind.OVERDUE, booking, booking.end()));
+        else if (!now.isBefore(dueSoon)) events.add(new Event(Kind.DUE_SOON, booking, dueSoon));
+        return events;
+    }
+
+    //Deadlines fired so far (not counting ones applied silently at registration).
+    public synchronized long firedCount() {
+        return fired;
+    }
+
+    //Deadlines waiting in the queue, including skipped ones not yet reached.
+    public synchronized int pendingCount() {
+        drain();
+        return queue.size();
+    }
+
+    //Starts the daemon thread that fires deadlines as they pass.
+    public synchronized void start() {
+        if (ticker != null || closed) return;
+        ticker = Thread.ofPlatform().daemon().name("deadline-scheduler").start(this::tick);
+    }
+
+    //Stops the ticker thread. Lists can still be read and fire deadlines themselves.
+    @Override
+    public void close() {
+        closed = true;
+        Thread running = ticker;
+        if (running != null) LockSupport.unpark(running);
+    }
+
+    private void tick() {
+        while (!closed && !Thread.currentThread().isInterrupted()) {
+            long waitMillis;
+            synchronized (this) {
+                drain();
+                LocalDateTime now = LocalDateTime.now(clock);
+                Deadline next = queue.peek();
+                waitMillis = next == null ? MAX_SLEEP_MILLIS
+                        : Math.min(Duration.between(now, next.at()).toMillis(), MAX_SLEEP_MILLIS);
+                if (waitMillis > 0) tickerWakesAt = now.plus(Duration.ofMillis(waitMillis));
+            }
+            if (waitMillis <= 0) {
+                advance();
+            } else if (changes.isEmpty()) { // a booking queued after the drain may need an earlier wake-up
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(waitMillis));
+            }
+            tickerWakesAt = null;
+        }
+    }
+
+    //Applies the booking changes reported since the last drain, in the order they were made. The caller holds the lock.
+    private void drain() {
+        Change change;
+        boolean drained = false;
+        while ((change = changes.poll()) != null) {
+            if (change.added()) register(change.booking(), change.at());
+            else unregister(change.booking());
+            drained = true;
+        }
+        if (drained) purgeIfMostlyStale();
+    }
+
+    /*Registers (or re-registers) a booking's deadlines as of the time it was reported: those that passed later fire
+    like any other. The caller holds the lock.*/
+    private void register(Booking booking, LocalDateTime now) {
+        String key = key(booking);
+        leaveSets(key);
+        long generation = ++generations;
+        entries.put(key, new Entry(booking, generation));
+        register(new Deadline(booking.start().minus(WARNING), Kind.STARTS_SOON, key, generation), booking, now);
+        register(new Deadline(booking.start(), Kind.STARTED, key, generation), booking, now);
+        register(new Deadline(booking.end().minus(WARNING), Kind.DUE_SOON, key, generation), booking, now);
+        register(new Deadline(booking.end(), Kind.OVERDUE, key, generation), booking, now);
+    }
+
+    //Drops a booking's deadlines and takes it out of the sets. The caller holds the lock.
+    private void unregister(Booking booking) {
+        String key = key(booking);
+        entries.remove(key);
+        leaveSets(key);
+    }
+
+    //Queues a deadline, or applies it straight away if it has already passed. The caller holds the lock.
+    private void register(Deadline deadline, Booking booking, LocalDateTime now) {
+        if (deadline.at().isAfter(now)) {
+            queue.add(deadline);
+        } else {
+            apply(deadline.kind(), deadline.key(), booking);
+        }
+    }
+
+    //Moves a booking between the sets as one of its deadlines passes. The caller holds the lock.
+    private void apply(Kind kind, String key, Booking booking) {
+        switch (kind) {
+            case STARTS_SOON -> startingSoon.put(key, booking);
+            case STARTED -> startingSoon.remove(key);
+            case DUE_SOON -> dueSoon.put(key, booking);
+            case OVERDUE -> {
+                dueSoon.remove(key);
+                overdue.put(key, booking);
+            }
+        }
+    }
+
+    //Drops skipped deadlines once they outnumber the live ones, so churn far ahead of time cannot grow the queue. The caller holds the lock.
+    private void purgeIfMostlyStale() {
+        if (queue.size() < 1024 || queue.size() < 8L * entries.size()) return;
+        queue.removeIf(deadline -> {
+            Entry entry = entries.get(deadline.key());
+            return entry == null || entry.generation() != deadline.generation();
+        });
+    }
+
+    private void leaveSets(String key) {
+        startingSoon.remove(key);
+        dueSoon.remove(key);
+        overdue.remove(key);
+    }
+
+    //A booking is identified by its vehicle and start time, like the calendar and the booking journal do.
+    private static String key(Booking booking) {
+        return booking.vehicleId().toUpperCase(Locale.ROOT) + '@' + booking.start();
+    }
+}
@@ -0,0 +1,39 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.utils.Settings;
+import java.time.Duration;
+
+/* Settings for the outbound notification dispatcher.
+   queueCapacity bounds each channel's queue (new alerts are refused once it is full), batchSize caps how many
+   messages share one provider call and linger is how long the worker waits for more after the first one arrives.
+   concurrency is the number of batches a channel may have in flight; maxAttempts and backoff control retries, the
+   wait doubling after each failed attempt up to maxBackoff. dedupCapacity is how many recent alert keys are
+   remembered so an alert goes out only once. Settings group "notify" (see Settings).
+ */
+public record DispatchConfig(int queueCapacity, int batchSize, Duration linger, int concurrency,
+                             int maxAttempts, Duration backoff, Duration maxBackoff, int dedupCapacity) {
+
+    public DispatchConfig {
+        if (queueCapacity < 1 || batchSize < 1 || linger.isNegative() || concurrency < 1 || maxAttempts < 1
+                || backoff.isNegative() || maxBackoff.compareTo(backoff) < 0 || dedupCapacity < 1) {
+            throw new IllegalArgumentException("Invalid dispatch settings: queueCapacity=" + queueCapacity
+                    + ", batchSize=" + batchSize + ", linger=" + linger + ", concurrency=" + concurrency
+                    + ", maxAttempts=" + maxAttempts + ", backoff=" + backoff + ", maxBackoff=" + maxBackoff
+                    + ", dedupCapacity=" + dedupCapacity);
+        }
+    }
+
+    //Returns the default settings, applying any system property overrides.
+    public static DispatchConfig defaults() {
+        Settings settings = Settings.of("notify");
+        return new DispatchConfig(
+                settings.getInt("queueCapacity", 10_000),
+                settings.getInt("batchSize", 50),
+                settings.getMillis("lingerMillis", 200L),
+                settings.getInt("concurrency", 4),
+                settings.getInt("maxAttempts", 5),
+                settings.getMillis("backoffMillis", 500L),
+                settings.getMillis("maxBackoffMillis", 30_000L),
+                settings.getInt("dedupCapacity", 100_000));
+    }
+}
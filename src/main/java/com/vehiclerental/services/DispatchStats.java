@@ -0,0 +1,25 @@
+package com.vehiclerental.services;
+
+/* Point-in-time view of the outbound notification dispatcher, summed over its channels.
+   depth is the number of queued messages and inFlight the number of batches being sent. rejected counts messages
+   refused because a channel's queue was full, duplicates alerts that had already gone out, unreachable messages
+   whose user has no address on a channel, and retries the provider calls that were repeated after a failure.
+ */
+public record DispatchStats(int depth,
+                            int inFlight,
+                            long accepted,
+                            long duplicates,
+                            long rejected,
+                            long sent,
+                            long failed,
+                            long unreachable,
+                            long batches,
+                            long retries) {
+
+    @Override
+    public String toString() {
+        return "Dispatch[depth=" + depth + ", inFlight=" + inFlight + ", accepted=" + accepted
+                + ", duplicates=" + duplicates + ", rejected=" + rejected + ", sent=" + sent + ", failed=" + failed
+                + ", unreachable=" + unreachable + ", batches=" + batches + ", retries=" + retries + ']';
+    }
+}
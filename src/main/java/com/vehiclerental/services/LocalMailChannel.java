@@ -0,0 +1,116 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.User;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Local stand-in for an SMTP relay, used in tests and for running without a mail provider.
+ * Each batch is treated like one SMTP session: it takes `latency` (the connection and handshake), and then every
+ * message is accepted at once. Accepted messages are appended to the mbox file, if one is given, in mbox format so
+ * they can be read with any mail client; without one (tests) they are kept in memory instead. failNext makes the next batches fail with a transient
+ * SMTP error, to exercise retries and back-pressure.
+ */
+public final class LocalMailChannel implements NotificationChannel {
+
+    private static final String SENDER = "notifications@vehiclerental.local";
+    private static final DateTimeFormatter MBOX_DATE = DateTimeFormatter.ofPattern("EEE MMM d HH:mm:ss yyyy");
+
+    private final Path mbox;
+    // only without an mbox: with one the file is the record, and memory must not grow with every message sent
+    private final List<Delivery> delivered;
+    private final AtomicInteger failuresToInject = new AtomicInteger();
+    private final AtomicLong sessions = new AtomicLong();
+    private volatile Duration latency = Duration.ZERO;
+
+    //Keeps delivered messages in memory only.
+    public LocalMailChannel() {
+        this(null);
+    }
+
+    //Appends delivered messages to the mbox file (not kept in memory).
+    public LocalMailChannel(Path mbox) {
+        this.mbox = mbox;
+        this.delivered = mbox == null ? new ArrayList<>() : null;
+    }
+
+    @Override
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public String addressOf(User user) {
+        String email = user.getEmail();
+        return email == null || email.isBlank() ? null : email;
+    }
+
+    @Override
+    public void send(List<Delivery> batch) throws IOException {
+        sessions.incrementAndGet();
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while connecting");
+        }
+        if (failuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new IOException("421 Service not available, try again later");
+        }
+        synchronized (this) {
+            if (mbox != null) {
+                Files.writeString(mbox, render(batch), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } else {
+                delivered.addAll(batch);
+            }
+        }
+    }
+
+    //Sets how long each batch (session) takes before the messages are accepted.
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    //Makes the next `batches` sends fail with a transient error.
+    public void failNext(int batches) {
+        failuresToInject.set(batches);
+    }
+
+    //Returns every message accepted so far, in the order accepted (none when they go to an mbox file).
+    public synchronized List<Delivery> delivered() {
+        return delivered == null ? new ArrayList<>() : new ArrayList<>(delivered);
+    }
+
+    //Returns the number of send calls, failed ones included.
+    public long sessions() {
+        return sessions.get();
+    }
+
+    private static String render(List<Delivery> batch) {
+        StringBuilder out = new StringBuilder();
+        String now = ZonedDateTime.now().format(MBOX_DATE);
+        for (Delivery delivery : batch) {
+            out.append("From ").append(SENDER).append(' ').append(now).append('\n')
+                    .append("From: ").append(SENDER).append('\n')
+                    .append("To: ").append(delivery.address()).append('\n')
+                    .append("Subject: ").append(delivery.message().subject()).append('\n')
+                    .append('\n');
+            for (String line : delivery.message().body().split("\n", -1)) {
+                // mbox quoting, so a body line cannot start a new message
+                out.append(line.startsWith("From ") ? ">" : "").append(line).append('\n');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+}
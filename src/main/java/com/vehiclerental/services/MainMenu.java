@@ -1,27 +1,36 @@
 package com.vehiclerental.services;
 
-import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.RentalRepository;
+import com.vehiclerental.dao.RentalHistoryQuery;
+import com.vehiclerental.dao.RentalPage;
 import com.vehiclerental.models.*;
+import com.vehiclerental.utils.StartupReport;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 /**
  * Provides the main console interface for the Vehicle Rental System.
  * Handles user interaction, authentication, and access to vehicle and rental features based on role.
  */
 public class MainMenu {
-    private static final VehicleManager vehicleManager = new VehicleManager();
-    private static final AuthService authService = new AuthService();
+    private static final Bootstrap.Services services = Bootstrap.start(StartupReport.boot());
+    private static final VehicleManager vehicleManager = services.vehicleManager();
+    private static final AuthService authService = services.authService();
     private static final NotificationService notificationService = new NotificationService(vehicleManager, authService);
-    private static final RentalDAO rentalDAO = new RentalDAO();
+    private static final RentalRepository rentalDAO = services.storage().rentals();
     private static final Scanner scanner = new Scanner(System.in);
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = 10;
 
     //Launches the main menu loop for the system. Handles login, registration, and routes users to role-specific menus.
     public static void start() {
         System.out.println("=== Welcome to the Vehicle Rental System ===");
         User currentUser = null;
+        String session = null;
 
         while (currentUser == null) {
             System.out.println("\n1. Login\n2. Register\n3. Exit");
@@ -30,7 +39,8 @@ public class MainMenu {
                 case 1 -> {
                     String username = getStringInput("Username: ");
                     String password = getStringInput("Password: ");
-                    currentUser = authService.login(username, password);
+                    session = authService.startSession(username, password);
+                    currentUser = authService.authenticate(session);
                     if (currentUser == null) System.out.println("Invalid credentials. Try again.");
                 }
                 case 2 -> {
@@ -45,7 +55,8 @@ public class MainMenu {
                     String email = getStringInput("Email address: ");
                     String address = getStringInput("Home address: ");
                     authService.register(username, password, "CUSTOMER", name, phone, email, address);
-                    currentUser = authService.login(username, password);
+                    session = authService.startSession(username, password);
+                    currentUser = authService.authenticate(session);
                 }
                 case 3 -> {
                     System.out.println("Exiting application.");
@@ -55,12 +66,20 @@ public class MainMenu {
             }
         }
 
-        if ("ADMIN".equalsIgnoreCase(currentUser.getRole())) showAdminMenu(currentUser);
-        else showCustomerMenu(currentUser);
+        if ("ADMIN".equalsIgnoreCase(currentUser.getRole())) showAdminMenu(currentUser, session);
+        else showCustomerMenu(currentUser, session);
+        authService.logout(session);
+    }
+
+    //Checks the session before a menu action runs. False (after telling the user) once it has expired.
+    private static boolean sessionActive(String session) {
+        if (authService.authenticate(session) != null) return true;
+        System.out.println("Your session has expired. Please log in again.");
+        return false;
     }
 
     //Displays the admin menu and processes admin-specific operations such as managing vehicles, users, and viewing system-wide rentals.
-    private static void showAdminMenu(User admin) {
+    private static void showAdminMenu(User admin, String session) {
         int choice;
         do {
             System.out.println("\n=== Admin Menu ===");
@@ -78,9 +97,11 @@ public class MainMenu {
                 11. View Rental History
                 12. Cancel Booking
                 13. Confirm Payment on Pickup
-                14. Logout
+                14. Search Available Vehicles
+                15. Logout
             """);
             choice = getIntInput("Choose an option: ");
+            if (choice != 15 && !sessionActive(session)) return;
             switch (choice) {
                 case 1 -> addVehicle();
                 case 2 -> rentVehicle(admin);
@@ -95,14 +116,15 @@ public class MainMenu {
                 case 11 -> showAllRentalHistory();
                 case 12 -> cancelAnyBooking();
                 case 13 -> confirmPaymentOnPickup();
-                case 14 -> System.out.println("Logging out...");
+                case 14 -> searchAvailableVehicles();
+                case 15 -> System.out.println("Logging out...");
                 default -> System.out.println("Invalid choice.");
             }
-        } while (choice != 14);
+        } while (choice != 15);
     }
 
     //Displays the user menu and allows customers to rent, return, view rentals, and see notifications.
-    private static void showCustomerMenu(User customer) {
+    private static void showCustomerMenu(User customer, String session) {
         int choice;
         do {
             System.out.println("\n=== Customer Menu ===");
@@ -113,9 +135,11 @@ public class MainMenu {
                 4. View Notifications
                 5. View Booking History
                 6. Cancel Upcoming Booking
-                7. Logout
+                7. Search Available Vehicles
+                8. Logout
             """);
             choice = getIntInput("Choose an option: ");
+            if (choice != 8 && !sessionActive(session)) return;
             switch (choice) {
                 case 1 -> rentVehicle(customer);
                 case 2 -> returnVehicle();
@@ -123,10 +147,11 @@ public class MainMenu {
                 case 4 -> notificationService.printNotifications(customer);
                 case 5 -> showUserBookingHistory(customer);
                 case 6 -> cancelUpcomingBooking(customer);
-                case 7 -> System.out.println("Logging out...");
+                case 7 -> searchAvailableVehicles();
+                case 8 -> System.out.println("Logging out...");
                 default -> System.out.println("Invalid choice.");
             }
-        } while (choice != 7);
+        } while (choice != 8);
     }
 
     /*Prompts the admin to add a new vehicle to the system. Allows selection of vehicle type and entry of all required details. 
@@ -177,11 +202,17 @@ public class MainMenu {
     
         boolean paid = false; // Default to unpaid for customer booking
     
-        if (vehicleManager.rentVehicle(id, user.getUsername(), startDate, endDate, paid)) {
-            System.out.printf("Rental confirmed. Total: £%.2f%nReturn due: %s%n", days * vehicle.getPricePerDay(),
-                    endDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-        } else {
-            System.out.println("Failed to process rental.");
+        RentalReceipt receipt = vehicleManager.rent(id, user.getUsername(), startDate, endDate, paid);
+        switch (receipt.result()) {
+            case SUCCESS -> {
+                if (receipt.rentalId() > 0) System.out.println("Rental #" + receipt.rentalId() + " confirmed.");
+                else System.out.println("Rental confirmed.");
+                System.out.printf("Total: £%.2f%nReturn due: %s%n", days * vehicle.getPricePerDay(),
+                        endDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+            }
+            case UNAVAILABLE -> System.out.println("Vehicle was just booked by someone else for this period.");
+            case CONFLICT -> System.out.println("Vehicle is busy being updated, please try again.");
+            default -> System.out.println("Failed to process rental.");
         }
     }
     
@@ -202,6 +233,22 @@ public class MainMenu {
         else available.forEach(System.out::println);
     }
 
+    //Lists vehicles free for a whole period, cheapest first, with an optional vehicle type and daily price ceiling.
+    private static void searchAvailableVehicles() {
+        LocalDateTime start = getDateTimeInput("Free from (yyyy-MM-dd HH:mm): ");
+        LocalDateTime end = getDateTimeInput("Free until (yyyy-MM-dd HH:mm): ");
+        String type = switch (getIntInput("Vehicle type (0. Any, 1. Car, 2. Van, 3. Motorcycle): ")) {
+            case 1 -> "Car";
+            case 2 -> "Van";
+            case 3 -> "Motorcycle";
+            default -> null;
+        };
+        double maxPrice = getDoubleInput("Max price per day (0 for no limit): ");
+        List<Vehicle> found = vehicleManager.searchAvailable(start, end, type, maxPrice > 0 ? maxPrice : null, SEARCH_LIMIT);
+        if (found.isEmpty()) System.out.println("No vehicles are free for that period.");
+        else found.forEach(System.out::println);
+    }
+
     /*Displays a list of all currently rented vehicles, including renter information and return due date/time.
     Informs the user if no vehicles are currently rented.*/
     private static void showRentedVehicles() {
@@ -231,20 +278,42 @@ public class MainMenu {
     }
 
     //Displays the complete rental history across all users and vehicles. Includes rental period, user, and payment status. Informs the admin if no past rentals are found
+    //Shown a page at a time, newest first, optionally filtered by vehicle.
     private static void showAllRentalHistory() {
-        List<Vehicle> history = rentalDAO.getAllRentalHistory();
-        if (history.isEmpty()) System.out.println("No past rentals found.");
-        else history.forEach(v -> System.out.printf("Vehicle %s | User: %s | From: %s To: %s | Paid: %s%n",
-                v.getId(), v.getRentedBy(), v.getRentStartDateTime(), v.getRentEndDateTime(),
-                v.isPaid() ? "Yes" : "No"));
+        String vehicleId = getStringInput("Filter by vehicle ID (leave blank for all): ").trim();
+        RentalHistoryQuery query = RentalHistoryQuery.all(HISTORY_PAGE_SIZE)
+                .withVehicle(vehicleId.isEmpty() ? null : vehicleId);
+        printHistoryPages(query, "No past rentals found.", r -> System.out.printf(
+                "Vehicle %s | User: %s | From: %s To: %s | Paid: %s%n",
+                r.vehicleId(), r.rentedBy(), r.startTime(), r.endTime(), r.paid() ? "Yes" : "No"));
     }
 
     // Displays the rental history for the currently logged-in user. Shows vehicle ID, rental period, and payment status.
     private static void showUserBookingHistory(User user) {
-        List<Vehicle> bookings = rentalDAO.getRentalHistoryByUser(user.getUsername());
-        if (bookings.isEmpty()) System.out.println("You have no past bookings.");
-        else bookings.forEach(v -> System.out.printf("Vehicle %s | From: %s To: %s | Paid: %s%n",
-                v.getId(), v.getRentStartDateTime(), v.getRentEndDateTime(), v.isPaid() ? "Yes" : "No"));
+        printHistoryPages(RentalHistoryQuery.forUser(user.getUsername(), HISTORY_PAGE_SIZE),
+                "You have no past bookings.", r -> System.out.printf(
+                "Vehicle %s | From: %s To: %s | Paid: %s%n",
+                r.vehicleId(), r.startTime(), r.endTime(), r.paid() ? "Yes" : "No"));
+    }
+
+    //Prints history one page at a time, asking before loading the next page.
+    private static void printHistoryPages(RentalHistoryQuery query, String emptyMessage, Consumer<RentalRecord> printer) {
+        String token = null;
+        boolean first = true;
+        try {
+            do {
+                RentalPage page = rentalDAO.getRentalHistoryPage(query, token);
+                if (first && page.rows().isEmpty()) {
+                    System.out.println(emptyMessage);
+                    return;
+                }
+                first = false;
+                page.rows().forEach(printer);
+                token = page.nextToken();
+            } while (token != null && getStringInput("Show more? (y/n): ").trim().toLowerCase().startsWith("y"));
+        } catch (SQLException e) {
+            System.out.println("Failed to fetch rental history: " + e.getMessage());
+        }
     }
 
     //Allows a user to view and cancel one of their upcoming bookings. Displays a numbered list of future rentals and processes the selected cancellation.
@@ -260,7 +329,8 @@ public class MainMenu {
         }
         int choice = getIntInput("Enter booking number to cancel: ") - 1;
         if (choice >= 0 && choice < upcoming.size()) {
-            if (vehicleManager.cancelUpcomingBooking(upcoming.get(choice).getId(), user.getUsername())) {
+            Vehicle booking = upcoming.get(choice);
+            if (vehicleManager.cancelUpcomingBooking(booking.getId(), user.getUsername(), booking.getRentStartDateTime())) {
                 System.out.println("Booking cancelled.");
             } else System.out.println("Cancellation failed.");
         } else System.out.println("Invalid choice.");
@@ -299,12 +369,13 @@ public class MainMenu {
         } while (choice != 4);
     }
 
-    //Displays a list of all registered users in the system. Shows username, role, name, and email for each user.
+    //Displays a list of all registered users in the system. Shows username, role, name, and email for each user, and the user cache's hit rate if it is on.
     private static void viewAllUsers() {
         List<User> users = authService.getAllUsers();
         if (users.isEmpty()) System.out.println("No users.");
         else users.forEach(u -> System.out.printf("Username: %s | Role: %s | Name: %s | Email: %s%n",
                 u.getUsername(), u.getRole(), u.getName(), u.getEmail()));
+        if (authService.isCaching()) System.out.println(authService.getCacheStats());
     }
 
     //Allows the admin to update contact details of an existing user.
@@ -333,11 +404,7 @@ public class MainMenu {
     /*Allows an admin to view and cancel any upcoming booking in the system. Displays a numbered list of all future rentals across users,
     prompts for selection, and processes the cancellation.*/
     private static void cancelAnyBooking() {
-        List<Vehicle> upcoming = vehicleManager.getAllVehicles().stream()
-            .filter(v -> v.isRented()
-                && v.getRentStartDateTime() != null
-                && v.getRentStartDateTime().isAfter(LocalDateTime.now()))
-            .toList();
+        List<Vehicle> upcoming = vehicleManager.getAllUpcomingBookings();
     
         if (upcoming.isEmpty()) {
             System.out.println("No upcoming bookings found.");
@@ -355,7 +422,7 @@ public class MainMenu {
         int choice = getIntInput("Select booking number to cancel: ") - 1;
         if (choice >= 0 && choice < upcoming.size()) {
             Vehicle v = upcoming.get(choice);
-            if (vehicleManager.cancelUpcomingBooking(v.getId(), v.getRentedBy())) {
+            if (vehicleManager.cancelUpcomingBooking(v.getId(), v.getRentedBy(), v.getRentStartDateTime())) {
                 System.out.println("Booking cancelled successfully.");
             } else {
                 System.out.println("Failed to cancel booking.");
@@ -368,8 +435,7 @@ public class MainMenu {
     /* Allows an admin to confirm payment for rentals that were not prepaid.
      Displays all unpaid current rentals and processes the selected payment confirmation.*/
     private static void confirmPaymentOnPickup() {
-        List<Vehicle> unpaid = vehicleManager.getRentedVehicles()
-            .stream().filter(v -> !v.isPaid()).toList();
+        List<Vehicle> unpaid = vehicleManager.getUnpaidRentedVehicles();
     
         if (unpaid.isEmpty()) {
             System.out.println("No unpaid rentals.");
@@ -394,6 +460,12 @@ public class MainMenu {
         }
     }
     
+    //Sends queued notifications, flushes pending write-behind changes, writes the restart snapshot and closes the storage. Called once the menu loop ends.
+    public static void shutdown() {
+        notificationService.close();
+        services.close();
+    }
+
     //Prompts the user for an integer input.
     private static int getIntInput(String prompt) {
         System.out.print(prompt);
@@ -0,0 +1,24 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.User;
+import java.io.IOException;
+import java.util.List;
+
+/*
+ * An outbound delivery route (email, SMS) used by NotificationDispatcher.
+ * send is called with a batch of messages, from several virtual threads at once (up to the configured concurrency),
+ * and should hand the whole batch to the provider in one go. Throwing means the provider failed or refused the batch,
+ * for example because it is throttling; the dispatcher then retries the whole batch after a back-off.
+ */
+public interface NotificationChannel {
+
+    //A message together with the address this channel resolved for its user.
+    record Delivery(String address, OutboundMessage message) { }
+
+    String name();
+
+    //Returns the user's address on this channel, or null if they cannot be reached this way.
+    String addressOf(User user);
+
+    void send(List<Delivery> batch) throws IOException;
+}
@@ -0,0 +1,294 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.User;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * Outbound notification pipeline: sends alerts to users by email or SMS through NotificationChannels.
+ * submit never blocks, so it is safe to call from booking code and from the deadline scheduler while they hold
+ * their locks. Each alert key is accepted once (within the last dedupCapacity keys) and copied to one bounded
+ * queue per channel. A worker per channel drains its queue into batches of up to batchSize, waiting at most
+ * linger for a batch to fill, and sends each batch on a virtual thread, with at most `concurrency` batches in
+ * flight per channel. A failed batch is retried with exponential back-off and jitter, up to maxAttempts.
+ * Back-pressure: when the provider slows down, sends occupy all the permits, the worker stops draining and the
+ * queue fills. New alerts are then refused (Outcome.REJECTED) instead of piling up or holding up the caller.
+ * A refused or finally failed alert is forgotten, so it is sent if it is raised again.
+ * With a sent log, the key of every sent alert is also appended to that file and the newest dedupCapacity keys are
+ * read back on start, so a restart or rolling deploy does not send the alerts that still stand all over again.
+ */
+public final class NotificationDispatcher implements AutoCloseable {
+
+    public enum Outcome { QUEUED, DUPLICATE, REJECTED }
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final DispatchConfig config;
+    // looks users up when a batch is sent, to find their address on each channel
+    private final Function<String, User> users;
+    private final List<Lane> lanes = new ArrayList<>();
+    // keys of alerts queued or sent recently, oldest first
+    private final Map<String, Boolean> recentKeys;
+    // keys of sent alerts, one per line (null: remembered in memory only)
+    private final Path sentLog;
+    private final Object sentLogLock = new Object();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder unreachable = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public NotificationDispatcher(DispatchConfig config, Function<String, User> users, List<NotificationChannel> channels) {
+        this(config, users, channels, null);
+    }
+
+    //Also records the keys of sent alerts in sentLog and starts out remembering those already there.
+    public NotificationDispatcher(DispatchConfig config, Function<String, User> users, List<NotificationChannel> channels,
+                                  Path sentLog) {
+        this.config = config;
+        this.users = users;
+        this.recentKeys = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > config.dedupCapacity();
+            }
+        };
+        this.sentLog = sentLog;
+        if (sentLog != null) loadSentKeys();
+        for (NotificationChannel channel : channels) lanes.add(new Lane(channel));
+    }
+
+    /*Returns a dispatcher sending email through the local stand-in (LocalMailChannel) into the mbox file named by
+    -Dvehiclerental.notify.outbox, keeping its sent log next to it (<outbox>.sent), or null when that property is not set.*/
+    public static NotificationDispatcher configured(Function<String, User> users) {
+        String outbox = System.getProperty("vehiclerental.notify.outbox");
+        if (outbox == null || outbox.isBlank()) return null;
+        return new NotificationDispatcher(DispatchConfig.defaults(), users,
+                List.of(new LocalMailChannel(Path.of(outbox))), Path.of(outbox + ".sent"));
+    }
+
+    //Queues a message on every channel without waiting; see Outcome for what happened to it.
+    public Outcome submit(OutboundMessage message) {
+        if (!running) {
+            rejected.increment();
+            return Outcome.REJECTED;
+        }
+        synchronized (recentKeys) {
+            if (recentKeys.putIfAbsent(message.key(), Boolean.TRUE) != null) {
+                duplicates.increment();
+                return Outcome.DUPLICATE;
+            }
+        }
+        boolean queued = false;
+        for (Lane lane : lanes) {
+            if (lane.queue.offer(message)) {
+                accepted.increment();
+                queued = true;
+            } else {
+                rejected.increment();
+            }
+        }
+        if (queued) return Outcome.QUEUED;
+        forget(message);
+        return Outcome.REJECTED;
+    }
+
+    //Returns the current queue depth, batches in flight and counters.
+    public DispatchStats stats() {
+        int depth = 0;
+        int inFlight = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+            inFlight += config.concurrency() - lane.permits.availablePermits();
+        }
+        return new DispatchStats(depth, inFlight, accepted.sum(), duplicates.sum(), rejected.sum(), sent.sum(),
+                failed.sum(), unreachable.sum(), batches.sum(), retries.sum());
+    }
+
+    //Waits until every accepted message has been sent, failed or found unreachable. Returns false on timeout.
+    public boolean awaitIdle(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (sent.sum() + failed.sum() + unreachable.sum() < accepted.sum()) {
+            if (System.nanoTime() > deadline) return false;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Stops accepting messages, sends what is queued and waits (up to 10s) for the batches in flight.
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        running = false;
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join();
+                if (!lane.permits.tryAcquire(config.concurrency(), CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                    System.out.println("Notification batches still sending on " + lane.channel.name() + " at shutdown.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    //Remembers the newest keys in the sent log and, if it held more than that, rewrites it with only those.
+    private void loadSentKeys() {
+        if (!Files.exists(sentLog)) return;
+        try {
+            List<String> keys = Files.readAllLines(sentLog, StandardCharsets.UTF_8);
+            for (String key : keys) {
+                if (!key.isEmpty()) recentKeys.put(key, Boolean.TRUE);
+            }
+            if (keys.size() > recentKeys.size()) {
+                Path tmp = sentLog.resolveSibling(sentLog.getFileName() + ".tmp");
+                Files.write(tmp, recentKeys.keySet(), StandardCharsets.UTF_8);
+                Files.move(tmp, sentLog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to read sent notifications from " + sentLog + ": " + e.getMessage());
+        }
+    }
+
+    //Appends the keys of a sent batch to the sent log. If that fails they may only be sent again after a restart.
+    private void recordSent(List<NotificationChannel.Delivery> deliveries) {
+        if (sentLog == null) return;
+        StringBuilder lines = new StringBuilder();
+        for (NotificationChannel.Delivery delivery : deliveries) lines.append(delivery.message().key()).append('\n');
+        synchronized (sentLogLock) {
+            try {
+                Files.writeString(sentLog, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.out.println("Failed to record sent notifications in " + sentLog + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void forget(OutboundMessage message) {
+        synchronized (recentKeys) {
+            recentKeys.remove(message.key());
+        }
+    }
+
+    //One channel's queue, its worker and the permits for its batches in flight.
+    private final class Lane {
+        final NotificationChannel channel;
+        final BlockingQueue<OutboundMessage> queue = new ArrayBlockingQueue<>(config.queueCapacity());
+        final Semaphore permits = new Semaphore(config.concurrency());
+        final Thread worker;
+
+        Lane(NotificationChannel channel) {
+            this.channel = channel;
+            this.worker = new Thread(this::drain, "notify-" + channel.name());
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        private void drain() {
+            long linger = config.linger().toNanos();
+            while (running || !queue.isEmpty()) {
+                List<OutboundMessage> batch = new ArrayList<>(config.batchSize());
+                try {
+                    OutboundMessage first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    long deadline = System.nanoTime() + linger;
+                    while (batch.size() < config.batchSize()) {
+                        long wait = deadline - System.nanoTime();
+                        OutboundMessage next = wait > 0 && running ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                        if (next == null) break;
+                        batch.add(next);
+                    }
+                } catch (InterruptedException e) {
+                    // nobody interrupts the worker on purpose; keep going so queued messages are not lost
+                }
+                if (batch.isEmpty()) continue;
+                // blocks while `concurrency` batches are in flight, which is what makes the queue fill and push back
+                permits.acquireUninterruptibly();
+                Thread.ofVirtual().name("notify-" + channel.name() + "-send").start(() -> {
+                    try {
+                        deliver(batch);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        //Resolves addresses and sends one batch, retrying with back-off until it goes through or attempts run out.
+        private void deliver(List<OutboundMessage> batch) {
+            List<NotificationChannel.Delivery> deliveries = new ArrayList<>(batch.size());
+            for (OutboundMessage message : batch) {
+                User user = users.apply(message.username());
+                String address = user == null ? null : channel.addressOf(user);
+                if (address == null) {
+                    unreachable.increment();
+                } else {
+                    deliveries.add(new NotificationChannel.Delivery(address, message));
+                }
+            }
+            if (deliveries.isEmpty()) return;
+            batches.increment();
+            long backoff = config.backoff().toMillis();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    channel.send(deliveries);
+                    sent.add(deliveries.size());
+                    recordSent(deliveries);
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= config.maxAttempts() || !pause(backoff)) {
+                        failed.add(deliveries.size());
+                        deliveries.forEach(d -> forget(d.message()));
+                        System.out.println("Failed to send " + deliveries.size() + " " + channel.name()
+                                + " notifications: " + e.getMessage());
+                        return;
+                    }
+                    retries.increment();
+                    backoff = Math.min(backoff * 2, config.maxBackoff().toMillis());
+                }
+            }
+        }
+
+        //Sleeps for a random time between half and all of the back-off, so retries do not arrive in step.
+        private boolean pause(long backoff) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
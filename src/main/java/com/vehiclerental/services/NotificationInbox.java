@@ -0,0 +1,140 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.dao.BookingEvent;
+import com.vehiclerental.models.Booking;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/*
+ * Per-user notification inbox, filled as things happen instead of worked out when the user looks.
+ * Booking changes arrive from VehicleManager (as a BookingListener) and passing deadlines from the DeadlineScheduler
+ * (see deadlinePassed); each becomes a message in the inbox of the booking's user, with its text written once, there
+ * and then. An inbox keeps the newest `capacity` messages (-Dvehiclerental.inbox.capacity, default 50) and drops
+ * the oldest beyond that, so memory is bounded per user. Reading the newest k messages costs k, and read/unread
+ * state is one watermark per user: every message with a higher id is unread.
+ */
+public final class NotificationInbox implements BookingListener {
+
+    public static final int DEFAULT_CAPACITY = 50;
+
+    //A message as shown to its user; unread until markAllRead is called after it arrived.
+    public record Message(long id, LocalDateTime at, String text, boolean unread) { }
+
+    private record Stored(long id, LocalDateTime at, String text) { }
+
+    //One user's messages, oldest first. Guarded by its own monitor.
+    private static final class Box {
+        final ArrayDeque<Stored> messages = new ArrayDeque<>();
+        long readUpTo;
+        int unread;
+    }
+
+    private final ConcurrentHashMap<String, Box> boxes = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final int capacity;
+    // turns a vehicle ID into the text shown for it
+    private final Function<String, String> describer;
+    private final Clock clock;
+
+    public NotificationInbox(int capacity, Function<String, String> describer) {
+        this(capacity, describer, Clock.systemDefaultZone());
+    }
+
+    public NotificationInbox(int capacity, Function<String, String> describer, Clock clock) {
+        if (capacity < 1) throw new IllegalArgumentException("Inbox capacity must be at least 1");
+        this.capacity = capacity;
+        this.describer = describer;
+        this.clock = clock;
+    }
+
+    //Reads the per-user capacity from -Dvehiclerental.inbox.capacity.
+    public static int configuredCapacity() {
+        return Integer.getInteger("vehiclerental.inbox.capacity", DEFAULT_CAPACITY);
+    }
+
+    //Turns a written booking change into a message for the booking's user.
+    @Override
+    public void bookingChanged(BookingEvent.Type type, Booking booking) {
+        String vehicle = describer.apply(booking.vehicleId());
+        String text = switch (type) {
+            case RENTED -> "Booking confirmed: " + vehicle + " from " + booking.start() + " to " + booking.end();
+            case RETURNED -> "Returned: " + vehicle + ". Thank you!";
+            case CANCELLED -> "Booking cancelled: " + vehicle + " from " + booking.start();
+            case PAID -> "Payment received for " + vehicle + " from " + booking.start();
+        };
+        post(booking.rentedBy(), text);
+    }
+
+    //Turns a passing deadline into a message for the booking's user. STARTED is not worth a message of its own.
+    public void deadlinePassed(DeadlineScheduler.Event event) {
+        String text = alertText(event, describer.apply(event.booking().vehicleId()));
+        if (text != null) post(event.booking().rentedBy(), text);
+    }
+
+    //Words a deadline alert about the described vehicle, or returns null for deadlines that are not alerts.
+    static String alertText(DeadlineScheduler.Event event, String vehicle) {
+        Booking booking = event.booking();
+        return switch (event.kind()) {
+            case STARTS_SOON -> "Upcoming rental: " + vehicle + " starts on " + booking.start();
+            case DUE_SOON -> "Reminder: " + vehicle + " is due within 24h on " + booking.end();
+            case OVERDUE -> "Overdue: " + vehicle + " was due on " + booking.end();
+            case STARTED -> null;
+        };
+    }
+
+    //Adds a message to a user's inbox, dropping the oldest one if the inbox is full.
+    public void post(String username, String text) {
+        if (username == null) return;
+        Box box = boxes.computeIfAbsent(username, k -> new Box());
+        synchronized (box) {
+            // ids are taken under the box lock so each inbox stays in id order
+            box.messages.addLast(new Stored(ids.incrementAndGet(), LocalDateTime.now(clock), text));
+            box.unread++;
+            if (box.messages.size() > capacity) {
+                Stored dropped = box.messages.removeFirst();
+                if (dropped.id() > box.readUpTo) box.unread--;
+            }
+        }
+    }
+
+    //Returns up to k of the user's messages, newest first.
+    public List<Message> newest(String username, int k) {
+        Box box = boxes.get(username);
+        if (box == null || k <= 0) return List.of();
+        synchronized (box) {
+            List<Message> result = new ArrayList<>(Math.min(k, box.messages.size()));
+            Iterator<Stored> it = box.messages.descendingIterator();
+            while (it.hasNext() && result.size() < k) {
+                Stored s = it.next();
+                result.add(new Message(s.id(), s.at(), s.text(), s.id() > box.readUpTo));
+            }
+            return result;
+        }
+    }
+
+    public int unreadCount(String username) {
+        Box box = boxes.get(username);
+        if (box == null) return 0;
+        synchronized (box) {
+            return box.unread;
+        }
+    }
+
+    //Marks every message the user has now as read.
+    public void markAllRead(String username) {
+        Box box = boxes.get(username);
+        if (box == null) return;
+        synchronized (box) {
+            Stored last = box.messages.peekLast();
+            if (last != null) box.readUpTo = last.id();
+            box.unread = 0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.vehiclerental.services;
 
+import com.vehiclerental.models.Booking;
 import com.vehiclerental.models.User;
 import com.vehiclerental.models.Vehicle;
 import java.time.LocalDateTime;
@@ -10,21 +11,98 @@ import java.util.List;
 /*
  * Provides notification services related to vehicle rentals.
  * Generates alerts for overdue returns, upcoming returns, and scheduled rentals.
+ * The fleet-wide lists are read from VehicleManager's deadline schedule (see DeadlineScheduler), so they cost the
+ * number of alerts rather than a scan of every vehicle. A user's own notifications come from their NotificationInbox,
+ * which booking changes and passing deadlines fill as they happen. A manager without a schedule (a stub) is scanned
+ * as before. With a NotificationDispatcher, deadline alerts are also sent to users by email or SMS as they pass,
+ * so customers hear about them without logging in; alerts that already stand when the service starts, or when a
+ * booking is made inside its own warning window, are sent too. The dispatcher's alert keys stop repeats, and its sent
+ * log keeps them across restarts, so the alerts still standing at start-up are not sent again.
  */
 public class NotificationService {
 
     private final VehicleManager vehicleManager;
     private final AuthService authService;
+    private final DeadlineScheduler deadlines;
+    private final NotificationInbox inbox;
+    private final NotificationDispatcher dispatcher;
+
+    // how many messages printNotifications shows
+    private static final int PAGE_SIZE = 10;
 
     //Constructs a NotificationService with access to vehicle and user data.
     public NotificationService(VehicleManager vehicleManager, AuthService authService) {
+        this(vehicleManager, authService, NotificationDispatcher.configured(authService::getUser));
+    }
+
+    //Constructs a NotificationService that also sends alerts through the given dispatcher (null for none).
+    public NotificationService(VehicleManager vehicleManager, AuthService authService, NotificationDispatcher dispatcher) {
         this.vehicleManager = vehicleManager;
         this.authService = authService;
+        this.dispatcher = dispatcher;
+        this.deadlines = vehicleManager.deadlines();
+        this.inbox = deadlines == null ? null : openInbox();
+        if (deadlines != null && dispatcher != null) openDispatch();
+    }
+
+    /*Subscribes the dispatcher to passing deadlines, then sends the alerts that already stand and, from now on, those a
+    booking has as soon as it is made. Subscribing first means no deadline slips between the two.*/
+    private void openDispatch() {
+        deadlines.addListener(this::dispatch);
+        vehicleManager.addBookingListener(new BookingListener() {
+            @Override
+            public void bookingAdded(Booking booking) {
+                for (DeadlineScheduler.Event event : deadlines.standingFor(booking)) dispatch(event);
+            }
+        });
+        for (DeadlineScheduler.Event event : deadlines.standing()) dispatch(event);
+    }
+
+    /*Creates the inbox, seeds it with the alerts that already stand (their deadlines passed before it existed) and
+    subscribes it to booking changes and passing deadlines.*/
+    private NotificationInbox openInbox() {
+        NotificationInbox created = new NotificationInbox(NotificationInbox.configuredCapacity(), this::describeVehicle);
+        for (DeadlineScheduler.Event event : deadlines.standing()) created.deadlinePassed(event);
+        deadlines.addListener(created::deadlinePassed);
+        vehicleManager.addBookingListener(created);
+        return created;
+    }
+
+    /*Sends a deadline alert to the booking's user. Runs on the scheduler's thread, or under the vehicle's lock for a new
+    booking; the dispatcher never blocks, and an alert it refuses while the provider is backed up still reaches the
+    user's inbox.*/
+    private void dispatch(DeadlineScheduler.Event event) {
+        Booking booking = event.booking();
+        String text = NotificationInbox.alertText(event, describe(booking));
+        if (text == null) return;
+        String key = event.kind() + ":" + booking.vehicleId() + "@" + booking.start();
+        dispatcher.submit(new OutboundMessage(key, booking.rentedBy(), text.substring(0, text.indexOf(':')), text));
+    }
+
+    //Returns the outbound dispatcher, or null when alerts are not sent outside the application.
+    public NotificationDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    //Sends the alerts still queued and stops the outbound dispatcher, if there is one.
+    public void close() {
+        if (dispatcher != null) dispatcher.close();
+    }
+
+    //Returns the per-user inbox, or null when the manager has no deadline schedule.
+    public NotificationInbox getInbox() {
+        return inbox;
     }
 
     //Generates a list of overdue rental notifications. Identifies vehicles whose return times have passed but are still marked as rented.
     public List<String> getOverdueNotifications() {
         List<String> notifications = new ArrayList<>();
+        if (deadlines != null) {
+            for (Booking booking : deadlines.overdue()) {
+                notifications.add("Overdue: " + describe(booking) + " was due on " + booking.end());
+            }
+            return notifications;
+        }
         LocalDateTime now = LocalDateTime.now();
         for (Vehicle vehicle : vehicleManager.getAllVehicles()) {
             if (vehicle.getRentEndDateTime() != null && now.isAfter(vehicle.getRentEndDateTime()) && vehicle.isRented()) {
@@ -37,6 +115,12 @@ public class NotificationService {
     //Generates warnings for vehicles due to be returned within the next 24 hours.
     public List<String> getUpcomingReturnWarnings() {
         List<String> warnings = new ArrayList<>();
+        if (deadlines != null) {
+            for (Booking booking : deadlines.dueSoon()) {
+                warnings.add("Reminder: " + describe(booking) + " is due within 24h on " + booking.end());
+            }
+            return warnings;
+        }
         LocalDateTime now = LocalDateTime.now();
         for (Vehicle vehicle : vehicleManager.getAllVehicles()) {
             if (vehicle.getRentEndDateTime() != null && vehicle.isRented()) {
@@ -53,6 +137,12 @@ public class NotificationService {
     // Generates reminders for vehicles scheduled to be rented soon. Includes rentals that are booked to start within the next 24 hours.
     public List<String> getUpcomingRentalReminders() {
         List<String> reminders = new ArrayList<>();
+        if (deadlines != null) {
+            for (Booking booking : deadlines.startingSoon()) {
+                reminders.add("Upcoming rental: " + describe(booking) + " is scheduled to start on " + booking.start());
+            }
+            return reminders;
+        }
         LocalDateTime now = LocalDateTime.now();
         for (Vehicle vehicle : vehicleManager.getAllVehicles()) {
             if (vehicle.getRentStartDateTime() != null && !vehicle.isRented()) {
@@ -66,9 +156,16 @@ public class NotificationService {
     }
 
     /*Generates personalized rental notifications for a specific user. Includes upcoming rental reminders, overdue alerts, and return warnings
-     for vehicles currently or soon-to-be rented by the user. */
+     for vehicles currently or soon-to-be rented by the user. With an inbox these are the user's newest messages, newest first. */
     public List<String> getUserNotifications(User user) {
         List<String> messages = new ArrayList<>();
+        if (inbox != null) {
+            deadlines.advance();
+            for (NotificationInbox.Message message : inbox.newest(user.getUsername(), PAGE_SIZE)) {
+                messages.add(message.text());
+            }
+            return messages;
+        }
         LocalDateTime now = LocalDateTime.now();
 
         for (Vehicle vehicle : vehicleManager.getVehiclesRentedByUser(user.getUsername())) {
@@ -97,8 +194,23 @@ public class NotificationService {
         return messages;
     }
 
-    //Displays all current rental notifications for a given user. Fetches upcoming, overdue, and return-related messages and prints them to the console.
+    //Describes the booked vehicle the way the vehicle listings do, falling back to its ID if it has been removed.
+    private String describe(Booking booking) {
+        return describeVehicle(booking.vehicleId());
+    }
+
+    private String describeVehicle(String vehicleId) {
+        Vehicle vehicle = vehicleManager.findVehicleById(vehicleId);
+        return vehicle == null ? vehicleId : vehicle.toString();
+    }
+
+    /*Displays all current rental notifications for a given user. Fetches upcoming, overdue, and return-related messages and prints them to the console.
+    With an inbox, unread messages are marked with * and everything shown is then marked read. */
     public void printNotifications(User user) {
+        if (inbox != null) {
+            printInbox(user.getUsername());
+            return;
+        }
         List<String> messages = getUserNotifications(user);
         if (messages.isEmpty()) {
             System.out.println("No notifications.");
@@ -107,4 +219,19 @@ public class NotificationService {
             messages.forEach(System.out::println);
         }
     }
+
+    //Prints the newest page of the user's inbox and marks it read.
+    private void printInbox(String username) {
+        deadlines.advance();
+        List<NotificationInbox.Message> messages = inbox.newest(username, PAGE_SIZE);
+        if (messages.isEmpty()) {
+            System.out.println("No notifications.");
+            return;
+        }
+        System.out.println("Notifications (" + inbox.unreadCount(username) + " unread):");
+        for (NotificationInbox.Message message : messages) {
+            System.out.println((message.unread() ? "* " : "  ") + message.at().withNano(0) + "  " + message.text());
+        }
+        inbox.markAllRead(username);
+    }
 }
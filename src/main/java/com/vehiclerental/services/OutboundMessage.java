@@ -0,0 +1,8 @@
+package com.vehiclerental.services;
+
+/*
+ * A notification to send to a user outside the application (email, SMS).
+ * key identifies the alert, e.g. one overdue warning for one booking; the dispatcher sends each key only once.
+ * The address is looked up per channel when the message is sent, not when it is queued.
+ */
+public record OutboundMessage(String key, String username, String subject, String body) { }
@@ -0,0 +1,92 @@
+package com.vehiclerental.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/*
+ * Salted PBKDF2-HMAC-SHA256 password hashing for AuthService.
+ * A stored hash reads "pbkdf2-sha256$<iterations>$<salt>$<hash>" (base64), so each row carries the cost it was
+ * made with and the cost can be raised (-Dvehiclerental.password.iterations) without invalidating old rows:
+ * needsRehash tells AuthService to hash the password again at the new cost the next time its owner logs in.
+ * A stored value without the prefix is a plaintext password from before hashing; it still verifies, and always
+ * needs a rehash. Comparisons take the same time however many bytes match.
+ */
+public final class PasswordHasher {
+
+    // OWASP's recommended work factor for PBKDF2-HMAC-SHA256
+    public static final int DEFAULT_ITERATIONS = 600_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException("Iterations must be at least 1");
+        this.iterations = iterations;
+    }
+
+    //Returns a hasher at the cost set by -Dvehiclerental.password.iterations.
+    public static PasswordHasher configured() {
+        return new PasswordHasher(Integer.getInteger("vehiclerental.password.iterations", DEFAULT_ITERATIONS));
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    //Hashes a password with a fresh random salt at this hasher's cost.
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + '$' + base64.encodeToString(salt) + '$'
+                + base64.encodeToString(derive(password, salt, iterations, HASH_BYTES));
+    }
+
+    //Checks a password against a stored hash (or a legacy plaintext password).
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) return false;
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int cost = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            if (cost < 1 || expected.length == 0) return false;
+            return MessageDigest.isEqual(expected, derive(password, salt, cost, expected.length));
+        } catch (IllegalArgumentException e) {
+            // malformed row: no password matches it
+            return false;
+        }
+    }
+
+    //True when the stored value is plaintext or was hashed at a different cost than this hasher's.
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) return true;
+        int end = stored.indexOf('$', PREFIX.length());
+        return end < 0 || !stored.substring(PREFIX.length(), end).equals(Integer.toString(iterations));
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations, int bytes) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, bytes * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.vehiclerental.services;
+
+/**
+ * Outcome of {@link VehicleManager#rent}: the booking result and the id of the rental row it created.
+ * The id is 0 when the booking failed, or when write-behind queued the row and it has no id yet.
+ */
+public record RentalReceipt(BookingResult result, long rentalId) {
+
+    //True for SUCCESS.
+    public boolean isSuccess() {
+        return result.isSuccess();
+    }
+}
@@ -0,0 +1,73 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.Booking;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * The bookings of one vehicle, kept in a TreeMap keyed by start time.
+ * Bookings never overlap, so ordering them by start also orders them by end. An overlap check is then a
+ * single floorEntry lookup: only the latest booking starting at or before the requested end can reach into
+ * the requested period. Checks, adds and removals are O(log n) in the number of bookings.
+ * Changes are made under the vehicle's lock; lookups take no lock, so an availability check never waits for a
+ * booking being written to the database. A booking is in the map from before its write until the write has
+ * failed and been undone, so a lock-free check may briefly see a period as taken, never as free when it is not.
+ */
+final class ReservationCalendar {
+
+    private final NavigableMap<LocalDateTime, Booking> byStart = new ConcurrentSkipListMap<>();
+
+    //Checks whether the period clashes with an existing booking.
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, Booking> latest = byStart.floorEntry(end);
+        return latest != null && latest.getValue().overlaps(start, end);
+    }
+
+    //Adds a booking unless it clashes with an existing one.
+    boolean add(Booking booking) {
+        if (overlaps(booking.start(), booking.end())) return false;
+        byStart.put(booking.start(), booking);
+        return true;
+    }
+
+    //Swaps in a changed copy of the booking that starts at the same time (e.g. after payment).
+    void update(Booking booking) {
+        byStart.replace(booking.start(), booking);
+    }
+
+    Booking get(LocalDateTime start) {
+        return byStart.get(start);
+    }
+
+    Booking remove(LocalDateTime start) {
+        return byStart.remove(start);
+    }
+
+    //Returns the earliest booking, or null when the vehicle has none.
+    Booking first() {
+        Map.Entry<LocalDateTime, Booking> first = byStart.firstEntry();
+        return first == null ? null : first.getValue();
+    }
+
+    //Returns a copy of every booking, earliest first.
+    List<Booking> bookings() {
+        return new ArrayList<>(byStart.values());
+    }
+
+    //Removes every booking and returns them, earliest first.
+    List<Booking> clear() {
+        List<Booking> removed = new ArrayList<>(byStart.values());
+        byStart.clear();
+        return removed;
+    }
+
+    //Returns the bookings starting after the given time, earliest first.
+    Collection<Booking> startingAfter(LocalDateTime time) {
+        return byStart.tailMap(time, false).values();
+    }
+}
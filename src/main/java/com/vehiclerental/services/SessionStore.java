@@ -0,0 +1,114 @@
+package com.vehiclerental.services;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Login sessions issued by AuthService once a password has been checked, so later calls present a token instead
+ * of paying for the password hash again. A token is 256 random bits; checking one is a single map lookup.
+ * A session expires after idleTimeout without use, and every successful check pushes that back (sliding renewal),
+ * but never past maxLifetime from login. Expired sessions are dropped when presented and swept every so often.
+ * Both limits can be overridden with -Dvehiclerental.session.idleMinutes and -Dvehiclerental.session.maxHours.
+ */
+public final class SessionStore {
+
+    // a sweep for expired sessions runs after this many logins
+    private static final int SWEEP_EVERY = 1024;
+
+    private static final class Session {
+        final String username;
+        final Instant deadline;
+        volatile Instant expiresAt;
+
+        Session(String username, Instant deadline, Instant expiresAt) {
+            this.username = username;
+            this.deadline = deadline;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Duration idleTimeout;
+    private final Duration maxLifetime;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicInteger opensSinceSweep = new AtomicInteger();
+
+    public SessionStore(Duration idleTimeout, Duration maxLifetime) {
+        this(idleTimeout, maxLifetime, Clock.systemUTC());
+    }
+
+    public SessionStore(Duration idleTimeout, Duration maxLifetime, Clock clock) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero() || maxLifetime.compareTo(idleTimeout) < 0) {
+            throw new IllegalArgumentException("Invalid session settings: idleTimeout=" + idleTimeout
+                    + ", maxLifetime=" + maxLifetime);
+        }
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+        this.clock = clock;
+    }
+
+    //Returns a store with the default limits (30 minutes idle, 12 hours in all), applying any system property overrides.
+    public static SessionStore configured() {
+        return new SessionStore(Duration.ofMinutes(Long.getLong("vehiclerental.session.idleMinutes", 30L)),
+                Duration.ofHours(Long.getLong("vehiclerental.session.maxHours", 12L)));
+    }
+
+    //Starts a session for the user and returns its token.
+    public String open(String username) {
+        if (opensSinceSweep.incrementAndGet() >= SWEEP_EVERY) {
+            opensSinceSweep.set(0);
+            sweep();
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Instant now = clock.instant();
+        Instant deadline = now.plus(maxLifetime);
+        sessions.put(token, new Session(username, deadline, earlier(now.plus(idleTimeout), deadline)));
+        return token;
+    }
+
+    //Returns the username the token belongs to and renews the session, or null if it is unknown or expired.
+    public String validate(String token) {
+        if (token == null) return null;
+        Session session = sessions.get(token);
+        if (session == null) return null;
+        Instant now = clock.instant();
+        if (!now.isBefore(session.expiresAt)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.expiresAt = earlier(now.plus(idleTimeout), session.deadline);
+        return session.username;
+    }
+
+    //Ends a session (logout).
+    public void close(String token) {
+        if (token != null) sessions.remove(token);
+    }
+
+    //Ends every session of a user, e.g. once the account is deleted.
+    public void closeAll(String username) {
+        sessions.values().removeIf(session -> session.username.equals(username));
+    }
+
+    //Returns the number of sessions held, expired ones not yet swept included.
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweep() {
+        Instant now = clock.instant();
+        sessions.values().removeIf(session -> !now.isBefore(session.expiresAt));
+    }
+
+    private static Instant earlier(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
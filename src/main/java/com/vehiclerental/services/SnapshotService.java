@@ -0,0 +1,99 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.dao.SnapshotFile;
+import com.vehiclerental.dao.StateSnapshot;
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.models.User;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Keeps the warm-restart snapshot file up to date: writes it every interval on a background thread and once
+ * more on clean shutdown, after write-behind has been flushed.
+ * Settings: -Dvehiclerental.snapshot.file (empty to disable), .intervalSeconds and .maxAgeMinutes (older
+ * snapshots are ignored at startup and a full load is done instead).
+ */
+public final class SnapshotService implements AutoCloseable {
+
+    private final Path file;
+    private final VehicleManager vehicleManager;
+    private final AuthService authService;
+    private final Storage storage;
+    private final ScheduledExecutorService writer;
+
+    public SnapshotService(Path file, VehicleManager vehicleManager, AuthService authService, Storage storage,
+                           Duration interval) {
+        this.file = file;
+        this.vehicleManager = vehicleManager;
+        this.authService = authService;
+        this.storage = storage;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshot-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        long seconds = interval.toSeconds();
+        writer.scheduleWithFixedDelay(this::writeNow, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    //Returns the configured snapshot file, or null when snapshots are disabled.
+    public static Path configuredFile() {
+        String file = System.getProperty("vehiclerental.snapshot.file", "vehiclerental.snapshot");
+        return file.isBlank() ? null : Path.of(file);
+    }
+
+    //Returns the configured interval between periodic snapshots.
+    public static Duration configuredInterval() {
+        return Duration.ofSeconds(Long.getLong("vehiclerental.snapshot.intervalSeconds", 300L));
+    }
+
+    //Reads the snapshot file if it exists and is recent enough to be worth reconciling. Null means do a full load.
+    public static StateSnapshot readIfFresh(Path file) {
+        try {
+            if (!Files.exists(file)) return null;
+            Duration maxAge = Duration.ofMinutes(Long.getLong("vehiclerental.snapshot.maxAgeMinutes", 60L));
+            Instant written = Files.getLastModifiedTime(file).toInstant();
+            if (written.plus(maxAge).isBefore(Instant.now())) {
+                System.out.println("Ignoring snapshot " + file + ": older than " + maxAge.toMinutes() + " minutes");
+                return null;
+            }
+        } catch (IOException e) {
+            System.out.println("Ignoring snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+        return SnapshotFile.read(file);
+    }
+
+    //Writes a snapshot of the current state. Failures are reported, the previous snapshot stays in place.
+    public synchronized void writeNow() {
+        try {
+            // storage time first: anything committed after it is re-read on restore even if the copy missed it
+            // with the user cache on, users are not held in memory and the snapshot carries none (they load from storage)
+            List<User> users = authService.isCaching() ? List.of() : authService.getAllUsers();
+            StateSnapshot snapshot = vehicleManager.snapshot(storage.currentTime(), users);
+            SnapshotFile.write(file, snapshot);
+        } catch (SQLException | IOException e) {
+            System.out.println("Failed to write snapshot: " + e.getMessage());
+        }
+    }
+
+    //Stops the periodic writer and writes a final snapshot.
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeNow();
+    }
+}
@@ -0,0 +1,99 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.User;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Size-bounded LRU cache of users with a time-to-live, used by AuthService instead of holding every user when
+ * -Dvehiclerental.users.cacheSize=<entries> is set (-Dvehiclerental.users.cacheTtlMinutes, default 10, sets the TTL).
+ * AuthService loads misses from storage one user at a time and invalidates an entry whenever it changes the user.
+ * A load that overlaps an invalidation is not cached (see version), so a stale row cannot outlive the change that
+ * replaced it; the TTL bounds staleness from changes made by other instances.
+ */
+public final class UserCache {
+
+    private record Entry(User user, Instant loadedAt) { }
+
+    private final int capacity;
+    private final Duration ttl;
+    private final Clock clock;
+    // access order: the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public UserCache(int capacity, Duration ttl) {
+        this(capacity, ttl, Clock.systemUTC());
+    }
+
+    public UserCache(int capacity, Duration ttl, Clock clock) {
+        if (capacity < 1 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Invalid user cache settings: capacity=" + capacity + ", ttl=" + ttl);
+        }
+        this.capacity = capacity;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    //True when -Dvehiclerental.users.cacheSize asks for the cache.
+    public static boolean enabled() {
+        return Integer.getInteger("vehiclerental.users.cacheSize", 0) > 0;
+    }
+
+    //Returns a cache with the configured size and TTL, or null when the cache is not enabled.
+    public static UserCache configured() {
+        if (!enabled()) return null;
+        return new UserCache(Integer.getInteger("vehiclerental.users.cacheSize"),
+                Duration.ofMinutes(Long.getLong("vehiclerental.users.cacheTtlMinutes", 10L)));
+    }
+
+    //Returns the cached user, or null on a miss (including an entry past its TTL, which is dropped).
+    public synchronized User get(String username) {
+        Entry entry = entries.get(username);
+        if (entry != null && clock.instant().isBefore(entry.loadedAt().plus(ttl))) {
+            hits.increment();
+            return entry.user();
+        }
+        if (entry != null) {
+            entries.remove(username);
+            expirations.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    //Returns the current version; read it before loading a user and pass it to put.
+    public synchronized long version() {
+        return version;
+    }
+
+    //Caches a loaded user unless an invalidation happened since `loadedAtVersion`, evicting the least recently used entry if full.
+    public synchronized void put(User user, long loadedAtVersion) {
+        if (loadedAtVersion != version) return;
+        entries.put(user.getUsername(), new Entry(user, clock.instant()));
+        if (entries.size() > capacity) {
+            Map.Entry<String, Entry> eldest = entries.entrySet().iterator().next();
+            entries.remove(eldest.getKey());
+            evictions.increment();
+        }
+    }
+
+    //Drops a user's entry after it has been added, changed or deleted.
+    public synchronized void invalidate(String username) {
+        version++;
+        entries.remove(username);
+    }
+
+    public synchronized UserCacheStats stats() {
+        return new UserCacheStats(entries.size(), capacity, hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+}
@@ -0,0 +1,21 @@
+package com.vehiclerental.services;
+
+/* Point-in-time view of AuthService's user cache.
+   A hit is a lookup answered from the cache; a miss went to storage (expired entries count as misses).
+   evictions counts entries dropped to stay within capacity, expirations entries dropped for being older than the TTL.
+ */
+public record UserCacheStats(int size, int capacity, long hits, long misses, long evictions, long expirations) {
+
+    //Share of lookups answered from the cache, 0 before the first lookup.
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "UserCache[size=" + size + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+                + ", hitRate=" + String.format("%.1f%%", hitRate() * 100) + ", evictions=" + evictions
+                + ", expirations=" + expirations + ']';
+    }
+}
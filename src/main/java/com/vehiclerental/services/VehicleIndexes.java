@@ -0,0 +1,226 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Vehicle;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Secondary indexes over the vehicle registry, kept by VehicleManager.
+ * Each vehicle is filed under its availability, rental and payment state, and under its type.
+ * Entries are ordered by the vehicle's registration sequence, so each query returns vehicles in the same
+ * order as the registry and costs O(result size) to read. VehicleManager must call refresh() after every
+ * state change of an indexed vehicle.
+ * Bookings (see ReservationCalendar) are indexed per renter, ordered by start time, so a renter's listings cover
+ * every booking they hold and not only the earliest booking of each vehicle.
+ * For availability search, every vehicle is also filed by daily price, fleet-wide and per type, and by the days
+ * its bookings touch (see BookedDays).
+ *
+ * All maps are concurrent, so readers never block and different vehicles can be re-filed in parallel.
+ * VehicleManager re-files a vehicle only while holding that vehicle's lock, so a vehicle never has two
+ * writers; readers may briefly see it in its old and new place while it moves (listings are weakly
+ * consistent). Emptied per-renter and per-type sets are kept, as removing them could race with a new entry.
+ */
+final class VehicleIndexes {
+
+    private final Map<String, Long> sequence = new ConcurrentHashMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final NavigableMap<Long, Vehicle> all = new ConcurrentSkipListMap<>();
+
+    private final NavigableMap<Long, Vehicle> available = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, Vehicle> rented = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, Vehicle> unpaidRented = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<Long, Vehicle>> byType = new ConcurrentHashMap<>();
+    private final NavigableMap<PriceKey, Vehicle> byPrice = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<PriceKey, Vehicle>> byTypeAndPrice = new ConcurrentHashMap<>();
+
+    private static final Comparator<Booking> BY_START =
+            Comparator.comparing(Booking::start).thenComparing(Booking::vehicleId);
+    private final Map<String, NavigableSet<Booking>> bookingsByRenter = new ConcurrentHashMap<>();
+
+    // price each vehicle is currently filed under, so it can be unfiled after the vehicle changed
+    private final Map<Long, PriceKey> filedPrice = new ConcurrentHashMap<>();
+    private final BookedDays bookedDays = new BookedDays();
+    // up to this many vehicles left by BookedDays are sorted by price; more are met by walking the price index
+    private static final int FEW_LEFT = 1024;
+
+    // price first, registration sequence breaks ties
+    private record PriceKey(double price, long seq) implements Comparable<PriceKey> {
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : Long.compare(seq, other.seq);
+        }
+    }
+
+    //Indexes a newly registered vehicle.
+    void add(String key, Vehicle vehicle) {
+        long seq = sequence.computeIfAbsent(key, k -> nextSequence.getAndIncrement());
+        all.put(seq, vehicle);
+        byType.computeIfAbsent(vehicle.getVehicleType(), t -> new ConcurrentSkipListMap<>()).put(seq, vehicle);
+        fileState(seq, vehicle);
+        filePrice(seq, vehicle);
+        bookedDays.add(Math.toIntExact(seq), vehicle.getVehicleType());
+    }
+
+    //Re-files a vehicle after its rental, availability or payment state changed.
+    void refresh(String key, Vehicle vehicle) {
+        Long seq = sequence.get(key);
+        if (seq == null) return;
+        unfileState(seq);
+        fileState(seq, vehicle);
+    }
+
+    //Re-files a vehicle after its daily price changed.
+    void repriced(String key, Vehicle vehicle) {
+        Long seq = sequence.get(key);
+        if (seq == null) return;
+        unfilePrice(seq, vehicle.getVehicleType());
+        filePrice(seq, vehicle);
+    }
+
+    //Drops a vehicle that was removed from the registry.
+    void remove(String key, Vehicle vehicle) {
+        Long seq = sequence.remove(key);
+        if (seq == null) return;
+        all.remove(seq);
+        unfileState(seq);
+        unfilePrice(seq, vehicle.getVehicleType());
+        NavigableMap<Long, Vehicle> ofType = byType.get(vehicle.getVehicleType());
+        if (ofType != null) ofType.remove(seq);
+        bookedDays.remove(Math.toIntExact(seq), vehicle.getVehicleType());
+    }
+
+    //Returns every registered vehicle in registration order.
+    List<Vehicle> all() {
+        return copy(all);
+    }
+
+    List<Vehicle> available() {
+        return copy(available);
+    }
+
+    List<Vehicle> rented() {
+        return copy(rented);
+    }
+
+    List<Vehicle> unpaidRented() {
+        return copy(unpaidRented);
+    }
+
+    List<Vehicle> ofType(String type) {
+        return copy(byType.get(type));
+    }
+
+
+    /*Returns the vehicles priced at or below the ceiling, optionally of one type, that may be free for the period,
+    cheapest first; each still needs its calendar checked. Vehicles booked on a day inside the period are left out
+    without being visited. When few are left (a sold-out period) they are read off the bitset and sorted by price,
+    otherwise the price index is walked lazily, skipping ruled-out vehicles by their bit.*/
+    Iterable<Vehicle> mayBeFree(String type, double maxPricePerDay, LocalDateTime start, LocalDateTime end) {
+        BitSet left = bookedDays.mayBeFree(type, start, end);
+        if (left.cardinality() <= FEW_LEFT) {
+            List<PriceKey> prices = new ArrayList<>();
+            for (int seq = left.nextSetBit(0); seq >= 0; seq = left.nextSetBit(seq + 1)) {
+                PriceKey price = filedPrice.get((long) seq);
+                if (price != null && price.price() <= maxPricePerDay) prices.add(price);
+            }
+            Collections.sort(prices);
+            List<Vehicle> vehicles = new ArrayList<>(prices.size());
+            for (PriceKey price : prices) {
+                Vehicle vehicle = all.get(price.seq());
+                if (vehicle != null) vehicles.add(vehicle);
+            }
+            return vehicles;
+        }
+        NavigableMap<PriceKey, Vehicle> index = type == null ? byPrice : byTypeAndPrice.get(type);
+        if (index == null) return List.of();
+        return () -> index.headMap(new PriceKey(maxPricePerDay, Long.MAX_VALUE), true).entrySet().stream()
+                .filter(e -> left.get(Math.toIntExact(e.getKey().seq())))
+                .map(Map.Entry::getValue)
+                .iterator();
+    }
+
+    //Marks the days a booking that entered the vehicle's calendar touches.
+    void booked(String key, Booking booking) {
+        Long seq = sequence.get(key);
+        if (seq != null) bookedDays.booked(Math.toIntExact(seq), booking);
+    }
+
+    //Unmarks the days of a booking that left the vehicle's calendar, unless another booking there still touches them.
+    void unbooked(String key, Booking booking, ReservationCalendar calendar) {
+        Long seq = sequence.get(key);
+        if (seq != null) bookedDays.unbooked(Math.toIntExact(seq), booking, calendar);
+    }
+
+    void addBooking(Booking booking) {
+        if (booking.rentedBy() == null) return;
+        bookingsByRenter.computeIfAbsent(booking.rentedBy(), u -> new ConcurrentSkipListSet<>(BY_START)).add(booking);
+    }
+
+    void removeBooking(Booking booking) {
+        if (booking.rentedBy() == null) return;
+        NavigableSet<Booking> ofRenter = bookingsByRenter.get(booking.rentedBy());
+        if (ofRenter != null) ofRenter.remove(booking);
+    }
+
+    //Returns every booking the renter holds, earliest first.
+    List<Booking> bookingsOf(String username) {
+        NavigableSet<Booking> ofRenter = bookingsByRenter.get(username);
+        return ofRenter == null ? new ArrayList<>() : new ArrayList<>(ofRenter);
+    }
+
+    //Returns the renter's bookings starting after the given time, earliest first.
+    List<Booking> bookingsStartingAfter(String username, LocalDateTime time) {
+        NavigableSet<Booking> ofRenter = bookingsByRenter.get(username);
+        if (ofRenter == null) return new ArrayList<>();
+        // the probe sorts before every booking starting at that time, so only those need filtering out
+        return ofRenter.tailSet(new Booking("", username, time, time, false), true).stream()
+                .filter(b -> b.start().isAfter(time))
+                .toList();
+    }
+
+    private void fileState(long seq, Vehicle vehicle) {
+        if (vehicle.isAvailable()) available.put(seq, vehicle);
+        if (vehicle.isRented()) {
+            rented.put(seq, vehicle);
+            if (!vehicle.isPaid()) unpaidRented.put(seq, vehicle);
+        }
+    }
+
+    private void unfileState(long seq) {
+        available.remove(seq);
+        rented.remove(seq);
+        unpaidRented.remove(seq);
+    }
+
+    private void filePrice(long seq, Vehicle vehicle) {
+        PriceKey price = new PriceKey(vehicle.getPricePerDay(), seq);
+        byPrice.put(price, vehicle);
+        byTypeAndPrice.computeIfAbsent(vehicle.getVehicleType(), t -> new ConcurrentSkipListMap<>()).put(price, vehicle);
+        filedPrice.put(seq, price);
+    }
+
+    private void unfilePrice(long seq, String type) {
+        PriceKey price = filedPrice.remove(seq);
+        if (price == null) return;
+        byPrice.remove(price);
+        NavigableMap<PriceKey, Vehicle> ofType = byTypeAndPrice.get(type);
+        if (ofType != null) ofType.remove(price);
+    }
+
+    private static List<Vehicle> copy(NavigableMap<Long, Vehicle> vehicles) {
+        return vehicles == null ? new ArrayList<>() : new ArrayList<>(vehicles.values());
+    }
+}
@@ -1,12 +1,43 @@
 package com.vehiclerental.services;
 
-import com.vehiclerental.dao.RentalDAO;
-import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.dao.BatchResult;
+import com.vehiclerental.dao.BookingDAO;
+import com.vehiclerental.dao.BookingEvent;
+import com.vehiclerental.dao.BookingJournal;
+import com.vehiclerental.dao.FleetStoreFullException;
+import com.vehiclerental.dao.OffHeapFleetStore;
+import com.vehiclerental.dao.RentalRepository;
+import com.vehiclerental.dao.StaleVehicleException;
+import com.vehiclerental.dao.StateSnapshot;
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.dao.VehicleRepository;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.User;
 import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.utils.StartupReport;
+import com.vehiclerental.utils.UnitOfWork;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -14,36 +45,173 @@ import java.util.stream.Collectors;
  * Handles business logic related to vehicle management and rentals.
  * Provides methods for adding vehicles, renting, returning, checking availability,
  * calculating prices, and tracking rental history.
+ * Safe for concurrent use: each vehicle has its own lock, so checking and booking a vehicle is atomic
+ * while bookings of different vehicles run in parallel. Between application instances sharing the database,
+ * vehicle rows are versioned: a write based on stale state is rejected, reloaded and retried (see withRetry).
+ * Locking rule: the private helpers that work on one vehicle (its Slot, calendar, rental fields, indexes entry or
+ * stored copy) expect the caller to hold that vehicle's lock; the public methods take it, mostly through withRetry.
  */
 
-public class VehicleManager {
-    private List<Vehicle> vehicles = new ArrayList<>();
-    private List<Vehicle> rentalHistory = new ArrayList<>();
-    private VehicleDAO vehicleDAO = new VehicleDAO();
-    private RentalDAO rentalDAO = new RentalDAO();
+public final class VehicleManager {
+    // attempts at a change before giving up when other application instances keep updating the same vehicle
+    private static final int MAX_ATTEMPTS = Integer.getInteger("vehiclerental.maxAttempts", 3);
 
-    //Initialises the VehicleManager by loading vehicle and rental history data from the database.
+    // ID-keyed registry (upper-cased IDs, see key()); registration order is kept by the indexes
+    private final Map<String, Slot> registry = new ConcurrentHashMap<>();
+    // status, type and renter indexes, refreshed on every state change so listings cost O(result size)
+    private final VehicleIndexes indexes = new VehicleIndexes();
+    // loaded on first use (see history()), it is only needed by the history screens
+    private volatile List<Vehicle> rentalHistory;
+    private final Object historyLock = new Object();
+    // the storage backend's repositories (MySQL DAOs unless another Storage is passed in)
+    private final VehicleRepository vehicleDAO;
+    private final RentalRepository rentalDAO;
+    private final BookingDAO bookingDAO;
+    // set in write-behind mode: database writes are queued instead of made by the caller
+    private volatile WriteBehindQueue writeBehind;
+    // vehicles whose queued write failed, so their in-memory state must be reloaded before the next change
+    private final Set<String> needsReload = ConcurrentHashMap.newKeySet();
+    // set when booking changes are journaled: each change is appended (and synced) before its call returns
+    private volatile BookingJournal journal;
+    // set when an off-heap copy of the fleet is kept: every change is written through to it (see toStore)
+    private volatile OffHeapFleetStore fleetStore;
+    // read-held while the store is used, write-held to detach and close it, so no one uses a closed store
+    private final ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
+    // told about bookings entering or leaving calendars and about booking changes (see addBookingListener)
+    private final List<BookingListener> bookingListeners = new CopyOnWriteArrayList<>();
+    // created on first use by deadlines()
+    private DeadlineScheduler deadlines;
+
+    /*A registered vehicle and every booking it holds; the vehicle's rental fields mirror the earliest booking.
+    The calendar is also the vehicle's lock: it is held for every change of the calendar or the vehicle, including
+    the database write that persists it. Availability checks and searches read both without it.*/
+    private record Slot(Vehicle vehicle, ReservationCalendar calendar) { }
+
+    //Initialises the VehicleManager by loading vehicle and booking data from the database. Rental history is loaded on first use.
      public VehicleManager() {
+        this(StartupReport.boot());
+    }
+
+    //Loads from the MySQL database, recording each phase in the report.
+    public VehicleManager(StartupReport report) {
+        this(Storage.jdbc(), report);
+    }
+
+    /*Loads the fleet and the active bookings from the storage concurrently on virtual threads, recording each phase
+    in the report, then registers the vehicles and fills their calendars.*/
+    public VehicleManager(Storage storage, StartupReport report) {
+        this(storage.vehicles(), storage.rentals());
+        List<Vehicle> vehicles = List.of();
+        List<Booking> bookings = List.of();
+        try (ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<Vehicle>> loadingVehicles = loaders.submit(() -> report.time("vehicles.load", vehicleDAO::getAllVehicles));
+            Future<List<Booking>> loadingBookings = loaders.submit(() -> report.time("bookings.load", rentalDAO::getActiveBookings));
+            try {
+                vehicles = loadingVehicles.get();
+            } catch (ExecutionException e) {
+                System.out.println("Failed to load vehicles from database: " + e.getCause().getMessage());
+            }
+            try {
+                bookings = loadingBookings.get();
+            } catch (ExecutionException e) {
+                System.out.println("Failed to load bookings from database: " + e.getCause().getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Interrupted while loading vehicles and bookings.");
+        }
+
+        List<Vehicle> fleet = vehicles;
+        List<Booking> active = bookings;
+        report.run("vehicles.register", () -> load(fleet, active));
+
+        if (Boolean.getBoolean("vehiclerental.writeBehind")) {
+            enableWriteBehind(WriteBehindConfig.defaults());
+        }
+    }
+
+    //Restores from a snapshot and reconciles with the MySQL database.
+    public VehicleManager(StateSnapshot snapshot, StartupReport report) {
+        this(snapshot, Storage.jdbc(), report);
+    }
+
+    /*Restores the fleet and bookings from a snapshot, then reads back only what the storage changed since the
+    snapshot was taken (see reconcile), so start-up cost follows the number of changes rather than the fleet size.*/
+    public VehicleManager(StateSnapshot snapshot, Storage storage, StartupReport report) {
+        this(storage.vehicles(), storage.rentals());
+        report.run("vehicles.restore", () -> load(snapshot.vehicles(), snapshot.bookings()));
         try {
-            vehicles = vehicleDAO.getAllVehicles();
+            report.run("vehicles.reconcile", () -> reconcile(snapshot.changesSince()));
         } catch (SQLException e) {
-            System.out.println("Failed to load vehicles from database: " + e.getMessage());
+            System.out.println("Failed to reconcile vehicles with database: " + e.getMessage());
         }
 
-        try {
-            rentalHistory = rentalDAO.getAllRentalHistory();
-        } catch (Exception e) {
-            System.out.println("Failed to load rental history: " + e.getMessage());
+        if (Boolean.getBoolean("vehiclerental.writeBehind")) {
+            enableWriteBehind(WriteBehindConfig.defaults());
+        }
+    }
+
+    //Registers vehicles and puts the bookings into their calendars.
+    private void load(List<Vehicle> fleet, List<Booking> active) {
+        for (Vehicle vehicle : fleet) {
+            register(vehicle);
+        }
+        for (Booking booking : active) {
+            Slot slot = slotOf(booking.vehicleId());
+            if (slot == null) continue;
+            synchronized (slot.calendar()) {
+                // the booking mirrored on the vehicle row is already in its calendar and is skipped as a clash
+                if (book(slot, booking)) showEarliestBooking(slot);
+            }
+        }
+    }
+
+    /*Applies what the database changed at or after the given time: deleted vehicles are dropped, new vehicles are
+    registered, and every vehicle whose row or rental rows changed is reloaded with its live bookings.*/
+    private void reconcile(LocalDateTime since) throws SQLException {
+        for (String id : vehicleDAO.getDeletedVehicleIdsSince(since)) {
+            Slot slot = slotOf(id);
+            if (slot == null) continue;
+            synchronized (slot.calendar()) {
+                unregister(slot);
+            }
         }
+        Set<String> changed = new HashSet<>(rentalDAO.getVehicleIdsWithBookingChangesSince(since));
+        for (Vehicle fresh : vehicleDAO.getVehiclesChangedSince(since)) {
+            register(fresh);
+            changed.add(fresh.getId());
+        }
+        for (String id : changed) {
+            Slot slot = slotOf(id);
+            if (slot == null) continue;
+            synchronized (slot.calendar()) {
+                reload(slot);
+            }
+        }
+    }
+
+    /*Copies the fleet and every live booking for a snapshot. Each vehicle is copied under its lock, so its row
+    and its bookings agree; asOf must be database time read before the copy starts.*/
+    public StateSnapshot snapshot(LocalDateTime asOf, List<User> users) {
+        List<Vehicle> vehicles = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (Vehicle vehicle : indexes.all()) {
+            Slot slot = slotOf(vehicle.getId());
+            if (slot == null) continue;
+            synchronized (slot.calendar()) {
+                vehicles.add(rowCopy(vehicle));
+                bookings.addAll(slot.calendar().bookings());
+            }
+        }
+        return new StateSnapshot(asOf, vehicles, bookings, users);
     }
 
     //Adds a new vehicle to the system and saves it to the database. Prevents duplicate entries based on vehicle ID.
     public void addVehicle(Vehicle vehicle) {
-        if (findVehicleById(vehicle.getId()) != null) {
+        if (!register(vehicle)) {
             System.out.println("A vehicle with this ID already exists.");
             return;
         }
-        vehicles.add(vehicle);
         try {
             vehicleDAO.saveVehicle(vehicle);
         } catch (SQLException e) {
@@ -51,163 +219,784 @@ public class VehicleManager {
         }
     }
 
-    //Rents a vehicle for a specified time period if it is available. Updates rental details and logs the transaction.
+    /*Adds many vehicles at once (fleet onboarding) using one batched database write. Duplicate IDs and rows the
+    database rejects are reported in the result; the in-memory registry is updated once with the vehicles that were saved.*/
+    public BatchResult addVehicles(Collection<? extends Vehicle> newVehicles) {
+        List<Vehicle> toSave = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<BatchResult.RowFailure> failures = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int index = 0;
+        for (Vehicle vehicle : newVehicles) {
+            if (findVehicleById(vehicle.getId()) != null || !seen.add(key(vehicle.getId()))) {
+                failures.add(new BatchResult.RowFailure(index, vehicle.getId(), "A vehicle with this ID already exists."));
+            } else {
+                toSave.add(vehicle);
+                positions.add(index);
+            }
+            index++;
+        }
+
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            for (BatchResult.RowFailure failure : vehicleDAO.saveVehicles(toSave).failures()) {
+                rejected.add(failure.index());
+                failures.add(new BatchResult.RowFailure(positions.get(failure.index()), failure.key(), failure.message()));
+            }
+        } catch (SQLException e) {
+            System.out.println("Failed to save vehicles to database: " + e.getMessage());
+            for (int i = 0; i < toSave.size(); i++) {
+                rejected.add(i);
+                failures.add(new BatchResult.RowFailure(positions.get(i), toSave.get(i).getId(), e.getMessage()));
+            }
+        }
+
+        int saved = 0;
+        for (int i = 0; i < toSave.size(); i++) {
+            if (rejected.contains(i)) continue;
+            if (register(toSave.get(i))) {
+                saved++;
+            } else {
+                // registered by a concurrent caller since the duplicate check above
+                failures.add(new BatchResult.RowFailure(positions.get(i), toSave.get(i).getId(), "A vehicle with this ID already exists."));
+            }
+        }
+        failures.sort(Comparator.comparingInt(BatchResult.RowFailure::index));
+        return new BatchResult(index, saved, failures);
+    }
+
+    /*Books a vehicle for a specified time period if that period is free in its reservation calendar. A vehicle can
+    hold any number of non-overlapping bookings; each one is logged as its own rental row. The check and the booking
+    happen under the vehicle's lock, so two concurrent callers can never both get the same period.*/
     public boolean rentVehicle(String vehicleId, String username, LocalDateTime startDateTime, LocalDateTime endDateTime, boolean isPaid) {
-        Vehicle vehicle = findVehicleById(vehicleId);
-        if (vehicle != null && isAvailableForPeriod(vehicle, startDateTime, endDateTime)) {
-            vehicle.setRented(true);
-            vehicle.setAvailable(false);
-            vehicle.setRentStartDateTime(startDateTime);
-            vehicle.setRentEndDateTime(endDateTime);
-            vehicle.setRentedBy(username);
-            vehicle.setPaid(isPaid);
-            
-            try {
-                vehicleDAO.updateVehicle(vehicle);
-                RentalDAO rentalDAO = new RentalDAO();
-                rentalDAO.logRental(vehicle);
-                return true;
-                
-            } catch (SQLException e) {
-                System.out.println("Failed to update rental in database: " + e.getMessage());
+        return tryRent(vehicleId, username, startDateTime, endDateTime, isPaid).isSuccess();
+    }
+
+    //Books a vehicle like rentVehicle and says why it failed.
+    public BookingResult tryRent(String vehicleId, String username, LocalDateTime startDateTime, LocalDateTime endDateTime, boolean isPaid) {
+        return rent(vehicleId, username, startDateTime, endDateTime, isPaid).result();
+    }
+
+    /*Books a vehicle like rentVehicle and returns the result with the generated rental id. The vehicle row and the
+    rental row are written in one transaction (BookingDAO). Across application instances the vehicle row's version
+    decides: an instance that loses the race writes nothing, reloads the vehicle with the winner's booking in it and
+    checks the period again.*/
+    public RentalReceipt rent(String vehicleId, String username, LocalDateTime startDateTime, LocalDateTime endDateTime, boolean isPaid) {
+        Slot slot = slotOf(vehicleId);
+        if (slot == null) return new RentalReceipt(BookingResult.NOT_FOUND, 0);
+        Vehicle vehicle = slot.vehicle();
+        // booked to the second, as the vehicle and the rental row hold them
+        LocalDateTime start = Vehicle.toStoredPrecision(startDateTime);
+        LocalDateTime end = Vehicle.toStoredPrecision(endDateTime);
+        long[] rentalId = new long[1];
+        BookingResult result = withRetry(slot, "Failed to update rental in database: ", () -> {
+            if (!isFree(slot, start, end)) return BookingResult.UNAVAILABLE;
+            Booking booking = new Booking(vehicle.getId(), username, start, end, isPaid);
+            rentalId[0] = addBooking(slot, booking);
+            record(BookingEvent.Type.RENTED, booking);
+            return BookingResult.SUCCESS;
+        });
+        return new RentalReceipt(result, result.isSuccess() ? rentalId[0] : 0);
+    }
+
+    /*Books a free period and writes the vehicle row and a new rental row (or queues them). Returns the rental id, or
+    0 when the write was queued.*/
+    private long addBooking(Slot slot, Booking booking) throws SQLException {
+        Vehicle vehicle = slot.vehicle();
+        book(slot, booking);
+        showEarliestBooking(slot);
+        Vehicle rental = bookingView(vehicle, booking);
+        try {
+            WriteBehindQueue queue = writeBehind;
+            if (queue != null) {
+                queueWrite(queue, vehicle, () -> rentalDAO.insertRental(rental));
+                return 0;
             }
+            return bookingDAO.commitBooking(vehicle, rental);
+        } catch (SQLException e) {
+            // the transaction was rolled back: take the booking out again before reloading or reporting
+            unbook(slot, booking);
+            showEarliestBooking(slot);
+            throw e;
         }
-        return false;
     }
 
-    //Marks a rented vehicle as returned.Updates status, resets rental fields, logs the return in the database.
+    /*Marks a rented vehicle as returned. Closes its current (earliest) booking in the database and moves the
+    vehicle on to its next booking, or back to available when there is none.*/
     public boolean returnVehicle(String vehicleId) {
-        Vehicle vehicle = findVehicleById(vehicleId);
-        if (vehicle != null && vehicle.isRented()) {
-            rentalHistory.add(cloneVehicle(vehicle));
-            rentalDAO.logRental(vehicle); // log to DB
+        return tryReturn(vehicleId).isSuccess();
+    }
+
+    //Returns a vehicle like returnVehicle and says why it failed, reloading and retrying if another instance changed the vehicle.
+    public BookingResult tryReturn(String vehicleId) {
+        Slot slot = slotOf(vehicleId);
+        if (slot == null) return BookingResult.NOT_FOUND;
+        Vehicle vehicle = slot.vehicle();
+        return withRetry(slot, "Failed to update return in database: ", () -> {
+            if (!vehicle.isRented()) return BookingResult.UNAVAILABLE;
+            Vehicle returned = cloneVehicle(vehicle);
+            Booking booking = slot.calendar().first();
+            if (booking != null) unbook(slot, booking);
+            showEarliestBooking(slot);
+            // the rental row was logged when it was booked
+            persistOrUndo(slot, booking == null ? null : () -> rentalDAO.returnRental(booking), () -> {
+                if (booking != null) book(slot, booking);
+            });
+            if (booking != null) record(BookingEvent.Type.RETURNED, booking);
+            addToHistory(returned);
+            return BookingResult.SUCCESS;
+        });
+    }
+
+    //Cancels the user's next upcoming booking of a vehicle.
+    public boolean cancelUpcomingBooking(String vehicleId, String username) {
+        Slot slot = slotOf(vehicleId);
+        if (slot == null) return false;
+        return withRetry(slot, "Failed to cancel booking in database: ", () -> {
+            Booking next = slot.calendar().startingAfter(LocalDateTime.now()).stream()
+                    .filter(booking -> username.equals(booking.rentedBy()))
+                    .findFirst().orElse(null);
+            return next == null ? BookingResult.UNAVAILABLE : cancelBooking(slot, next);
+        }).isSuccess();
+    }
+
+    //Cancels the user's upcoming booking of a vehicle that starts at the given time.
+    public boolean cancelUpcomingBooking(String vehicleId, String username, LocalDateTime start) {
+        Slot slot = slotOf(vehicleId);
+        if (slot == null || start == null || !start.isAfter(LocalDateTime.now())) return false;
+        return withRetry(slot, "Failed to cancel booking in database: ", () -> {
+            Booking booking = slot.calendar().get(Vehicle.toStoredPrecision(start));
+            return booking == null || !username.equals(booking.rentedBy()) ? BookingResult.UNAVAILABLE : cancelBooking(slot, booking);
+        }).isSuccess();
+    }
+
+    //Removes a booking and persists the change.
+    private BookingResult cancelBooking(Slot slot, Booking booking) throws SQLException {
+        unbook(slot, booking);
+        showEarliestBooking(slot);
+        persistOrUndo(slot, () -> rentalDAO.cancelRental(booking), () -> book(slot, booking));
+        record(BookingEvent.Type.CANCELLED, booking);
+        return BookingResult.SUCCESS;
+    }
+
+    /*Writes the vehicle row and the rental change in one transaction, or queues both in write-behind mode. On failure
+    nothing is written or queued and the vehicle keeps its version.*/
+    private void persist(Vehicle vehicle, WriteBehindQueue.Write rentalWrite) throws SQLException {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queueWrite(queue, vehicle, rentalWrite);
+            return;
+        }
+        long version = vehicle.getVersion();
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            vehicleDAO.updateVehicle(vehicle);
+            if (rentalWrite != null) rentalWrite.run();
+            unit.commit();
+        } catch (SQLException | RuntimeException e) {
+            vehicle.setVersion(version); // rolled back, so the row kept its old version
+            throw e;
+        }
+    }
+
+    /*Persists a booking change already made in memory, and undoes it there if that fails, so a FAILED result leaves
+    the vehicle as it was (like addBooking does for a new booking).*/
+    private void persistOrUndo(Slot slot, WriteBehindQueue.Write rentalWrite, Runnable undo) throws SQLException {
+        try {
+            persist(slot.vehicle(), rentalWrite);
+        } catch (SQLException | RuntimeException e) {
+            undo.run();
+            showEarliestBooking(slot);
+            throw e;
+        }
+    }
+
+    /*Queues a copy of the vehicle row as it is now, followed by an optional rental write, for the write-behind worker.
+    The vehicle's version is advanced straight away, so the next queued write of the same vehicle expects the version
+    this one leaves behind.*/
+    private void queueWrite(WriteBehindQueue queue, Vehicle vehicle, WriteBehindQueue.Write rentalWrite) throws SQLException {
+        Vehicle row = rowCopy(vehicle);
+        long expectedVersion = vehicle.getVersion();
+        vehicle.setVersion(expectedVersion + 1);
+        try {
+            queue.enqueue(new WriteBehindQueue.Write() {
+                @Override
+                public void run() throws SQLException {
+                    row.setVersion(expectedVersion); // a replay after a rolled-back group starts from the same version
+                    vehicleDAO.updateVehicle(row);
+                    if (rentalWrite != null) rentalWrite.run();
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    // memory is now ahead of the database: reload the vehicle before its next change
+                    needsReload.add(key(row.getId()));
+                }
+            });
+        } catch (SQLException e) {
+            vehicle.setVersion(expectedVersion);
+            throw e;
+        }
+    }
+
+    /*Switches to write-behind mode: state changes update memory and return at once, while their database writes
+    are queued and group-committed by a background worker. Intended for a single application instance; a write
+    rejected later (e.g. stale) is only reported, and the vehicle is reloaded before its next change.*/
+    public synchronized void enableWriteBehind(WriteBehindConfig config) {
+        if (writeBehind == null) writeBehind = new WriteBehindQueue(config);
+    }
+
+    //Returns the write-behind queue depth, lag and counters, or null when write-behind is off.
+    public WriteBehindStats getWriteBehindStats() {
+        WriteBehindQueue queue = writeBehind;
+        return queue == null ? null : queue.stats();
+    }
+
+    //Writes everything still queued in write-behind mode and switches back to direct writes, then closes the journal. Call on application exit.
+    public synchronized void shutdown() {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            writeBehind = null;
+            queue.close();
+        }
+        BookingJournal current = journal;
+        if (current != null) {
+            journal = null;
+            current.close();
+        }
+        OffHeapFleetStore store = fleetStore;
+        if (store != null) detach(store);
+        if (deadlines != null) deadlines.close();
+    }
+
+    /*Registers a listener for bookings entering and leaving calendars, first telling it about every booking held now.
+    A booking changed while the listener is being caught up may be reported twice; listeners treat a repeat as an update.*/
+    public void addBookingListener(BookingListener listener) {
+        bookingListeners.add(listener);
+        for (Slot slot : registry.values()) {
+            synchronized (slot.calendar()) {
+                for (Booking booking : slot.calendar().bookings()) listener.bookingAdded(booking);
+            }
+        }
+    }
+
+    /*Returns the deadline schedule of every booking (reminders, return warnings, overdue), creating it on first use:
+    it is caught up with the current bookings, kept up to date from then on and fires deadlines on its own thread.*/
+    public synchronized DeadlineScheduler deadlines() {
+        if (deadlines == null) {
+            deadlines = new DeadlineScheduler();
+            addBookingListener(deadlines);
+            deadlines.start();
+        }
+        return deadlines;
+    }
+
+    /*Keeps an off-heap copy of the fleet and its bookings in the store, and answers isAvailableDuring from it without
+    allocating. Each booking is written through as it enters or leaves a calendar, under the vehicle's lock, and the
+    vehicle's details and status once a change succeeds; nothing is rewritten wholesale. A store mapped from a file
+    keeps its records across restarts: records that still match the vehicle's version and bookings are kept as they
+    are, the others are rewritten and vehicles deleted meanwhile are dropped. If the store fills up it is detached,
+    with a message and closed, and the heap state answers again.*/
+    public synchronized void enableFleetStore(OffHeapFleetStore store) {
+        if (fleetStore != null) return;
+        fleetStore = store;
+        // registered from now on, a vehicle writes itself; those registered before are caught up here
+        for (Slot slot : registry.values()) {
+            synchronized (slot.calendar()) {
+                Boolean stored = fromStore(s -> isStored(s, slot));
+                if (stored == null) return; // filled up and detached meanwhile
+                if (isRegistered(slot) && !stored) storeVehicle(slot);
+            }
+        }
+        List<String> stored = fromStore(s -> {
+            List<String> ids = new ArrayList<>();
+            s.scan(index -> ids.add(s.idOf(index)));
+            return ids;
+        });
+        if (stored == null) return;
+        for (String id : stored) {
+            // atomic with registering the ID, so a vehicle added meanwhile is never dropped
+            registry.compute(key(id), (key, slot) -> {
+                if (slot == null) toStore(s -> s.remove(id));
+                return slot;
+            });
+        }
+    }
+
+    //True when the store already holds the vehicle at its current version with the same bookings.
+    private static boolean isStored(OffHeapFleetStore store, Slot slot) {
+        int index = store.indexOf(slot.vehicle().getId());
+        return index >= 0 && store.versionOf(index) == slot.vehicle().getVersion()
+                && store.bookings(index).equals(slot.calendar().bookings());
+    }
+
+    //Writes the vehicle with all its bookings to the off-heap store.
+    private void storeVehicle(Slot slot) {
+        toStore(store -> store.put(slot.vehicle(), slot.calendar().bookings()));
+    }
 
-            vehicle.setRented(false);
-            vehicle.setAvailable(true);
-            vehicle.setRentStartDateTime(null);
-            vehicle.setRentEndDateTime(null);
-            vehicle.setRentedBy(null);
-            vehicle.setPaid(false);
+    //Writes the vehicle's details and status to the off-heap store, keeping its bookings.
+    private void storeDetails(Slot slot) {
+        toStore(store -> store.putDetails(slot.vehicle()));
+    }
 
+    //Applies a write to the off-heap store, if one is kept. A full store is detached and the heap state answers again.
+    private void toStore(Consumer<OffHeapFleetStore> write) {
+        OffHeapFleetStore full;
+        storeLock.readLock().lock();
+        try {
+            full = fleetStore;
+            if (full == null) return;
             try {
-                vehicleDAO.updateVehicle(vehicle);
-                return true;
-            } catch (SQLException e) {
-                System.out.println("Failed to update return in database: " + e.getMessage());
+                write.accept(full);
+                return;
+            } catch (FleetStoreFullException e) {
+                System.out.println(e.getMessage() + "; the off-heap fleet store is detached and availability is answered "
+                        + "from the heap from now on. Raise -Dvehiclerental.fleetStore.vehicles/.bookings to keep it.");
             }
+        } finally {
+            storeLock.readLock().unlock();
         }
-        return false;
+        detach(full);
     }
 
-    //Cancels upcoming bookings of vehicles.
-    public boolean cancelUpcomingBooking(String vehicleId, String username) {
-        Vehicle vehicle = findVehicleById(vehicleId);
-        if (vehicle != null && username.equals(vehicle.getRentedBy())) {
-            if (vehicle.getRentStartDateTime() != null && vehicle.getRentStartDateTime().isAfter(LocalDateTime.now())) {
-                vehicle.setRented(false);
-                vehicle.setAvailable(true);
-                vehicle.setRentStartDateTime(null);
-                vehicle.setRentEndDateTime(null);
-                vehicle.setRentedBy(null);
-                vehicle.setPaid(false);
+    //Reads from the off-heap store, if one is kept; null when none is. The store cannot be closed during the read.
+    private <T> T fromStore(Function<OffHeapFleetStore, T> read) {
+        storeLock.readLock().lock();
+        try {
+            OffHeapFleetStore store = fleetStore;
+            return store == null ? null : read.apply(store);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    //Stops using the store and closes it (marking a mapped file clean), unless shutdown or another detach already did.
+    private void detach(OffHeapFleetStore store) {
+        storeLock.writeLock().lock();
+        try {
+            if (fleetStore != store) return;
+            fleetStore = null;
+            store.close();
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /*Starts journaling booking changes: from now on every rent, return, cancellation and payment is appended to the
+    journal and on disk before the call returns. The events already in the journal are replayed first (see replay),
+    so changes acknowledged before a crash but never written to the database (write-behind mode) are applied again.
+    Like write-behind, intended for a single application instance.*/
+    public synchronized void enableJournal(BookingJournal journal) {
+        if (this.journal != null) return;
+        int applied = replay(journal.recovered());
+        if (applied > 0) System.out.println("Replayed " + applied + " booking changes from the journal.");
+        journal.setWatermark(this::journalWatermark);
+        this.journal = journal;
+    }
+
+    //Appends a written (or queued) booking change to the journal, if there is one, and tells the booking listeners.
+    private void record(BookingEvent.Type type, Booking booking) {
+        BookingJournal current = journal;
+        if (current != null) {
+            try {
+                current.append(type, booking);
+            } catch (IOException e) {
+                // the database write already went ahead, so the change stands
+                System.out.println("Failed to write booking journal: " + e.getMessage());
+            }
+        }
+        for (BookingListener listener : bookingListeners) listener.bookingChanged(type, booking);
+    }
+
+    /*Brings memory and database in line with the last journaled state of every booking: ended bookings that are
+    still held are returned or cancelled, journaled bookings that are missing are booked again and payments that are
+    missing are confirmed. Only the outcome per booking is applied, so replaying events that already reached the
+    database changes nothing. A missing booking whose period has since been taken is skipped: the database wins.
+    Returns how many bookings were changed.*/
+    private int replay(List<BookingEvent> events) {
+        Map<String, BookingEvent> outcomes = new LinkedHashMap<>();
+        for (BookingEvent event : events) {
+            outcomes.remove(event.bookingKey()); // keep the map in order of each booking's last event
+            outcomes.put(event.bookingKey(), event);
+        }
+        int applied = 0;
+        for (BookingEvent outcome : outcomes.values()) {
+            Booking journaled = outcome.booking();
+            Slot slot = slotOf(journaled.vehicleId());
+            if (slot == null) continue;
+            BookingResult result = withRetry(slot, "Failed to replay booking journal in database: ", () -> {
+                Booking held = slot.calendar().get(journaled.start());
+                boolean same = held != null && held.rentedBy().equals(journaled.rentedBy()) && held.end().equals(journaled.end());
+                if (outcome.type().ends()) {
+                    if (!same) return BookingResult.UNAVAILABLE;
+                    unbook(slot, held);
+                    showEarliestBooking(slot);
+                    persistOrUndo(slot, outcome.type() == BookingEvent.Type.RETURNED
+                            ? () -> rentalDAO.returnRental(held)
+                            : () -> rentalDAO.cancelRental(held), () -> book(slot, held));
+                    return BookingResult.SUCCESS;
+                }
+                if (same) {
+                    if (!journaled.paid() || held.paid()) return BookingResult.UNAVAILABLE;
+                    Booking paid = markPaid(slot, held);
+                    persistOrUndo(slot, () -> rentalDAO.payRental(held), () -> replace(slot, paid, held));
+                    return BookingResult.SUCCESS;
+                }
+                if (!isFree(slot, journaled.start(), journaled.end())) return BookingResult.UNAVAILABLE;
+                addBooking(slot, journaled);
+                return BookingResult.SUCCESS;
+            });
+            if (result.isSuccess()) applied++;
+        }
+        return applied;
+    }
+
+    /*The journal sequence up to which every change is known to be in the database, for compaction. Changes are queued
+    before they are journaled, so in write-behind mode it is enough to wait for what is queued now to be written.*/
+    private long journalWatermark() {
+        BookingJournal current = journal;
+        if (current == null) return 0;
+        long upTo = current.lastSequence();
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) queue.awaitDrained();
+        return upTo;
+    }
+
+    //One attempt at changing a vehicle: updates the in-memory state and writes it. Runs under the vehicle's lock.
+    @FunctionalInterface
+    private interface Change {
+        BookingResult apply() throws SQLException;
+    }
+
+    /*Runs a change under the vehicle's lock. If another application instance updated the vehicle row since it was
+    loaded, the write is rejected (StaleVehicleException), the vehicle and its bookings are reloaded from the
+    database and the change is tried again against the fresh state, up to MAX_ATTEMPTS times.*/
+    private BookingResult withRetry(Slot slot, String failureMessage, Change change) {
+        synchronized (slot.calendar()) {
+            for (int attempt = 1; ; attempt++) {
+                if (!isRegistered(slot)) return BookingResult.NOT_FOUND;
                 try {
-                    vehicleDAO.updateVehicle(vehicle);
-                    return true;
+                    try {
+                        if (needsReload.remove(key(slot.vehicle().getId())) && !reload(slot)) return BookingResult.NOT_FOUND;
+                        BookingResult result = change.apply();
+                        // bookings were written through as they changed; a failed change left nothing to copy
+                        if (result == BookingResult.SUCCESS) storeDetails(slot);
+                        return result;
+                    } catch (StaleVehicleException e) {
+                        if (!reload(slot)) return BookingResult.NOT_FOUND;
+                        if (attempt == MAX_ATTEMPTS) return BookingResult.CONFLICT;
+                    }
                 } catch (SQLException e) {
-                    System.out.println("Failed to cancel booking in database: " + e.getMessage());
+                    System.out.println(failureMessage + e.getMessage());
+                    return BookingResult.FAILED;
                 }
             }
         }
-        return false;
     }
 
-    //Finds a vehicle by its ID.
+    /*Replaces a vehicle's in-memory state (details, version and bookings) with what the database holds now.
+    Returns false and unregisters the vehicle if another instance deleted it.*/
+    private boolean reload(Slot slot) throws SQLException {
+        Vehicle vehicle = slot.vehicle();
+        String key = key(vehicle.getId());
+        Vehicle fresh = vehicleDAO.getVehicleById(vehicle.getId());
+        if (fresh == null) {
+            // bookings first: once unregistered, the ID may be stored again for a new vehicle
+            for (Booking booking : slot.calendar().clear()) {
+                bookingRemoved(slot, booking);
+            }
+            unregister(slot);
+            return false;
+        }
+        List<Booking> active = rentalDAO.getActiveBookings(vehicle.getId());
+
+        for (Booking booking : slot.calendar().clear()) {
+            bookingRemoved(slot, booking);
+        }
+        vehicle.setBrand(fresh.getBrand());
+        vehicle.setModel(fresh.getModel());
+        vehicle.setPricePerDay(fresh.getPricePerDay());
+        vehicle.setVersion(fresh.getVersion());
+        indexes.repriced(key, vehicle);
+        if (fresh.isRented() && fresh.getRentStartDateTime() != null && fresh.getRentEndDateTime() != null) {
+            book(slot, new Booking(fresh.getId(), fresh.getRentedBy(),
+                    fresh.getRentStartDateTime(), fresh.getRentEndDateTime(), fresh.isPaid()));
+        }
+        for (Booking booking : active) {
+            book(slot, booking); // the booking mirrored on the row is already in and is skipped as a clash
+        }
+        showEarliestBooking(slot);
+        storeDetails(slot);
+        return true;
+    }
+
+    //Finds a vehicle by its ID (case-insensitive) with a single hash lookup.
     public Vehicle findVehicleById(String id) {
-        return vehicles.stream()
-                .filter(v -> v.getId().equalsIgnoreCase(id))
-                .findFirst()
-                .orElse(null);
+        Slot slot = slotOf(id);
+        return slot == null ? null : slot.vehicle();
+    }
+
+    private Slot slotOf(String id) {
+        return id == null ? null : registry.get(key(id));
+    }
+
+    //Checks that a slot looked up earlier has not been removed since.
+    private boolean isRegistered(Slot slot) {
+        return registry.get(key(slot.vehicle().getId())) == slot;
+    }
+
+    //Adds a vehicle to the registry, its secondary indexes and a calendar seeded with the booking it carries. False if the ID is taken.
+    private boolean register(Vehicle vehicle) {
+        String key = key(vehicle.getId());
+        Slot slot = new Slot(vehicle, new ReservationCalendar());
+        synchronized (slot.calendar()) {
+            if (registry.putIfAbsent(key, slot) != null) return false;
+            indexes.add(key, vehicle);
+            if (vehicle.isRented() && vehicle.getRentStartDateTime() != null && vehicle.getRentEndDateTime() != null) {
+                book(slot, new Booking(vehicle.getId(), vehicle.getRentedBy(),
+                        vehicle.getRentStartDateTime(), vehicle.getRentEndDateTime(), vehicle.isPaid()));
+            }
+            storeVehicle(slot);
+        }
+        return true;
+    }
+
+    /*Takes a vehicle out of the registry, its indexes and the off-heap store. The store goes first: until the registry
+    entry is gone no vehicle can be registered under the same ID, so its record cannot be removed by mistake.*/
+    private boolean unregister(Slot slot) {
+        Vehicle vehicle = slot.vehicle();
+        String key = key(vehicle.getId());
+        if (!isRegistered(slot)) return false;
+        toStore(store -> store.remove(vehicle.getId()));
+        registry.remove(key, slot);
+        indexes.remove(key, vehicle);
+        return true;
+    }
+
+    //Adds a booking to the vehicle's calendar and the renter index, unless it clashes with another booking.
+    private boolean book(Slot slot, Booking booking) {
+        if (!slot.calendar().add(booking)) return false;
+        bookingAdded(slot, booking);
+        return true;
+    }
+
+    private void unbook(Slot slot, Booking booking) {
+        slot.calendar().remove(booking.start());
+        bookingRemoved(slot, booking);
+    }
+
+    //Indexes a booking that entered a calendar and tells the booking listeners.
+    private void bookingAdded(Slot slot, Booking booking) {
+        indexes.addBooking(booking);
+        indexes.booked(key(slot.vehicle().getId()), booking);
+        toStore(store -> store.putBooking(booking));
+        for (BookingListener listener : bookingListeners) listener.bookingAdded(booking);
+    }
+
+    //Unindexes a booking that left a calendar and tells the booking listeners.
+    private void bookingRemoved(Slot slot, Booking booking) {
+        indexes.removeBooking(booking);
+        indexes.unbooked(key(slot.vehicle().getId()), booking, slot.calendar());
+        toStore(store -> store.removeBooking(booking.vehicleId(), booking.start()));
+        for (BookingListener listener : bookingListeners) listener.bookingRemoved(booking);
     }
 
-    //Checks whether a vehicle is available for a new rental within the specified date/time range.
+    //Mirrors the vehicle's earliest booking onto its rental fields (what the vehicles table and listings show).
+    private void showEarliestBooking(Slot slot) {
+        Vehicle vehicle = slot.vehicle();
+        Booking first = slot.calendar().first();
+        vehicle.setRented(first != null);
+        vehicle.setAvailable(first == null);
+        vehicle.setRentStartDateTime(first == null ? null : first.start());
+        vehicle.setRentEndDateTime(first == null ? null : first.end());
+        vehicle.setRentedBy(first == null ? null : first.rentedBy());
+        vehicle.setPaid(first != null && first.paid());
+        indexes.refresh(key(vehicle.getId()), vehicle);
+    }
+
+    //Normalises a vehicle ID into its registry key, so lookups ignore case like the old equalsIgnoreCase scan.
+    private static String key(String id) {
+        return id.toUpperCase(Locale.ROOT);
+    }
+
+    //Checks whether a vehicle can take a new booking within the specified date/time range (O(log n) calendar lookup).
     public boolean isAvailableForPeriod(Vehicle vehicle, LocalDateTime start, LocalDateTime end) {
+        Slot slot = registry.get(key(vehicle.getId()));
+        if (slot != null) return isFree(slot, start, end);
+        // not registered: only the single booking held on the vehicle itself is known
         if (!vehicle.isAvailable()) return false;
         if (vehicle.getRentStartDateTime() == null || vehicle.getRentEndDateTime() == null) return true;
         return end.isBefore(vehicle.getRentStartDateTime()) || start.isAfter(vehicle.getRentEndDateTime());
     }
 
-    //Checks if a specific vehicle is availale for rental during a given time range.
+    //Checks a period against the vehicle's calendar. Needs no lock: the status flags are volatile and the calendar's lookups are lock-free.
+    private static boolean isFree(Slot slot, LocalDateTime start, LocalDateTime end) {
+        Vehicle vehicle = slot.vehicle();
+        // not available and not rented means the vehicle was taken out of service
+        return (vehicle.isAvailable() || vehicle.isRented()) && !slot.calendar().overlaps(start, end);
+    }
+
+    /*Checks if a specific vehicle is availale for rental during a given time range. With an off-heap store this reads
+    the store without the vehicle's lock: a change in progress may already show there, never one that is missing.
+    The store lock is held for the read (not a lambda, so nothing is allocated), so shutdown cannot close it meanwhile.*/
     public boolean isAvailableDuring(String vehicleId, LocalDateTime start, LocalDateTime end) {
+        if (fleetStore != null && vehicleId != null) {
+            storeLock.readLock().lock();
+            try {
+                OffHeapFleetStore store = fleetStore;
+                if (store != null) {
+                    int index = store.indexOf(vehicleId);
+                    return index >= 0 && store.isAvailable(index, start, end);
+                }
+            } finally {
+                storeLock.readLock().unlock();
+            }
+        }
         Vehicle vehicle = findVehicleById(vehicleId);
         return vehicle != null && isAvailableForPeriod(vehicle, start, end);
     }
 
     //Returns a list of vehicles that are currently available for rent.
     public List<Vehicle> getAvailableVehicles() {
-        return vehicles.stream().filter(Vehicle::isAvailable).collect(Collectors.toList());
+        return indexes.available();
     }
 
     //Returns a list of vehicles that are currently rented out.
     public List<Vehicle> getRentedVehicles() {
-        return vehicles.stream().filter(Vehicle::isRented).collect(Collectors.toList());
+        return indexes.rented();
     }
 
     //Retreives all vehicles from the database.
     public List<Vehicle> getAllVehicles() {
-        return new ArrayList<>(vehicles);
+        return indexes.all();
     }
 
-    //Retrieves all vehicles currently rented by a specific user.
+    //Retrieves all vehicles currently rented or booked by a specific user, one entry per booking, earliest first.
     public List<Vehicle> getVehiclesRentedByUser(String username) {
-        return vehicles.stream()
-                .filter(v -> v.isRented() && username.equals(v.getRentedBy()))
-                .collect(Collectors.toList());
+        List<Vehicle> rentals = new ArrayList<>();
+        for (Booking booking : indexes.bookingsOf(username)) {
+            Vehicle vehicle = findVehicleById(booking.vehicleId());
+            if (vehicle != null) rentals.add(bookingView(vehicle, booking));
+        }
+        return rentals;
     }
 
     //Retrieves the complete rental history.
     public List<Vehicle> getRentalHistory() {
-        return new ArrayList<>(rentalHistory);
+        return new ArrayList<>(history());
+    }
+
+    //Returns the rental history, reading it from the database the first time it is needed.
+    private List<Vehicle> history() {
+        List<Vehicle> history = rentalHistory;
+        if (history != null) return history;
+        synchronized (historyLock) {
+            if (rentalHistory == null) {
+                List<Vehicle> loaded = new ArrayList<>();
+                try {
+                    loaded = rentalDAO.getAllRentalHistory();
+                } catch (Exception e) {
+                    System.out.println("Failed to load rental history: " + e.getMessage());
+                }
+                rentalHistory = Collections.synchronizedList(new ArrayList<>(loaded));
+            }
+            return rentalHistory;
+        }
+    }
+
+    //Records a returned rental. Before the history is loaded there is nothing to add to: the load will read the rental row.
+    private void addToHistory(Vehicle returned) {
+        synchronized (historyLock) {
+            if (rentalHistory != null) rentalHistory.add(returned);
+        }
     }
 
     //Retrieves rental history for a specific user.
     public List<Vehicle> getRentalHistoryByUser(String username) {
-        return rentalHistory.stream()
-                .filter(v -> username.equals(v.getRentedBy()))
-                .collect(Collectors.toList());
+        List<Vehicle> history = history();
+        synchronized (history) {
+            return history.stream()
+                    .filter(v -> username.equals(v.getRentedBy()))
+                    .collect(Collectors.toList());
+        }
     }
 
-    //Retreives upcoming bookings for a specific user passed.
+    //Retreives upcoming bookings for a specific user passed, one entry per booking, earliest first.
     public List<Vehicle> getUpcomingBookings(String username) {
+        List<Vehicle> upcoming = new ArrayList<>();
+        for (Booking booking : indexes.bookingsStartingAfter(username, LocalDateTime.now())) {
+            Vehicle vehicle = findVehicleById(booking.vehicleId());
+            if (vehicle != null) upcoming.add(bookingView(vehicle, booking));
+        }
+        return upcoming;
+    }
+
+    //Retrieves upcoming bookings of all users, one entry per booking.
+    public List<Vehicle> getAllUpcomingBookings() {
         LocalDateTime now = LocalDateTime.now();
-        return vehicles.stream()
-                .filter(v -> v.isRented()
-                        && username.equals(v.getRentedBy())
-                        && v.getRentStartDateTime() != null
-                        && v.getRentStartDateTime().isAfter(now))
-                .collect(Collectors.toList());
+        List<Vehicle> upcoming = new ArrayList<>();
+        for (Vehicle vehicle : indexes.rented()) {
+            Slot slot = slotOf(vehicle.getId());
+            if (slot == null) continue;
+            for (Booking booking : new ArrayList<>(slot.calendar().startingAfter(now))) {
+                upcoming.add(bookingView(vehicle, booking));
+            }
+        }
+        return upcoming;
+    }
+
+    /*Finds vehicles that are free for the whole period, cheapest first. Type and price ceiling are optional (null).
+    The booked-days index rules out every vehicle booked on a day inside the period without visiting it (see
+    BookedDays); the vehicles left are taken cheapest first and their calendars checked in O(log n), stopping as soon
+    as limit vehicles are found. A sold-out period therefore only checks the few vehicles the index could not rule out.*/
+    public List<Vehicle> searchAvailable(LocalDateTime start, LocalDateTime end, String vehicleType, Double maxPricePerDay, int limit) {
+        List<Vehicle> found = new ArrayList<>();
+        if (limit <= 0 || !start.isBefore(end)) return found;
+        double ceiling = maxPricePerDay == null ? Double.MAX_VALUE : maxPricePerDay;
+        for (Vehicle vehicle : indexes.mayBeFree(vehicleType, ceiling, start, end)) {
+            if (isAvailableForPeriod(vehicle, start, end)) {
+                found.add(vehicle);
+                if (found.size() == limit) break;
+            }
+        }
+        return found;
+    }
+
+    //Retrieves all vehicles of the given type (e.g. "Car"), in registration order.
+    public List<Vehicle> getVehiclesByType(String vehicleType) {
+        return indexes.ofType(vehicleType);
+    }
+
+    //Retrieves rented vehicles whose rental has not been paid yet.
+    public List<Vehicle> getUnpaidRentedVehicles() {
+        return indexes.unpaidRented();
     }
 
     //Updates the details of an existing vehicle and saves the changes to the database.
     public boolean updateVehicleDetails(String id, String newBrand, String newModel, double newPricePerDay) {
-        Vehicle vehicle = findVehicleById(id);
-        if (vehicle != null) {
+        Slot slot = slotOf(id);
+        if (slot == null) return false;
+        Vehicle vehicle = slot.vehicle();
+        return withRetry(slot, "Failed to update vehicle in database: ", () -> {
             vehicle.setBrand(newBrand);
             vehicle.setModel(newModel);
             vehicle.setPricePerDay(newPricePerDay);
-            try {
-                return vehicleDAO.updateVehicle(vehicle);
-            } catch (SQLException e) {
-                System.out.println("Failed to update vehicle in database: " + e.getMessage());
-            }
-        }
-        return false;
+            indexes.repriced(key(id), vehicle);
+            persist(vehicle, null);
+            return BookingResult.SUCCESS;
+        }).isSuccess();
     }
 
     //Removes a vehicle by its ID
     public void removeVehicle(String id) {
-        Vehicle vehicle = findVehicleById(id);
-        if (vehicle != null && !vehicle.isRented()) {
-            vehicles.remove(vehicle);
+        Slot slot = slotOf(id);
+        boolean removed = false;
+        if (slot != null) {
+            synchronized (slot.calendar()) {
+                if (!slot.vehicle().isRented()) removed = unregister(slot);
+            }
+        }
+        if (removed) {
             try {
                 if (vehicleDAO.deleteVehicle(id)) {
                     System.out.println("Vehicle removed.");
@@ -221,44 +1010,83 @@ public class VehicleManager {
     }
 
 
-   //Confirms the payment for a rented vehicle. Updates both the vehicle record and the rental log in the database.
+   //Confirms the payment for a vehicle's current booking. Updates both the vehicle record and the rental log in the database.
     public boolean confirmPayment(String vehicleId) {
-        Vehicle vehicle = findVehicleById(vehicleId);
-        if (vehicle != null && !vehicle.isPaid()) {
-            vehicle.setPaid(true);
-            try {
-                vehicleDAO.updateVehicle(vehicle); // update vehicle paid status
-                return rentalDAO.markRentalAsPaid(vehicle.getId(), vehicle.getRentedBy()); // update rentals table
-            } catch (SQLException e) {
-                System.out.println("Failed to confirm payment in database: " + e.getMessage());
-            }
+        return tryConfirmPayment(vehicleId).isSuccess();
+    }
+
+    //Confirms a payment like confirmPayment and says why it failed, reloading and retrying if another instance changed the vehicle.
+    public BookingResult tryConfirmPayment(String vehicleId) {
+        Slot slot = slotOf(vehicleId);
+        if (slot == null) return BookingResult.NOT_FOUND;
+        return withRetry(slot, "Failed to confirm payment in database: ", () -> {
+            Booking booking = slot.calendar().first();
+            if (booking == null || booking.paid()) return BookingResult.UNAVAILABLE;
+            Booking paid = markPaid(slot, booking);
+            // the vehicle's paid status and this booking's rental row
+            persistOrUndo(slot, () -> rentalDAO.payRental(booking), () -> replace(slot, paid, booking));
+            record(BookingEvent.Type.PAID, paid);
+            return BookingResult.SUCCESS;
+        });
+    }
+
+    //Swaps a booking for its paid copy in the calendar and indexes.
+    private Booking markPaid(Slot slot, Booking booking) {
+        Booking paid = booking.asPaid();
+        replace(slot, booking, paid);
+        showEarliestBooking(slot);
+        return paid;
+    }
+
+    //Swaps a booking for a copy with the same period in the calendar and indexes.
+    private void replace(Slot slot, Booking old, Booking updated) {
+        slot.calendar().update(updated);
+        indexes.removeBooking(old);
+        indexes.addBooking(updated);
+        toStore(store -> store.putBooking(updated)); // in place, so the store never shows the period free
+        for (BookingListener listener : bookingListeners) {
+            listener.bookingRemoved(old);
+            listener.bookingAdded(updated);
         }
-        return false;
     }
     
     
     //Creates a copy of a given Vehicle object, including its rental details. The clone retains the same type, ID, brand, model, price, and rental state.
     private Vehicle cloneVehicle(Vehicle original) {
-        Vehicle clone = switch (original.getVehicleType()) {
-            case "Car" -> new com.vehiclerental.models.Car(original.getId(), original.getBrand(), original.getModel(), original.getPricePerDay());
-            case "Van" -> new com.vehiclerental.models.Van(original.getId(), original.getBrand(), original.getModel(), original.getPricePerDay());
-            case "Motorcycle" -> new com.vehiclerental.models.Motorcycle(original.getId(), original.getBrand(), original.getModel(), original.getPricePerDay());
-            default -> null;
-        };
-
-        if (clone != null) {
-            clone.setRentStartDateTime(original.getRentStartDateTime());
-            clone.setRentEndDateTime(original.getRentEndDateTime());
-            clone.setRentedBy(original.getRentedBy());
-            clone.setPaid(original.isPaid());
-        }
+        Vehicle clone = original.getType().newVehicle(original.getId(), original.getBrand(), original.getModel(), original.getPricePerDay());
+        clone.setRentStartDateTime(original.getRentStartDateTime());
+        clone.setRentEndDateTime(original.getRentEndDateTime());
+        clone.setRentedBy(original.getRentedBy());
+        clone.setPaid(original.isPaid());
         return clone;
     }
 
-    //Adds an injectable constructor for testing purposes
-    public VehicleManager(VehicleDAO vehicleDAO, RentalDAO rentalDAO) {
+    //Creates a copy of the vehicle with every column of its database row, including status flags and version.
+    private Vehicle rowCopy(Vehicle vehicle) {
+        Vehicle row = cloneVehicle(vehicle);
+        row.setRented(vehicle.isRented());
+        row.setAvailable(vehicle.isAvailable());
+        row.setVersion(vehicle.getVersion());
+        return row;
+    }
+
+    //Creates a copy of the vehicle showing one of its bookings, for listings and for logging that booking.
+    private Vehicle bookingView(Vehicle vehicle, Booking booking) {
+        Vehicle view = cloneVehicle(vehicle);
+        view.setRented(true);
+        view.setAvailable(false);
+        view.setRentStartDateTime(booking.start());
+        view.setRentEndDateTime(booking.end());
+        view.setRentedBy(booking.rentedBy());
+        view.setPaid(booking.paid());
+        return view;
+    }
+
+    //Adds an injectable constructor for testing purposes: nothing is loaded from the repositories.
+    public VehicleManager(VehicleRepository vehicleDAO, RentalRepository rentalDAO) {
         this.vehicleDAO = vehicleDAO;
         this.rentalDAO  = rentalDAO;
+        this.bookingDAO = new BookingDAO(vehicleDAO, rentalDAO);
     }
     
 
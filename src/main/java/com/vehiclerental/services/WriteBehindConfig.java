@@ -0,0 +1,28 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.utils.Settings;
+import java.time.Duration;
+
+/* Settings for VehicleManager's optional write-behind mode.
+   capacity bounds the queue (callers block once it is full), flushSize caps how many queued writes share one
+   transaction and flushInterval is how long the worker waits for more writes after the first one arrives.
+   Settings group "writeBehind" (see Settings).
+ */
+public record WriteBehindConfig(int capacity, int flushSize, Duration flushInterval) {
+
+    public WriteBehindConfig {
+        if (capacity < 1 || flushSize < 1 || flushInterval.isNegative()) {
+            throw new IllegalArgumentException("Invalid write-behind settings: capacity=" + capacity
+                    + ", flushSize=" + flushSize + ", flushInterval=" + flushInterval);
+        }
+    }
+
+    //Returns the default settings, applying any system property overrides.
+    public static WriteBehindConfig defaults() {
+        Settings settings = Settings.of("writeBehind");
+        return new WriteBehindConfig(
+                settings.getInt("capacity", 10_000),
+                settings.getInt("flushSize", 100),
+                settings.getMillis("flushIntervalMillis", 20L));
+    }
+}
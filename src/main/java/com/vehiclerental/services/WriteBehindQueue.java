@@ -0,0 +1,180 @@
+package com.vehiclerental.services;
+
+import com.vehiclerental.utils.UnitOfWork;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded queue of database writes drained by one worker thread (VehicleManager's write-behind mode).
+ * The worker takes up to flushSize writes, waiting at most flushInterval after the first one, and commits them
+ * as one UnitOfWork, so a burst of bookings costs one commit instead of one per booking. Writes run in the order
+ * they were queued. If a group fails it is rolled back and replayed one write per transaction, so only the
+ * writes that fail on their own are lost (and reported through Write.failed).
+ * A full queue blocks the caller (backpressure). close(), also run by a JVM shutdown hook, writes everything
+ * still queued before returning.
+ */
+final class WriteBehindQueue implements AutoCloseable {
+
+    //One queued write. run() executes inside the group's transaction; failed() is called if it cannot be written.
+    interface Write {
+        void run() throws SQLException;
+
+        default void failed(Exception e) { }
+    }
+
+    private record Entry(Write write, long enqueuedNanos) { }
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final WriteBehindConfig config;
+    private final BlockingQueue<Entry> queue;
+    private final Thread worker;
+    private final Thread shutdownHook;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean running = true;
+    // enqueue time of the oldest write in the group being committed, 0 when the worker is idle
+    private volatile long inFlightSince;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    WriteBehindQueue(WriteBehindConfig config) {
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.capacity());
+        this.worker = new Thread(this::drain, "write-behind");
+        worker.setDaemon(true);
+        worker.start();
+        this.shutdownHook = new Thread(this::close, "write-behind-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    //Queues a write, blocking while the queue is full.
+    void enqueue(Write write) throws SQLException {
+        if (!running) throw new SQLException("Write-behind queue is closed");
+        Entry entry = new Entry(write, System.nanoTime());
+        if (!queue.offer(entry)) {
+            blocked.increment();
+            try {
+                queue.put(entry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the write-behind queue");
+            }
+        }
+        enqueued.increment();
+    }
+
+    //Returns the current queue depth, lag and counters.
+    WriteBehindStats stats() {
+        long now = System.nanoTime();
+        long since = inFlightSince;
+        if (since == 0) {
+            Entry head = queue.peek();
+            since = head == null ? now : head.enqueuedNanos();
+        }
+        return new WriteBehindStats(queue.size(), TimeUnit.NANOSECONDS.toMillis(now - since),
+                enqueued.sum(), written.sum(), failed.sum(), flushes.sum(), blocked.sum());
+    }
+
+    //Waits until every write queued before the call has been committed or reported as failed.
+    void awaitDrained() {
+        long target = enqueued.sum();
+        while (running && written.sum() + failed.sum() < target) {
+            try {
+                Thread.sleep(IDLE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    //Stops accepting writes and returns once every queued write has been committed (or reported as failed).
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // writes that slipped in while the worker was exiting
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) flush(rest);
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down: this is the hook
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(config.flushSize());
+        long interval = config.flushInterval().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + interval;
+                while (batch.size() < config.flushSize()) {
+                    long wait = deadline - System.nanoTime();
+                    Entry next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // nobody interrupts the worker on purpose; keep going so queued writes are not lost
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    //Commits a group of writes in one transaction, falling back to one transaction per write if the group fails.
+    private void flush(List<Entry> batch) {
+        inFlightSince = batch.get(0).enqueuedNanos();
+        flushes.increment();
+        boolean committed = false;
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            for (Entry entry : batch) entry.write().run();
+            unit.commit();
+            committed = true;
+        } catch (SQLException | RuntimeException e) {
+            if (!committed) {
+                for (Entry entry : batch) writeAlone(entry);
+            }
+        }
+        if (committed) written.add(batch.size());
+        inFlightSince = 0;
+    }
+
+    private void writeAlone(Entry entry) {
+        boolean committed = false;
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            entry.write().run();
+            unit.commit();
+            committed = true;
+        } catch (SQLException | RuntimeException e) {
+            if (!committed) {
+                failed.increment();
+                System.out.println("Failed to write queued change to database: " + e.getMessage());
+                entry.write().failed(e);
+            }
+        }
+        if (committed) written.increment();
+    }
+}
@@ -0,0 +1,21 @@
+package com.vehiclerental.services;
+
+/* Point-in-time view of the write-behind queue.
+   depth is the number of queued writes, lagMillis the age of the oldest write not yet committed (0 when idle).
+   blocked counts callers that had to wait because the queue was full.
+ */
+public record WriteBehindStats(int depth,
+                               long lagMillis,
+                               long enqueued,
+                               long written,
+                               long failed,
+                               long flushes,
+                               long blocked) {
+
+    @Override
+    public String toString() {
+        return "WriteBehind[depth=" + depth + ", lag=" + lagMillis + "ms, enqueued=" + enqueued
+                + ", written=" + written + ", failed=" + failed + ", flushes=" + flushes
+                + ", blocked=" + blocked + ']';
+    }
+}
@@ -0,0 +1,333 @@
+package com.vehiclerental.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * A small bounded JDBC connection pool.
+ * Connections handed out are proxies: calling close() returns the physical connection to the pool
+ * instead of closing it, so existing try-with-resources DAO code keeps working unchanged.
+ * Idle connections are validated on borrow and evicted after the configured idle timeout,
+ * while the pool never shrinks below its minimum size.
+ * Each physical connection keeps its own LRU cache of prepared statements (see StatementCache).
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    //Opens a new physical connection. DatabaseConnection passes a DriverManager call; tests pass mocks.
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final PoolConfig config;
+    private final ConnectionFactory factory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    private int total;
+    private int waiters;
+    private long borrows;
+    private long timeouts;
+    private boolean closed;
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(PoolStats.WAIT_BUCKETS_MILLIS.length + 1);
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    public ConnectionPool(PoolConfig config, ConnectionFactory factory) {
+        this.config = config;
+        this.factory = factory;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = config.evictionInterval().toMillis();
+        evictor.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    //Borrows a connection, waiting up to the configured borrow timeout when the pool is exhausted.
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long remaining = config.borrowTimeout().toNanos();
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) throw new SQLException("Connection pool is closed");
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pollFirst();
+                        break;
+                    }
+                    if (total < config.maxSize()) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+                    if (remaining <= 0) {
+                        timeouts++;
+                        throw new SQLException("Timed out after " + config.borrowTimeout().toMillis()
+                                + "ms waiting for a database connection");
+                    }
+                    waiters++;
+                    try {
+                        remaining = available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    candidate = new PooledConnection(factory.create());
+                } catch (SQLException | RuntimeException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isValid(candidate)) {
+                discard(candidate);
+                remaining = config.borrowTimeout().toNanos() - (System.nanoTime() - start);
+                continue;
+            }
+            recordBorrow(System.nanoTime() - start);
+            return candidate.lease();
+        }
+    }
+
+    //Returns a snapshot of the pool counters.
+    public PoolStats stats() {
+        lock.lock();
+        try {
+            long[] histogram = new long[waitHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) histogram[i] = waitHistogram.get(i);
+            return new PoolStats(total, total - idle.size(), idle.size(), waiters, borrows, timeouts, histogram,
+                    statementHits.sum(), statementMisses.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Closes every idle connection and rejects further borrows. Connections still in use are closed when returned.
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        lock.lock();
+        try {
+            closed = true;
+            for (PooledConnection pc : idle) pc.closePhysical();
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Evicts connections idle for longer than the idle timeout and tops the pool back up to its minimum size.
+    void maintain() {
+        long cutoff = System.nanoTime() - config.idleTimeout().toNanos();
+        int missing;
+        lock.lock();
+        try {
+            if (closed) return;
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && total > config.minSize()) {
+                PooledConnection pc = it.next();
+                if (pc.lastUsed - cutoff < 0) {
+                    it.remove();
+                    total--;
+                    pc.closePhysical();
+                }
+            }
+            missing = config.minSize() - total;
+            total += Math.max(missing, 0);
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                giveBack(new PooledConnection(factory.create()));
+            } catch (SQLException e) {
+                discard(null);
+                System.out.println("Connection pool could not open a connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        try {
+            return pc.physical.isValid(config.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordBorrow(long waitNanos) {
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        int bucket = 0;
+        while (bucket < PoolStats.WAIT_BUCKETS_MILLIS.length && waitMillis >= PoolStats.WAIT_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        waitHistogram.incrementAndGet(bucket);
+        lock.lock();
+        try {
+            borrows++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Drops a broken (or never created) connection and frees its slot.
+    private void discard(PooledConnection pc) {
+        if (pc != null) pc.closePhysical();
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Puts a healthy connection back on the idle stack, most recently used first.
+    private void giveBack(PooledConnection pc) {
+        pc.lastUsed = System.nanoTime();
+        lock.lock();
+        try {
+            if (closed) {
+                total--;
+                pc.closePhysical();
+                return;
+            }
+            idle.addFirst(pc);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Called when a borrower closes its proxy: resets transactional state and returns the connection.
+    private void release(PooledConnection pc) {
+        try {
+            pc.statements.resetAll();
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            giveBack(pc);
+        } catch (SQLException e) {
+            discard(pc);
+        }
+    }
+
+    /* One physical connection plus the proxy handed to borrowers. A fresh proxy is created per lease so
+       that a stale reference closed twice cannot return the connection to the pool a second time. */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, config.statementCacheSize(), statementHits, statementMisses);
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+
+        private void closePhysical() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException ignore) { /* already broken */ }
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean released;
+
+        private LeaseHandler(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!released) {
+                        released = true;
+                        release(pc);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return released || pc.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + pc.physical + "]";
+                }
+                case "prepareStatement" -> {
+                    checkLeased();
+                    if (args.length == 1) {
+                        return pc.statements.prepare((Connection) proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                    }
+                    if (args.length == 2 && args[1] instanceof Integer keys) {
+                        return pc.statements.prepare((Connection) proxy, (String) args[0], keys);
+                    }
+                    return delegate(method, args);
+                }
+                default -> {
+                    checkLeased();
+                    return delegate(method, args);
+                }
+            }
+        }
+
+        private void checkLeased() throws SQLException {
+            if (released) throw new SQLException("Connection has already been returned to the pool");
+        }
+
+        private Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -2,29 +2,74 @@ package com.vehiclerental.utils;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 
 /* Centralised JDBC connection helper.
      Production code uses the default URL, user, and password. <br>
+    Every DAO borrows its connections from one shared {@link ConnectionPool};
+    closing a borrowed connection hands it back to the pool. <br>
+    Calls made inside a {@link UnitOfWork} share that unit's connection and transaction. <br>
     Integration tests can override those values at runtime via
     {@link #overrideJdbcUrl(String, String, String)}.
  */
 public class DatabaseConnection {
 
-    // default values (local MySQL)
-    private static String url      = "jdbc:mysql://localhost:3306/vehiclerental";
+    // default values (local MySQL); server-side prepares so the pooled statement cache skips re-parsing,
+    // rewritten batches so bulk DAO writes become multi-row statements, cursor fetch for streamed reads
+    private static String url      = "jdbc:mysql://localhost:3306/vehiclerental"
+            + "?useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true";
     private static String username = "root";
     private static String password = "root";
 
-    private static Connection connection;
+    private static PoolConfig poolConfig = PoolConfig.defaults();
+    private static ConnectionPool pool;
 
-    //Returns a lazily initialised, reusable Connection.
-     
+    /*Borrows a pooled Connection. Callers must close it (try-with-resources) to return it to the pool.
+    Inside an open UnitOfWork this is the unit's transaction connection instead, and closing it is a no-op.*/
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(url, username, password);
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) return unit.connection(() -> pool().borrow());
+        return pool().borrow();
+    }
+
+    //Reads the database server's current time, the clock that updated_at columns and tombstones are stamped with.
+    public static LocalDateTime currentDatabaseTime() throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT CURRENT_TIMESTAMP(3)");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1).toLocalDateTime();
+        }
+    }
+
+    //Returns the current pool counters (active, idle, waiters, wait-time histogram).
+    public static PoolStats getPoolStats() {
+        return pool().stats();
+    }
+
+    //Replaces the pool settings. The running pool is drained and rebuilt with the new settings on next use.
+    public static synchronized void configurePool(PoolConfig config) {
+        poolConfig = config;
+        shutdown();
+    }
+
+    //Closes all pooled connections, e.g. on application exit.
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            String poolUrl = url, poolUser = username, poolPass = password;
+            pool = new ConnectionPool(poolConfig, () -> DriverManager.getConnection(poolUrl, poolUser, poolPass));
         }
-        return connection;
+        return pool;
     }
 
     /* -----------------------------------------------------------------------
@@ -33,19 +78,14 @@ public class DatabaseConnection {
        Allows Testcontainers (or other test setups) to redirect JDBC traffic
        without touching production configuration.
      */
-    public static void overrideJdbcUrl(String newUrl,
-                                       String newUser,
-                                       String newPass) {
+    public static synchronized void overrideJdbcUrl(String newUrl,
+                                                    String newUser,
+                                                    String newPass) {
         url      = newUrl;
         username = newUser;
         password = newPass;
-        // close previous connection so next getConnection() uses new settings
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException ignore) { /* ignore on test cleanup */ }
-        connection = null;  // force re-initialisation
+        // drain the previous pool so next getConnection() uses new settings
+        shutdown();
     }
 
     // prevent instantiation
@@ -0,0 +1,55 @@
+package com.vehiclerental.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/* One versioned schema script, named V<version>__<description>.sql.
+   The checksum is a SHA-256 of the script with line endings normalised, so a checkout on Windows
+   does not look like an edited migration.
+ */
+public record Migration(int version, String description, String script) {
+
+    private static final Pattern NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    //Builds a migration from its file name and contents.
+    public static Migration parse(String fileName, String script) {
+        Matcher m = NAME.matcher(fileName);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Migration file must be named V<version>__<description>.sql: " + fileName);
+        }
+        return new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '), script.replace("\r\n", "\n"));
+    }
+
+    public String checksum() {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    //Splits the script into statements on semicolons that end a line, dropping "--" comment lines.
+    public List<String> statements() {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) statements.add(current.toString().trim());
+        return statements;
+    }
+}
@@ -0,0 +1,146 @@
+package com.vehiclerental.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Applies the versioned schema scripts under db/migration at startup.
+ * Applied versions and their checksums are recorded in schema_version; a script that changed after it was
+ * applied stops startup rather than leaving nodes with diverging schemas. A MySQL named lock makes sure only
+ * one application instance migrates at a time.
+ */
+public class MigrationRunner {
+
+    private static final String LOCATION = "db/migration/";
+    private static final String LOCK_NAME = "vehiclerental_migrations";
+
+    // MySQL errors for objects that already exist; tolerated so hand-built databases can adopt migrations
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    //Applies every pending migration and returns how many were applied.
+    public int migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            acquireLock(conn);
+            try {
+                ensureVersionTable(conn);
+                Map<Integer, String> applied = appliedChecksums(conn);
+                int latestApplied = applied.keySet().stream().max(Integer::compare).orElse(0);
+                int count = 0;
+                for (Migration migration : migrations) {
+                    String checksum = applied.get(migration.version());
+                    if (checksum != null) {
+                        if (!checksum.equals(migration.checksum())) {
+                            throw new IllegalStateException("Migration V" + migration.version()
+                                    + " was modified after it was applied");
+                        }
+                        continue;
+                    }
+                    if (migration.version() < latestApplied) {
+                        throw new IllegalStateException("Migration V" + migration.version()
+                                + " is older than the applied V" + latestApplied);
+                    }
+                    apply(conn, migration);
+                    count++;
+                }
+                return count;
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    //Reads the ordered list of scripts named in db/migration/index.txt.
+    List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        for (String line : readResource(LOCATION + "index.txt").split("\n")) {
+            String name = line.trim();
+            if (name.isEmpty() || name.startsWith("#")) continue;
+            migrations.add(Migration.parse(name, readResource(LOCATION + name)));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        System.out.println("Applying schema migration V" + migration.version() + " (" + migration.description() + ")");
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.statements()) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != ER_DUP_KEYNAME && e.getErrorCode() != ER_DUP_FIELDNAME) throw e;
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)")) {
+            stmt.setInt(1, migration.version());
+            stmt.setString(2, migration.description());
+            stmt.setString(3, migration.checksum());
+            stmt.executeUpdate();
+        }
+    }
+
+    private void ensureVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                  version     INT PRIMARY KEY,
+                  description VARCHAR(200) NOT NULL,
+                  checksum    CHAR(64) NOT NULL,
+                  applied_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )""");
+        }
+    }
+
+    private Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, 60)")) {
+            stmt.setString(1, LOCK_NAME);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another instance to finish migrating");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        }
+    }
+
+    private static String readResource(String path) {
+        try (InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) throw new IllegalStateException("Missing migration resource " + path);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read migration resource " + path, e);
+        }
+    }
+}
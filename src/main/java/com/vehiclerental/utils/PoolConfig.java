@@ -0,0 +1,32 @@
+package com.vehiclerental.utils;
+
+import java.time.Duration;
+
+/* Sizing and timing settings for the JDBC connection pool (settings group "pool", see Settings). */
+public record PoolConfig(int minSize,
+                         int maxSize,
+                         Duration idleTimeout,
+                         Duration borrowTimeout,
+                         Duration evictionInterval,
+                         int validationTimeoutSeconds,
+                         int statementCacheSize) {
+
+    public PoolConfig {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+    }
+
+    //Returns the default settings, applying any system property overrides.
+    public static PoolConfig defaults() {
+        Settings settings = Settings.of("pool");
+        return new PoolConfig(
+                settings.getInt("minSize", 2),
+                settings.getInt("maxSize", 10),
+                settings.getSeconds("idleTimeoutSeconds", 300L),
+                settings.getMillis("borrowTimeoutMillis", 5_000L),
+                settings.getSeconds("evictionIntervalSeconds", 30L),
+                settings.getInt("validationTimeoutSeconds", 2),
+                settings.getInt("statementCacheSize", 32));
+    }
+}
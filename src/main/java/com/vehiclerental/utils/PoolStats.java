@@ -0,0 +1,38 @@
+package com.vehiclerental.utils;
+
+/* Point-in-time view of the connection pool.
+   waitHistogram[i] counts borrows whose wait was below WAIT_BUCKETS_MILLIS[i];
+   the last slot counts everything slower than the largest bucket.
+   statementHits/statementMisses are summed over the per-connection prepared statement caches.
+ */
+public record PoolStats(int total,
+                        int active,
+                        int idle,
+                        int waiters,
+                        long borrows,
+                        long timeouts,
+                        long[] waitHistogram,
+                        long statementHits,
+                        long statementMisses) {
+
+    public static final long[] WAIT_BUCKETS_MILLIS = {1, 5, 10, 50, 100, 500, 1000};
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Pool[total=").append(total)
+          .append(", active=").append(active)
+          .append(", idle=").append(idle)
+          .append(", waiters=").append(waiters)
+          .append(", borrows=").append(borrows)
+          .append(", timeouts=").append(timeouts)
+          .append(", wait=");
+        for (int i = 0; i < waitHistogram.length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(i < WAIT_BUCKETS_MILLIS.length ? "<" + WAIT_BUCKETS_MILLIS[i] + "ms:" : ">=1000ms:")
+              .append(waitHistogram[i]);
+        }
+        return sb.append(", statements hit/miss=").append(statementHits).append('/').append(statementMisses)
+                 .append(']').toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.vehiclerental.utils;
+
+import java.time.Duration;
+
+/* Reads one group of settings from system properties.
+   A setting is overridden with the property "vehiclerental." + group + "." + name, for example
+   -Dvehiclerental.pool.maxSize=20 for Settings.of("pool").getInt("maxSize", 10); without it the default applies.
+   The *Config records read their values through this, so they only list their settings and defaults.
+ */
+public final class Settings {
+
+    private final String prefix;
+
+    private Settings(String group) {
+        this.prefix = "vehiclerental." + group + ".";
+    }
+
+    //Returns the settings of a group (the part of the property name after "vehiclerental.").
+    public static Settings of(String group) {
+        return new Settings(group);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return Integer.getInteger(prefix + name, defaultValue);
+    }
+
+    public long getLong(String name, long defaultValue) {
+        return Long.getLong(prefix + name, defaultValue);
+    }
+
+    public String getString(String name, String defaultValue) {
+        return System.getProperty(prefix + name, defaultValue);
+    }
+
+    //Reads a duration given in milliseconds (the property name carries the unit, e.g. "lingerMillis").
+    public Duration getMillis(String name, long defaultMillis) {
+        return Duration.ofMillis(getLong(name, defaultMillis));
+    }
+
+    //Reads a duration given in seconds (the property name carries the unit, e.g. "idleTimeoutSeconds").
+    public Duration getSeconds(String name, long defaultSeconds) {
+        return Duration.ofSeconds(getLong(name, defaultSeconds));
+    }
+}
@@ -0,0 +1,89 @@
+package com.vehiclerental.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/* Wall-clock timings of the startup phases (migrations, fleet, bookings, users, ...).
+   Phases may run concurrently on different threads; each one is recorded with its start offset from the
+   beginning of the boot and its duration, so overlapping loads show up side by side.
+   Print it with -Dvehiclerental.startupReport=true.
+ */
+public final class StartupReport {
+
+    //Work measured as one phase.
+    @FunctionalInterface
+    public interface Timed<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    //Work without a result measured as one phase.
+    @FunctionalInterface
+    public interface TimedAction<E extends Exception> {
+        void run() throws E;
+    }
+
+    public record Phase(String name, long startMillis, long durationMillis, String thread) { }
+
+    private static final StartupReport BOOT = new StartupReport();
+
+    private final long origin = System.nanoTime();
+    private final Queue<Phase> phases = new ConcurrentLinkedQueue<>();
+
+    //The report for this process's startup, shared by Main and the services it starts.
+    public static StartupReport boot() {
+        return BOOT;
+    }
+
+    //Runs a phase and records how long it took, whether it succeeds or throws.
+    public <T, E extends Exception> T time(String name, Timed<T, E> work) throws E {
+        long start = System.nanoTime();
+        try {
+            return work.run();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    //Runs a phase without a result and records how long it took.
+    public <E extends Exception> void run(String name, TimedAction<E> work) throws E {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    //Returns the recorded phases in the order they started.
+    public List<Phase> phases() {
+        List<Phase> sorted = new ArrayList<>(phases);
+        sorted.sort(Comparator.comparingLong(Phase::startMillis));
+        return sorted;
+    }
+
+    //Milliseconds since the report was created.
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origin);
+    }
+
+    private void record(String name, long start) {
+        long end = System.nanoTime();
+        String thread = Thread.currentThread().isVirtual() ? "virtual" : Thread.currentThread().getName();
+        phases.add(new Phase(name, TimeUnit.NANOSECONDS.toMillis(start - origin),
+                TimeUnit.NANOSECONDS.toMillis(end - start), thread));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Startup report (").append(elapsedMillis()).append(" ms since boot)");
+        for (Phase phase : phases()) {
+            sb.append(String.format("%n  %-22s at %6d ms  took %6d ms  [%s]",
+                    phase.name(), phase.startMillis(), phase.durationMillis(), phase.thread()));
+        }
+        return sb.toString();
+    }
+}
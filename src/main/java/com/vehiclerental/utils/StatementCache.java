@@ -0,0 +1,182 @@
+package com.vehiclerental.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded LRU cache of prepared statements for one physical pooled connection.
+ * DAOs keep calling prepareStatement(sql) and closing the result in try-with-resources; the close
+ * only resets the statement and parks it here, so the server-side prepare happens once per connection.
+ * A connection is only ever used by one borrower at a time, so no locking is needed.
+ */
+final class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, CachedStatement> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, LongAdder hits, LongAdder misses) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    //Returns a cached statement for the SQL if one is free, otherwise prepares (and caches) a new one.
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        if (capacity <= 0) {
+            return prepareUncached(sql, autoGeneratedKeys);
+        }
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "\u0000keys" : sql;
+        CachedStatement cached = entries.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            return cached.checkout(owner);
+        }
+        misses.increment();
+        PreparedStatement stmt = prepareUncached(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // same SQL is already open on this connection (nested use), hand out an uncached statement
+            return stmt;
+        }
+        evictIfFull();
+        if (entries.size() >= capacity) {
+            return stmt;
+        }
+        cached = new CachedStatement(stmt);
+        entries.put(key, cached);
+        return cached.checkout(owner);
+    }
+
+    //Frees statements the borrower forgot to close, so they can be reused by the next borrower.
+    void resetAll() {
+        for (CachedStatement cached : entries.values()) {
+            if (cached.inUse) cached.checkin();
+        }
+    }
+
+    //Physically closes every cached statement.
+    void closeAll() {
+        for (CachedStatement cached : entries.values()) cached.closePhysical();
+        entries.clear();
+    }
+
+    private PreparedStatement prepareUncached(String sql, int autoGeneratedKeys) throws SQLException {
+        return autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+                ? physical.prepareStatement(sql, autoGeneratedKeys)
+                : physical.prepareStatement(sql);
+    }
+
+    private void evictIfFull() {
+        Iterator<Map.Entry<String, CachedStatement>> it = entries.entrySet().iterator();
+        while (entries.size() >= capacity && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            if (!eldest.inUse) {
+                it.remove();
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    private static final class CachedStatement {
+        private final PreparedStatement stmt;
+        private final List<ResultSet> openResults = new ArrayList<>();
+        private boolean inUse;
+        private int generation;
+
+        private CachedStatement(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+
+        private PreparedStatement checkout(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Lease(this, owner));
+        }
+
+        //Closes results left open by the borrower and clears parameters and batches.
+        private void checkin() {
+            inUse = false;
+            generation++;
+            try {
+                for (ResultSet rs : openResults) rs.close();
+                stmt.clearParameters();
+                stmt.clearBatch();
+            } catch (SQLException ignore) { /* statement is reset again on next checkout failure */ }
+            openResults.clear();
+        }
+
+        private void closePhysical() {
+            try {
+                stmt.close();
+            } catch (SQLException ignore) { /* connection may already be gone */ }
+        }
+    }
+
+    private static final class Lease implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final int generation;
+        private boolean closed;
+
+        private Lease(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+            this.generation = cached.generation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // a lease left open past its connection's release must not touch the recycled statement
+            closed |= generation != cached.generation;
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        cached.checkin();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    if (closed) throw new SQLException("Statement is closed");
+                    try {
+                        Object result = method.invoke(cached.stmt, args);
+                        if (result instanceof ResultSet rs) cached.openResults.add(rs);
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
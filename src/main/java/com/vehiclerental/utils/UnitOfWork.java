@@ -0,0 +1,121 @@
+package com.vehiclerental.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * One database transaction shared by several DAO calls on the same thread.
+ * While a unit is open, DatabaseConnection.getConnection() hands every DAO the unit's connection instead of a
+ * fresh pooled one. The connection is borrowed on first use with auto-commit off, and the DAOs' try-with-resources
+ * close() leaves it open. commit() commits all their writes at once; closing the unit without committing rolls
+ * them back. Units do not nest, and code that manages its own transactions (the bulk BatchWriter methods) must not
+ * run inside one.
+ * Stores outside the database (the in-memory and embedded repositories) take part by registering an undo action
+ * for each write (onRollback); a unit closed without committing runs them, newest first.
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private Connection lease;
+    private Connection shared;
+    private List<Runnable> undo;
+    private boolean committed;
+    private boolean closed;
+
+    private UnitOfWork() { }
+
+    //Opens a unit of work on the calling thread. Use it in try-with-resources and call commit() at the end.
+    public static UnitOfWork begin() {
+        if (CURRENT.get() != null) throw new IllegalStateException("A unit of work is already open on this thread");
+        UnitOfWork unit = new UnitOfWork();
+        CURRENT.set(unit);
+        return unit;
+    }
+
+    static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    //Registers an action that reverses a write made outside the database, if a unit is open on the calling thread.
+    public static void onRollback(Runnable action) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null) return;
+        if (unit.undo == null) unit.undo = new ArrayList<>();
+        unit.undo.add(action);
+    }
+
+    //Returns the unit's connection, borrowing it on first use.
+    Connection connection(ConnectionPool.ConnectionFactory borrower) throws SQLException {
+        if (closed) throw new SQLException("Unit of work is closed");
+        if (lease == null) {
+            Connection borrowed = borrower.create();
+            borrowed.setAutoCommit(false);
+            lease = borrowed;
+            shared = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> null; // the unit closes it
+                        case "isClosed" -> closed;
+                        case "commit", "rollback", "setAutoCommit" ->
+                                throw new SQLException("Transaction is managed by the unit of work");
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        default -> {
+                            try {
+                                yield method.invoke(lease, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    });
+        }
+        return shared;
+    }
+
+    //Commits every write made in this unit. A unit that never touched the database commits nothing.
+    public void commit() throws SQLException {
+        if (closed) throw new SQLException("Unit of work is closed");
+        if (lease != null) lease.commit();
+        committed = true;
+    }
+
+    /*Rolls back uncommitted writes and returns the connection to the pool. Every undo action runs even if one
+    throws, and the connection is rolled back and returned either way. A failed rollback is thrown with the undo
+    failures attached as suppressed; otherwise the first undo failure is, with the rest attached.*/
+    @Override
+    public void close() throws SQLException {
+        if (closed) return;
+        closed = true;
+        CURRENT.remove();
+        RuntimeException undoFailure = null;
+        if (!committed && undo != null) {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                try {
+                    undo.get(i).run();
+                } catch (RuntimeException e) {
+                    if (undoFailure == null) undoFailure = e;
+                    else undoFailure.addSuppressed(e);
+                }
+            }
+        }
+        try {
+            if (lease != null) {
+                try {
+                    if (!committed) lease.rollback();
+                } finally {
+                    lease.close(); // the pool restores auto-commit
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (undoFailure != null) e.addSuppressed(undoFailure);
+            throw e;
+        }
+        if (undoFailure != null) throw undoFailure;
+    }
+}
@@ -0,0 +1,39 @@
+-- Baseline: the tables created by sql/vehiclerental_mysql.sql, so existing databases adopt migrations unchanged.
+
+CREATE TABLE IF NOT EXISTS users (
+    username VARCHAR(50) PRIMARY KEY,
+    password VARCHAR(100) NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    name VARCHAR(100),
+    phone VARCHAR(50),
+    email VARCHAR(100),
+    address VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS vehicles (
+    id VARCHAR(50) PRIMARY KEY,
+    brand VARCHAR(50),
+    model VARCHAR(50),
+    price_per_day DOUBLE,
+    available BOOLEAN,
+    rented BOOLEAN,
+    rent_start DATETIME,
+    rent_end DATETIME,
+    paid BOOLEAN,
+    rented_by VARCHAR(50),
+    type VARCHAR(20),
+    FOREIGN KEY (rented_by) REFERENCES users(username)
+);
+
+CREATE TABLE IF NOT EXISTS rentals (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    vehicle_id VARCHAR(50),
+    rented_by VARCHAR(50),
+    start_time DATETIME,
+    end_time DATETIME,
+    total_price DOUBLE,
+    paid BOOLEAN,
+    vehicle_type VARCHAR(50),
+    FOREIGN KEY (vehicle_id) REFERENCES vehicles(id),
+    FOREIGN KEY (rented_by) REFERENCES users(username)
+);
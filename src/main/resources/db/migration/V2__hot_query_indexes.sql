@@ -0,0 +1,13 @@
+-- Indexes for the DAO hot paths (checked at startup by QueryPlanCheck).
+
+-- RentalDAO.getRentalHistoryByUser / keyset pages for one user: range scan on (rented_by, start_time, id)
+CREATE INDEX idx_rentals_user_start ON rentals (rented_by, start_time);
+
+-- Keyset pages filtered by vehicle
+CREATE INDEX idx_rentals_vehicle_start ON rentals (vehicle_id, start_time);
+
+-- Admin keyset pages across all users
+CREATE INDEX idx_rentals_start ON rentals (start_time);
+
+-- RentalDAO.markRentalAsPaid: WHERE vehicle_id = ? AND rented_by = ? AND paid = FALSE
+CREATE INDEX idx_rentals_vehicle_user_paid ON rentals (vehicle_id, rented_by, paid);
@@ -0,0 +1,12 @@
+-- Rentals become bookings: a vehicle can hold several future bookings, so each row records its own lifecycle.
+-- Existing rows are history; the ones matching a vehicle's current rental are still live.
+
+ALTER TABLE rentals ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'RETURNED';
+
+UPDATE rentals r
+    JOIN vehicles v ON v.id = r.vehicle_id AND v.rented_by = r.rented_by AND v.rent_start = r.start_time
+SET r.status = 'BOOKED'
+WHERE v.rented = TRUE;
+
+-- RentalDAO.getActiveBookings at start-up and the per-booking status/payment updates
+CREATE INDEX idx_rentals_status_vehicle_start ON rentals (status, vehicle_id, start_time);
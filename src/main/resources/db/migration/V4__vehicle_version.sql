@@ -0,0 +1,4 @@
+-- Optimistic concurrency between application instances: every vehicle update checks and bumps the row version,
+-- so a node writing from stale state changes nothing and reloads instead of overwriting another node's booking.
+
+ALTER TABLE vehicles ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
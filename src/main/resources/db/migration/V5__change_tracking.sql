@@ -0,0 +1,19 @@
+-- Change tracking for warm restarts: a snapshot taken at time T is brought up to date by reading only the rows
+-- changed (updated_at) or deleted (deletions) since T instead of reloading every table.
+
+ALTER TABLE vehicles ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+CREATE INDEX idx_vehicles_updated_at ON vehicles (updated_at);
+
+ALTER TABLE rentals ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+CREATE INDEX idx_rentals_updated_at ON rentals (updated_at);
+
+ALTER TABLE users ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+CREATE INDEX idx_users_updated_at ON users (updated_at);
+
+-- tombstones written in the same transaction as the DELETE (VehicleDAO.deleteVehicle, UserDAO.deleteUser)
+CREATE TABLE IF NOT EXISTS deletions (
+    table_name VARCHAR(30) NOT NULL,
+    row_key VARCHAR(100) NOT NULL,
+    deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_deletions_table_deleted_at (table_name, deleted_at)
+);
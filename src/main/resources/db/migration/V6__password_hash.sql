@@ -0,0 +1,4 @@
+-- Passwords are stored as salted PBKDF2 hashes ("pbkdf2-sha256$<iterations>$<salt>$<hash>", see PasswordHasher),
+-- which need more room than the old plaintext column. Existing plaintext rows are rehashed on their next login.
+
+ALTER TABLE users MODIFY password VARCHAR(255) NOT NULL;
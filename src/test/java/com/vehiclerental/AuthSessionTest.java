@@ -0,0 +1,70 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.InMemoryUserRepository;
+import com.vehiclerental.models.User;
+import com.vehiclerental.services.AuthService;
+import com.vehiclerental.services.PasswordHasher;
+import com.vehiclerental.services.SessionStore;
+import com.vehiclerental.utils.StartupReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for password hashing (rehash on login) and login sessions in AuthService, on in-memory user storage. */
+class AuthSessionTest {
+
+    private static AuthService auth(InMemoryUserRepository repository, int iterations, SessionStore sessions) {
+        return new AuthService(repository, new PasswordHasher(iterations), sessions, new StartupReport());
+    }
+
+    //A plaintext row must still log in and be stored hashed afterwards; a later cost change must rehash again.
+    @Test
+    void login_rehashesPlaintextAndOutdatedHashes() throws Exception {
+        //Arrange
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        repository.saveUser(new User("carol", "secret", "CUSTOMER", "Carol", "c@example.com", "1", "Street 1"));
+        SessionStore sessions = new SessionStore(Duration.ofMinutes(30), Duration.ofHours(12));
+
+        //Act
+        AuthService auth = auth(repository, 1000, sessions);
+        assertNull(auth.login("carol", "wrong"));
+        assertNotNull(auth.login("carol", "secret"));
+
+        //Assert
+        String stored = repository.getUser("carol").getPassword();
+        assertTrue(stored.startsWith("pbkdf2-sha256$1000$"), stored);
+        assertNotNull(auth(repository, 2000, sessions).login("carol", "secret"));
+        assertTrue(repository.getUser("carol").getPassword().startsWith("pbkdf2-sha256$2000$"));
+        assertNull(auth(repository, 2000, sessions).login("carol", "wrong"));
+        assertTrue(auth.register("dave", "pw", "CUSTOMER"));
+        assertNotEquals("pw", repository.getUser("dave").getPassword());
+    }
+
+    //Using a session must keep it alive past the idle timeout, but not past its maximum lifetime or the account.
+    @Test
+    void sessions_slideUntilIdleOrMaxLifetime() {
+        TestClock clock = new TestClock(Instant.parse("2031-06-01T09:00:00Z"));
+        SessionStore sessions = new SessionStore(Duration.ofMinutes(30), Duration.ofMinutes(90), clock);
+        AuthService auth = auth(new InMemoryUserRepository(), 1000, sessions);
+        auth.register("erin", "pw", "CUSTOMER");
+        String token = auth.startSession("erin", "pw");
+        String idle = auth.startSession("erin", "pw");
+        assertNull(auth.startSession("erin", "nope"));
+
+        for (int i = 0; i < 4; i++) {
+            clock.advance(Duration.ofMinutes(20));
+            assertEquals("erin", auth.authenticate(token).getUsername());
+        }
+        assertNull(auth.authenticate(idle), "not used for 80 minutes");
+        clock.advance(Duration.ofMinutes(11));
+        assertNull(auth.authenticate(token), "past the 90 minute lifetime");
+
+        String fresh = auth.startSession("erin", "pw");
+        auth.deleteUser("erin");
+        assertNull(auth.authenticate(fresh));
+        assertEquals(0, sessions.size());
+    }
+}
@@ -0,0 +1,190 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.BookingEvent;
+import com.vehiclerental.dao.BookingJournal;
+import com.vehiclerental.dao.JournalConfig;
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.VehicleManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/* Unit tests for the append-only booking journal (files in a temp directory, DAOs are mocks). */
+class BookingJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static final LocalDateTime START = LocalDateTime.of(2031, 6, 1, 9, 0);
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static Booking booking(String vehicleId, String user, int day) {
+        return new Booking(vehicleId, user, START.plusDays(day), START.plusDays(day).plusHours(4), false);
+    }
+
+    //Events appended from many threads must all be read back after a reopen, each with its own sequence number.
+    @Test
+    void append_concurrently_readsBackEveryEventInOrder() throws Exception {
+        JournalConfig config = new JournalConfig(dir, 4096, 0);
+        try (BookingJournal journal = new BookingJournal(config);
+             ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> appends = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String vehicle = "V" + t;
+                appends.add(pool.submit(() -> {
+                    for (int i = 0; i < 50; i++) journal.append(BookingEvent.Type.RENTED, booking(vehicle, "u", i));
+                    return null;
+                }));
+            }
+            for (Future<?> append : appends) append.get();
+        }
+
+        try (BookingJournal reopened = new BookingJournal(config)) {
+            List<BookingEvent> events = reopened.recovered();
+            assertEquals(400, events.size());
+            for (int i = 0; i < events.size(); i++) assertEquals(i + 1, events.get(i).sequence());
+            assertTrue(segmentCount() > 1, "4 KB segments should have rolled");
+        }
+    }
+
+    //Appends that queue behind a running fsync must be covered by one fsync instead of one each.
+    @Test
+    void append_whileSyncIsHeld_sharesOneSync() throws Exception {
+        try (BookingJournal journal = new BookingJournal(new JournalConfig(dir, 1 << 20, 0));
+             ExecutorService pool = Executors.newFixedThreadPool(5)) {
+            // --- Arrange: the first fsync waits until the test lets it go -------
+            CountDownLatch held = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            journal.beforeSync(() -> {
+                if (held.getCount() == 0) return;
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            List<Future<Long>> appends = new ArrayList<>();
+            appends.add(pool.submit(() -> journal.append(BookingEvent.Type.RENTED, booking("V0", "u", 0))));
+            held.await();
+
+            // --- Act: four more events are written while that fsync is held ------
+            for (int t = 1; t <= 4; t++) {
+                String vehicle = "V" + t;
+                appends.add(pool.submit(() -> journal.append(BookingEvent.Type.RENTED, booking(vehicle, "u", 0))));
+            }
+            while (journal.lastSequence() < 5) Thread.onSpinWait();
+            release.countDown();
+            for (Future<Long> append : appends) append.get();
+
+            // --- Assert ----------------------------------------------------------
+            assertEquals(1, journal.syncCount());
+        }
+    }
+
+    //A record torn by a crash must be cut off on open, so later appends are readable.
+    @Test
+    void open_dropsIncompleteRecordAtEnd() throws Exception {
+        JournalConfig config = new JournalConfig(dir, 1 << 20, 0);
+        try (BookingJournal journal = new BookingJournal(config)) {
+            journal.append(BookingEvent.Type.RENTED, booking("C1", "alice", 0));
+            journal.append(BookingEvent.Type.PAID, booking("C1", "alice", 0).asPaid());
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (BookingJournal journal = new BookingJournal(config)) {
+            assertEquals(2, journal.recovered().size());
+            assertEquals(3, journal.append(BookingEvent.Type.RETURNED, booking("C1", "alice", 0)));
+        }
+        try (BookingJournal journal = new BookingJournal(config)) {
+            assertEquals(List.of(BookingEvent.Type.RENTED, BookingEvent.Type.PAID, BookingEvent.Type.RETURNED),
+                    journal.recovered().stream().map(BookingEvent::type).toList());
+        }
+    }
+
+    //Compaction must drop bookings that ended and keep every event of bookings that are still open.
+    @Test
+    void compact_dropsEndedBookingsOnly() throws Exception {
+        JournalConfig config = new JournalConfig(dir, 1024, 0);
+        try (BookingJournal journal = new BookingJournal(config)) {
+            journal.append(BookingEvent.Type.RENTED, booking("A", "alice", 0));
+            journal.append(BookingEvent.Type.RETURNED, booking("A", "alice", 0));
+            journal.append(BookingEvent.Type.RENTED, booking("B", "bob", 0));
+            journal.append(BookingEvent.Type.PAID, booking("B", "bob", 0).asPaid());
+            for (int i = 1; i <= 40; i++) {
+                journal.append(BookingEvent.Type.RENTED, booking("C", "carol", i));
+                journal.append(BookingEvent.Type.CANCELLED, booking("C", "carol", i));
+            }
+            long before = segmentCount();
+
+            journal.compact(journal.lastSequence());
+
+            assertTrue(segmentCount() < before);
+        }
+        try (BookingJournal journal = new BookingJournal(config)) {
+            List<BookingEvent> events = journal.recovered();
+            assertTrue(events.stream().noneMatch(e -> e.booking().vehicleId().equals("A")));
+            assertEquals(List.of(3L, 4L), events.stream()
+                    .filter(e -> e.booking().vehicleId().equals("B")).map(BookingEvent::sequence).toList());
+        }
+    }
+
+    //Replay must re-apply a journaled booking the database never got, and skip one that was cancelled.
+    @Test
+    void enableJournal_replaysBookingMissingFromDatabase() throws Exception {
+        // --- Arrange: journal from a crashed run, database without its bookings --
+        JournalConfig config = new JournalConfig(dir, 1 << 20, 0);
+        try (BookingJournal crashed = new BookingJournal(config)) {
+            crashed.append(BookingEvent.Type.RENTED, booking("C1", "alice", 2));
+            crashed.append(BookingEvent.Type.RENTED, booking("C1", "bob", 5));
+            crashed.append(BookingEvent.Type.CANCELLED, booking("C1", "bob", 5));
+        }
+        VehicleDAO vehicleDAO = Mockito.mock(VehicleDAO.class);
+        RentalDAO rentalDAO = Mockito.mock(RentalDAO.class);
+        VehicleManager manager = new VehicleManager(vehicleDAO, rentalDAO);
+        manager.addVehicle(new Car("C1", "Skoda", "Fabia", 30.0));
+
+        // --- Act -------------------------------------------------------------
+        BookingJournal journal = new BookingJournal(config);
+        manager.enableJournal(journal);
+        manager.rentVehicle("C1", "carol", START.plusDays(8), START.plusDays(9), false);
+        manager.shutdown();
+
+        // --- Assert ----------------------------------------------------------
+        assertFalse(manager.isAvailableDuring("C1", START.plusDays(2), START.plusDays(2).plusHours(1)));
+        assertTrue(manager.isAvailableDuring("C1", START.plusDays(5), START.plusDays(5).plusHours(1)));
+        Mockito.verify(rentalDAO, Mockito.times(2)).insertRental(any(Vehicle.class)); // alice replayed, carol new
+        try (BookingJournal reopened = new BookingJournal(config)) {
+            assertEquals(4, reopened.recovered().size()); // replay appends nothing
+        }
+    }
+}
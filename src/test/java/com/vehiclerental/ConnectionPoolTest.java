@@ -0,0 +1,129 @@
+package com.vehiclerental;
+
+import com.vehiclerental.utils.ConnectionPool;
+import com.vehiclerental.utils.PoolConfig;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for the bounded JDBC connection pool (no database needed, physical connections are mocks). */
+class ConnectionPoolTest {
+
+    private static PoolConfig config(int max, long borrowTimeoutMillis) {
+        return new PoolConfig(0, max, Duration.ofMinutes(5), Duration.ofMillis(borrowTimeoutMillis),
+                Duration.ofMinutes(1), 1, 4);
+    }
+
+    private static Connection healthyConnection() throws SQLException {
+        Connection c = Mockito.mock(Connection.class);
+        Mockito.when(c.isValid(Mockito.anyInt())).thenReturn(true);
+        Mockito.when(c.getAutoCommit()).thenReturn(true);
+        return c;
+    }
+
+    //Closing a borrowed connection must return it to the pool, not open a new one next time.
+    @Test
+    void close_returnsConnectionForReuse() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        try (ConnectionPool pool = new ConnectionPool(config(2, 100), () -> {
+            opened.incrementAndGet();
+            return healthyConnection();
+        })) {
+            try (Connection c = pool.borrow()) { assertFalse(c.isClosed()); }
+            try (Connection c = pool.borrow()) { assertFalse(c.isClosed()); }
+
+            assertEquals(1, opened.get(), "Second borrow should reuse the first physical connection");
+            assertEquals(1, pool.stats().idle());
+            assertEquals(0, pool.stats().active());
+        }
+    }
+
+    //When every connection is in use, borrow() must time out instead of exceeding maxSize.
+    @Test
+    void borrow_whenExhausted_timesOut() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(config(1, 50), ConnectionPoolTest::healthyConnection)) {
+            Connection held = pool.borrow();
+
+            assertThrows(SQLException.class, pool::borrow);
+            assertEquals(1, pool.stats().timeouts());
+            assertEquals(1, pool.stats().total());
+            held.close();
+        }
+    }
+
+    //A connection that fails validation on borrow must be discarded and replaced.
+    @Test
+    void borrow_discardsInvalidConnection() throws Exception {
+        Connection broken = healthyConnection();
+        AtomicInteger opened = new AtomicInteger();
+        try (ConnectionPool pool = new ConnectionPool(config(1, 100), () ->
+                opened.getAndIncrement() == 0 ? broken : healthyConnection())) {
+            pool.borrow().close();
+            Mockito.when(broken.isValid(Mockito.anyInt())).thenReturn(false);
+
+            try (Connection c = pool.borrow()) { assertFalse(c.isClosed()); }
+
+            assertEquals(2, opened.get());
+            Mockito.verify(broken).close();
+        }
+    }
+
+    //An uncommitted transaction must be rolled back before the connection goes back to the pool.
+    @Test
+    void close_rollsBackOpenTransaction() throws Exception {
+        Connection physical = healthyConnection();
+        Mockito.when(physical.getAutoCommit()).thenReturn(false);
+        try (ConnectionPool pool = new ConnectionPool(config(1, 100), () -> physical)) {
+            pool.borrow().close();
+
+            Mockito.verify(physical).rollback();
+            Mockito.verify(physical).setAutoCommit(true);
+        }
+    }
+
+    //Re-preparing the same SQL on a pooled connection must reuse the cached statement.
+    @Test
+    void prepareStatement_reusesCachedStatement() throws Exception {
+        Connection physical = healthyConnection();
+        Mockito.when(physical.prepareStatement(Mockito.anyString()))
+                .thenAnswer(inv -> Mockito.mock(PreparedStatement.class));
+        String sql = "UPDATE vehicles SET paid=? WHERE id=?";
+        try (ConnectionPool pool = new ConnectionPool(config(1, 100), () -> physical)) {
+            for (int i = 0; i < 3; i++) {
+                try (Connection c = pool.borrow();
+                     PreparedStatement stmt = c.prepareStatement(sql)) {
+                    stmt.setString(2, "A1");
+                }
+            }
+
+            Mockito.verify(physical, Mockito.times(1)).prepareStatement(sql);
+            assertEquals(2, pool.stats().statementHits());
+            assertEquals(1, pool.stats().statementMisses());
+        }
+    }
+
+    //Once the cache is full the least recently used statement must be closed.
+    @Test
+    void prepareStatement_evictsLeastRecentlyUsed() throws Exception {
+        Connection physical = healthyConnection();
+        PreparedStatement first = Mockito.mock(PreparedStatement.class);
+        Mockito.when(physical.prepareStatement(Mockito.anyString()))
+                .thenReturn(first)
+                .thenAnswer(inv -> Mockito.mock(PreparedStatement.class));
+        try (ConnectionPool pool = new ConnectionPool(config(1, 100), () -> physical);
+             Connection c = pool.borrow()) {
+            for (int i = 0; i <= 4; i++) {
+                c.prepareStatement("SELECT " + i).close();   // capacity is 4
+            }
+
+            Mockito.verify(first).close();
+        }
+    }
+}
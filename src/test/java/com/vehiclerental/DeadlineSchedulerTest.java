@@ -0,0 +1,91 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.services.AuthService;
+import com.vehiclerental.services.DeadlineScheduler;
+import com.vehiclerental.services.NotificationService;
+import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.utils.StartupReport;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for the booking deadline scheduler (a hand-driven clock, no threads) and its use by NotificationService. */
+class DeadlineSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2031, 6, 1, 9, 0);
+
+    //As time passes a booking must move from starting soon to due soon to overdue, firing one event per deadline in time order.
+    @Test
+    void deadlines_fireInOrderAsTimePasses() {
+        //Arrange
+        TestClock clock = new TestClock(NOW.toInstant(ZoneOffset.UTC));
+        DeadlineScheduler scheduler = new DeadlineScheduler(clock);
+        List<DeadlineScheduler.Kind> fired = new ArrayList<>();
+        scheduler.addListener(event -> fired.add(event.kind()));
+        Booking booking = new Booking("C1", "alice", NOW.plusHours(48), NOW.plusHours(68), false);
+        scheduler.bookingAdded(booking);
+
+        //Act & Assert
+        assertTrue(scheduler.startingSoon().isEmpty());
+        clock.advance(Duration.ofHours(30));
+        assertEquals(List.of(booking), scheduler.startingSoon());
+        clock.advance(Duration.ofHours(20));
+        assertTrue(scheduler.startingSoon().isEmpty());
+        assertEquals(List.of(booking), scheduler.dueSoon());
+        clock.advance(Duration.ofHours(20));
+        assertTrue(scheduler.dueSoon().isEmpty());
+        assertEquals(List.of(booking), scheduler.overdue());
+        assertEquals(List.of(DeadlineScheduler.Kind.STARTS_SOON, DeadlineScheduler.Kind.DUE_SOON,
+                DeadlineScheduler.Kind.STARTED, DeadlineScheduler.Kind.OVERDUE), fired);
+    }
+
+    //A removed booking must never fire, and re-registering one (e.g. once paid) must not repeat passed deadlines.
+    @Test
+    void removedOrReRegisteredBookings_doNotFireAgain() {
+        TestClock clock = new TestClock(NOW.toInstant(ZoneOffset.UTC));
+        DeadlineScheduler scheduler = new DeadlineScheduler(clock);
+        Booking returned = new Booking("C1", "alice", NOW.plusHours(1), NOW.plusHours(5), false);
+        Booking unpaid = new Booking("V1", "bob", NOW.plusHours(2), NOW.plusHours(6), false);
+        scheduler.bookingAdded(returned);
+        scheduler.bookingAdded(unpaid);
+        scheduler.bookingRemoved(returned);
+
+        clock.advance(Duration.ofHours(3));
+        assertEquals(1, scheduler.advance()); // bob's start; his reminder and due-soon warning had passed at registration
+        scheduler.bookingRemoved(unpaid);
+        scheduler.bookingAdded(unpaid.asPaid());
+        clock.advance(Duration.ofHours(4));
+
+        assertEquals(1, scheduler.advance()); // only bob's overdue deadline, nothing of alice's
+        assertEquals(List.of(unpaid.asPaid()), scheduler.overdue());
+        assertEquals(2, scheduler.firedCount());
+    }
+
+    //NotificationService must list a real booking from the manager's schedule without scanning the fleet.
+    @Test
+    void notificationService_readsManagersSchedule() {
+        try (Storage storage = Storage.inMemory()) {
+            VehicleManager manager = new VehicleManager(storage, new StartupReport());
+            manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            LocalDateTime start = LocalDateTime.now().plusHours(2);
+            manager.rentVehicle("C1", "alice", start, start.plusHours(8), false);
+
+            NotificationService service = new NotificationService(manager, Mockito.mock(AuthService.class));
+
+            assertEquals(1, service.getUpcomingRentalReminders().size());
+            assertEquals(1, service.getUpcomingReturnWarnings().size());
+            assertTrue(service.getOverdueNotifications().isEmpty());
+            manager.shutdown();
+        }
+    }
+}
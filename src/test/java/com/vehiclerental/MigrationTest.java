@@ -0,0 +1,48 @@
+package com.vehiclerental;
+
+import com.vehiclerental.utils.Migration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for parsing versioned schema migration scripts (no database needed). */
+class MigrationTest {
+
+    //The version and description must come from the V<n>__<description>.sql file name.
+    @Test
+    void parse_readsVersionAndDescriptionFromFileName() {
+        Migration m = Migration.parse("V12__add_vehicle_version.sql", "SELECT 1;");
+
+        assertEquals(12, m.version());
+        assertEquals("add vehicle version", m.description());
+        assertThrows(IllegalArgumentException.class, () -> Migration.parse("add_index.sql", "SELECT 1;"));
+    }
+
+    //Windows line endings must not change the checksum, any real edit must.
+    @Test
+    void checksum_ignoresLineEndingsButNotContent() {
+        Migration unix = Migration.parse("V1__a.sql", "CREATE INDEX i ON t (a);\n");
+        Migration windows = Migration.parse("V1__a.sql", "CREATE INDEX i ON t (a);\r\n");
+        Migration edited = Migration.parse("V1__a.sql", "CREATE INDEX i ON t (b);\n");
+
+        assertEquals(unix.checksum(), windows.checksum());
+        assertNotEquals(unix.checksum(), edited.checksum());
+    }
+
+    //Statements are split on trailing semicolons, comment lines are dropped and multi-line statements kept whole.
+    @Test
+    void statements_splitsOnTrailingSemicolons() {
+        Migration m = Migration.parse("V2__x.sql", """
+                -- first index
+                CREATE INDEX a ON t (x);
+
+                CREATE TABLE u (
+                    id INT PRIMARY KEY
+                );
+                """);
+
+        assertEquals(List.of("CREATE INDEX a ON t (x)", "CREATE TABLE u (\n    id INT PRIMARY KEY\n)"), m.statements());
+    }
+}
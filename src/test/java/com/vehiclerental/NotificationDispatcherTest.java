@@ -0,0 +1,172 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.User;
+import com.vehiclerental.services.AuthService;
+import com.vehiclerental.services.DispatchConfig;
+import com.vehiclerental.services.DispatchStats;
+import com.vehiclerental.services.LocalMailChannel;
+import com.vehiclerental.services.NotificationChannel;
+import com.vehiclerental.services.NotificationDispatcher;
+import com.vehiclerental.services.NotificationService;
+import com.vehiclerental.services.OutboundMessage;
+import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.utils.StartupReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for the outbound notification dispatcher, sending to the local mail stand-in. */
+class NotificationDispatcherTest {
+
+    private static final Function<String, User> USERS = username -> username.equals("nomail")
+            ? new User(username, "pw", "CUSTOMER", "No Mail", "", "1", "Street 1")
+            : new User(username, "pw", "CUSTOMER", username, username + "@example.com", "1", "Street 1");
+
+    private static DispatchConfig config(int queueCapacity, int batchSize, long lingerMillis, int concurrency) {
+        return new DispatchConfig(queueCapacity, batchSize, Duration.ofMillis(lingerMillis), concurrency,
+                3, Duration.ofMillis(1), Duration.ofMillis(4), 1000);
+    }
+
+    private static OutboundMessage alert(String key, String username) {
+        return new OutboundMessage(key, username, "Overdue", "Overdue: " + key);
+    }
+
+    //Messages must go out in batches, each alert once, skipping users without an address.
+    @Test
+    void submit_batchesAndDeduplicates() {
+        //Arrange
+        LocalMailChannel mail = new LocalMailChannel();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(config(100, 10, 500, 2), USERS,
+                List.<NotificationChannel>of(mail))) {
+            //Act
+            for (int i = 0; i < 20; i++) {
+                assertEquals(NotificationDispatcher.Outcome.QUEUED, dispatcher.submit(alert("OVERDUE:C" + i, "user" + i)));
+            }
+            assertEquals(NotificationDispatcher.Outcome.DUPLICATE, dispatcher.submit(alert("OVERDUE:C3", "user3")));
+            dispatcher.submit(alert("OVERDUE:X1", "nomail"));
+
+            //Assert
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+            DispatchStats stats = dispatcher.stats();
+            assertEquals(20, mail.delivered().size());
+            assertEquals("user0@example.com", mail.delivered().get(0).address());
+            assertEquals(1, stats.duplicates());
+            assertEquals(1, stats.unreachable());
+            assertTrue(mail.sessions() <= 3, "20 messages in batches of 10, not one session each");
+        }
+    }
+
+    //An alert sent before a restart must not be sent again by the next dispatcher using the same sent log.
+    @Test
+    void sentLog_skipsAlertsSentBeforeRestart(@TempDir Path dir) {
+        Path sentLog = dir.resolve("outbox.sent");
+        LocalMailChannel before = new LocalMailChannel();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(config(100, 10, 0, 1), USERS,
+                List.<NotificationChannel>of(before), sentLog)) {
+            dispatcher.submit(alert("OVERDUE:C1", "alice"));
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+        }
+
+        LocalMailChannel after = new LocalMailChannel();
+        try (NotificationDispatcher restarted = new NotificationDispatcher(config(100, 10, 0, 1), USERS,
+                List.<NotificationChannel>of(after), sentLog)) {
+            assertEquals(NotificationDispatcher.Outcome.DUPLICATE, restarted.submit(alert("OVERDUE:C1", "alice")));
+            assertEquals(NotificationDispatcher.Outcome.QUEUED, restarted.submit(alert("OVERDUE:C2", "bob")));
+            assertTrue(restarted.awaitIdle(Duration.ofSeconds(5)));
+        }
+        assertEquals(1, before.delivered().size());
+        assertEquals(List.of("bob@example.com"), after.delivered().stream().map(NotificationChannel.Delivery::address).toList());
+    }
+
+    //With an mbox file the mail stand-in must write messages there and keep none of them in memory.
+    @Test
+    void localMail_withMbox_keepsNothingInMemory(@TempDir Path dir) throws Exception {
+        Path mbox = dir.resolve("outbox.mbox");
+        LocalMailChannel mail = new LocalMailChannel(mbox);
+
+        mail.send(List.of(new NotificationChannel.Delivery("alice@example.com", alert("OVERDUE:C1", "alice"))));
+
+        assertTrue(mail.delivered().isEmpty());
+        assertTrue(Files.readString(mbox).contains("To: alice@example.com"));
+    }
+
+    //A batch the provider refuses must be retried after a back-off until it goes through.
+    @Test
+    void failedBatch_isRetried() {
+        LocalMailChannel mail = new LocalMailChannel();
+        mail.failNext(2);
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(config(100, 10, 0, 1), USERS,
+                List.<NotificationChannel>of(mail))) {
+            dispatcher.submit(alert("DUE_SOON:C1", "alice"));
+
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+            assertEquals(1, mail.delivered().size());
+            assertEquals(2, dispatcher.stats().retries());
+            assertEquals(3, mail.sessions());
+        }
+    }
+
+    //With a slow provider the queue must fill and refuse new alerts at once, and a refused alert may be raised again.
+    @Test
+    void slowProvider_pushesBackWithoutBlocking() {
+        LocalMailChannel mail = new LocalMailChannel();
+        mail.setLatency(Duration.ofMillis(300));
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(config(2, 1, 0, 1), USERS,
+                List.<NotificationChannel>of(mail))) {
+            List<Integer> rejected = new ArrayList<>();
+            // 20 sends one at a time would take 6s; a generous bound that still fails if submit waits for the provider
+            assertTimeoutPreemptively(Duration.ofSeconds(3), () -> {
+                for (int i = 0; i < 20; i++) {
+                    if (dispatcher.submit(alert("OVERDUE:C" + i, "user" + i)) == NotificationDispatcher.Outcome.REJECTED) {
+                        rejected.add(i);
+                    }
+                }
+            });
+
+            assertTrue(rejected.size() >= 15, "only the queue and the batches being sent hold alerts, rejected=" + rejected);
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+            mail.setLatency(Duration.ZERO);
+            int again = rejected.get(rejected.size() - 1);
+            assertEquals(NotificationDispatcher.Outcome.QUEUED, dispatcher.submit(alert("OVERDUE:C" + again, "user" + again)));
+        }
+    }
+    //Alerts that already stand when the service starts, or as a booking is made, must be sent once without a deadline passing.
+    @Test
+    void notificationService_sendsStandingAlerts() {
+        //Arrange
+        LocalMailChannel mail = new LocalMailChannel();
+        try (Storage storage = Storage.inMemory()) {
+            VehicleManager manager = new VehicleManager(storage, new StartupReport());
+            manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            manager.addVehicle(new Car("C2", "Kia", "Ceed", 25.0));
+            LocalDateTime now = LocalDateTime.now();
+            manager.rentVehicle("C1", "alice", now.plusHours(2), now.plusDays(3), false);
+            NotificationDispatcher dispatcher = new NotificationDispatcher(config(100, 10, 0, 1), USERS,
+                    List.<NotificationChannel>of(mail));
+            NotificationService service = new NotificationService(manager, Mockito.mock(AuthService.class), dispatcher);
+
+            //Act
+            manager.rentVehicle("C2", "bob", now.plusHours(1), now.plusHours(12), false);
+            service.getUpcomingRentalReminders(); // fires nothing new: every deadline passed at registration
+
+            //Assert
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+            assertEquals(List.of("alice@example.com", "bob@example.com", "bob@example.com"),
+                    mail.delivered().stream().map(NotificationChannel.Delivery::address).sorted().toList());
+            service.close();
+            manager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.User;
+import com.vehiclerental.services.AuthService;
+import com.vehiclerental.services.NotificationInbox;
+import com.vehiclerental.services.NotificationService;
+import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.utils.StartupReport;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for the per-user notification inbox and its feed from VehicleManager. */
+class NotificationInboxTest {
+
+    //A full inbox must drop its oldest messages, list the newest first and keep the unread count in step.
+    @Test
+    void inbox_isBoundedAndTracksUnread() {
+        //Arrange
+        NotificationInbox inbox = new NotificationInbox(3, Function.identity());
+        inbox.post("alice", "one");
+        inbox.post("alice", "two");
+        inbox.markAllRead("alice");
+
+        //Act
+        inbox.post("alice", "three");
+        inbox.post("alice", "four");
+        inbox.post("bob", "other");
+
+        //Assert
+        List<NotificationInbox.Message> newest = inbox.newest("alice", 10);
+        assertEquals(List.of("four", "three", "two"), newest.stream().map(NotificationInbox.Message::text).toList());
+        assertEquals(List.of(true, true, false), newest.stream().map(NotificationInbox.Message::unread).toList());
+        assertEquals(2, inbox.unreadCount("alice"));
+        assertEquals(List.of("four"), inbox.newest("alice", 1).stream().map(NotificationInbox.Message::text).toList());
+        assertEquals(1, inbox.unreadCount("bob"));
+        assertTrue(inbox.newest("carol", 5).isEmpty());
+    }
+
+    //Booking changes made through the manager must reach the renter's inbox as they happen, and reading marks them read.
+    @Test
+    void bookingChanges_reachTheRentersInbox() {
+        try (Storage storage = Storage.inMemory()) {
+            //Arrange
+            VehicleManager manager = new VehicleManager(storage, new StartupReport());
+            manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            NotificationService service = new NotificationService(manager, Mockito.mock(AuthService.class));
+            User alice = new User("alice", "pw", "CUSTOMER", "Alice", "a@example.com", "1", "Street 1");
+            LocalDateTime start = LocalDateTime.now().plusDays(5);
+
+            //Act
+            manager.rentVehicle("C1", "alice", start, start.plusDays(2), false);
+            manager.cancelUpcomingBooking("C1", "alice", start);
+
+            //Assert
+            List<String> messages = service.getUserNotifications(alice);
+            assertEquals(2, messages.size());
+            assertTrue(messages.get(0).startsWith("Booking cancelled: "));
+            assertTrue(messages.get(1).startsWith("Booking confirmed: "));
+            assertEquals(2, service.getInbox().unreadCount("alice"));
+            service.printNotifications(alice);
+            assertEquals(0, service.getInbox().unreadCount("alice"));
+            manager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.FleetStoreFullException;
+import com.vehiclerental.dao.OffHeapFleetStore;
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Van;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.models.VehicleType;
+import com.vehiclerental.services.VehicleManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/* Unit tests for the off-heap fleet store (off-heap memory and a mapped file in a temp directory). */
+class OffHeapFleetStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static final LocalDateTime START = LocalDateTime.of(2031, 6, 1, 9, 0);
+
+    //Lookups must ignore case, availability must follow the bookings and search must list the cheapest first.
+    @Test
+    void put_thenLookupCheckAndSearch() {
+        try (OffHeapFleetStore store = OffHeapFleetStore.allocate(16, 64)) {
+            store.put(new Car("C1", "Skoda", "Octavia", 40.0), List.of(
+                    new Booking("C1", "alice", START.plusDays(3), START.plusDays(4), false),
+                    new Booking("C1", "bob", START, START.plusHours(6), true)));
+            store.put(new Car("C2", "Kia", "Ceed", 25.0), List.of());
+            store.put(new Van("V1", "Ford", "Transit", 20.0), List.of());
+
+            int c1 = store.indexOf("c1");
+            assertEquals(store.indexOf("C1"), c1);
+            assertFalse(store.isAvailable(c1, START.plusHours(5), START.plusHours(8)));
+            assertTrue(store.isAvailable(c1, START.plusDays(1), START.plusDays(2)));
+            assertEquals(List.of("bob", "alice"), store.bookings(c1).stream().map(Booking::rentedBy).toList());
+
+            int[] found = new int[2];
+            assertEquals(2, store.searchAvailable(START.plusDays(1), START.plusDays(2), null, 100.0, found));
+            assertEquals("V1", store.idOf(found[0]));
+            assertEquals("C2", store.idOf(found[1]));
+            assertEquals(1, store.searchAvailable(START, START.plusHours(1), VehicleType.CAR, 100.0, found));
+            assertEquals("C2", store.idOf(found[0]));
+
+            assertTrue(store.remove("C2"));
+            assertEquals(-1, store.indexOf("C2"));
+            assertEquals(2, store.size());
+        }
+    }
+
+    //A single booking must be added, updated in place and removed without touching the vehicle's other bookings.
+    @Test
+    void putBooking_andRemoveBooking_changeOneBooking() {
+        try (OffHeapFleetStore store = OffHeapFleetStore.allocate(16, 64)) {
+            store.put(new Car("C1", "Skoda", "Octavia", 40.0), List.of(
+                    new Booking("C1", "alice", START.plusDays(3), START.plusDays(4), false)));
+            int c1 = store.indexOf("C1");
+
+            assertTrue(store.putBooking(new Booking("c1", "bob", START, START.plusDays(1), false)));
+            assertTrue(store.putBooking(new Booking("C1", "bob", START, START.plusDays(1), true)));
+            assertFalse(store.putBooking(new Booking("C9", "bob", START, START.plusDays(1), false)));
+            assertEquals(2, store.bookingCount(c1));
+            assertTrue(store.bookings(c1).get(0).paid());
+
+            assertTrue(store.removeBooking("C1", START));
+            assertFalse(store.removeBooking("C1", START));
+            assertEquals(List.of("alice"), store.bookings(c1).stream().map(Booking::rentedBy).toList());
+            assertTrue(store.isAvailable(c1, START, START.plusDays(1)));
+        }
+    }
+
+    //Renter names are kept in the booking records, so any number of renters over time must not fill the dictionary.
+    @Test
+    void putBooking_keepsRenterNamesOutOfDictionary() {
+        try (OffHeapFleetStore store = OffHeapFleetStore.allocate(1, 4)) {
+            store.put(new Car("C1", "Skoda", "Octavia", 40.0), List.of());
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(store.putBooking(new Booking("C1", "renter" + i, START, START.plusDays(1), false)));
+                assertEquals("renter" + i, store.bookings(0).get(0).rentedBy());
+                assertTrue(store.removeBooking("C1", START));
+            }
+
+            String tooLong = "r".repeat(51);
+            assertThrows(FleetStoreFullException.class,
+                    () -> store.putBooking(new Booking("C1", tooLong, START, START.plusDays(1), false)));
+            assertEquals(0, store.bookingCount(0));
+        }
+    }
+
+    //A store that fills up must be detached and closed, leaving a mapped file marked clean, while the heap answers.
+    @Test
+    void enableFleetStore_detachesAndClosesFullStore() throws Exception {
+        Path file = dir.resolve("fleet.store");
+        VehicleManager manager = new VehicleManager(Mockito.mock(VehicleDAO.class), Mockito.mock(RentalDAO.class));
+        manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+        try (OffHeapFleetStore store = OffHeapFleetStore.open(file, 1, 4)) {
+            manager.enableFleetStore(store);
+
+            manager.addVehicle(new Car("C2", "Kia", "Ceed", 25.0)); // no room for a second vehicle
+            manager.rentVehicle("C1", "alice", START, START.plusDays(2), false);
+
+            assertFalse(manager.isAvailableDuring("C1", START, START.plusDays(1)));
+            assertTrue(manager.isAvailableDuring("C2", START, START.plusDays(1)));
+        }
+        try (OffHeapFleetStore reopened = OffHeapFleetStore.open(file, 1, 4)) {
+            assertTrue(reopened.wasCleanlyClosed());
+        }
+    }
+
+    //A mapped store must come back with its records after a clean close, and empty after an unclean one.
+    @Test
+    void open_reopensMappedFile() throws Exception {
+        Path file = dir.resolve("fleet.store");
+        Car car = new Car("C1", "Skoda", "Octavia", 40.0);
+        car.setVersion(7);
+        try (OffHeapFleetStore store = OffHeapFleetStore.open(file, 16, 64)) {
+            store.put(car, List.of(new Booking("C1", "alice", START, START.plusDays(1), true)));
+        }
+
+        try (OffHeapFleetStore store = OffHeapFleetStore.open(file, 1, 1)) {
+            assertTrue(store.wasCleanlyClosed());
+            Vehicle restored = store.toVehicle(store.indexOf("C1"));
+            assertEquals("Octavia", restored.getModel());
+            assertEquals(7, restored.getVersion());
+            assertEquals("alice", restored.getRentedBy());
+            assertEquals(START, restored.getRentStartDateTime());
+
+            // opened again while still open, as after a crash
+            try (OffHeapFleetStore crashed = OffHeapFleetStore.open(file, 1, 1)) {
+                assertFalse(crashed.wasCleanlyClosed());
+                assertEquals(0, crashed.size());
+            }
+        }
+    }
+
+    //VehicleManager must keep the store in step with bookings and removals and answer availability from it.
+    @Test
+    void enableFleetStore_writesChangesThrough() {
+        VehicleManager manager = new VehicleManager(Mockito.mock(VehicleDAO.class), Mockito.mock(RentalDAO.class));
+        manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+        manager.addVehicle(new Car("C2", "Kia", "Ceed", 25.0));
+        try (OffHeapFleetStore store = OffHeapFleetStore.allocate(16, 64)) {
+            manager.enableFleetStore(store);
+
+            manager.rentVehicle("C1", "alice", START, START.plusDays(2), false);
+            manager.removeVehicle("C2");
+
+            assertFalse(manager.isAvailableDuring("c1", START.plusDays(1), START.plusDays(3)));
+            assertEquals(1, store.bookingCount(store.indexOf("C1")));
+            assertTrue(store.isRented(store.indexOf("C1")));
+            assertEquals(-1, store.indexOf("C2"));
+        }
+    }
+
+    //Only the booking that changed may be written, and a refused booking must write nothing.
+    @Test
+    void enableFleetStore_writesSingleBookings() {
+        VehicleManager manager = new VehicleManager(Mockito.mock(VehicleDAO.class), Mockito.mock(RentalDAO.class));
+        manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+        try (OffHeapFleetStore store = Mockito.spy(OffHeapFleetStore.allocate(16, 64))) {
+            manager.enableFleetStore(store);
+            Mockito.clearInvocations(store);
+
+            // --- Act
+            assertTrue(manager.rentVehicle("C1", "alice", START, START.plusDays(2), false));
+            assertFalse(manager.rentVehicle("C1", "bob", START.plusDays(1), START.plusDays(3), false));
+
+            // --- Assert
+            Mockito.verify(store, Mockito.never()).put(any(), any());
+            Mockito.verify(store).putBooking(any());
+            Mockito.verify(store).putDetails(any());
+            assertEquals(1, store.bookingCount(store.indexOf("C1")));
+        }
+    }
+
+    //Records in a reopened store that match the vehicle's version and bookings must be kept, stale ones rewritten or dropped.
+    @Test
+    void enableFleetStore_keepsMatchingRecords() throws Exception {
+        Path file = dir.resolve("fleet.store");
+        Booking booking = new Booking("C1", "alice", START, START.plusDays(1), false);
+        try (OffHeapFleetStore store = OffHeapFleetStore.open(file, 16, 64)) {
+            store.put(new Car("C1", "Skoda", "Octavia", 40.0), List.of(booking));
+            store.put(new Car("C2", "Kia", "Ceed", 25.0), List.of());
+            store.put(new Car("C3", "Fiat", "Tipo", 30.0), List.of());
+        }
+        VehicleManager manager = new VehicleManager(Mockito.mock(VehicleDAO.class), Mockito.mock(RentalDAO.class));
+        manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+        manager.rentVehicle("C1", "alice", START, START.plusDays(1), false);
+        Car changed = new Car("C2", "Kia", "Ceed", 25.0);
+        changed.setVersion(3);
+        manager.addVehicle(changed);
+
+        try (OffHeapFleetStore store = Mockito.spy(OffHeapFleetStore.open(file, 16, 64))) {
+            // --- Act
+            manager.enableFleetStore(store);
+
+            // --- Assert
+            Mockito.verify(store, Mockito.never()).put(Mockito.argThat(v -> v.getId().equals("C1")), any());
+            Mockito.verify(store).put(Mockito.argThat(v -> v.getId().equals("C2")), any());
+            assertEquals(List.of(booking), store.bookings(store.indexOf("C1")));
+            assertEquals(-1, store.indexOf("C3"));
+        }
+    }
+}
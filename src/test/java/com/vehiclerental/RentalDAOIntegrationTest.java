@@ -1,16 +1,22 @@
 package com.vehiclerental;
 
 import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.RentalHistoryQuery;
+import com.vehiclerental.dao.RentalPage;
 import com.vehiclerental.models.Car;
+import com.vehiclerental.models.RentalRecord;
 import com.vehiclerental.models.Vehicle;
 import com.vehiclerental.utils.DatabaseConnection;
+import com.vehiclerental.utils.UnitOfWork;
 import org.junit.jupiter.api.*;
 import org.testcontainers.containers.MySQLContainer;
 
 import java.sql.Connection;
 import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,7 +58,8 @@ class RentalDAOIntegrationTest {
                   end_time     DATETIME,
                   total_price  DOUBLE,
                   paid         BOOLEAN,
-                  vehicle_type VARCHAR(20)
+                  vehicle_type VARCHAR(20),
+                  status       VARCHAR(20) NOT NULL DEFAULT 'RETURNED'
                 );
             """);
         }
@@ -83,4 +90,103 @@ class RentalDAOIntegrationTest {
         assertEquals("A1", all.get(0).getId());
         assertFalse(all.get(0).isPaid());
     }
+
+    @Test
+    void streamAllRentalHistory_readsEveryRowThroughCursor() throws Exception {
+
+        // Arrange
+        Vehicle van = new Car("S1", "Ford", "Transit", 80.0);
+        van.setRentedBy("bob");
+        van.setRentStartDateTime(LocalDateTime.now());
+        van.setRentEndDateTime  (LocalDateTime.now().plusDays(1));
+        rentalDAO.logRental(van);
+
+        try {
+            // Act: read the table back as a stream
+            List<RentalRecord> streamed;
+            try (Stream<RentalRecord> rows = rentalDAO.streamAllRentalHistory()) {
+                streamed = rows.toList();
+            }
+
+            // Assert
+            assertEquals(rentalDAO.getAllRentalHistory().size(), streamed.size());
+            assertTrue(streamed.stream().anyMatch(r -> r.vehicleId().equals("S1") && r.rentedBy().equals("bob")));
+        } finally {
+            // keep the table as the other tests expect it
+            try (Connection c = DatabaseConnection.getConnection();
+                 Statement  s = c.createStatement()) {
+                s.executeUpdate("DELETE FROM rentals WHERE vehicle_id = 'S1'");
+            }
+        }
+    }
+
+    @Test
+    void getRentalHistoryPage_walksPagesNewestFirstWithoutGaps() throws Exception {
+
+        // Arrange: five rentals for carol, one day apart
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            Vehicle car = new Car("P" + i, "Ford", "Focus", 30.0);
+            car.setRentedBy("carol");
+            car.setRentStartDateTime(base.plusDays(i));
+            car.setRentEndDateTime  (base.plusDays(i).plusHours(4));
+            rentalDAO.logRental(car);
+        }
+
+        try {
+            // Act: follow the continuation token with a page size of 2
+            List<String> seen = new ArrayList<>();
+            List<Integer> pageSizes = new ArrayList<>();
+            String token = null;
+            do {
+                RentalPage page = rentalDAO.getRentalHistoryPage(RentalHistoryQuery.forUser("carol", 2), token);
+                page.rows().forEach(r -> seen.add(r.vehicleId()));
+                pageSizes.add(page.rows().size());
+                token = page.nextToken();
+            } while (token != null);
+
+            // Assert
+            assertEquals(List.of("P4", "P3", "P2", "P1", "P0"), seen);
+            assertEquals(List.of(2, 2, 1), pageSizes);
+        } finally {
+            try (Connection c = DatabaseConnection.getConnection();
+                 Statement  s = c.createStatement()) {
+                s.executeUpdate("DELETE FROM rentals WHERE rented_by = 'carol'");
+            }
+        }
+    }
+
+    @Test
+    void insertRental_insideUnitOfWork_isOnlyKeptOnCommit() throws Exception {
+
+        // Arrange
+        Vehicle car = new Car("U1", "Ford", "Fiesta", 25.0);
+        car.setRentedBy("dave");
+        car.setRentStartDateTime(LocalDateTime.now());
+        car.setRentEndDateTime  (LocalDateTime.now().plusHours(3));
+
+        try {
+            // Act: one unit rolled back, one committed
+            UnitOfWork rolledBack = UnitOfWork.begin();
+            try {
+                rentalDAO.insertRental(car);
+            } finally {
+                rolledBack.close(); // without commit: rolls back
+            }
+            long rentalId;
+            try (UnitOfWork unit = UnitOfWork.begin()) {
+                rentalId = rentalDAO.insertRental(car);
+                unit.commit();
+            }
+
+            // Assert
+            assertTrue(rentalId > 0);
+            assertEquals(1, rentalDAO.getRentalHistoryByUser("dave").size());
+        } finally {
+            try (Connection c = DatabaseConnection.getConnection();
+                 Statement  s = c.createStatement()) {
+                s.executeUpdate("DELETE FROM rentals WHERE rented_by = 'dave'");
+            }
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.SnapshotFile;
+import com.vehiclerental.dao.StateSnapshot;
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.User;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.utils.StartupReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/* Unit tests for the warm-restart snapshot file (no database needed, DAOs are mocks). */
+class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    //A snapshot written from one VehicleManager must restore the same fleet, bookings and users in another.
+    @Test
+    void writeThenRead_restoresFleetBookingsAndUsers() throws Exception {
+        // --- Arrange: a car with two bookings and one user -------------------
+        VehicleDAO vehicleDAO = Mockito.mock(VehicleDAO.class);
+        RentalDAO rentalDAO = Mockito.mock(RentalDAO.class);
+        VehicleManager before = new VehicleManager(vehicleDAO, rentalDAO);
+        before.addVehicle(new Car("C1", "Skoda", "Octavia", 42.5));
+        LocalDateTime start = LocalDateTime.of(2031, 3, 1, 9, 0);
+        before.rentVehicle("C1", "alice", start, start.plusDays(2), true);
+        before.rentVehicle("C1", "bob", start.plusDays(5), start.plusDays(6), false);
+        User alice = new User("alice", "pw", "CUSTOMER", "Alice", "alice@example.com", "123", "1 Main St");
+        Path file = dir.resolve("state.snapshot");
+
+        // the restoring manager's storage: nothing changed since the snapshot
+        VehicleDAO storedVehicles = Mockito.mock(VehicleDAO.class);
+        RentalDAO storedRentals = Mockito.mock(RentalDAO.class);
+        Storage storage = Mockito.mock(Storage.class);
+        Mockito.when(storage.vehicles()).thenReturn(storedVehicles);
+        Mockito.when(storage.rentals()).thenReturn(storedRentals);
+
+        // --- Act: write, read back through the mapped file and restore --------
+        SnapshotFile.write(file, before.snapshot(LocalDateTime.of(2031, 2, 1, 12, 0), List.of(alice)));
+        StateSnapshot read = SnapshotFile.read(file);
+        VehicleManager after = new VehicleManager(read, storage, new StartupReport());
+
+        // --- Assert ------------------------------------------------------------
+        assertEquals(LocalDateTime.of(2031, 2, 1, 12, 0), read.asOf());
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        assertEquals(2, read.bookings().size());
+        assertEquals("alice@example.com", read.users().get(0).getEmail());
+        Vehicle car = after.findVehicleById("C1");
+        assertEquals(42.5, car.getPricePerDay());
+        assertEquals("alice", car.getRentedBy());
+        assertTrue(car.isPaid());
+        assertFalse(after.isAvailableDuring("C1", start.plusDays(5).plusHours(1), start.plusDays(5).plusHours(2)));
+        assertTrue(after.isAvailableDuring("C1", start.plusDays(3), start.plusDays(4)));
+        // restored, not reloaded: only the changes since the snapshot were asked for
+        Mockito.verify(storedVehicles, Mockito.never()).getAllVehicles();
+        Mockito.verify(storedRentals, Mockito.never()).getActiveBookings();
+        Mockito.verify(storedVehicles).getVehiclesChangedSince(read.changesSince());
+        Mockito.verify(storedRentals).getVehicleIdsWithBookingChangesSince(read.changesSince());
+    }
+
+    //A damaged file must be ignored (null) so start-up falls back to a full load.
+    @Test
+    void read_corruptFile_returnsNull() throws Exception {
+        Path file = dir.resolve("state.snapshot");
+        SnapshotFile.write(file, new StateSnapshot(LocalDateTime.now(), List.of(new Car("C1", "VW", "Golf", 30.0)),
+                List.of(), List.of()));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertNull(SnapshotFile.read(file));
+        assertNull(SnapshotFile.read(dir.resolve("missing.snapshot")));
+    }
+}
@@ -0,0 +1,184 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.BookingDAO;
+import com.vehiclerental.dao.RentalHistoryQuery;
+import com.vehiclerental.dao.RentalPage;
+import com.vehiclerental.dao.StaleVehicleException;
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.User;
+import com.vehiclerental.models.Van;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.BookingResult;
+import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.utils.StartupReport;
+import com.vehiclerental.utils.UnitOfWork;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for the in-memory and embedded storage backends (no database, the embedded file lives in a temp directory). */
+class StorageTest {
+
+    @TempDir
+    Path dir;
+
+    private static final LocalDateTime START = LocalDateTime.of(2031, 6, 1, 9, 0);
+
+    //An update based on an old version must be rejected and leave the stored row as it was.
+    @Test
+    void inMemory_updateVehicle_rejectsStaleVersion() throws SQLException {
+        try (Storage storage = Storage.inMemory()) {
+            storage.vehicles().saveVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            Vehicle first = storage.vehicles().getVehicleById("C1");
+            Vehicle second = storage.vehicles().getVehicleById("C1");
+
+            first.setPricePerDay(45.0);
+            assertTrue(storage.vehicles().updateVehicle(first));
+            second.setPricePerDay(50.0);
+
+            assertThrows(StaleVehicleException.class, () -> storage.vehicles().updateVehicle(second));
+            assertEquals(45.0, storage.vehicles().getVehicleById("C1").getPricePerDay());
+            assertEquals(1, storage.vehicles().getVehicleById("C1").getVersion());
+        }
+    }
+
+    //A booking whose rental insert fails must roll back the vehicle update made in the same unit of work.
+    @Test
+    void inMemory_failedBooking_rollsBackVehicleUpdate() throws SQLException {
+        try (Storage storage = Storage.inMemory()) {
+            storage.vehicles().saveVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            Vehicle vehicle = storage.vehicles().getVehicleById("C1");
+            vehicle.setRented(true);
+            vehicle.setRentedBy("alice");
+            Vehicle rental = new Car("C1", "Skoda", "Octavia", 40.0); // no rental period: the insert fails
+
+            assertThrows(SQLException.class, () -> new BookingDAO(storage.vehicles(), storage.rentals())
+                    .commitBooking(vehicle, rental));
+
+            Vehicle stored = storage.vehicles().getVehicleById("C1");
+            assertFalse(stored.isRented());
+            assertNull(stored.getRentedBy());
+            assertEquals(0, stored.getVersion());
+            assertEquals(0, vehicle.getVersion());
+        }
+    }
+
+    //VehicleManager must run on in-memory storage: a booking is stored, seen by a fresh manager and listed in history.
+    @Test
+    void vehicleManager_onInMemoryStorage_persistsBookings() throws SQLException {
+        try (Storage storage = Storage.inMemory()) {
+            VehicleManager manager = new VehicleManager(storage, new StartupReport());
+            manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+
+            assertEquals(BookingResult.SUCCESS, manager.tryRent("C1", "alice", START, START.plusDays(2), false));
+
+            VehicleManager restarted = new VehicleManager(storage, new StartupReport());
+            assertFalse(restarted.isAvailableDuring("C1", START.plusDays(1), START.plusDays(3)));
+            RentalPage page = storage.rentals().getRentalHistoryPage(RentalHistoryQuery.forUser("alice", 10), null);
+            assertEquals(1, page.rows().size());
+            assertEquals(80.0, page.rows().get(0).totalPrice());
+        }
+    }
+
+    //Rolled-back inserts and deletes must leave rows and tombstones as they were, also after the log is replayed.
+    @Test
+    void embedded_rollback_restoresRowsAndTombstones() throws Exception {
+        try (Storage storage = Storage.embedded(dir)) {
+            storage.vehicles().saveVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            storage.users().saveUser(new User("alice", "secret", "customer", "Alice", "a@x", "555", "Street 1"));
+
+            // --- Act
+            UnitOfWork unit = UnitOfWork.begin();
+            try {
+                storage.vehicles().saveVehicle(new Van("V1", "Ford", "Transit", 60.0));
+                storage.vehicles().deleteVehicle("C1");
+                storage.users().saveUser(new User("bob", "secret", "customer", "Bob", "b@x", "556", "Street 2"));
+                storage.users().deleteUser("alice");
+            } finally {
+                unit.close(); // without commit: rolls back
+            }
+
+            // --- Assert
+            assertNull(storage.vehicles().getVehicleById("V1"));
+            assertNotNull(storage.vehicles().getVehicleById("C1"));
+            assertEquals(List.of(), storage.vehicles().getDeletedVehicleIdsSince(START.minusYears(10)));
+            assertEquals(List.of(), storage.users().getDeletedUsernamesSince(START.minusYears(10)));
+        }
+        try (Storage reopened = Storage.embedded(dir)) {
+            assertEquals(List.of("C1"), reopened.vehicles().getAllVehicles().stream().map(Vehicle::getId).toList());
+            assertEquals(List.of(), reopened.vehicles().getDeletedVehicleIdsSince(START.minusYears(10)));
+            assertEquals(List.of("alice"), reopened.users().getAllUsers().stream().map(User::getUsername).toList());
+            assertEquals(List.of(), reopened.users().getDeletedUsernamesSince(START.minusYears(10)));
+        }
+    }
+
+    //An undo action that throws must not stop the others, and the thread must be free for a new unit afterwards.
+    @Test
+    void unitOfWork_close_runsEveryUndoEvenIfOneFails() {
+        List<String> undone = new ArrayList<>();
+        UnitOfWork unit = UnitOfWork.begin();
+        UnitOfWork.onRollback(() -> undone.add("first write"));
+        UnitOfWork.onRollback(() -> { throw new IllegalStateException("undo failed"); });
+        UnitOfWork.onRollback(() -> undone.add("last write"));
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, unit::close);
+
+        assertEquals("undo failed", thrown.getMessage());
+        assertEquals(List.of("last write", "first write"), undone);
+        assertDoesNotThrow(() -> UnitOfWork.begin().close());
+    }
+
+    //IDs and usernames must match ignoring case, like the MySQL tables.
+    @Test
+    void inMemory_keys_ignoreCase() throws SQLException {
+        try (Storage storage = Storage.inMemory()) {
+            storage.vehicles().saveVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            storage.users().saveUser(new User("Alice", "secret", "customer", "Alice", "a@x", "555", "Street 1"));
+
+            assertThrows(SQLException.class, () -> storage.vehicles().saveVehicle(new Car("c1", "Kia", "Ceed", 25.0)));
+            assertEquals("C1", storage.vehicles().getVehicleById("c1").getId());
+            assertEquals("Alice", storage.users().getUser("alice").getUsername());
+            assertTrue(storage.vehicles().deleteVehicle("c1"));
+            assertEquals(List.of("C1"), storage.vehicles().getDeletedVehicleIdsSince(START.minusYears(10)));
+        }
+    }
+
+    //An embedded store must come back with its rows, bookings, users and deletions, ignoring a torn last record.
+    @Test
+    void embedded_reopen_restoresStateAndDropsTornTail() throws Exception {
+        try (Storage storage = Storage.embedded(dir)) {
+            storage.vehicles().saveVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+            storage.vehicles().saveVehicle(new Van("V1", "Ford", "Transit", 60.0));
+            storage.vehicles().deleteVehicle("V1");
+            Vehicle rental = storage.vehicles().getVehicleById("C1");
+            rental.setRented(true);
+            rental.setRentedBy("alice");
+            rental.setRentStartDateTime(START);
+            rental.setRentEndDateTime(START.plusDays(1));
+            storage.rentals().insertRental(rental);
+            storage.rentals().markRentalAsPaid(new Booking("C1", "alice", START, START.plusDays(1), false));
+            storage.users().saveUser(new User("alice", "secret", "customer", "Alice", "a@x", "555", "Street 1"));
+        }
+        Files.write(dir.resolve("storage.log"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        try (Storage reopened = Storage.embedded(dir)) {
+            assertEquals(List.of("C1"), reopened.vehicles().getAllVehicles().stream().map(Vehicle::getId).toList());
+            assertEquals(List.of("V1"), reopened.vehicles().getDeletedVehicleIdsSince(START.minusYears(10)));
+            List<Booking> bookings = reopened.rentals().getActiveBookings("C1");
+            assertEquals(1, bookings.size());
+            assertTrue(bookings.get(0).paid());
+            assertEquals("a@x", reopened.users().getUser("alice").getEmail());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.vehiclerental;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/* A UTC clock for tests that only moves when advance() is called. */
+final class TestClock extends Clock {
+
+    private volatile Instant instant;
+
+    TestClock(Instant start) {
+        this.instant = start;
+    }
+
+    void advance(Duration duration) {
+        instant = instant.plus(duration);
+    }
+
+    @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+    @Override public Clock withZone(ZoneId zone) { return this; }
+    @Override public Instant instant() { return instant; }
+}
@@ -0,0 +1,77 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.InMemoryUserRepository;
+import com.vehiclerental.models.User;
+import com.vehiclerental.services.AuthService;
+import com.vehiclerental.services.PasswordHasher;
+import com.vehiclerental.services.SessionStore;
+import com.vehiclerental.services.UserCache;
+import com.vehiclerental.services.UserCacheStats;
+import com.vehiclerental.utils.StartupReport;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Unit tests for the bounded user cache and AuthService's read-through mode. */
+class UserCacheTest {
+
+    private static User user(String username) {
+        return new User(username, "pw", "CUSTOMER", username, username + "@example.com", "1", "Street 1");
+    }
+
+    //The least recently used entry must go when the cache is full, entries must expire after the TTL,
+    //and a load that overlaps an invalidation must not be cached.
+    @Test
+    void cache_evictsLeastRecentlyUsedAndExpires() {
+        //Arrange
+        TestClock clock = new TestClock(Instant.parse("2031-06-01T09:00:00Z"));
+        UserCache cache = new UserCache(2, Duration.ofMinutes(10), clock);
+        cache.put(user("a"), cache.version());
+        cache.put(user("b"), cache.version());
+
+        //Act
+        assertNotNull(cache.get("a"));
+        cache.put(user("c"), cache.version());
+        long before = cache.version();
+        cache.invalidate("a");
+        cache.put(user("a"), before);
+        clock.advance(Duration.ofMinutes(11));
+
+        //Assert
+        assertNull(cache.get("b"), "b was least recently used");
+        assertNull(cache.get("a"), "loaded before the invalidation");
+        assertNull(cache.get("c"), "past its TTL");
+        UserCacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(1, stats.evictions());
+        assertEquals(1, stats.expirations());
+        assertEquals(0.25, stats.hitRate());
+    }
+
+    //In cached mode nothing is loaded up front, logins read through the cache and changes invalidate it.
+    @Test
+    void authService_readsThroughCache() throws Exception {
+        InMemoryUserRepository repository = Mockito.spy(new InMemoryUserRepository());
+        AuthService auth = new AuthService(repository, new PasswordHasher(1000),
+                new SessionStore(Duration.ofMinutes(30), Duration.ofHours(12)),
+                new UserCache(100, Duration.ofMinutes(10)), new StartupReport());
+        Mockito.verify(repository, Mockito.never()).getAllUsers();
+
+        assertTrue(auth.register("alice", "pw", "CUSTOMER"));
+        assertFalse(auth.register("alice", "pw", "CUSTOMER"));
+        assertNotNull(auth.login("alice", "pw"));
+        assertNotNull(auth.login("alice", "pw"));
+        assertTrue(auth.updateUser("alice", "Alice A", "2", "alice@example.org", "Street 2"));
+
+        assertEquals("alice@example.org", auth.getUser("alice").getEmail());
+        assertTrue(auth.deleteUser("alice"));
+        assertNull(auth.getUser("alice"));
+        assertTrue(auth.isCaching());
+        assertTrue(auth.getCacheStats().hits() >= 2);
+    }
+}
@@ -0,0 +1,162 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.VehicleManager;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* Multi-threaded stress test for VehicleManager: racing bookings must never double-book a vehicle. */
+class VehicleManagerConcurrencyTest {
+
+    private static final int VEHICLES = 8;
+    private static final int ATTEMPTS_PER_THREAD = 2_000;
+
+    private static VehicleManager newManager() {
+        // plain DAO stubs: Mockito mocks record every call under a lock and would serialise the threads
+        VehicleDAO vehicleDAO = new VehicleDAO() {
+            @Override
+            public void saveVehicle(Vehicle vehicle) { }
+
+            @Override
+            public boolean updateVehicle(Vehicle vehicle) {
+                return true;
+            }
+        };
+        RentalDAO rentalDAO = new RentalDAO() {
+            @Override
+            public long insertRental(Vehicle vehicle) {
+                return 0;
+            }
+        };
+        VehicleManager manager = new VehicleManager(vehicleDAO, rentalDAO);
+        for (int i = 0; i < VEHICLES; i++) {
+            manager.addVehicle(new Car("C" + i, "VW", "Golf", 30.0));
+        }
+        return manager;
+    }
+
+    //Threads race for overlapping periods on a few vehicles; accepted bookings of one vehicle must never overlap.
+    @Test
+    void concurrentBookings_neverDoubleBook() throws Exception {
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            // --- Arrange ---------------------------------------------------------
+            VehicleManager manager = newManager();
+            List<Booking> accepted = Collections.synchronizedList(new ArrayList<>());
+            LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+            CountDownLatch go = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String user = "user" + t;
+                Random random = new Random(t);
+                workers.add(pool.submit(() -> {
+                    go.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        String vehicleId = "C" + random.nextInt(VEHICLES);
+                        LocalDateTime start = base.plusHours(random.nextInt(500));
+                        LocalDateTime end = start.plusHours(1 + random.nextInt(12));
+                        if (manager.rentVehicle(vehicleId, user, start, end, false)) {
+                            accepted.add(new Booking(vehicleId, user, start, end, false));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            // --- Act -------------------------------------------------------------
+            go.countDown();
+            for (Future<?> worker : workers) worker.get();
+            pool.shutdown();
+
+            // --- Assert ----------------------------------------------------------
+            Map<String, List<Booking>> byVehicle = accepted.stream()
+                    .collect(Collectors.groupingBy(Booking::vehicleId));
+            for (List<Booking> bookings : byVehicle.values()) {
+                bookings.sort(Comparator.comparing(Booking::start));
+                for (int i = 1; i < bookings.size(); i++) {
+                    Booking previous = bookings.get(i - 1);
+                    Booking next = bookings.get(i);
+                    assertTrue(previous.end().isBefore(next.start()),
+                            "Double booking of " + next.vehicleId() + ": " + previous + " and " + next);
+                }
+            }
+            int held = 0;
+            for (int t = 0; t < threads; t++) {
+                held += manager.getUpcomingBookings("user" + t).size();
+            }
+            assertEquals(accepted.size(), held, "Every accepted booking must be held by the manager, and nothing else");
+        }
+    }
+
+    //Availability checks and searches must not wait for a booking of the same vehicle that is being written.
+    @Test
+    void availabilityChecks_doNotWaitForDatabaseWrite() throws Exception {
+        // --- Arrange: the rental insert blocks until the test lets it go ---------
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RentalDAO rentalDAO = new RentalDAO() {
+            @Override
+            public long insertRental(Vehicle vehicle) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }
+        };
+        VehicleDAO vehicleDAO = new VehicleDAO() {
+            @Override
+            public void saveVehicle(Vehicle vehicle) { }
+
+            @Override
+            public boolean updateVehicle(Vehicle vehicle) {
+                return true;
+            }
+        };
+        VehicleManager manager = new VehicleManager(vehicleDAO, rentalDAO);
+        Vehicle car = new Car("C1", "VW", "Golf", 30.0);
+        manager.addVehicle(car);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> rent = pool.submit(() -> manager.rentVehicle("C1", "alice", start, start.plusHours(2), false));
+            writing.await();
+
+            // --- Act: read while the write holds the vehicle's lock ---------------
+            Future<Boolean> later = pool.submit(() -> manager.isAvailableForPeriod(car, start.plusDays(1), start.plusDays(2)));
+            Future<List<Vehicle>> search = pool.submit(() -> manager.searchAvailable(start.plusDays(1), start.plusDays(2), null, null, 5));
+
+            // --- Assert ----------------------------------------------------------
+            assertTrue(later.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(car), search.get(5, TimeUnit.SECONDS));
+            release.countDown();
+            assertTrue(rent.get());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+}
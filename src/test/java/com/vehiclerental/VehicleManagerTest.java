@@ -1,18 +1,31 @@
 package com.vehiclerental;
 
+import com.vehiclerental.dao.BatchResult;
 import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.StaleVehicleException;
 import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Booking;
 import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Van;
 import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.BookingResult;
+import com.vehiclerental.services.RentalReceipt;
 import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.services.WriteBehindConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
 //Unit test 1 (UT-1): VehicleManager must reject overlapping rentals.
@@ -49,6 +62,254 @@ class VehicleManagerTest {
 
         // --- Assert ----------------------------------------------------------
         assertFalse(booked);  // should be rejected
-        Mockito.verify(rentalDAO, Mockito.never()).logRental(any(Vehicle.class)); // DAO not called
+        Mockito.verify(rentalDAO, Mockito.never()).insertRental(any()); // nothing written
+        Mockito.verify(vehicleDAO, Mockito.never()).updateVehicle(any());
+    }
+
+    //addVehicles() must report duplicates and DB-rejected rows, and only keep the saved vehicles in memory.
+    @Test
+    void addVehicles_reportsDuplicatesAndRejectedRows() throws SQLException {
+        Vehicle ok = new Car("2", "VW", "Golf", 25.0);
+        Vehicle duplicate = new Car("1", "Audi", "A3", 45.0); // "1" already exists
+        Vehicle rejected = new Car("3", "Kia", "Ceed", 20.0);
+        Mockito.when(vehicleDAO.saveVehicles(any())).thenReturn(new BatchResult(2, 1,
+                List.of(new BatchResult.RowFailure(1, "3", "Data too long"))));
+
+        BatchResult result = manager.addVehicles(List.of(ok, duplicate, rejected));
+
+        assertEquals(1, result.succeeded());
+        assertEquals(List.of(1, 2), result.failures().stream().map(BatchResult.RowFailure::index).toList());
+        assertNotNull(manager.findVehicleById("2"));
+        assertNull(manager.findVehicleById("3"));
+    }
+
+    //Status and renter listings must follow rent, payment and return of a vehicle.
+    @Test
+    void indexes_followRentPayAndReturn() throws SQLException {
+        Vehicle free = new Car("2", "VW", "Golf", 25.0);
+        manager.addVehicle(free);
+        assertEquals(List.of(free), manager.getAvailableVehicles());
+
+        manager.rentVehicle("2", "bob", LocalDateTime.of(2025, 6, 1, 9, 0), LocalDateTime.of(2025, 6, 1, 17, 0), false);
+        assertTrue(manager.getAvailableVehicles().isEmpty());
+        assertEquals(List.of("2"), manager.getVehiclesRentedByUser("bob").stream().map(Vehicle::getId).toList());
+        assertEquals(2, manager.getUnpaidRentedVehicles().size()); // "1" from setUp is unpaid too
+
+        manager.confirmPayment("2");
+        assertEquals(List.of("1"), manager.getUnpaidRentedVehicles().stream().map(Vehicle::getId).toList());
+
+        manager.returnVehicle("2");
+        assertEquals(List.of(free), manager.getAvailableVehicles());
+        assertTrue(manager.getVehiclesRentedByUser("bob").isEmpty());
+        assertEquals(2, manager.getVehiclesByType("Car").size());
+    }
+
+    //A vehicle must take several back-to-back bookings, reject any that overlaps one of them, and move on to the next booking on return.
+    @Test
+    void rentVehicle_keepsSeveralBookingsPerVehicle() {
+        LocalDateTime day = LocalDateTime.of(2025, 5, 21, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(manager.rentVehicle("1", "bob", day.plusDays(i), day.plusDays(i).plusHours(8), false));
+        }
+
+        assertFalse(manager.isAvailableDuring("1", day.plusDays(2).plusHours(7), day.plusDays(2).plusHours(9)));
+        assertTrue(manager.isAvailableDuring("1", day.plusDays(2).plusHours(9), day.plusDays(3).minusHours(1)));
+
+        manager.returnVehicle("1"); // closes the 20 May booking from setUp
+        Vehicle vehicle = manager.findVehicleById("1");
+        assertTrue(vehicle.isRented());
+        assertEquals(day, vehicle.getRentStartDateTime());
+        assertEquals("bob", vehicle.getRentedBy());
+    }
+
+    //rent() must hand back the id the rentals insert generated, and no id for a refused booking.
+    @Test
+    void rent_returnsGeneratedRentalId() throws SQLException {
+        Mockito.when(rentalDAO.insertRental(any(Vehicle.class))).thenReturn(42L);
+        LocalDateTime day = LocalDateTime.of(2025, 5, 21, 9, 0);
+
+        RentalReceipt receipt = manager.rent("1", "bob", day, day.plusHours(8), false);
+        RentalReceipt refused = manager.rent("1", "carol", day.plusHours(2), day.plusHours(4), false);
+
+        assertEquals(new RentalReceipt(BookingResult.SUCCESS, 42L), receipt);
+        assertEquals(new RentalReceipt(BookingResult.UNAVAILABLE, 0L), refused);
+    }
+
+    //A renter's listing must show every booking they hold, not only the earliest booking of each vehicle.
+    @Test
+    void getVehiclesRentedByUser_listsEveryBooking() {
+        LocalDateTime day = LocalDateTime.of(2025, 5, 21, 9, 0);
+        manager.rentVehicle("1", "bob", day, day.plusHours(8), false);
+        manager.rentVehicle("1", "bob", day.plusDays(2), day.plusDays(2).plusHours(8), false);
+
+        List<Vehicle> bob = manager.getVehiclesRentedByUser("bob");
+
+        assertEquals(List.of(day, day.plusDays(2)), bob.stream().map(Vehicle::getRentStartDateTime).toList());
+        assertTrue(bob.stream().allMatch(v -> v.getId().equals("1") && "bob".equals(v.getRentedBy())));
+    }
+
+    //Cancelling one upcoming booking must leave the user's other bookings of the same vehicle in place.
+    @Test
+    void cancelUpcomingBooking_cancelsOnlyTheChosenBooking() {
+        LocalDateTime first = LocalDateTime.now().plusDays(7).withNano(0);
+        LocalDateTime second = first.plusDays(3);
+        manager.rentVehicle("1", "carol", first, first.plusDays(1), false);
+        manager.rentVehicle("1", "carol", second, second.plusDays(1), false);
+
+        assertTrue(manager.cancelUpcomingBooking("1", "carol", second));
+
+        List<Vehicle> upcoming = manager.getUpcomingBookings("carol");
+        assertEquals(List.of(first), upcoming.stream().map(Vehicle::getRentStartDateTime).toList());
+        assertTrue(manager.isAvailableDuring("1", second, second.plusDays(1)));
+    }
+
+    //searchAvailable must skip booked vehicles, honour type and price ceiling, and list the cheapest first.
+    @Test
+    void searchAvailable_returnsCheapestFreeVehiclesFirst() {
+        manager.addVehicle(new Car("2", "VW", "Golf", 25.0));
+        manager.addVehicle(new Car("3", "Kia", "Ceed", 20.0));
+        manager.addVehicle(new Car("4", "Audi", "A6", 90.0));
+        manager.addVehicle(new Van("5", "Ford", "Transit", 15.0));
+        LocalDateTime from = LocalDateTime.of(2025, 5, 20, 9, 0);
+        manager.rentVehicle("3", "bob", from, from.plusHours(4), false);
+
+        assertEquals(List.of("2"), ids(manager.searchAvailable(from, from.plusDays(1), "Car", 60.0, 5)));
+
+        LocalDateTime later = from.plusDays(7);
+        assertEquals(List.of("5", "3"), ids(manager.searchAvailable(later, later.plusDays(1), null, null, 2)));
+
+        manager.updateVehicleDetails("4", "Audi", "A6", 10.0); // price index must follow the change
+        assertEquals(List.of("4"), ids(manager.searchAvailable(later, later.plusDays(1), null, null, 1)));
+    }
+
+    //A vehicle booked on a day inside the period must stay ruled out until its last booking on that day is cancelled.
+    @Test
+    void searchAvailable_followsBookingsOnDaysInsideThePeriod() {
+        manager.addVehicle(new Car("2", "VW", "Golf", 25.0));
+        manager.addVehicle(new Car("3", "Kia", "Ceed", 20.0));
+        LocalDateTime day = LocalDateTime.of(2031, 3, 12, 0, 0);
+        LocalDateTime morning = day.plusHours(9);
+        LocalDateTime afternoon = day.plusHours(14);
+        manager.rentVehicle("3", "bob", morning, morning.plusHours(3), false);
+        manager.rentVehicle("3", "carol", afternoon, afternoon.plusHours(3), false);
+        LocalDateTime from = day.minusHours(12);
+        LocalDateTime to = day.plusDays(1).plusHours(12);
+
+        assertEquals(List.of("2"), ids(manager.searchAvailable(from, to, "Car", 30.0, 5)));
+
+        manager.cancelUpcomingBooking("3", "bob", morning); // the afternoon booking still falls on that day
+        assertEquals(List.of("2"), ids(manager.searchAvailable(from, to, "Car", 30.0, 5)));
+
+        manager.cancelUpcomingBooking("3", "carol", afternoon);
+        assertEquals(List.of("3", "2"), ids(manager.searchAvailable(from, to, "Car", 30.0, 5)));
+    }
+
+    //A write rejected as stale must reload the vehicle, see the other instance's booking and re-check the period.
+    @Test
+    void tryRent_reloadsAfterStaleWriteAndRechecksPeriod() throws SQLException {
+        // --- Arrange: another instance booked 21 May 09:00-11:00 after we loaded vehicle 1 ---------
+        LocalDateTime start = LocalDateTime.of(2025, 5, 21, 10, 0);
+        Vehicle fresh = new Car("1", "BMW", "M3", 50.0);
+        fresh.setAvailable(false);
+        fresh.setRented(true);
+        fresh.setRentStartDateTime(LocalDateTime.of(2025, 5, 20, 10, 0));
+        fresh.setRentEndDateTime(LocalDateTime.of(2025, 5, 20, 12, 0));
+        fresh.setVersion(1);
+        Booking theirs = new Booking("1", "bob", start.minusHours(1), start.plusHours(1), false);
+        Mockito.when(vehicleDAO.updateVehicle(any(Vehicle.class))).thenThrow(new StaleVehicleException("1", 0));
+        Mockito.when(vehicleDAO.getVehicleById("1")).thenReturn(fresh);
+        Mockito.when(rentalDAO.getActiveBookings("1")).thenReturn(List.of(theirs));
+
+        // --- Act ---------------------------------------------------------------
+        BookingResult result = manager.tryRent("1", "alice", start, start.plusHours(2), false);
+
+        // --- Assert: nothing of ours was written and the period is now taken ----
+        assertEquals(BookingResult.UNAVAILABLE, result);
+        Mockito.verify(vehicleDAO, Mockito.times(1)).updateVehicle(any(Vehicle.class));
+        Mockito.verify(rentalDAO, Mockito.never()).insertRental(any(Vehicle.class));
+        assertEquals(1, manager.findVehicleById("1").getVersion());
+        assertFalse(manager.isAvailableDuring("1", start.minusMinutes(30), start));
+    }
+
+    //In write-behind mode calls return before the database write; shutdown() must still write every queued change.
+    @Test
+    void writeBehind_flushesQueuedWritesOnShutdown() throws SQLException {
+        // --- Arrange ---------------------------------------------------------------
+        manager.enableWriteBehind(new WriteBehindConfig(16, 8, Duration.ofMillis(50)));
+        LocalDateTime start = LocalDateTime.of(2025, 5, 22, 10, 0);
+
+        // --- Act: rent, pay and return, then shut down ------------------------------
+        assertTrue(manager.rentVehicle("1", "alice", start, start.plusHours(2), false)); // queued behind 20 May
+        assertTrue(manager.returnVehicle("1"));
+        assertTrue(manager.confirmPayment("1"));
+        manager.shutdown();
+
+        // --- Assert: each change wrote the vehicle row once and nothing is left queued
+        Mockito.verify(vehicleDAO, Mockito.times(3)).updateVehicle(any(Vehicle.class));
+        Mockito.verify(rentalDAO).insertRental(any(Vehicle.class));
+        Mockito.verify(rentalDAO).returnRental(any(Booking.class));
+        Mockito.verify(rentalDAO).payRental(any(Booking.class));
+        assertEquals(3, manager.findVehicleById("1").getVersion());
+        assertNull(manager.getWriteBehindStats());
+    }
+
+    //A queued rental write that fails must not be lost silently: the vehicle is reloaded before its next change.
+    @Test
+    void writeBehind_reloadsVehicleAfterFailedRentalWrite() throws SQLException {
+        // --- Arrange: the return's rental row cannot be written ----------------------
+        Mockito.doThrow(new SQLException("Deadlock found")).when(rentalDAO).returnRental(any(Booking.class));
+        Vehicle stored = new Car("1", "BMW", "M3", 50.0);
+        stored.setVersion(1);
+        Mockito.when(vehicleDAO.getVehicleById("1")).thenReturn(stored);
+        manager.enableWriteBehind(new WriteBehindConfig(16, 1, Duration.ofMillis(10)));
+
+        // --- Act ------------------------------------------------------------------
+        assertTrue(manager.returnVehicle("1"));
+        manager.shutdown();
+        manager.rentVehicle("1", "alice", LocalDateTime.of(2025, 5, 22, 10, 0), LocalDateTime.of(2025, 5, 22, 12, 0), false);
+
+        // --- Assert: the failure was seen and the vehicle re-read from the database ---
+        Mockito.verify(vehicleDAO).getVehicleById("1");
+    }
+
+    //A return, cancellation or payment that cannot be written must leave the vehicle and its bookings as they were.
+    @Test
+    void failedWrites_leaveVehicleUnchanged() throws SQLException {
+        // --- Arrange: no rental status change can be written ------------------------
+        LocalDateTime later = LocalDateTime.now().plusDays(3).withNano(0);
+        assertTrue(manager.rentVehicle("1", "bob", later, later.plusHours(4), false));
+        Mockito.doThrow(new SQLException("Lock wait timeout")).when(rentalDAO).returnRental(any(Booking.class));
+        Mockito.doThrow(new SQLException("Lock wait timeout")).when(rentalDAO).cancelRental(any(Booking.class));
+        Mockito.doThrow(new SQLException("Lock wait timeout")).when(rentalDAO).payRental(any(Booking.class));
+        Vehicle vehicle = manager.findVehicleById("1");
+        long version = vehicle.getVersion();
+
+        // --- Act --------------------------------------------------------------------
+        assertEquals(BookingResult.FAILED, manager.tryReturn("1"));
+        assertEquals(BookingResult.FAILED, manager.tryConfirmPayment("1"));
+        assertFalse(manager.cancelUpcomingBooking("1", "bob", later));
+
+        // --- Assert: both bookings are still held, unpaid, on the same version -------
+        assertTrue(vehicle.isRented());
+        assertFalse(vehicle.isPaid());
+        assertEquals(LocalDateTime.of(2025, 5, 20, 10, 0), vehicle.getRentStartDateTime());
+        assertFalse(manager.isAvailableDuring("1", later, later.plusHours(1)));
+        assertEquals(version, vehicle.getVersion());
+        assertEquals(1, manager.getUnpaidRentedVehicles().size());
+    }
+
+    //Rental history is not read at construction, only once on first use.
+    @Test
+    void getRentalHistory_loadsOnceOnFirstUse() {
+        Mockito.verify(rentalDAO, Mockito.never()).getAllRentalHistory();
+
+        manager.getRentalHistory();
+        manager.getRentalHistoryByUser("alice");
+
+        Mockito.verify(rentalDAO, Mockito.times(1)).getAllRentalHistory();
+    }
+
+    private static List<String> ids(List<Vehicle> vehicles) {
+        return vehicles.stream().map(Vehicle::getId).toList();
     }
 }
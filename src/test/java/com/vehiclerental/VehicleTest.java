@@ -0,0 +1,103 @@
+package com.vehiclerental;
+
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Names;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.VehicleManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/* Unit tests for Vehicle's compact state: rental times as epoch seconds and status flags as bits. */
+class VehicleTest {
+
+    //A rental time must read back as set, to the second, and null must stay null.
+    @Test
+    void rentalTimes_roundTripToTheSecond() {
+        Vehicle car = new Car("C1", "Skoda", "Octavia", 40.0);
+        assertNull(car.getRentStartDateTime());
+        assertNull(car.getRentEndDateTime());
+
+        LocalDateTime start = LocalDateTime.of(2031, 6, 1, 9, 30, 15);
+        car.setRentStartDateTime(start);
+        car.setRentEndDateTime(start.plusDays(3).withNano(999_999_999));
+
+        assertEquals(start, car.getRentStartDateTime());
+        assertEquals(start.plusDays(3), car.getRentEndDateTime());
+        assertEquals(3, car.getRentalDurationDays());
+        assertEquals(120.0, car.calculateRentalPrice());
+
+        car.setRentStartDateTime(null);
+        assertNull(car.getRentStartDateTime());
+        assertEquals(0, car.getRentalDurationDays());
+    }
+
+    //Times far outside the epoch-nanosecond range (1678-2262) must still fit.
+    @Test
+    void rentalTimes_coverTheWholeDateRange() {
+        Vehicle car = new Car("C1", "Skoda", "Octavia", 40.0);
+        for (LocalDateTime time : new LocalDateTime[] {
+                LocalDateTime.of(2300, 1, 1, 0, 0), LocalDateTime.of(1600, 1, 1, 0, 0),
+                LocalDateTime.MIN, LocalDateTime.MAX.withNano(0)}) {
+            car.setRentStartDateTime(time);
+            assertEquals(time, car.getRentStartDateTime());
+        }
+    }
+
+    //Brand and model must share one instance per name; renter names must stay out of the never-emptied dictionary.
+    @Test
+    void names_shareBrandAndModelButNotRenters() {
+        Vehicle first = new Car("C1", new String("Skoda"), new String("Octavia"), 40.0);
+        Vehicle second = new Car("C2", new String("Skoda"), new String("Octavia"), 40.0);
+        assertSame(first.getBrand(), second.getBrand());
+        assertSame(first.getModel(), second.getModel());
+
+        int names = Names.size();
+        for (int i = 0; i < 100; i++) first.setRentedBy("renter-" + i);
+        assertEquals(names, Names.size());
+    }
+
+    //Each status flag must change on its own.
+    @Test
+    void flags_areIndependent() {
+        Vehicle car = new Car("C1", "Skoda", "Octavia", 40.0);
+        assertTrue(car.isAvailable());
+        assertFalse(car.isRented());
+        assertFalse(car.isPaid());
+
+        car.setRented(true);
+        car.setPaid(true);
+        car.setAvailable(false);
+        assertTrue(car.isRented());
+        assertTrue(car.isPaid());
+        assertFalse(car.isAvailable());
+
+        car.setRented(false);
+        assertFalse(car.isRented());
+        assertTrue(car.isPaid());
+        assertFalse(car.isAvailable());
+    }
+
+    //A booking far in the future must go through VehicleManager and leave the vehicle showing it.
+    @Test
+    void rentVehicle_acceptsFarFutureBooking() throws Exception {
+        VehicleDAO vehicleDAO = Mockito.mock(VehicleDAO.class);
+        RentalDAO rentalDAO = Mockito.mock(RentalDAO.class);
+        Mockito.when(vehicleDAO.updateVehicle(any())).thenReturn(true);
+        VehicleManager manager = new VehicleManager(vehicleDAO, rentalDAO);
+        manager.addVehicle(new Car("C1", "Skoda", "Octavia", 40.0));
+        LocalDateTime start = LocalDateTime.of(2300, 5, 1, 9, 0);
+
+        assertTrue(manager.rentVehicle("C1", "bob", start, start.plusDays(2), false));
+
+        Vehicle car = manager.findVehicleById("C1");
+        assertEquals(start, car.getRentStartDateTime());
+        assertFalse(manager.isAvailableDuring("C1", start.plusDays(1), start.plusDays(3)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.dao.BatchResult;
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Motorcycle;
+import com.vehiclerental.models.Van;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.VehicleManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JMH benchmark for VehicleManager.searchAvailable on a fleet of 10k and 50k vehicles.
+ * Each vehicle carries a booking of 1-3 days every few days over the next 90 days (about 40% utilisation), so
+ * most vehicles are busy at some point of a random three-day window. linearScanBaseline checks every vehicle
+ * and sorts, for comparison.
+ * soldOutVans searches a peak window in which every vehicle but one in a thousand is booked, so fewer vehicles
+ * are free than asked for; the booked-days index must rule the booked vans out without checking them one by one.
+ * Run with: mvn -Pbench test-compile -Dbench=AvailabilitySearchBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilitySearchBenchmark {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2030, 1, 7, 9, 0);
+    // a week after the regular schedule ends, booked out for the sold-out case
+    private static final LocalDateTime PEAK = EPOCH.plusDays(100);
+
+    @Param({"10000", "50000"})
+    int fleetSize;
+
+    VehicleManager manager;
+    List<Vehicle> fleet;
+    Random random;
+
+    @Setup
+    public void setUp() {
+        // DAO stubs: no database, every write succeeds
+        VehicleDAO vehicleDAO = new VehicleDAO() {
+            @Override
+            public BatchResult saveVehicles(Collection<? extends Vehicle> vehicles) {
+                return new BatchResult(vehicles.size(), vehicles.size(), List.of());
+            }
+
+            @Override
+            public boolean updateVehicle(Vehicle vehicle) {
+                return true;
+            }
+        };
+        RentalDAO rentalDAO = new RentalDAO() {
+            @Override
+            public long insertRental(Vehicle vehicle) {
+                return 0;
+            }
+        };
+        manager = new VehicleManager(vehicleDAO, rentalDAO);
+        random = new Random(42);
+
+        fleet = new ArrayList<>(fleetSize);
+        for (int i = 0; i < fleetSize; i++) {
+            double price = 20 + random.nextInt(180);
+            fleet.add(switch (i % 3) {
+                case 0 -> new Car("C" + i, "Ford", "Focus", price);
+                case 1 -> new Van("V" + i, "Ford", "Transit", price);
+                default -> new Motorcycle("M" + i, "Honda", "CB500", price);
+            });
+        }
+        manager.addVehicles(fleet);
+        for (Vehicle vehicle : fleet) {
+            // bookings of 1-3 days separated by gaps of 1-7 days; a random phase keeps schedules independent
+            LocalDateTime start = EPOCH.minusHours(random.nextInt(240));
+            while (start.isBefore(EPOCH.plusDays(90))) {
+                LocalDateTime end = start.plusHours(24 + random.nextInt(48));
+                manager.rentVehicle(vehicle.getId(), "bench", start, end, true);
+                start = end.plusHours(24 + random.nextInt(144));
+            }
+        }
+        for (int i = 0; i < fleet.size(); i++) {
+            if (i % 1000 != 0) manager.rentVehicle(fleet.get(i).getId(), "bench", PEAK, PEAK.plusDays(4), true);
+        }
+    }
+
+    private LocalDateTime randomStart() {
+        return EPOCH.plusDays(random.nextInt(85)).plusHours(random.nextInt(10));
+    }
+
+    @Benchmark
+    public List<Vehicle> cheapestVans() {
+        LocalDateTime start = randomStart();
+        return manager.searchAvailable(start, start.plusDays(3), "Van", 150.0, 10);
+    }
+
+    @Benchmark
+    public List<Vehicle> cheapestAnyType() {
+        LocalDateTime start = randomStart();
+        return manager.searchAvailable(start, start.plusDays(3), null, null, 10);
+    }
+
+    @Benchmark
+    public List<Vehicle> soldOutVans() {
+        LocalDateTime start = PEAK.plusHours(random.nextInt(24));
+        return manager.searchAvailable(start, start.plusDays(2), "Van", 150.0, 10);
+    }
+
+    @Benchmark
+    public List<Vehicle> linearScanBaseline() {
+        LocalDateTime start = randomStart();
+        LocalDateTime end = start.plusDays(3);
+        return fleet.stream()
+                .filter(v -> v.getVehicleType().equals("Van") && v.getPricePerDay() <= 150.0
+                        && manager.isAvailableForPeriod(v, start, end))
+                .sorted((a, b) -> Double.compare(a.getPricePerDay(), b.getPricePerDay()))
+                .limit(10)
+                .toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.VehicleManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * JMH benchmark for booking throughput: threads rent a random vehicle for a random period and cancel it again,
+ * racing each other on a small fleet so the per-vehicle locks are contended.
+ * Run with: mvn -Pbench test-compile -Dbench=BookingThroughputBenchmark (add -t <n> to the JMH arguments to vary the threads)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class BookingThroughputBenchmark {
+
+    private static final int VEHICLES = 8;
+
+    VehicleManager manager;
+    LocalDateTime base;
+
+    @State(Scope.Thread)
+    public static class Renter {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        final String name = "user" + NEXT.getAndIncrement();
+    }
+
+    @Setup
+    public void setUp() {
+        // DAO stubs: no database, every write succeeds
+        VehicleDAO vehicleDAO = new VehicleDAO() {
+            @Override
+            public void saveVehicle(Vehicle vehicle) { }
+
+            @Override
+            public boolean updateVehicle(Vehicle vehicle) {
+                return true;
+            }
+        };
+        RentalDAO rentalDAO = new RentalDAO() {
+            @Override
+            public long insertRental(Vehicle vehicle) {
+                return 0;
+            }
+
+            @Override
+            public void cancelRental(Booking booking) { }
+        };
+        manager = new VehicleManager(vehicleDAO, rentalDAO);
+        for (int i = 0; i < VEHICLES; i++) {
+            manager.addVehicle(new Car("C" + i, "VW", "Golf", 30.0));
+        }
+        base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Benchmark
+    public boolean rentAndCancel(Renter renter) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String vehicleId = "C" + random.nextInt(VEHICLES);
+        LocalDateTime start = base.plusHours(random.nextInt(500));
+        if (!manager.rentVehicle(vehicleId, renter.name, start, start.plusHours(1 + random.nextInt(12)), false)) return false;
+        return manager.cancelUpcomingBooking(vehicleId, renter.name, start);
+    }
+}
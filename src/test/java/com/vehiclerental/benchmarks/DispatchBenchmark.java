@@ -0,0 +1,85 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.models.User;
+import com.vehiclerental.services.DispatchConfig;
+import com.vehiclerental.services.LocalMailChannel;
+import com.vehiclerental.services.NotificationChannel;
+import com.vehiclerental.services.NotificationDispatcher;
+import com.vehiclerental.services.OutboundMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JMH benchmark for a burst of 200 reminder alerts against a mail provider that takes 1ms per session.
+ * submitOnly is how long the thread raising the alerts (the deadline scheduler, or booking code) is held up by
+ * the dispatcher; submitAndDrain adds the time until every alert has been sent in batches; inline sends each alert
+ * on the raising thread, one session each, as a synchronous sender would.
+ * Run with: mvn -Pbench test-compile -Dbench=DispatchBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final int BURST = 200;
+
+    LocalMailChannel mail;
+    NotificationDispatcher dispatcher;
+    User user;
+    long round;
+
+    @Setup
+    public void setUp() {
+        mail = new LocalMailChannel();
+        mail.setLatency(Duration.ofMillis(1));
+        user = new User("alice", "pw", "CUSTOMER", "Alice", "alice@example.com", "1", "Street 1");
+        DispatchConfig config = new DispatchConfig(10_000, 50, Duration.ofMillis(2), 4, 5,
+                Duration.ofMillis(10), Duration.ofMillis(100), 1_000_000);
+        dispatcher = new NotificationDispatcher(config, username -> user, List.<NotificationChannel>of(mail));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dispatcher.close();
+    }
+
+    //Lets the previous burst finish sending, so every invocation starts with an empty queue.
+    @Setup(Level.Invocation)
+    public void drain() {
+        dispatcher.awaitIdle(Duration.ofSeconds(10));
+    }
+
+    @Benchmark
+    public int submitOnly() {
+        long r = ++round;
+        int queued = 0;
+        for (int i = 0; i < BURST; i++) {
+            OutboundMessage message = new OutboundMessage("DUE_SOON:" + r + ":" + i, "alice", "Reminder", "Reminder " + i);
+            if (dispatcher.submit(message) == NotificationDispatcher.Outcome.QUEUED) queued++;
+        }
+        return queued;
+    }
+
+    @Benchmark
+    public boolean submitAndDrain() {
+        submitOnly();
+        return dispatcher.awaitIdle(Duration.ofSeconds(10));
+    }
+
+    @Benchmark
+    public int inline() throws IOException {
+        long r = ++round;
+        for (int i = 0; i < BURST; i++) {
+            OutboundMessage message = new OutboundMessage("DUE_SOON:" + r + ":" + i, "alice", "Reminder", "Reminder " + i);
+            mail.send(List.of(new NotificationChannel.Delivery(mail.addressOf(user), message)));
+        }
+        return BURST;
+    }
+}
@@ -0,0 +1,105 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.dao.BatchResult;
+import com.vehiclerental.dao.OffHeapFleetStore;
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.models.VehicleType;
+import com.vehiclerental.services.VehicleManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JMH benchmark for the off-heap fleet store against VehicleManager's heap state at 100k and 1M vehicles, each
+ * with a two-day booking somewhere in the next 60 days: an availability check by (lower-case) ID and a full scan
+ * for the five cheapest free vans.
+ * Run with -prof gc to compare allocation and GC time: mvn -Pbench test-compile -Dbench="FleetStoreBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FleetStoreBenchmark {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    @Param({"100000", "1000000"})
+    int fleetSize;
+
+    VehicleManager manager;
+    OffHeapFleetStore store;
+    String[] ids;
+    int[] found = new int[5];
+
+    @Setup
+    public void setUp() {
+        // DAO stubs: no database, every bulk save succeeds
+        VehicleDAO vehicleDAO = new VehicleDAO() {
+            @Override
+            public BatchResult saveVehicles(Collection<? extends Vehicle> vehicles) {
+                return new BatchResult(vehicles.size(), vehicles.size(), List.of());
+            }
+        };
+        manager = new VehicleManager(vehicleDAO, new RentalDAO());
+        store = OffHeapFleetStore.allocate(fleetSize, fleetSize);
+        List<Vehicle> fleet = new ArrayList<>(fleetSize);
+        ids = new String[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            ids[i] = "REG" + i;
+            Vehicle vehicle = VehicleType.values()[i % 3].newVehicle(ids[i], "Ford", "Focus", 20.0 + i % 80);
+            LocalDateTime start = EPOCH.plusDays(i % 60);
+            vehicle.setRented(true);
+            vehicle.setAvailable(false);
+            vehicle.setRentedBy("user" + i % 1000);
+            vehicle.setRentStartDateTime(start);
+            vehicle.setRentEndDateTime(start.plusDays(2));
+            fleet.add(vehicle);
+            store.put(vehicle, List.of(new Booking(ids[i], vehicle.getRentedBy(), start, start.plusDays(2), false)));
+        }
+        manager.addVehicles(fleet);
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.close();
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)].toLowerCase(Locale.ROOT);
+    }
+
+    private static LocalDateTime randomStart() {
+        return EPOCH.plusHours(ThreadLocalRandom.current().nextInt(60 * 24));
+    }
+
+    @Benchmark
+    public boolean isAvailableHeap() {
+        LocalDateTime start = randomStart();
+        return manager.isAvailableDuring(randomId(), start, start.plusDays(1));
+    }
+
+    @Benchmark
+    public boolean isAvailableOffHeap() {
+        LocalDateTime start = randomStart();
+        int index = store.indexOf(randomId());
+        return index >= 0 && store.isAvailable(index, start, start.plusDays(1));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int scanCheapestVansOffHeap() {
+        LocalDateTime start = randomStart();
+        return store.searchAvailable(start, start.plusDays(1), VehicleType.VAN, Double.MAX_VALUE, found);
+    }
+}
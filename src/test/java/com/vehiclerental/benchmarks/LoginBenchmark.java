@@ -0,0 +1,49 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.dao.InMemoryUserRepository;
+import com.vehiclerental.services.AuthService;
+import com.vehiclerental.services.PasswordHasher;
+import com.vehiclerental.services.SessionStore;
+import com.vehiclerental.utils.StartupReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JMH benchmark for login throughput on one core (one thread) at the default PBKDF2 cost and a cheaper one:
+ * login checks the password hash, authenticate checks a session token as every call after login does.
+ * Run with: mvn -Pbench test-compile -Dbench=LoginBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    @Param({"600000", "100000"})
+    int iterations;
+
+    AuthService auth;
+    String token;
+
+    @Setup
+    public void setUp() {
+        auth = new AuthService(new InMemoryUserRepository(), new PasswordHasher(iterations),
+                SessionStore.configured(), new StartupReport());
+        auth.register("alice", "correct horse battery staple", "CUSTOMER");
+        token = auth.startSession("alice", "correct horse battery staple");
+    }
+
+    @Benchmark
+    public Object login() {
+        return auth.login("alice", "correct horse battery staple");
+    }
+
+    @Benchmark
+    public Object authenticate() {
+        return auth.authenticate(token);
+    }
+}
@@ -0,0 +1,76 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.AuthService;
+import com.vehiclerental.services.NotificationService;
+import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.utils.StartupReport;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JMH benchmark for the overdue list at 100k and 1M booked vehicles, 0.1% of them overdue: read from the deadline
+ * schedule (NotificationService) against the previous scan of every vehicle.
+ * Run with: mvn -Pbench test-compile -Dbench=NotificationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NotificationBenchmark {
+
+    @Param({"100000", "1000000"})
+    int fleetSize;
+
+    Storage storage;
+    VehicleManager manager;
+    NotificationService notifications;
+
+    @Setup
+    public void setUp() {
+        storage = Storage.inMemory();
+        manager = new VehicleManager(storage, new StartupReport());
+        List<Car> fleet = new ArrayList<>(fleetSize);
+        for (int i = 0; i < fleetSize; i++) fleet.add(new Car("REG" + i, "Ford", "Focus", 30.0));
+        manager.addVehicles(fleet);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < fleetSize; i++) {
+            // every thousandth booking ended yesterday, the rest start next week
+            LocalDateTime start = i % 1000 == 0 ? now.minusDays(3) : now.plusDays(7);
+            manager.rentVehicle("REG" + i, "user" + i, start, start.plusDays(2), false);
+        }
+        notifications = new NotificationService(manager, Mockito.mock(AuthService.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.shutdown();
+        storage.close();
+    }
+
+    @Benchmark
+    public List<String> scheduledOverdue() {
+        return notifications.getOverdueNotifications();
+    }
+
+    @Benchmark
+    public List<String> fullScanBaseline() {
+        List<String> overdue = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Vehicle vehicle : manager.getAllVehicles()) {
+            if (vehicle.getRentEndDateTime() != null && now.isAfter(vehicle.getRentEndDateTime()) && vehicle.isRented()) {
+                overdue.add("Overdue: " + vehicle + " was due on " + vehicle.getRentEndDateTime());
+            }
+        }
+        return overdue;
+    }
+}
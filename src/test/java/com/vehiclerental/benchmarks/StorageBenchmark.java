@@ -0,0 +1,108 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.dao.BookingDAO;
+import com.vehiclerental.dao.Storage;
+import com.vehiclerental.models.Booking;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.BookingResult;
+import com.vehiclerental.services.VehicleManager;
+import com.vehiclerental.utils.StartupReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * JMH benchmark splitting a booking's latency into storage and business logic, offline, on the in-memory and the
+ * embedded (log file) storage backends.
+ * rentAndReturn books and returns a random vehicle of 1000 through VehicleManager; storageCallsOnly makes the same
+ * repository writes (the booking transaction, then the vehicle update and rental close of the return) directly.
+ * On "memory" storage costs next to nothing, so rentAndReturn is the business logic; the gap between the two
+ * methods is the business logic on any backend.
+ * Run with: mvn -Pbench test-compile -Dbench=StorageBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int FLEET_SIZE = 1000;
+    private static final LocalDateTime START = LocalDateTime.of(2031, 6, 1, 9, 0);
+    private static final LocalDateTime END = START.plusDays(2);
+
+    @Param({"memory", "embedded"})
+    String backend;
+
+    Path dir;
+    Storage storage;
+    VehicleManager manager;
+    BookingDAO bookingDAO;
+    Vehicle[] rows;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        if (backend.equals("memory")) {
+            storage = Storage.inMemory();
+        } else {
+            dir = Files.createTempDirectory("storage-bench");
+            storage = Storage.embedded(dir);
+        }
+        manager = new VehicleManager(storage, new StartupReport());
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            manager.addVehicle(new Car("REG" + i, "Ford", "Focus", 30.0));
+        }
+        bookingDAO = new BookingDAO(storage.vehicles(), storage.rentals());
+        rows = new Vehicle[FLEET_SIZE];
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            rows[i] = storage.vehicles().getVehicleById("REG" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storage.close();
+        if (dir != null) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public BookingResult rentAndReturn() {
+        String id = "REG" + ThreadLocalRandom.current().nextInt(FLEET_SIZE);
+        manager.tryRent(id, "bench", START, END, false);
+        return manager.tryReturn(id);
+    }
+
+    @Benchmark
+    public boolean storageCallsOnly() throws SQLException {
+        Vehicle row = rows[ThreadLocalRandom.current().nextInt(FLEET_SIZE)];
+        Booking booking = new Booking(row.getId(), "bench", START, END, false);
+        row.setRented(true);
+        row.setAvailable(false);
+        row.setRentedBy(booking.rentedBy());
+        row.setRentStartDateTime(START);
+        row.setRentEndDateTime(END);
+        bookingDAO.commitBooking(row, row);
+
+        row.setRented(false);
+        row.setAvailable(true);
+        row.setRentedBy(null);
+        row.setRentStartDateTime(null);
+        row.setRentEndDateTime(null);
+        storage.vehicles().updateVehicle(row);
+        return storage.rentals().markRentalReturned(booking);
+    }
+}
@@ -0,0 +1,114 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.models.VehicleType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Heap bytes per vehicle for 100k and 1M vehicles, built the way VehicleDAO builds them: every row brings its own
+ * brand, model and renter strings, and half of the fleet is rented with a start and end time.
+ * compactLayout measures Vehicle as it is now; legacyLayout measures the previous layout (separate String fields,
+ * two LocalDateTime objects, one boolean per flag), reproduced below for comparison.
+ * The result to read is the bytesPerVehicle counter, not the time.
+ * Run with: mvn -Pbench test-compile -Dbench=VehicleFootprintBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1) // EVENTS counters are summed over iterations: one keeps bytesPerVehicle per vehicle
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class VehicleFootprintBenchmark {
+
+    private static final String[] BRANDS = {"Ford", "Volkswagen", "Toyota", "Skoda", "Renault", "Peugeot", "Kia", "BMW"};
+    private static final String[] MODELS = {"Focus", "Golf", "Corolla", "Octavia", "Clio", "208", "Ceed", "320d",
+            "Transit", "Crafter", "Hiace", "Kangoo"};
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    @Param({"100000", "1000000"})
+    int fleetSize;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double bytesPerVehicle;
+    }
+
+    @Benchmark
+    public void compactLayout(Footprint footprint, Blackhole bh) {
+        long before = usedHeap();
+        Vehicle[] fleet = new Vehicle[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            Vehicle v = VehicleType.values()[i % 3].newVehicle("REG" + i, row(BRANDS, i), row(MODELS, i), 30.0 + i % 50);
+            if (i % 2 == 0) {
+                v.setRented(true);
+                v.setAvailable(false);
+                v.setRentedBy(new String("user" + i % 5000));
+                v.setRentStartDateTime(EPOCH.plusHours(i % 2000));
+                v.setRentEndDateTime(EPOCH.plusHours(i % 2000 + 48));
+            }
+            fleet[i] = v;
+        }
+        footprint.bytesPerVehicle = (double) (usedHeap() - before) / fleetSize;
+        bh.consume(fleet.length);
+        Reference.reachabilityFence(fleet);
+    }
+
+    @Benchmark
+    public void legacyLayout(Footprint footprint, Blackhole bh) {
+        long before = usedHeap();
+        LegacyVehicle[] fleet = new LegacyVehicle[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            LegacyVehicle v = new LegacyVehicle("REG" + i, row(BRANDS, i), row(MODELS, i), 30.0 + i % 50);
+            if (i % 2 == 0) {
+                v.rented = true;
+                v.available = false;
+                v.rentedBy = new String("user" + i % 5000);
+                v.rentStartDateTime = EPOCH.plusHours(i % 2000);
+                v.rentEndDateTime = EPOCH.plusHours(i % 2000 + 48);
+            }
+            fleet[i] = v;
+        }
+        footprint.bytesPerVehicle = (double) (usedHeap() - before) / fleetSize;
+        bh.consume(fleet.length);
+        Reference.reachabilityFence(fleet);
+    }
+
+    //A fresh copy of a column value, as a JDBC driver returns for each row.
+    private static String row(String[] values, int i) {
+        return new String(values[i % values.length]);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    //The Vehicle fields before the compact layout.
+    private static final class LegacyVehicle {
+        String id;
+        String brand;
+        String model;
+        double pricePerDay;
+        boolean available = true;
+        boolean rented;
+        LocalDateTime rentStartDateTime;
+        LocalDateTime rentEndDateTime;
+        boolean paid;
+        String rentedBy;
+        long version;
+
+        LegacyVehicle(String id, String brand, String model, double pricePerDay) {
+            this.id = id;
+            this.brand = brand;
+            this.model = model;
+            this.pricePerDay = pricePerDay;
+        }
+    }
+}
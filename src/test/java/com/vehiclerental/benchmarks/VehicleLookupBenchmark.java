@@ -0,0 +1,77 @@
+package com.vehiclerental.benchmarks;
+
+import com.vehiclerental.dao.BatchResult;
+import com.vehiclerental.dao.RentalDAO;
+import com.vehiclerental.dao.VehicleDAO;
+import com.vehiclerental.models.Car;
+import com.vehiclerental.models.Vehicle;
+import com.vehiclerental.services.VehicleManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JMH benchmark for VehicleManager.findVehicleById at 100k and 1M vehicles.
+ * linearScanBaseline reproduces the previous stream-and-equalsIgnoreCase lookup for comparison.
+ * Run with: mvn -Pbench test-compile -Dbench=VehicleLookupBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VehicleLookupBenchmark {
+
+    @Param({"100000", "1000000"})
+    int fleetSize;
+
+    VehicleManager manager;
+    List<Vehicle> list;
+    String[] ids;
+
+    @Setup
+    public void setUp() {
+        // DAO stubs: no database, every bulk save succeeds
+        VehicleDAO vehicleDAO = new VehicleDAO() {
+            @Override
+            public BatchResult saveVehicles(Collection<? extends Vehicle> vehicles) {
+                return new BatchResult(vehicles.size(), vehicles.size(), List.of());
+            }
+        };
+        manager = new VehicleManager(vehicleDAO, new RentalDAO());
+        list = new ArrayList<>(fleetSize);
+        ids = new String[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            ids[i] = "REG" + i;
+            list.add(new Car(ids[i], "Ford", "Focus", 30.0));
+        }
+        manager.addVehicles(list);
+    }
+
+    private String randomId() {
+        // lower-case to exercise the case-insensitive key normalisation
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)].toLowerCase(Locale.ROOT);
+    }
+
+    @Benchmark
+    public Vehicle registryLookup() {
+        return manager.findVehicleById(randomId());
+    }
+
+    @Benchmark
+    public Vehicle registryMiss() {
+        return manager.findVehicleById("NOPE" + ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    public Vehicle linearScanBaseline() {
+        String id = randomId();
+        return list.stream().filter(v -> v.getId().equalsIgnoreCase(id)).findFirst().orElse(null);
+    }
+}